@@ -0,0 +1,121 @@
+package org.cis1200.minesweeper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of one GameMetrics.Action: how often it ran, how long it
+ * took, the work it did and the bytes it allocated. Safe to update from
+ * several threads (saves run on their own). Registered over JMX as
+ * org.cis1200.minesweeper:type=Metrics,action=NAME.
+ */
+public final class ActionMetrics implements ActionMetricsMBean {
+
+    private final GameMetrics.Action action;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder amount = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+    private final AtomicLong lastNanos = new AtomicLong();
+    private final AtomicLong lastAmount = new AtomicLong();
+
+    ActionMetrics(GameMetrics.Action action) {
+        this.action = action;
+    }
+
+    void add(long time, long work, long bytes) {
+        count.increment();
+        nanos.add(time);
+        maxNanos.accumulate(time);
+        amount.add(work);
+        allocated.add(bytes);
+        lastNanos.set(time);
+        lastAmount.set(work);
+    }
+
+    @Override
+    public String getAction() {
+        return action.getLabel();
+    }
+
+    @Override
+    public String getUnit() {
+        return action.getUnit();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getTotalMillis() {
+        return nanos.sum() / 1e6;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : nanos.sum() / 1e6 / n;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public double getLastMillis() {
+        return lastNanos.get() / 1e6;
+    }
+
+    @Override
+    public long getTotalAmount() {
+        return amount.sum();
+    }
+
+    @Override
+    public double getMeanAmount() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) amount.sum() / n;
+    }
+
+    @Override
+    public long getLastAmount() {
+        return lastAmount.get();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocated.sum();
+    }
+
+    @Override
+    public double getAllocatedBytesPerCall() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) allocated.sum() / n;
+    }
+
+    @Override
+    public void reset() {
+        count.reset();
+        nanos.reset();
+        maxNanos.reset();
+        amount.reset();
+        allocated.reset();
+        lastNanos.set(0);
+        lastAmount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s: %d calls, mean %.3f ms, max %.3f ms, %.1f %s per call, %.0f B allocated"
+                        + " per call",
+                getAction(), getCount(), getMeanMillis(), getMaxMillis(), getMeanAmount(),
+                getUnit(), getAllocatedBytesPerCall()
+        );
+    }
+}
@@ -0,0 +1,34 @@
+package org.cis1200.minesweeper;
+
+/**
+ * JMX view of one action's totals; see ActionMetrics.
+ */
+public interface ActionMetricsMBean {
+    String getAction();
+
+    // Unit of the work amounts, for instance "cells revealed".
+    String getUnit();
+
+    long getCount();
+
+    double getTotalMillis();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    double getLastMillis();
+
+    long getTotalAmount();
+
+    double getMeanAmount();
+
+    long getLastAmount();
+
+    // Bytes allocated by the calling thread during the calls.
+    long getAllocatedBytes();
+
+    double getAllocatedBytesPerCall();
+
+    void reset();
+}
@@ -0,0 +1,197 @@
+package org.cis1200.minesweeper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Headless engine that plays many games without Swing. Games are given by a
+ * list of seeds and spread over a fixed thread pool; every worker owns one
+ * model and one MovePolicy and reuses them for all of its games, so the only
+ * per-game cost is generating the board and playing it. The model is a
+ * Minesweeper without a journal unless another MinesweeperModel backend,
+ * such as BitboardMinesweeper, is given. Backends lay out mines differently
+ * for the same seed, so their win rates agree only statistically.
+ */
+public class BatchSimulator {
+
+    // Seeds handed to a worker at a time; large enough that workers rarely
+    // contend on the shared index, small enough to balance the load.
+    private static final int BATCH = 256;
+
+    private final BoardConfig config;
+    private final Function<BoardConfig, MinesweeperModel> games;
+    private final Supplier<MovePolicy> policies;
+    private final int threads;
+
+    public BatchSimulator(BoardConfig config, Supplier<MovePolicy> policies, int threads) {
+        this(config, c -> new Minesweeper(c, false), policies, threads);
+    }
+
+    // Plays on the models games makes, one per worker.
+    public BatchSimulator(
+            BoardConfig config, Function<BoardConfig, MinesweeperModel> games,
+            Supplier<MovePolicy> policies, int threads
+    ) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread");
+        }
+        this.config = config;
+        this.games = games;
+        this.policies = policies;
+        this.threads = threads;
+    }
+
+    /**
+     * Totals for one simulation run.
+     */
+    public static final class Result {
+        private final long games;
+        private final long wins;
+        private final long moves;
+        private final long nanos;
+
+        Result(long games, long wins, long moves, long nanos) {
+            this.games = games;
+            this.wins = wins;
+            this.moves = moves;
+            this.nanos = nanos;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getWins() {
+            return wins;
+        }
+
+        public long getMoves() {
+            return moves;
+        }
+
+        public double getWinRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        public double getMovesPerGame() {
+            return games == 0 ? 0 : (double) moves / games;
+        }
+
+        public double getGamesPerSecond() {
+            return nanos == 0 ? 0 : games / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%d games, win rate %.2f%%, %.1f moves/game, %.0f games/s",
+                    games, 100 * getWinRate(), getMovesPerGame(), getGamesPerSecond()
+            );
+        }
+    }
+
+    // Plays games with seeds firstSeed, firstSeed + 1, ... firstSeed + games - 1.
+    public Result simulate(long firstSeed, int games) {
+        long[] seeds = new long[games];
+        for (int i = 0; i < games; i++) {
+            seeds[i] = firstSeed + i;
+        }
+        return simulate(seeds);
+    }
+
+    // Plays one game per seed and returns the combined totals.
+    public Result simulate(long[] seeds) {
+        AtomicInteger next = new AtomicInteger();
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> runWorker(seeds, next)));
+            }
+            long wins = 0;
+            long moves = 0;
+            for (Future<long[]> worker : workers) {
+                long[] totals = worker.get();
+                wins += totals[0];
+                moves += totals[1];
+            }
+            return new Result(seeds.length, wins, moves, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Claims batches of seeds until none are left. Returns {wins, moves}.
+    private long[] runWorker(long[] seeds, AtomicInteger next) {
+        MinesweeperModel game = games.apply(config);
+        MovePolicy policy = policies.get();
+        long wins = 0;
+        long moves = 0;
+        int from;
+        while ((from = next.getAndAdd(BATCH)) < seeds.length) {
+            int to = Math.min(seeds.length, from + BATCH);
+            for (int k = from; k < to; k++) {
+                long seed = seeds[k];
+                game.reset(seed);
+                policy.newGame(game);
+                // The policy's own randomness is tied to the seed too, so a
+                // game can be replayed from its seed alone.
+                SplittableRandom rng = new SplittableRandom(~seed);
+                int limit = game.getNumRows() * game.getNumColumns();
+                boolean won = false;
+                for (int m = 0; m < limit && !game.getGameOver(); m++) {
+                    int cell = policy.nextMove(game, rng);
+                    if (game.checkWinner()) {
+                        // The policy finished the game by flagging.
+                        won = true;
+                        break;
+                    }
+                    if (cell < 0) {
+                        break;
+                    }
+                    game.playTurn(cell % game.getNumColumns(), cell / game.getNumColumns());
+                    moves++;
+                    if (game.checkWinner()) {
+                        won = true;
+                    }
+                }
+                if (won) {
+                    wins++;
+                }
+            }
+        }
+        return new long[] {wins, moves};
+    }
+
+    // Runs a batch from the command line.
+    // Arguments: difficulty [games] [threads] [random|solver] [packed|bitboard],
+    // e.g. "EXPERT 1000000 8 solver bitboard".
+    public static void main(String[] args) {
+        BoardConfig config = BoardConfig.preset(
+                BoardConfig.Difficulty.valueOf(args.length > 0 ? args[0] : "BEGINNER")
+        );
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int threads = args.length > 2
+                ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Supplier<MovePolicy> policy = args.length > 3 && args[3].equals("solver")
+                ? MovePolicy::solver : MovePolicy::random;
+        BatchSimulator simulator = args.length > 4 && args[4].equals("bitboard")
+                ? new BatchSimulator(config, BitboardMinesweeper::new, policy, threads)
+                : new BatchSimulator(config, policy, threads);
+        System.out.println(config + ", " + threads + " threads: " + simulator.simulate(0, games));
+    }
+}
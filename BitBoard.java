@@ -0,0 +1,603 @@
+package org.cis1200.minesweeper;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A Minesweeper board as bitsets: each row of mines, revealed cells and flags
+ * is a run of longs, 64 columns to a word, and the adjacent-mine counts are
+ * four bit planes of the same shape (bit k of the count is in plane k), with
+ * a fifth plane of the safe cells whose count is 0. Bits past the last column
+ * are always clear.
+ * Whole words are worked on at once. Counting shifts the mine rows around a
+ * word to get its eight neighbors and adds them with bitwise full adders, a
+ * carry-save sum of 64 cells in about forty operations. Flood fill grows the
+ * region of zero cells row by row with shifts and masks and then reveals the
+ * region and its border in one pass, and totals are popcounts.
+ */
+final class BitBoard {
+
+    private final int rows;
+    private final int columns;
+    // Words per row, and the valid bits of the last word of a row.
+    private final int words;
+    private final long lastMask;
+
+    private final long[] mines;
+    private final long[] revealed;
+    private final long[] flagged;
+    private final long[] count0;
+    private final long[] count1;
+    private final long[] count2;
+    private final long[] count3;
+    // Safe cells with no adjacent mines, kept with the counts.
+    private final long[] zero;
+
+    // Flood fill scratch, kept between fills: the zero region found so far,
+    // and the first and last word of it on each row (first > last while the
+    // row has none), cleared again after each fill; the rows waiting to be
+    // grown and their range; and one row of seeds and one of zero cells.
+    private long[] region;
+    private int[] first;
+    private int[] last;
+    private boolean[] dirty;
+    private int dirtyFrom;
+    private int dirtyTo;
+    private long[] line;
+    private long[] zeros;
+    private int flagsCleared;
+    // Words the last fill revealed bits in, and those bits, in the order
+    // they were revealed.
+    private int[] openedWords = new int[16];
+    private long[] openedBits = new long[16];
+    private int openedCount;
+
+    BitBoard(int rows, int columns) {
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("Board must be at least 1x1");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        words = (columns + 63) >>> 6;
+        if ((long) rows * words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Board too large: " + rows + "x" + columns);
+        }
+        int tail = columns & 63;
+        lastMask = tail == 0 ? -1L : (1L << tail) - 1;
+        int length = rows * words;
+        mines = new long[length];
+        revealed = new long[length];
+        flagged = new long[length];
+        count0 = new long[length];
+        count1 = new long[length];
+        count2 = new long[length];
+        count3 = new long[length];
+        zero = new long[length];
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    int getColumns() {
+        return columns;
+    }
+
+    int size() {
+        return rows * columns;
+    }
+
+    boolean inBounds(int r, int c) {
+        return r >= 0 && r < rows && c >= 0 && c < columns;
+    }
+
+    private int word(int r, int c) {
+        return r * words + (c >>> 6);
+    }
+
+    boolean isMine(int r, int c) {
+        return (mines[word(r, c)] & (1L << c)) != 0;
+    }
+
+    boolean isRevealed(int r, int c) {
+        return (revealed[word(r, c)] & (1L << c)) != 0;
+    }
+
+    boolean isFlagged(int r, int c) {
+        return (flagged[word(r, c)] & (1L << c)) != 0;
+    }
+
+    int getAdjacentMines(int r, int c) {
+        int w = word(r, c);
+        int shift = c & 63;
+        return (int) ((count0[w] >>> shift) & 1 | ((count1[w] >>> shift) & 1) << 1
+                | ((count2[w] >>> shift) & 1) << 2 | ((count3[w] >>> shift) & 1) << 3);
+    }
+
+    void setFlagged(int r, int c, boolean flag) {
+        int w = word(r, c);
+        flagged[w] = flag ? flagged[w] | (1L << c) : flagged[w] & ~(1L << c);
+    }
+
+    // Clears every mine, flag and revealed cell.
+    void clear() {
+        Arrays.fill(mines, 0);
+        Arrays.fill(revealed, 0);
+        Arrays.fill(flagged, 0);
+        Arrays.fill(count0, 0);
+        Arrays.fill(count1, 0);
+        Arrays.fill(count2, 0);
+        Arrays.fill(count3, 0);
+        Arrays.fill(zero, 0);
+    }
+
+    // Places numMines mines as MineGenerator.placeMines does for a first
+    // click on (r, c): the same draws from rng, so the same seed gives the
+    // same layout on both boards, with the same opening kept clear. An r of
+    // -1 keeps no cell clear. Then counts the adjacent mines.
+    void placeMines(int numMines, SplittableRandom rng, int r, int c) {
+        int[] excluded = r < 0
+                ? new int[0] : MineGenerator.openingCells(rows, columns, numMines, r, c);
+        int n = size() - excluded.length;
+        if (numMines < 0 || numMines > n) {
+            throw new IllegalArgumentException(
+                    "Cannot place " + numMines + " mines on " + n + " cells"
+            );
+        }
+        for (int j = n - numMines; j < n; j++) {
+            int t = skipExcluded(rng.nextInt(j + 1), excluded);
+            if (isMine(t / columns, t % columns)) {
+                t = skipExcluded(j, excluded);
+            }
+            mines[word(t / columns, t % columns)] |= 1L << (t % columns);
+        }
+        countAdjacentMines();
+    }
+
+    private static int skipExcluded(int t, int[] excluded) {
+        for (int e : excluded) {
+            if (t >= e) {
+                t++;
+            }
+        }
+        return t;
+    }
+
+    // Recomputes every adjacent-mine count, 64 cells per step. The eight
+    // neighbor masks of a word are added with full and half adders into a
+    // 4-bit count per bit position.
+    void countAdjacentMines() {
+        for (int r = 0; r < rows; r++) {
+            int above = r > 0 ? (r - 1) * words : -1;
+            int here = r * words;
+            int below = r + 1 < rows ? (r + 1) * words : -1;
+            // The words before, at and after w of the three rows, moved
+            // along one word at a time.
+            long upBefore = 0;
+            long up = at(above, 0);
+            long midBefore = 0;
+            long mid = at(here, 0);
+            long downBefore = 0;
+            long down = at(below, 0);
+            for (int w = 0; w < words; w++) {
+                long upAfter = at(above, w + 1);
+                long midAfter = at(here, w + 1);
+                long downAfter = at(below, w + 1);
+                long upLeft = (up << 1) | (upBefore >>> 63);
+                long upRight = (up >>> 1) | (upAfter << 63);
+                long left = (mid << 1) | (midBefore >>> 63);
+                long right = (mid >>> 1) | (midAfter << 63);
+                long downLeft = (down << 1) | (downBefore >>> 63);
+                long downRight = (down >>> 1) | (downAfter << 63);
+
+                // Three full adders and a half adder give three sum bits of
+                // weight 1 and three carries of weight 2.
+                long s1 = upLeft ^ up ^ upRight;
+                long c1 = (upLeft & up) | (upRight & (upLeft ^ up));
+                long s2 = left ^ right ^ downLeft;
+                long c2 = (left & right) | (downLeft & (left ^ right));
+                long s3 = down ^ downRight;
+                long c3 = down & downRight;
+                long bit0 = s1 ^ s2 ^ s3;
+                long c4 = (s1 & s2) | (s3 & (s1 ^ s2));
+                // The weight-2 carries: c1 + c2 + c3 + c4.
+                long t1 = c1 ^ c2 ^ c3;
+                long d1 = (c1 & c2) | (c3 & (c1 ^ c2));
+                long bit1 = t1 ^ c4;
+                long d2 = t1 & c4;
+                // The weight-4 carries d1 + d2; both set means 8.
+                long mask = w == words - 1 ? lastMask : -1L;
+                int i = here + w;
+                count0[i] = bit0 & mask;
+                count1[i] = bit1 & mask;
+                count2[i] = (d1 ^ d2) & mask;
+                count3[i] = d1 & d2 & mask;
+                zero[i] = ~(bit0 | bit1 | d1 | d2 | mid) & mask;
+                upBefore = up;
+                up = upAfter;
+                midBefore = mid;
+                mid = midAfter;
+                downBefore = down;
+                down = downAfter;
+            }
+        }
+    }
+
+    // The w-th mine word of the row starting at rowStart, or 0 outside the
+    // board.
+    private long at(int rowStart, int w) {
+        return rowStart < 0 || w >= words ? 0 : mines[rowStart + w];
+    }
+
+    // Flags cleared by the last fill.
+    int getFlagsCleared() {
+        return flagsCleared;
+    }
+
+    // Reveals (r, c) like FloodFill.fill: nothing if it is a mine or already
+    // revealed, the cell alone if it has adjacent mines, and otherwise the
+    // connected hidden zero cells around it and every cell bordering them.
+    // Flags on revealed cells are cleared. Returns the number of cells
+    // revealed.
+    int fill(int r, int c) {
+        flagsCleared = 0;
+        openedCount = 0;
+        if (!inBounds(r, c) || isMine(r, c) || isRevealed(r, c)) {
+            return 0;
+        }
+        int w = word(r, c);
+        long bit = 1L << c;
+        if ((zero[w] & bit) == 0) {
+            revealed[w] |= bit;
+            opened(w, bit);
+            if ((flagged[w] & bit) != 0) {
+                flagged[w] &= ~bit;
+                flagsCleared = 1;
+            }
+            return 1;
+        }
+        if (region == null) {
+            region = new long[rows * words];
+            first = new int[rows];
+            last = new int[rows];
+            Arrays.fill(first, words);
+            Arrays.fill(last, -1);
+            dirty = new boolean[rows];
+            line = new long[words];
+            zeros = new long[words];
+        }
+        region[w] = bit;
+        first[r] = c >>> 6;
+        last[r] = c >>> 6;
+        grow(r);
+        int top = r;
+        int bottom = r;
+        dirtyFrom = rows;
+        dirtyTo = -1;
+        markDirty(r - 1);
+        markDirty(r + 1);
+        // Rows are grown in sweeps, alternately down and up the board, so a
+        // change reaches the rows ahead of it in the same sweep and the rows
+        // behind it in the next one.
+        boolean down = true;
+        while (dirtyFrom <= dirtyTo) {
+            int from = dirtyFrom;
+            int to = dirtyTo;
+            dirtyFrom = rows;
+            dirtyTo = -1;
+            int step = down ? 1 : -1;
+            int end = down ? to + 1 : from - 1;
+            for (int row = down ? from : to; row != end; row += step) {
+                if (!dirty[row]) {
+                    continue;
+                }
+                dirty[row] = false;
+                if (grow(row)) {
+                    top = Math.min(top, row);
+                    bottom = Math.max(bottom, row);
+                    markDirty(row - step);
+                    int ahead = row + step;
+                    if (ahead >= 0 && ahead < rows) {
+                        dirty[ahead] = true;
+                        end = down ? Math.max(end, ahead + 1) : Math.min(end, ahead - 1);
+                    }
+                }
+            }
+            down = !down;
+        }
+        int count = revealBorder(top, bottom);
+        for (int row = top; row <= bottom; row++) {
+            if (first[row] <= last[row]) {
+                Arrays.fill(region, row * words + first[row], row * words + last[row] + 1, 0);
+                first[row] = words;
+                last[row] = -1;
+            }
+        }
+        return count;
+    }
+
+    // Marks row, if it is on the board, to be grown in the next sweep.
+    private void markDirty(int row) {
+        if (row >= 0 && row < rows) {
+            dirty[row] = true;
+            dirtyFrom = Math.min(dirtyFrom, row);
+            dirtyTo = Math.max(dirtyTo, row);
+        }
+    }
+
+    // Adds to row's part of the region every hidden zero cell of row that
+    // touches the region in this row or the rows next to it, and every zero
+    // cell connected to those along the row. Only the words the region can
+    // reach are looked at. Returns whether the row changed.
+    private boolean grow(int row) {
+        int base = row * words;
+        int above = row > 0 ? base - words : -1;
+        int below = row + 1 < rows ? base + words : -1;
+        int from = words;
+        int to = -1;
+        for (int k = Math.max(0, row - 1); k <= Math.min(rows - 1, row + 1); k++) {
+            if (first[k] <= last[k]) {
+                from = Math.min(from, first[k] - (k == row ? 0 : 1));
+                to = Math.max(to, last[k] + (k == row ? 0 : 1));
+            }
+        }
+        from = Math.max(from, 0);
+        to = Math.min(to, words - 1);
+        for (int w = from; w <= to; w++) {
+            zeros[w] = zeros(base + w);
+            line[w] = (region[base + w] | spread(above, w) | spread(below, w)) & zeros[w];
+        }
+        // Runs of zeros are filled to the left (higher bits), carrying into
+        // the next word, and then to the right. A run that carries past the
+        // words looked at so far takes in the words it reaches.
+        long carry = 0;
+        for (int w = from; w < words; w++) {
+            if (w > to) {
+                if (carry == 0) {
+                    break;
+                }
+                zeros[w] = zeros(base + w);
+                line[w] = 0;
+                to = w;
+            }
+            long filled = fillLeft(line[w] | (carry & zeros[w]), zeros[w]);
+            line[w] = filled;
+            carry = filled >>> 63;
+        }
+        carry = 0;
+        for (int w = to; w >= 0; w--) {
+            if (w < from) {
+                if (carry == 0) {
+                    break;
+                }
+                zeros[w] = zeros(base + w);
+                line[w] = 0;
+                from = w;
+            }
+            long filled = fillRight(line[w] | ((carry << 63) & zeros[w]), zeros[w]);
+            line[w] = filled;
+            carry = filled & 1;
+        }
+        boolean changed = false;
+        int lo = words;
+        int hi = -1;
+        for (int w = from; w <= to; w++) {
+            if (line[w] != 0) {
+                lo = Math.min(lo, w);
+                hi = w;
+            }
+            if (line[w] != region[base + w]) {
+                region[base + w] = line[w];
+                changed = true;
+            }
+        }
+        first[row] = lo;
+        last[row] = hi;
+        return changed;
+    }
+
+    // The hidden zero cells of word i.
+    private long zeros(int i) {
+        return zero[i] & ~revealed[i];
+    }
+
+    // The region bits of the w-th word of the row starting at rowStart,
+    // widened by one column to each side.
+    private long spread(int rowStart, int w) {
+        if (rowStart < 0) {
+            return 0;
+        }
+        long x = region[rowStart + w];
+        long before = w > 0 ? region[rowStart + w - 1] : 0;
+        long after = w + 1 < words ? region[rowStart + w + 1] : 0;
+        return x | (x << 1) | (before >>> 63) | (x >>> 1) | (after << 63);
+    }
+
+    // Extends every set bit of seeds toward higher bits while through is set,
+    // in log steps (an occluded fill).
+    private static long fillLeft(long seeds, long through) {
+        seeds |= through & (seeds << 1);
+        through &= through << 1;
+        seeds |= through & (seeds << 2);
+        through &= through << 2;
+        seeds |= through & (seeds << 4);
+        through &= through << 4;
+        seeds |= through & (seeds << 8);
+        through &= through << 8;
+        seeds |= through & (seeds << 16);
+        through &= through << 16;
+        return seeds | (through & (seeds << 32));
+    }
+
+    // The same toward lower bits.
+    private static long fillRight(long seeds, long through) {
+        seeds |= through & (seeds >>> 1);
+        through &= through >>> 1;
+        seeds |= through & (seeds >>> 2);
+        through &= through >>> 2;
+        seeds |= through & (seeds >>> 4);
+        through &= through >>> 4;
+        seeds |= through & (seeds >>> 8);
+        through &= through >>> 8;
+        seeds |= through & (seeds >>> 16);
+        through &= through >>> 16;
+        return seeds | (through & (seeds >>> 32));
+    }
+
+    // Reveals the region in rows top to bottom and its 8-neighbor border,
+    // none of which are mines, clearing flags on them. Returns the number of
+    // cells newly revealed.
+    private int revealBorder(int top, int bottom) {
+        int count = 0;
+        for (int row = Math.max(0, top - 1); row <= Math.min(rows - 1, bottom + 1); row++) {
+            int base = row * words;
+            int from = words;
+            int to = -1;
+            for (int k = Math.max(top, row - 1); k <= Math.min(bottom, row + 1); k++) {
+                if (first[k] <= last[k]) {
+                    from = Math.min(from, first[k] - 1);
+                    to = Math.max(to, last[k] + 1);
+                }
+            }
+            int above = row > top ? base - words : -1;
+            int below = row < bottom ? base + words : -1;
+            int here = row >= top && row <= bottom ? base : -1;
+            for (int w = Math.max(from, 0); w <= Math.min(to, words - 1); w++) {
+                int i = base + w;
+                long mask = w == words - 1 ? lastMask : -1L;
+                long open = (spread(here, w) | spread(above, w) | spread(below, w)) & mask
+                        & ~revealed[i] & ~mines[i];
+                if (open != 0) {
+                    revealed[i] |= open;
+                    opened(i, open);
+                    count += Long.bitCount(open);
+                    long unflagged = flagged[i] & open;
+                    if (unflagged != 0) {
+                        flagged[i] &= ~unflagged;
+                        flagsCleared += Long.bitCount(unflagged);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private void opened(int i, long bits) {
+        if (openedCount == openedWords.length) {
+            openedWords = Arrays.copyOf(openedWords, openedCount * 2);
+            openedBits = Arrays.copyOf(openedBits, openedCount * 2);
+        }
+        openedWords[openedCount] = i;
+        openedBits[openedCount] = bits;
+        openedCount++;
+    }
+
+    // The cells the last fill revealed, as flat indices (row * columns +
+    // column), given how many there were. Ordered by word, not by distance
+    // from the click as FloodFill's are.
+    int[] lastFilled(int count) {
+        int[] cells = new int[count];
+        int k = 0;
+        for (int j = 0; j < openedCount; j++) {
+            int row = openedWords[j] / words;
+            int column = (openedWords[j] - row * words) << 6;
+            for (long bits = openedBits[j]; bits != 0; bits &= bits - 1) {
+                cells[k++] = row * columns + column + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return cells;
+    }
+
+    // Number of set bits in a plane.
+    private static int popcount(long[] plane) {
+        int count = 0;
+        for (long word : plane) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    int countMines() {
+        return popcount(mines);
+    }
+
+    int countRevealed() {
+        return popcount(revealed);
+    }
+
+    int countFlagged() {
+        return popcount(flagged);
+    }
+
+    // Number of cells that are neither revealed nor flagged.
+    int countHiddenUnflagged() {
+        int count = 0;
+        for (int i = 0; i < revealed.length; i++) {
+            count += Long.bitCount(~(revealed[i] | flagged[i]));
+        }
+        // The bits past the last column count as hidden; take them off.
+        return count - rows * (words * 64 - columns);
+    }
+
+    // Number of safe cells still hidden.
+    int countHiddenSafe() {
+        int count = 0;
+        for (int i = 0; i < revealed.length; i++) {
+            count += Long.bitCount(~(revealed[i] | mines[i]));
+        }
+        return count - rows * (words * 64 - columns);
+    }
+
+    // Copies a PackedBoard's mines, revealed cells and flags, and counts the
+    // adjacent mines.
+    void copyFrom(PackedBoard board) {
+        if (board.getRows() != rows || board.getColumns() != columns) {
+            throw new IllegalArgumentException(
+                    "Expected a " + rows + "x" + columns + " board, got " + board.getRows()
+                            + "x" + board.getColumns()
+            );
+        }
+        clear();
+        byte[] cells = board.cells();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                int cell = cells[r * columns + c];
+                long bit = 1L << c;
+                int w = word(r, c);
+                if ((cell & PackedBoard.MINE) != 0) {
+                    mines[w] |= bit;
+                }
+                if ((cell & PackedBoard.REVEALED) != 0) {
+                    revealed[w] |= bit;
+                }
+                if ((cell & PackedBoard.FLAGGED) != 0) {
+                    flagged[w] |= bit;
+                }
+            }
+        }
+        countAdjacentMines();
+    }
+
+    // The board as a PackedBoard, with the lost cell at (lostRow,
+    // lostColumn) if lostRow is not -1.
+    PackedBoard toPackedBoard(int lostRow, int lostColumn) {
+        PackedBoard board = new PackedBoard(rows, columns);
+        byte[] cells = board.cells();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                int w = word(r, c);
+                long bit = 1L << c;
+                int cell = getAdjacentMines(r, c);
+                cell |= (mines[w] & bit) != 0 ? PackedBoard.MINE : 0;
+                cell |= (revealed[w] & bit) != 0 ? PackedBoard.REVEALED : 0;
+                cell |= (flagged[w] & bit) != 0 ? PackedBoard.FLAGGED : 0;
+                cells[r * columns + c] = (byte) cell;
+            }
+        }
+        if (lostRow != -1) {
+            board.setLost(board.index(lostRow, lostColumn));
+        }
+        board.recount();
+        return board;
+    }
+}
@@ -0,0 +1,305 @@
+package org.cis1200.minesweeper;
+
+import java.util.SplittableRandom;
+
+/**
+ * Minesweeper on a BitBoard, for solvers, generators and other code that
+ * plays very large boards without a view: the same MinesweeperModel as
+ * Minesweeper, so Solver, NoGuessGenerator and BatchSimulator run on either,
+ * with 64 cells handled per step. Counting adjacent mines is a bit-sliced
+ * sum, flood fill grows whole rows of zero cells at a time, and the win
+ * check compares totals kept from popcounts of each move.
+ * Mines are placed on the first reveal as MineGenerator.placeMines would
+ * place them for that click and seed, keeping the clicked cell and its
+ * neighbors clear; this is not the row-by-row layout Minesweeper generates
+ * for the same seed. There is no undo, journal or change stream. Games
+ * convert to and from BoardFile, so they can be saved, loaded or handed to a
+ * Minesweeper.
+ */
+public class BitboardMinesweeper implements MinesweeperModel {
+
+    private BoardConfig config;
+    private BitBoard board;
+    private int numMines;
+    private int numFlags;
+    private boolean gameOver;
+    private long seed;
+    // True from a reset until the first reveal, while no mines are placed.
+    private boolean layoutPending;
+    // The mine that ended the game, or -1.
+    private int lostRow = -1;
+    private int lostColumn = -1;
+    // Running totals, kept from the popcounts of each move.
+    private int revealedCells;
+    private int flaggedCells;
+    private int lastRevealed;
+    // The cells of the last reveal, made when first asked for.
+    private int[] lastCells;
+    private int gameNumber;
+
+    public BitboardMinesweeper(BoardConfig config) {
+        this.config = config;
+        reset();
+    }
+
+    // Starts a new game, with the configuration's seed if it has one.
+    public void reset() {
+        reset(config.hasSeed() ? config.getSeed() : new SplittableRandom().nextLong());
+    }
+
+    // Starts a new game whose layout is fixed by the seed and the first
+    // click. A board of the same size is reused.
+    @Override
+    public void reset(long seed) {
+        this.seed = seed;
+        gameNumber++;
+        numMines = config.getMines();
+        if (board == null || board.getRows() != config.getRows()
+                || board.getColumns() != config.getColumns()) {
+            board = new BitBoard(config.getRows(), config.getColumns());
+        } else {
+            board.clear();
+        }
+        numFlags = numMines;
+        gameOver = false;
+        layoutPending = true;
+        lostRow = -1;
+        lostColumn = -1;
+        revealedCells = 0;
+        flaggedCells = 0;
+        lastRevealed = 0;
+        lastCells = null;
+    }
+
+    private void placeLayout(int r, int c) {
+        layoutPending = false;
+        board.placeMines(numMines, new SplittableRandom(seed), r, c);
+    }
+
+    // Reveals (c, r) as Minesweeper.playTurn does. Returns false if the cell
+    // is outside the board, revealed or flagged, or the game is over.
+    @Override
+    public boolean playTurn(int c, int r) {
+        if (!board.inBounds(r, c) || gameOver || board.isRevealed(r, c)
+                || board.isFlagged(r, c)) {
+            return false;
+        }
+        fill(r, c);
+        if (board.isMine(r, c)) {
+            lostRow = r;
+            lostColumn = c;
+            gameOver = true;
+        }
+        return true;
+    }
+
+    // Reveals (r, c) and, if it has no adjacent mines, the connected safe
+    // region around it. Returns the number of cells revealed.
+    public int revealNeighbors(int r, int c) {
+        return fill(r, c);
+    }
+
+    private int fill(int r, int c) {
+        if (layoutPending && board.inBounds(r, c)) {
+            placeLayout(r, c);
+        }
+        lastRevealed = board.fill(r, c);
+        lastCells = null;
+        revealedCells += lastRevealed;
+        flaggedCells -= board.getFlagsCleared();
+        numFlags += board.getFlagsCleared();
+        return lastRevealed;
+    }
+
+    // Toggles a flag on (c, r). Returns 1 if a flag was placed, 0 if one was
+    // removed and -1 if the cell cannot be flagged.
+    @Override
+    public int placeFlag(int c, int r) {
+        if (!board.inBounds(r, c) || gameOver || board.isRevealed(r, c)) {
+            return -1;
+        }
+        boolean flagged = !board.isFlagged(r, c);
+        board.setFlagged(r, c, flagged);
+        numFlags += flagged ? -1 : 1;
+        flaggedCells += flagged ? 1 : -1;
+        return flagged ? 1 : 0;
+    }
+
+    // Won once every cell is revealed or flagged without using more flags
+    // than there are mines, as Minesweeper.checkWinner.
+    @Override
+    public boolean checkWinner() {
+        boolean won = numFlags >= 0 && getHiddenUnflaggedCells() == 0;
+        if (won) {
+            gameOver = true;
+        }
+        return won;
+    }
+
+    private int getHiddenUnflaggedCells() {
+        return board.size() - revealedCells - flaggedCells;
+    }
+
+    // Recounts the totals from the bitsets and throws IllegalStateException
+    // if the running ones disagree.
+    public void verifyCounters() {
+        int revealed = board.countRevealed();
+        int flagged = board.countFlagged();
+        if (revealed != revealedCells || flagged != flaggedCells
+                || board.countHiddenUnflagged() != getHiddenUnflaggedCells()
+                || board.countHiddenSafe() != getRemainingSafeCells()
+                || !layoutPending && board.countMines() != numMines) {
+            throw new IllegalStateException(
+                    "Counters out of sync: " + revealedCells + " revealed and " + flaggedCells
+                            + " flagged, recounted " + revealed + " and " + flagged
+            );
+        }
+    }
+
+    // Recomputes every adjacent-mine count from the mines.
+    public void calculateAdjacentMinesCounts() {
+        board.countAdjacentMines();
+    }
+
+    @Override
+    public int getNumFlags() {
+        return numFlags;
+    }
+
+    @Override
+    public int getNumMines() {
+        return numMines;
+    }
+
+    // Number of cells the last reveal uncovered.
+    @Override
+    public int getLastRevealedCount() {
+        return lastRevealed;
+    }
+
+    // Flat index of the k-th cell the last reveal uncovered, in word order.
+    @Override
+    public int getLastRevealedCell(int k) {
+        if (k < 0 || k >= lastRevealed) {
+            throw new IndexOutOfBoundsException("No revealed cell " + k + " of " + lastRevealed);
+        }
+        if (lastCells == null) {
+            lastCells = board.lastFilled(lastRevealed);
+        }
+        return lastCells[k];
+    }
+
+    @Override
+    public int getGameNumber() {
+        return gameNumber;
+    }
+
+    // Number of safe cells that still have to be revealed.
+    @Override
+    public int getRemainingSafeCells() {
+        return board.size() - numMines - revealedCells;
+    }
+
+    // Number of cells that are not revealed, mines included.
+    @Override
+    public int getUnrevealedCells() {
+        return board.size() - revealedCells;
+    }
+
+    // Number of flags currently on the board.
+    @Override
+    public int getFlaggedCells() {
+        return flaggedCells;
+    }
+
+    @Override
+    public boolean getCellRevealed(int c, int r) {
+        return board.isRevealed(r, c);
+    }
+
+    @Override
+    public boolean getCellFlagged(int c, int r) {
+        return board.isFlagged(r, c);
+    }
+
+    @Override
+    public boolean getCellLost(int c, int r) {
+        return r == lostRow && c == lostColumn;
+    }
+
+    @Override
+    public int getCellAdjacentMines(int c, int r) {
+        return board.getAdjacentMines(r, c);
+    }
+
+    @Override
+    public boolean getGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public int getNumRows() {
+        return board.getRows();
+    }
+
+    @Override
+    public int getNumColumns() {
+        return board.getColumns();
+    }
+
+    @Override
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    // The current game as a save, fixing the layout first if there has been
+    // no click yet, as Minesweeper.snapshot does.
+    @Override
+    public BoardFile snapshot() {
+        if (layoutPending) {
+            placeLayout(-1, -1);
+        }
+        return new BoardFile(
+                numMines, numFlags, gameOver, seed, board.toPackedBoard(lostRow, lostColumn)
+        );
+    }
+
+    // Replaces the current game with a decoded save.
+    @Override
+    public void load(BoardFile file) {
+        PackedBoard saved = file.getBoard();
+        int rows = file.getRows();
+        int columns = file.getColumns();
+        if (rows != config.getRows() || columns != config.getColumns()
+                || file.getNumMines() != config.getMines()) {
+            config = BoardConfig.custom(rows, columns, file.getNumMines());
+        }
+        if (board.getRows() != rows || board.getColumns() != columns) {
+            board = new BitBoard(rows, columns);
+        }
+        board.copyFrom(saved);
+        numMines = file.getNumMines();
+        numFlags = file.getNumFlags();
+        gameOver = file.getGameOver();
+        seed = file.getSeed();
+        layoutPending = false;
+        lostRow = -1;
+        lostColumn = -1;
+        for (int i = 0; i < saved.size(); i++) {
+            if (saved.isLost(i)) {
+                lostRow = i / columns;
+                lostColumn = i % columns;
+            }
+        }
+        revealedCells = board.countRevealed();
+        flaggedCells = board.countFlagged();
+        lastRevealed = 0;
+        lastCells = null;
+        gameNumber++;
+    }
+}
@@ -0,0 +1,261 @@
+package org.cis1200.minesweeper;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferStrategy;
+import javax.swing.Timer;
+
+/**
+ * The zoom and pan view of a GameBoard's game, for boards too large to play
+ * in the scrolling view. A BoardRenderer draws the frames, and they are shown
+ * through a double-buffered BufferStrategy, so frames are drawn straight to
+ * the back buffer and flipped instead of going through Swing's repaint
+ * machinery.
+ * Frames are drawn on the event thread, where the model changes, by a timer
+ * running at FRAMES_PER_SECOND, and only when something changed: a
+ * move, a pan or zoom, or the window. Dragging pans, the wheel zooms around
+ * the pointer, and the arrow keys, + and - and 0 (fit) do the same from the
+ * keyboard. Clicking the minimap jumps there. Clicks on cells play moves
+ * exactly as they do in the GameBoard.
+ */
+public class BoardCanvas extends Canvas {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int FRAMES_PER_SECOND = 60;
+    // A press that moves further than this many pixels pans instead of
+    // clicking.
+    private static final int DRAG_SLOP = 4;
+    private static final double WHEEL_ZOOM = 1.25;
+
+    private final GameBoard board;
+    private final BoardRenderer renderer;
+    private final Timer frames;
+    private boolean needsFrame = true;
+    private Point pressed; // where the current press started, or null
+    private Point dragged; // where the pointer was at the last drag event
+    private boolean panning;
+    private boolean showMetrics;
+    private final long[] frameTimes = new long[64]; // end of the latest frames
+    private int frameCount; // frames so far, indexing frameTimes
+
+    BoardCanvas(GameBoard board, Minesweeper ms) {
+        this.board = board;
+        renderer = new BoardRenderer(ms);
+        setIgnoreRepaint(true);
+        setBackground(Color.DARK_GRAY);
+        setFocusable(true);
+        frames = new Timer(1000 / FRAMES_PER_SECOND, e -> {
+            if (needsFrame) {
+                drawFrame();
+            }
+        });
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                needsFrame = true;
+            }
+        });
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                pressed = e.getPoint();
+                dragged = pressed;
+                panning = false;
+                if (renderer.isOnMinimap(e.getX(), e.getY())) {
+                    renderer.centerOnMinimap(e.getX(), e.getY());
+                    panning = true;
+                    needsFrame = true;
+                }
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (pressed == null) {
+                    return;
+                }
+                if (!panning && pressed.distance(e.getPoint()) > DRAG_SLOP) {
+                    panning = true;
+                }
+                if (panning) {
+                    if (renderer.isOnMinimap(pressed.x, pressed.y)) {
+                        renderer.centerOnMinimap(e.getX(), e.getY());
+                    } else {
+                        renderer.panBy(e.getX() - dragged.x, e.getY() - dragged.y);
+                    }
+                    needsFrame = true;
+                }
+                dragged = e.getPoint();
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (pressed != null && !panning) {
+                    int c = renderer.columnAt(e.getX());
+                    int r = renderer.rowAt(e.getY());
+                    if (c >= 0 && r >= 0) {
+                        board.playClick(c, r, e);
+                    }
+                }
+                pressed = null;
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                renderer.zoomAt(
+                        Math.pow(WHEEL_ZOOM, -e.getPreciseWheelRotation()), e.getX(), e.getY()
+                );
+                needsFrame = true;
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+        addMouseWheelListener(mouse);
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                int step = Math.max(getWidth(), getHeight()) / 8;
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_LEFT:
+                        renderer.panBy(step, 0);
+                        break;
+                    case KeyEvent.VK_RIGHT:
+                        renderer.panBy(-step, 0);
+                        break;
+                    case KeyEvent.VK_UP:
+                        renderer.panBy(0, step);
+                        break;
+                    case KeyEvent.VK_DOWN:
+                        renderer.panBy(0, -step);
+                        break;
+                    case KeyEvent.VK_PLUS:
+                    case KeyEvent.VK_EQUALS:
+                    case KeyEvent.VK_ADD:
+                        renderer.zoomAt(WHEEL_ZOOM, getWidth() / 2, getHeight() / 2);
+                        break;
+                    case KeyEvent.VK_MINUS:
+                    case KeyEvent.VK_SUBTRACT:
+                        renderer.zoomAt(1 / WHEEL_ZOOM, getWidth() / 2, getHeight() / 2);
+                        break;
+                    case KeyEvent.VK_0:
+                        renderer.fit();
+                        break;
+                    default:
+                        return;
+                }
+                needsFrame = true;
+            }
+        });
+    }
+
+    // Makes the back buffer once the canvas is on screen, and starts the
+    // frame timer.
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        createBufferStrategy(2);
+        needsFrame = true;
+        frames.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        frames.stop();
+        super.removeNotify();
+    }
+
+    // The window system asks for a repaint after the canvas was covered;
+    // the next frame takes care of it.
+    @Override
+    public void paint(Graphics g) {
+        needsFrame = true;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return board.getPreferredScrollableViewportSize();
+    }
+
+    // Redraws the cells a move changed on the next frame.
+    void cellsChanged(Rectangle cells) {
+        if (cells != null) {
+            renderer.cellsChanged(cells);
+            needsFrame = true;
+        }
+    }
+
+    // Redraws the whole board on the next frame, after a new game or a load.
+    void boardChanged() {
+        renderer.boardChanged();
+        needsFrame = true;
+    }
+
+    // Turns the frame rate overlay on or off.
+    void setShowMetrics(boolean show) {
+        showMetrics = show;
+        needsFrame = true;
+    }
+
+    // Draws a frame into the back buffer and shows it, again if the buffer
+    // was lost on the way.
+    private void drawFrame() {
+        BufferStrategy strategy = getBufferStrategy();
+        if (strategy == null || getWidth() <= 0 || getHeight() <= 0 || !isShowing()) {
+            return;
+        }
+        needsFrame = false;
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    long started = GameMetrics.start();
+                    int drawn = renderer.render(g, getWidth(), getHeight());
+                    GameMetrics.record(GameMetrics.Action.PAINT, started, drawn);
+                    if (showMetrics) {
+                        frameTimes[frameCount++ % frameTimes.length] = System.nanoTime();
+                        paintOverlay(g);
+                    }
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    // Draws frames in the last second, the last frame's time and the zoom.
+    private void paintOverlay(Graphics g) {
+        long now = System.nanoTime();
+        int fps = 0;
+        for (int k = 0; k < Math.min(frameCount, frameTimes.length); k++) {
+            if (now - frameTimes[k] < 1_000_000_000L) {
+                fps++;
+            }
+        }
+        ActionMetrics paint = GameMetrics.get(GameMetrics.Action.PAINT);
+        g.setColor(new Color(0, 0, 0, 170));
+        g.fillRect(0, 0, 300, 20);
+        g.setColor(Color.WHITE);
+        g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        g.drawString(String.format(
+                "%d FPS  frame %.2f ms  zoom %.2f", fps, paint.getLastMillis(),
+                renderer.getZoom()
+        ), 6, 14);
+    }
+}
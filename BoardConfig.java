@@ -0,0 +1,115 @@
+package org.cis1200.minesweeper;
+
+/**
+ * Immutable description of a board: its size, how many mines it holds and,
+ * optionally, the seed that fixes the mine layout. Both the model
+ * (Minesweeper) and the view (GameBoard) size themselves from it.
+ */
+public final class BoardConfig {
+
+    public enum Difficulty {
+        CLASSIC, BEGINNER, INTERMEDIATE, EXPERT, CUSTOM
+    }
+
+    // The original 8x10 board this game shipped with.
+    public static final BoardConfig CLASSIC = new BoardConfig(Difficulty.CLASSIC, 8, 10, 10);
+    public static final BoardConfig BEGINNER = new BoardConfig(Difficulty.BEGINNER, 9, 9, 10);
+    public static final BoardConfig INTERMEDIATE =
+            new BoardConfig(Difficulty.INTERMEDIATE, 16, 16, 40);
+    public static final BoardConfig EXPERT = new BoardConfig(Difficulty.EXPERT, 16, 30, 99);
+
+    private final Difficulty difficulty;
+    private final int rows;
+    private final int columns;
+    private final int mines;
+    private final boolean seeded;
+    private final long seed;
+
+    private BoardConfig(Difficulty difficulty, int rows, int columns, int mines) {
+        this(difficulty, rows, columns, mines, false, 0);
+    }
+
+    private BoardConfig(
+            Difficulty difficulty, int rows, int columns, int mines, boolean seeded, long seed
+    ) {
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("Board must have at least one row and column");
+        }
+        if ((long) rows * columns > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Board too large: " + rows + "x" + columns);
+        }
+        if (mines < 0 || mines > rows * columns) {
+            throw new IllegalArgumentException(
+                    "Cannot place " + mines + " mines on a " + rows + "x" + columns + " board"
+            );
+        }
+        this.difficulty = difficulty;
+        this.rows = rows;
+        this.columns = columns;
+        this.mines = mines;
+        this.seeded = seeded;
+        this.seed = seed;
+    }
+
+    // A board of any size. Throws IllegalArgumentException for empty boards or
+    // more mines than cells.
+    public static BoardConfig custom(int rows, int columns, int mines) {
+        return new BoardConfig(Difficulty.CUSTOM, rows, columns, mines);
+    }
+
+    // The preset for a difficulty. CUSTOM has no preset and is rejected.
+    public static BoardConfig preset(Difficulty difficulty) {
+        switch (difficulty) {
+            case CLASSIC:
+                return CLASSIC;
+            case BEGINNER:
+                return BEGINNER;
+            case INTERMEDIATE:
+                return INTERMEDIATE;
+            case EXPERT:
+                return EXPERT;
+            default:
+                throw new IllegalArgumentException("No preset for " + difficulty);
+        }
+    }
+
+    // The same board with a fixed seed, so every reset produces the same layout.
+    public BoardConfig withSeed(long seed) {
+        return new BoardConfig(difficulty, rows, columns, mines, true, seed);
+    }
+
+    // The same board without a fixed seed; every reset picks a fresh one.
+    public BoardConfig withoutSeed() {
+        return new BoardConfig(difficulty, rows, columns, mines);
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    public boolean hasSeed() {
+        return seeded;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        String name = difficulty.name().charAt(0) + difficulty.name().substring(1).toLowerCase();
+        return name + " (" + columns + "x" + rows + ", " + mines + " mines)";
+    }
+}
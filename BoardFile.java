@@ -0,0 +1,289 @@
+package org.cis1200.minesweeper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary save format. A file is a fixed 64-byte header followed by
+ * the cells, two per byte: each cell keeps only its mine, revealed, flagged
+ * and lost bits (the upper nibble of its PackedBoard byte). Adjacent counts
+ * are not stored; they are recomputed from the mines on load.
+ * Header layout (big-endian):
+ * magic "MSWP", version, rows, columns, numMines, numFlags, gameOver,
+ * seed, mines on board, flags on board, revealed cells, CRC32 of the
+ * payload.
+ * Files are written through a FileChannel and read by memory-mapping them.
+ * The old one-line-per-tile text format can still be read with readText.
+ */
+public final class BoardFile {
+
+    public static final int MAGIC = 0x4D535750; // "MSWP"
+    public static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final int rows;
+    private final int columns;
+    private final int numMines;
+    private final int numFlags;
+    private final boolean gameOver;
+    private final long seed;
+    private PackedBoard board;
+    // Builds the board when it is first read, or null once it is built.
+    private Supplier<PackedBoard> unfinished;
+
+    BoardFile(
+            int numMines, int numFlags, boolean gameOver, long seed, PackedBoard board
+    ) {
+        this.rows = board.getRows();
+        this.columns = board.getColumns();
+        this.numMines = numMines;
+        this.numFlags = numFlags;
+        this.gameOver = gameOver;
+        this.seed = seed;
+        this.board = board;
+    }
+
+    // A save of a rows x columns game whose board is built by unfinished on
+    // first use; see getBoard and Minesweeper.snapshot.
+    BoardFile(
+            int numMines, int numFlags, boolean gameOver, long seed, int rows, int columns,
+            Supplier<PackedBoard> unfinished
+    ) {
+        this.rows = rows;
+        this.columns = columns;
+        this.numMines = numMines;
+        this.numFlags = numFlags;
+        this.gameOver = gameOver;
+        this.seed = seed;
+        this.unfinished = unfinished;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getNumMines() {
+        return numMines;
+    }
+
+    public int getNumFlags() {
+        return numFlags;
+    }
+
+    public boolean getGameOver() {
+        return gameOver;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // The cells. A snapshot of a game that was still generating its board
+    // builds it here, on the first call, so the game's own thread never has
+    // to.
+    public synchronized PackedBoard getBoard() {
+        if (unfinished != null) {
+            board = unfinished.get();
+            unfinished = null;
+        }
+        return board;
+    }
+
+    // Reads a save in the old text format: five header lines (flags left, mines,
+    // game over, rows, columns) and then one "mine revealed flagged count" line
+    // per cell. Kept so old saves can still be loaded.
+    public static BoardFile readText(Path path) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            int numFlags = Integer.parseInt(br.readLine());
+            int numMines = Integer.parseInt(br.readLine());
+            boolean gameOver = Boolean.parseBoolean(br.readLine());
+            int rows = Integer.parseInt(br.readLine());
+            int columns = Integer.parseInt(br.readLine());
+            PackedBoard board = new PackedBoard(rows, columns);
+            for (int i = 0; i < board.size(); i++) {
+                String[] tileData = br.readLine().split(" ");
+                int cell = Integer.parseInt(tileData[3]) & PackedBoard.COUNT_MASK;
+                if (Integer.parseInt(tileData[0]) == 1) {
+                    cell |= PackedBoard.MINE;
+                }
+                if (Boolean.parseBoolean(tileData[1])) {
+                    cell |= PackedBoard.REVEALED;
+                }
+                if (Boolean.parseBoolean(tileData[2])) {
+                    cell |= PackedBoard.FLAGGED;
+                }
+                board.set(i, cell);
+            }
+            return new BoardFile(numMines, numFlags, gameOver, 0, board);
+        } catch (RuntimeException e) {
+            // Missing lines, bad numbers and bad sizes all mean a corrupt save.
+            throw new IOException("Malformed text save file: " + path, e);
+        }
+    }
+
+    // Returns true if the file starts with the binary format's magic number.
+    public static boolean isBoardFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // keep reading until 4 bytes or end of file
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    // Writes this game to path; see the static write.
+    public void write(Path path, IntConsumer progress) throws IOException {
+        write(path, getBoard(), numMines, numFlags, gameOver, seed, progress);
+    }
+
+    // Writes a game to path, replacing any existing file. The payload is
+    // streamed in chunks and the header, which carries the payload checksum,
+    // is written last. The file is forced to disk before this returns, so a
+    // rename that follows (see SaveService) can't outlive its contents in a
+    // crash.
+    public static void write(
+            Path path, PackedBoard board, int numMines, int numFlags, boolean gameOver, long seed
+    ) throws IOException {
+        write(path, board, numMines, numFlags, gameOver, seed, null);
+    }
+
+    // Same as above, calling progress (if not null) with the percentage of cells
+    // written after every chunk.
+    public static void write(
+            Path path, PackedBoard board, int numMines, int numFlags, boolean gameOver, long seed,
+            IntConsumer progress
+    ) throws IOException {
+        long started = GameMetrics.start();
+        try (FileChannel channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            CRC32 crc = new CRC32();
+            ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+            long position = HEADER_SIZE;
+            byte[] cells = board.cells();
+            int i = 0;
+            while (i < cells.length) {
+                chunk.clear();
+                while (chunk.hasRemaining() && i < cells.length) {
+                    int low = (cells[i++] & 0xF0) >>> 4;
+                    int high = i < cells.length ? cells[i++] & 0xF0 : 0;
+                    chunk.put((byte) (low | high));
+                }
+                chunk.flip();
+                crc.update(chunk.duplicate());
+                while (chunk.hasRemaining()) {
+                    position += channel.write(chunk, position);
+                }
+                if (progress != null) {
+                    progress.accept((int) (100L * i / cells.length));
+                }
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(board.getRows());
+            header.putInt(board.getColumns());
+            header.putInt(numMines);
+            header.putInt(numFlags);
+            header.putInt(gameOver ? 1 : 0);
+            header.putLong(seed);
+            header.putInt(board.getMineCells());
+            header.putInt(board.getFlaggedCells());
+            header.putInt(board.size() - board.getHiddenCells());
+            header.putLong(crc.getValue());
+            header.clear();
+            long headerPosition = 0;
+            while (header.hasRemaining()) {
+                headerPosition += channel.write(header, headerPosition);
+            }
+            channel.force(true);
+            GameMetrics.record(GameMetrics.Action.SAVE, started, position);
+        }
+    }
+
+    // Memory-maps path and decodes it. Throws IOException if the file is not a
+    // board file, has an unknown version, is truncated or fails its checksum.
+    public static BoardFile read(Path path) throws IOException {
+        long started = GameMetrics.start();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Save file too short: " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.getInt() != MAGIC) {
+                throw new IOException("Not a Minesweeper save file: " + path);
+            }
+            int version = map.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported save file version " + version);
+            }
+            int rows = map.getInt();
+            int columns = map.getInt();
+            int numMines = map.getInt();
+            int numFlags = map.getInt();
+            boolean gameOver = map.getInt() != 0;
+            long seed = map.getLong();
+            int mineCells = map.getInt();
+            int flaggedCells = map.getInt();
+            int revealedCells = map.getInt();
+            long checksum = map.getLong();
+
+            PackedBoard board;
+            try {
+                board = new PackedBoard(rows, columns);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Bad board size in save file", e);
+            }
+            long payloadSize = ((long) board.size() + 1) / 2;
+            if (channel.size() != HEADER_SIZE + payloadSize) {
+                throw new IOException("Save file has the wrong length for its board size");
+            }
+            ByteBuffer payload = map.position(HEADER_SIZE).slice();
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != checksum) {
+                throw new IOException("Save file checksum mismatch");
+            }
+
+            byte[] cells = board.cells();
+            byte[] chunk = new byte[(int) Math.min(CHUNK_SIZE, payloadSize)];
+            int i = 0;
+            while (payload.hasRemaining()) {
+                int n = Math.min(chunk.length, payload.remaining());
+                payload.get(chunk, 0, n);
+                for (int k = 0; k < n; k++) {
+                    int b = chunk[k];
+                    cells[i++] = (byte) ((b & 0x0F) << 4);
+                    if (i < cells.length) {
+                        cells[i++] = (byte) (b & 0xF0);
+                    }
+                }
+            }
+            MineGenerator.countAdjacentMines(board);
+            board.recount();
+            if (board.getMineCells() != mineCells || board.getFlaggedCells() != flaggedCells
+                    || board.size() - board.getHiddenCells() != revealedCells) {
+                throw new IOException("Save file cell totals do not match its header");
+            }
+            GameMetrics.record(GameMetrics.Action.LOAD, started, channel.size());
+            return new BoardFile(numMines, numFlags, gameOver, seed, board);
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package org.cis1200.minesweeper;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+
+/**
+ * Draws a Minesweeper board at any zoom and position, so boards far larger
+ * than the screen can be panned and zoomed smoothly. Close up, each cell is a
+ * tile from the TileAtlas. Further out, cells come from a pyramid of board
+ * images instead: level 0 has one pixel per cell, holding its visible code
+ * (see StateDelta), and every level above has half the width and height, each
+ * pixel the average color of the four below it. The view draws the level
+ * whose pixels come closest to the screen's without being smaller, so a
+ * frame costs about the same however many cells are in view. The top level,
+ * at most MINIMAP_SIZE pixels across, doubles as a minimap of the whole
+ * board.
+ * The images are kept up to date cell by cell: after a move, cellsChanged
+ * redraws the changed region in every level, nothing else.
+ */
+public final class BoardRenderer {
+
+    // Pixels per cell from which cells are drawn as tiles, and the closest
+    // zoom allowed.
+    public static final int TILE_ZOOM = 12;
+    public static final int MAX_ZOOM = GameBoard.MAX_CELL_SIZE;
+    // Grid lines are drawn between cells from this zoom on.
+    public static final int GRID_ZOOM = 4;
+    // Longest side of the minimap, in pixels.
+    public static final int MINIMAP_SIZE = 200;
+    private static final int MINIMAP_MARGIN = 8;
+    private static final Color BACKGROUND = Color.DARK_GRAY;
+
+    private final Minesweeper ms;
+    private final TileAtlas tiles = new TileAtlas();
+    // 0xRRGGBB of each visible code.
+    private final int[] palette = new int[StateDelta.LOST + 1];
+    private final IndexColorModel colors;
+
+    private int rows;
+    private int columns;
+    // The pyramid, and the pixels of each level: codes for level 0, RGB
+    // above.
+    private BufferedImage[] levels;
+    private byte[] codes;
+    private int[][] averages;
+
+    // Pixels per cell, and the board position (in cells) at the top left of
+    // the view; zoom is 0 until the first frame fits the board to the view.
+    private double zoom;
+    private double left;
+    private double top;
+    private int width;
+    private int height;
+    private int drawnCells;
+
+    public BoardRenderer(Minesweeper ms) {
+        this.ms = ms;
+        byte[] red = new byte[palette.length];
+        byte[] green = new byte[palette.length];
+        byte[] blue = new byte[palette.length];
+        for (int code = 0; code < palette.length; code++) {
+            palette[code] = TileAtlas.averageColor(tile(code));
+            red[code] = (byte) (palette[code] >> 16);
+            green[code] = (byte) (palette[code] >> 8);
+            blue[code] = (byte) palette[code];
+        }
+        colors = new IndexColorModel(8, palette.length, red, green, blue);
+        boardChanged();
+    }
+
+    // The TileAtlas tile of a visible code.
+    private static int tile(int code) {
+        switch (code) {
+            case StateDelta.HIDDEN:
+                return TileAtlas.HIDDEN;
+            case StateDelta.FLAGGED:
+                return TileAtlas.FLAGGED;
+            case StateDelta.LOST:
+                return TileAtlas.LOST;
+            default:
+                return TileAtlas.number(code);
+        }
+    }
+
+    // Rebuilds every level from the model, for a new game or a loaded one.
+    // A board of a new size is fitted to the view again.
+    public void boardChanged() {
+        if (levels == null || rows != ms.getNumRows() || columns != ms.getNumColumns()) {
+            rows = ms.getNumRows();
+            columns = ms.getNumColumns();
+            allocate();
+            zoom = 0;
+        }
+        cellsChanged(new Rectangle(0, 0, columns, rows));
+    }
+
+    private void allocate() {
+        int count = 1;
+        while (Math.max(levelSize(columns, count - 1), levelSize(rows, count - 1))
+                > MINIMAP_SIZE) {
+            count++;
+        }
+        levels = new BufferedImage[count];
+        averages = new int[count][];
+        levels[0] = new BufferedImage(
+                columns, rows, BufferedImage.TYPE_BYTE_INDEXED, colors
+        );
+        codes = ((DataBufferByte) levels[0].getRaster().getDataBuffer()).getData();
+        for (int k = 1; k < count; k++) {
+            levels[k] = new BufferedImage(
+                    levelSize(columns, k), levelSize(rows, k), BufferedImage.TYPE_INT_RGB
+            );
+            averages[k] = ((DataBufferInt) levels[k].getRaster().getDataBuffer()).getData();
+        }
+    }
+
+    // Pixels along a side of cells cells at level k.
+    private static int levelSize(int cells, int k) {
+        return (int) (((long) cells + (1L << k) - 1) >> k);
+    }
+
+    // Redraws the given cells (x = column, y = row) in every level, or
+    // nothing if cells is null.
+    public void cellsChanged(Rectangle cells) {
+        if (cells == null) {
+            return;
+        }
+        Rectangle changed = cells.intersection(new Rectangle(0, 0, columns, rows));
+        if (changed.isEmpty()) {
+            return;
+        }
+        int x0 = changed.x;
+        int x1 = changed.x + changed.width - 1;
+        int y0 = changed.y;
+        int y1 = changed.y + changed.height - 1;
+        for (int r = y0; r <= y1; r++) {
+            ms.readVisibleRow(r, x0, x1 + 1, codes, r * columns + x0);
+        }
+        for (int k = 1; k < levels.length; k++) {
+            x0 >>= 1;
+            x1 >>= 1;
+            y0 >>= 1;
+            y1 >>= 1;
+            average(k, x0, x1, y0, y1);
+        }
+    }
+
+    // Recomputes pixels x0..x1 by y0..y1 of level k from level k - 1.
+    private void average(int k, int x0, int x1, int y0, int y1) {
+        int belowWidth = levelSize(columns, k - 1);
+        int belowHeight = levelSize(rows, k - 1);
+        int[] below = averages[k - 1];
+        int width = levelSize(columns, k);
+        int[] pixels = averages[k];
+        for (int y = y0; y <= y1; y++) {
+            int fullWidth = 2 * y + 1 < belowHeight ? belowWidth / 2 : 0;
+            for (int x = x0; x <= x1; x++) {
+                int i = 2 * y * belowWidth + 2 * x;
+                if (x < fullWidth) {
+                    int a = color(below, i);
+                    int b = color(below, i + 1);
+                    int c = color(below, i + belowWidth);
+                    int d = color(below, i + belowWidth + 1);
+                    // Red and blue are summed in one int and green in
+                    // another; four 8-bit values cannot carry into the next.
+                    int redBlue = (a & 0xFF00FF) + (b & 0xFF00FF) + (c & 0xFF00FF)
+                            + (d & 0xFF00FF);
+                    int green = (a & 0xFF00) + (b & 0xFF00) + (c & 0xFF00) + (d & 0xFF00);
+                    pixels[y * width + x] = (redBlue >> 2 & 0xFF00FF) | (green >> 2 & 0xFF00);
+                } else {
+                    pixels[y * width + x] = edgeAverage(below, belowWidth, belowHeight, x, y);
+                }
+            }
+        }
+    }
+
+    // The color of pixel i of the level below, whose pixels are below, or
+    // the codes for level 0 if below is null.
+    private int color(int[] below, int i) {
+        return below == null ? palette[codes[i]] : below[i];
+    }
+
+    // The average of the one to three pixels under (x, y) at the right or
+    // bottom edge of the level below.
+    private int edgeAverage(int[] below, int belowWidth, int belowHeight, int x, int y) {
+        int red = 0;
+        int green = 0;
+        int blue = 0;
+        int count = 0;
+        for (int sy = 2 * y; sy <= Math.min(2 * y + 1, belowHeight - 1); sy++) {
+            for (int sx = 2 * x; sx <= Math.min(2 * x + 1, belowWidth - 1); sx++) {
+                int rgb = color(below, sy * belowWidth + sx);
+                red += rgb >> 16 & 0xFF;
+                green += rgb >> 8 & 0xFF;
+                blue += rgb & 0xFF;
+                count++;
+            }
+        }
+        return red / count << 16 | green / count << 8 | blue / count;
+    }
+
+    // Draws the view into a width x height area at the origin of g.
+    // Returns the number of cells in view.
+    public int render(Graphics2D g, int width, int height) {
+        this.width = width;
+        this.height = height;
+        if (zoom == 0) {
+            fit();
+        }
+        clampView();
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, width, height);
+        if (zoom >= TILE_ZOOM) {
+            drawTiles(g);
+        } else {
+            drawLevel(g);
+        }
+        if (hasMinimap()) {
+            drawMinimap(g);
+        }
+        return drawnCells;
+    }
+
+    // Draws the cells in view as tiles, with the grid between them.
+    private void drawTiles(Graphics2D g) {
+        int cs = (int) zoom;
+        int originX = (int) Math.round(left * cs);
+        int originY = (int) Math.round(top * cs);
+        int firstColumn = Math.max(0, Math.floorDiv(originX, cs));
+        int lastColumn = Math.min(columns - 1, Math.floorDiv(originX + width, cs));
+        int firstRow = Math.max(0, Math.floorDiv(originY, cs));
+        int lastRow = Math.min(rows - 1, Math.floorDiv(originY + height, cs));
+        drawnCells = 0;
+        if (firstColumn > lastColumn || firstRow > lastRow) {
+            return;
+        }
+        int rowWidth = lastColumn - firstColumn + 1;
+        byte[] row = new byte[rowWidth];
+        for (int r = firstRow; r <= lastRow; r++) {
+            System.arraycopy(codes, r * columns + firstColumn, row, 0, rowWidth);
+            for (int k = 0; k < rowWidth; k++) {
+                tiles.draw(
+                        g, tile(row[k]), (firstColumn + k) * cs - originX + 1,
+                        r * cs - originY + 1, cs - 1
+                );
+            }
+        }
+        drawGrid(g, cs, cs * firstColumn - originX, cs * firstRow - originY,
+                rowWidth, lastRow - firstRow + 1);
+        drawnCells = rowWidth * (lastRow - firstRow + 1);
+    }
+
+    // Draws the lines around across x down cells of size cs whose top left
+    // corner is at (x, y).
+    private static void drawGrid(Graphics2D g, double cs, int x, int y, int across, int down) {
+        g.setColor(Color.BLACK);
+        int right = (int) Math.round(x + across * cs);
+        int bottom = (int) Math.round(y + down * cs);
+        for (int i = 0; i <= across; i++) {
+            int lineX = (int) Math.round(x + i * cs);
+            g.drawLine(lineX, y, lineX, bottom);
+        }
+        for (int j = 0; j <= down; j++) {
+            int lineY = (int) Math.round(y + j * cs);
+            g.drawLine(x, lineY, right, lineY);
+        }
+    }
+
+    // Draws the cells in view from the pyramid level whose pixels are the
+    // smallest that still cover at least a screen pixel each.
+    private void drawLevel(Graphics2D g) {
+        int k = 0;
+        while (k + 1 < levels.length && zoom * (1 << k) < 1) {
+            k++;
+        }
+        int step = 1 << k;
+        BufferedImage level = levels[k];
+        int sx0 = Math.max(0, (int) Math.floor(left / step));
+        int sy0 = Math.max(0, (int) Math.floor(top / step));
+        int sx1 = Math.min(level.getWidth(), (int) Math.ceil((left + width / zoom) / step));
+        int sy1 = Math.min(level.getHeight(), (int) Math.ceil((top + height / zoom) / step));
+        drawnCells = 0;
+        if (sx0 >= sx1 || sy0 >= sy1) {
+            return;
+        }
+        int dx0 = (int) Math.round((sx0 * step - left) * zoom);
+        int dy0 = (int) Math.round((sy0 * step - top) * zoom);
+        int dx1 = (int) Math.round((sx1 * step - left) * zoom);
+        int dy1 = (int) Math.round((sy1 * step - top) * zoom);
+        // Pixels of the last row and column may cover cells past the edge.
+        Shape clip = g.getClip();
+        g.clipRect(
+                (int) Math.round(-left * zoom), (int) Math.round(-top * zoom),
+                (int) Math.round(columns * zoom), (int) Math.round(rows * zoom)
+        );
+        g.setRenderingHint(
+                RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+        );
+        g.drawImage(level, dx0, dy0, dx1, dy1, sx0, sy0, sx1, sy1, null);
+        g.setClip(clip);
+        if (zoom >= GRID_ZOOM) {
+            drawGrid(g, zoom, dx0, dy0, sx1 - sx0, sy1 - sy0);
+        }
+        drawnCells = Math.min(columns, (sx1 - sx0) * step) * Math.min(rows, (sy1 - sy0) * step);
+    }
+
+    // True if the board does not fit in the view, so the minimap is shown.
+    private boolean hasMinimap() {
+        return columns * zoom > width || rows * zoom > height;
+    }
+
+    // Where the minimap is drawn: the bottom right corner of the view.
+    private Rectangle minimapBounds() {
+        double scale = (double) MINIMAP_SIZE / Math.max(rows, columns);
+        int w = Math.max(1, (int) Math.round(columns * scale));
+        int h = Math.max(1, (int) Math.round(rows * scale));
+        return new Rectangle(
+                width - w - MINIMAP_MARGIN, height - h - MINIMAP_MARGIN, w, h
+        );
+    }
+
+    // Draws the top level of the pyramid as a minimap, with the part of the
+    // board in view outlined.
+    private void drawMinimap(Graphics2D g) {
+        Rectangle map = minimapBounds();
+        BufferedImage overview = levels[levels.length - 1];
+        g.setRenderingHint(
+                RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR
+        );
+        g.drawImage(overview, map.x, map.y, map.width, map.height, null);
+        g.setColor(Color.WHITE);
+        g.drawRect(map.x - 1, map.y - 1, map.width + 1, map.height + 1);
+        double scale = (double) map.width / columns;
+        g.setColor(Color.YELLOW);
+        g.drawRect(
+                map.x + (int) Math.round(left * scale), map.y + (int) Math.round(top * scale),
+                Math.max(1, (int) Math.round(width / zoom * scale)),
+                Math.max(1, (int) Math.round(height / zoom * scale))
+        );
+    }
+
+    // True if (x, y) in the view is on the minimap.
+    public boolean isOnMinimap(int x, int y) {
+        return hasMinimap() && minimapBounds().contains(x, y);
+    }
+
+    // Centers the view on the cell under (x, y) on the minimap.
+    public void centerOnMinimap(int x, int y) {
+        if (zoom == 0) {
+            return;
+        }
+        Rectangle map = minimapBounds();
+        double scale = (double) map.width / columns;
+        left = (x - map.x) / scale - width / zoom / 2;
+        top = (y - map.y) / scale - height / zoom / 2;
+        clampView();
+    }
+
+    // The column under x in the view, or -1 if there is none.
+    public int columnAt(int x) {
+        if (zoom == 0) {
+            return -1;
+        }
+        int c = (int) Math.floor(left + x / viewZoom());
+        return c >= 0 && c < columns ? c : -1;
+    }
+
+    // The row under y in the view, or -1 if there is none.
+    public int rowAt(int y) {
+        if (zoom == 0) {
+            return -1;
+        }
+        int r = (int) Math.floor(top + y / viewZoom());
+        return r >= 0 && r < rows ? r : -1;
+    }
+
+    // The zoom cells are drawn at: whole pixels once they are tiles.
+    private double viewZoom() {
+        return zoom >= TILE_ZOOM ? (int) zoom : zoom;
+    }
+
+    // Moves the view by (dx, dy) pixels, as when the board is dragged.
+    public void panBy(int dx, int dy) {
+        if (zoom == 0) {
+            return;
+        }
+        left -= dx / viewZoom();
+        top -= dy / viewZoom();
+        clampView();
+    }
+
+    // Zooms by factor, keeping the cell under (x, y) where it is. Tiles are
+    // only drawn at whole pixel sizes, so the zoom snaps to one there.
+    public void zoomAt(double factor, int x, int y) {
+        if (zoom == 0) {
+            return;
+        }
+        double column = left + x / viewZoom();
+        double row = top + y / viewZoom();
+        zoom = Math.max(minZoom(), Math.min(MAX_ZOOM, zoom * factor));
+        if (zoom >= TILE_ZOOM) {
+            zoom = factor >= 1 ? Math.ceil(zoom) : Math.floor(zoom);
+        }
+        left = column - x / viewZoom();
+        top = row - y / viewZoom();
+        clampView();
+    }
+
+    // Zooms out until the whole board fits, and centers it.
+    public void fit() {
+        zoom = Math.min(MAX_ZOOM, fitZoom());
+        if (zoom >= TILE_ZOOM) {
+            zoom = Math.floor(zoom);
+        }
+        left = 0;
+        top = 0;
+        clampView();
+    }
+
+    private double fitZoom() {
+        return Math.min((double) width / columns, (double) height / rows);
+    }
+
+    // Zooming out stops at a whole board in view, or a cell per pixel if
+    // that is smaller.
+    private double minZoom() {
+        return Math.min(1, fitZoom());
+    }
+
+    // Keeps the board in view: centered along a side it does not fill,
+    // otherwise with no space past its edges.
+    private void clampView() {
+        if (width <= 0 || height <= 0 || zoom == 0) {
+            return;
+        }
+        double across = width / viewZoom();
+        double down = height / viewZoom();
+        left = across >= columns ? (columns - across) / 2
+                : Math.max(0, Math.min(columns - across, left));
+        top = down >= rows ? (rows - down) / 2 : Math.max(0, Math.min(rows - down, top));
+    }
+
+    public double getZoom() {
+        return viewZoom();
+    }
+}
@@ -0,0 +1,137 @@
+package org.cis1200.minesweeper;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * Everything one chord or MoveBatch changed: the cells it revealed, the flags
+ * it placed or removed, the mine that ended the game if one was hit, and how
+ * the game stands afterwards. Cells are flat indices, row * columns + column.
+ * A view can update its status and repaint the bounds once for the whole
+ * batch instead of once per move.
+ */
+public final class ChangeSet {
+
+    private final int columns;
+    private int[] revealed = new int[16];
+    private int revealedCount;
+    // Flag changes: the cell index for a placed flag, ~index for a removed one.
+    private int[] flags = new int[4];
+    private int flagCount;
+    private int lostCell = -1;
+    private int movesApplied;
+    private boolean gameOver;
+    private boolean won;
+
+    // Bounding box of every changed cell, empty while minRow > maxRow.
+    private int minRow = Integer.MAX_VALUE;
+    private int maxRow = -1;
+    private int minColumn = Integer.MAX_VALUE;
+    private int maxColumn = -1;
+
+    ChangeSet(int columns) {
+        this.columns = columns;
+    }
+
+    void addRevealed(int cell) {
+        if (revealedCount == revealed.length) {
+            revealed = Arrays.copyOf(revealed, revealedCount * 2);
+        }
+        revealed[revealedCount++] = cell;
+        include(cell);
+    }
+
+    void addFlag(int cell, boolean placed) {
+        if (flagCount == flags.length) {
+            flags = Arrays.copyOf(flags, flagCount * 2);
+        }
+        flags[flagCount++] = placed ? cell : ~cell;
+        include(cell);
+    }
+
+    void setLostCell(int cell) {
+        lostCell = cell;
+        include(cell);
+    }
+
+    void addMove() {
+        movesApplied++;
+    }
+
+    void finish(boolean gameOver, boolean won) {
+        this.gameOver = gameOver;
+        this.won = won;
+    }
+
+    private void include(int cell) {
+        int r = cell / columns;
+        int c = cell % columns;
+        minRow = Math.min(minRow, r);
+        maxRow = Math.max(maxRow, r);
+        minColumn = Math.min(minColumn, c);
+        maxColumn = Math.max(maxColumn, c);
+    }
+
+    // Number of moves that changed something; moves on cells that could not
+    // be revealed, flagged or chorded, and moves after the game ended, do not
+    // count.
+    public int getMovesApplied() {
+        return movesApplied;
+    }
+
+    public int getRevealedCount() {
+        return revealedCount;
+    }
+
+    // Flat index of the k-th revealed cell, in the order they were revealed.
+    public int getRevealedCell(int k) {
+        if (k < 0 || k >= revealedCount) {
+            throw new IndexOutOfBoundsException("No revealed cell " + k + " of " + revealedCount);
+        }
+        return revealed[k];
+    }
+
+    public int getFlagChangeCount() {
+        return flagCount;
+    }
+
+    // Flat index of the cell of the k-th flag change.
+    public int getFlagChangeCell(int k) {
+        int flag = flagChange(k);
+        return flag >= 0 ? flag : ~flag;
+    }
+
+    // True if the k-th flag change placed a flag, false if it removed one.
+    public boolean isFlagPlaced(int k) {
+        return flagChange(k) >= 0;
+    }
+
+    private int flagChange(int k) {
+        if (k < 0 || k >= flagCount) {
+            throw new IndexOutOfBoundsException("No flag change " + k + " of " + flagCount);
+        }
+        return flags[k];
+    }
+
+    // Flat index of the mine that ended the game, or -1.
+    public int getLostCell() {
+        return lostCell;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+
+    // The smallest rectangle of cells (x = column, y = row) holding every
+    // change, or null if nothing changed.
+    public Rectangle getBounds() {
+        if (minRow > maxRow) {
+            return null;
+        }
+        return new Rectangle(minColumn, minRow, maxColumn - minColumn + 1, maxRow - minRow + 1);
+    }
+}
@@ -0,0 +1,263 @@
+package org.cis1200.minesweeper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The cells of an endless board, cut into square chunks of CHUNK_SIZE cells
+ * a side, each one a PackedBoard. A chunk's mines depend only on the seed and
+ * its chunk coordinates, so a chunk nobody has touched is simply generated
+ * again when it is needed. Chunks are kept in an LRU cache with a fixed
+ * capacity; when a chunk falls out, it is written to the chunk directory as
+ * a BoardFile if it has been modified, and dropped otherwise. Chunk files
+ * are written to a temporary file and moved into place, so a crash while
+ * writing leaves the previous version of the chunk readable.
+ * Adjacent counts include mines in the neighboring chunks, which are
+ * generated (mines only) just to count them.
+ * Used by EndlessMinesweeper.
+ */
+final class ChunkStore {
+
+    public static final int CHUNK_SIZE = 64;
+    static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+    // Rough heap cost of one cached chunk, for turning a byte budget into a
+    // capacity.
+    static final int CHUNK_FOOTPRINT = CHUNK_CELLS + 256;
+    // The cache never holds fewer chunks than this, so a reveal and its
+    // neighbors always fit.
+    static final int MIN_CAPACITY = 16;
+
+    /**
+     * A cached chunk and whether it differs from what the seed generates.
+     */
+    static final class Chunk {
+        final PackedBoard cells;
+        boolean modified;
+
+        Chunk(PackedBoard cells, boolean modified) {
+            this.cells = cells;
+            this.modified = modified;
+        }
+    }
+
+    private final long seed;
+    private final int minesPerChunk;
+    private final Path directory;
+    private final int capacity;
+    private final LinkedHashMap<Long, Chunk> cache;
+    private long chunksWritten;
+    private long chunksRead;
+    private long chunksGenerated;
+
+    // A store for the given seed, keeping roughly maxBytes of chunks in memory
+    // and modified chunks that do not fit in directory. The origin and its
+    // neighbors never hold mines, so a first click there is safe.
+    ChunkStore(long seed, int minesPerChunk, Path directory, long maxBytes) {
+        if (minesPerChunk < 0 || minesPerChunk > CHUNK_CELLS - 9) {
+            throw new IllegalArgumentException(
+                    "Cannot place " + minesPerChunk + " mines in a chunk"
+            );
+        }
+        this.seed = seed;
+        this.minesPerChunk = minesPerChunk;
+        this.directory = directory;
+        this.capacity = (int) Math.max(MIN_CAPACITY, maxBytes / CHUNK_FOOTPRINT);
+        this.cache = new LinkedHashMap<Long, Chunk>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                evict(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getCachedChunks() {
+        return cache.size();
+    }
+
+    long getChunksWritten() {
+        return chunksWritten;
+    }
+
+    long getChunksRead() {
+        return chunksRead;
+    }
+
+    long getChunksGenerated() {
+        return chunksGenerated;
+    }
+
+    // The chunk at chunk coordinates (cx, cy): from the cache, from its file
+    // if it was evicted after being modified, or freshly generated. Throws
+    // UncheckedIOException if a chunk file cannot be read.
+    Chunk chunk(int cx, int cy) {
+        long key = key(cx, cy);
+        Chunk chunk = cache.get(key);
+        if (chunk == null) {
+            chunk = load(cx, cy);
+            cache.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    // Writes every modified chunk in the cache to disk; they stay cached.
+    void flush() {
+        for (Map.Entry<Long, Chunk> entry : cache.entrySet()) {
+            Chunk chunk = entry.getValue();
+            if (chunk.modified) {
+                write(entry.getKey(), chunk);
+            }
+        }
+    }
+
+    private Chunk load(int cx, int cy) {
+        Path file = file(cx, cy);
+        if (Files.exists(file)) {
+            try {
+                PackedBoard cells = BoardFile.read(file).getBoard();
+                addOutsideCounts(cells, cx, cy);
+                chunksRead++;
+                // Already on disk, so it only needs writing again if it changes.
+                return new Chunk(cells, false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Couldn't read chunk " + file, e);
+            }
+        }
+        PackedBoard cells = mines(cx, cy);
+        MineGenerator.countAdjacentMines(cells);
+        addOutsideCounts(cells, cx, cy);
+        chunksGenerated++;
+        return new Chunk(cells, false);
+    }
+
+    private void evict(long key, Chunk chunk) {
+        if (chunk.modified) {
+            write(key, chunk);
+        }
+    }
+
+    private void write(long key, Chunk chunk) {
+        Path file = file((int) (key >> 32), (int) key);
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, "chunk", ".tmp");
+            BoardFile.write(temp, chunk.cells, minesPerChunk, 0, false, seed);
+            SaveService.moveAtomically(temp, file);
+            chunk.modified = false;
+            chunksWritten++;
+        } catch (IOException e) {
+            SaveService.deleteQuietly(temp);
+            throw new UncheckedIOException("Couldn't write chunk " + file, e);
+        }
+    }
+
+    // A new chunk holding only the seed's mines for (cx, cy).
+    private PackedBoard mines(int cx, int cy) {
+        PackedBoard cells = new PackedBoard(CHUNK_SIZE, CHUNK_SIZE);
+        SplittableRandom rng = new SplittableRandom(chunkSeed(cx, cy));
+        if ((cx == 0 || cx == -1) && (cy == 0 || cy == -1)) {
+            // The four chunks around the origin keep it and its neighbors clear.
+            MineGenerator.placeMines(
+                    cells, 0, CHUNK_CELLS, minesPerChunk, rng, originNeighbors(cx, cy)
+            );
+            cells.setGeneratedCounters(minesPerChunk);
+        } else {
+            MineGenerator.placeMines(cells, minesPerChunk, rng);
+        }
+        return cells;
+    }
+
+    // Cells of chunk (cx, cy) next to the origin, in ascending order.
+    private static int[] originNeighbors(int cx, int cy) {
+        List<Integer> cells = new ArrayList<>();
+        for (int y = -1; y <= 1; y++) {
+            for (int x = -1; x <= 1; x++) {
+                if (Math.floorDiv(x, CHUNK_SIZE) == cx && Math.floorDiv(y, CHUNK_SIZE) == cy) {
+                    cells.add(Math.floorMod(y, CHUNK_SIZE) * CHUNK_SIZE
+                            + Math.floorMod(x, CHUNK_SIZE));
+                }
+            }
+        }
+        return cells.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    // Adds the mines in the 8 surrounding chunks to the counts along the
+    // edges of cells.
+    private void addOutsideCounts(PackedBoard cells, int cx, int cy) {
+        PackedBoard[] around = new PackedBoard[9];
+        int last = CHUNK_SIZE - 1;
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            // Only the first and last rows, and the ends of the others, touch
+            // another chunk.
+            int step = r == 0 || r == last ? 1 : last;
+            for (int c = 0; c < CHUNK_SIZE; c += step) {
+                int outside = 0;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        int nr = r + dr;
+                        int nc = c + dc;
+                        if (nr >= 0 && nc >= 0 && nr < CHUNK_SIZE && nc < CHUNK_SIZE) {
+                            continue;
+                        }
+                        int ox = nc < 0 ? -1 : nc >= CHUNK_SIZE ? 1 : 0;
+                        int oy = nr < 0 ? -1 : nr >= CHUNK_SIZE ? 1 : 0;
+                        int slot = (oy + 1) * 3 + ox + 1;
+                        if (around[slot] == null) {
+                            around[slot] = neighborMines(cx + ox, cy + oy);
+                        }
+                        if (around[slot].isMine(Math.floorMod(nr, CHUNK_SIZE) * CHUNK_SIZE
+                                + Math.floorMod(nc, CHUNK_SIZE))) {
+                            outside++;
+                        }
+                    }
+                }
+                if (outside > 0) {
+                    int i = r * CHUNK_SIZE + c;
+                    cells.setAdjacentMines(i, cells.getAdjacentMines(i) + outside);
+                }
+            }
+        }
+    }
+
+    // The mines of a neighboring chunk: the cached chunk if there is one,
+    // otherwise generated from the seed (mines never change after that).
+    private PackedBoard neighborMines(int cx, int cy) {
+        Chunk cached = cache.get(key(cx, cy));
+        return cached != null ? cached.cells : mines(cx, cy);
+    }
+
+    private long chunkSeed(int cx, int cy) {
+        long h = mix(seed + cx * 0x9E3779B97F4A7C15L);
+        return mix(h + cy * 0xC2B2AE3D27D4EB4FL);
+    }
+
+    // MurmurHash3's 64-bit finalizer.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private Path file(int cx, int cy) {
+        return directory.resolve("chunk_" + cx + "_" + cy + ".bin");
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,438 @@
+package org.cis1200.minesweeper;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Minesweeper board that several players can play at once, from any number
+ * of threads. Cells are the same packed bytes as PackedBoard and every change
+ * to one is a compare-and-set on its byte, so moves never take a lock: two
+ * players revealing, flagging or chording at the same time only conflict on
+ * the cells they both touch, and exactly one of them wins each cell.
+ * Flood fills claim cells one by one. A cell belongs to whichever fill
+ * reveals it, and that fill spreads from it, so overlapping fills end with
+ * exactly the cells a single fill would have revealed, whatever the
+ * interleaving. A flag placed before a fill reaches its cell is cleared by the
+ * fill; one placed after is refused. Either way the cell ends up revealed.
+ * The totals (flags left, safe cells left) are atomic and updated once per
+ * move. The game ends on the first mine. It is won as Minesweeper.checkWinner
+ * has it, once every safe cell is revealed and every mine flagged, and the
+ * check runs after every move. A mine is marked lost with a compare-and-set
+ * too, so a cell is either flagged or lost, never both.
+ * Each thread can read back what its own last move changed (see
+ * getLastRevealedCell), which GameServer's shared sessions reply with.
+ * Readers get consistent snapshots without blocking writers. A snapshot
+ * copies the board optimistically and keeps the copy only if no move was in
+ * progress at any point during it. Only if that fails SNAPSHOT_TRIES times in
+ * a row do new moves wait until the copy is done; one snapshot holds them at
+ * a time, and the others keep trying to take over until they get through.
+ * Moves in progress are counted in padded stripes, one per group of threads,
+ * so players on different threads don't contend on one counter; a snapshot
+ * adds the stripes up.
+ * The layout is generated up front from the seed, with the middle cell and
+ * its neighbors kept clear, so games start there. It is the same layout
+ * Minesweeper would make for that seed and a first click in the middle.
+ */
+public class ConcurrentMinesweeper {
+
+    // Optimistic snapshot attempts before moves are held back for one.
+    public static final int SNAPSHOT_TRIES = 16;
+
+    private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    // Stripes of the move counters, a power of two, and the longs between
+    // two stripes so that each has its own cache lines.
+    private static final int STRIPES =
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 4;
+    private static final int STRIPE_SPACING = 16;
+    private static final AtomicInteger NEXT_STRIPE = new AtomicInteger();
+
+    private final int rows;
+    private final int columns;
+    private final int numMines;
+    private final long seed;
+    private final byte[] cells;
+
+    private final AtomicInteger flagsLeft;
+    private final AtomicInteger hiddenSafeCells;
+    private final AtomicInteger flaggedCells = new AtomicInteger();
+    private final AtomicInteger lostCell = new AtomicInteger(-1);
+    private volatile boolean gameOver;
+    private volatile boolean won;
+
+    // Moves begun and finished, per stripe: stripe s counts started moves at
+    // s * STRIPE_SPACING and finished ones just after. The totals are equal
+    // when no move is in progress.
+    private final AtomicLongArray moveCounts = new AtomicLongArray(STRIPES * STRIPE_SPACING);
+    // Set while a snapshot that failed too often holds new moves back.
+    private final AtomicBoolean snapshotWaiting = new AtomicBoolean();
+
+    // Each thread's flood fill work list, which is also what its last move
+    // changed.
+    private final ThreadLocal<WorkList> work = ThreadLocal.withInitial(WorkList::new);
+
+    /**
+     * A growable list of cell indices, reused by one thread's moves: the cells
+     * the current move revealed, in order, and the mine it hit, if any. Also
+     * holds the thread's move counter stripe.
+     */
+    private static final class WorkList {
+        final int stripe = (NEXT_STRIPE.getAndIncrement() & (STRIPES - 1)) * STRIPE_SPACING;
+        int[] cells = new int[64];
+        int size;
+        int lost = -1;
+
+        void add(int cell) {
+            if (size == cells.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(cells, 0, grown, 0, size);
+                cells = grown;
+            }
+            cells[size++] = cell;
+        }
+    }
+
+    // A new game on a board of the given configuration, generated on up to
+    // parallelism threads.
+    public ConcurrentMinesweeper(BoardConfig config, long seed, int parallelism) {
+        rows = config.getRows();
+        columns = config.getColumns();
+        numMines = config.getMines();
+        this.seed = seed;
+        PackedBoard board = new PackedBoard(rows, columns);
+        LazyBoardGenerator generator = new LazyBoardGenerator(board, numMines);
+        generator.plan(seed, getStartRow(), getStartColumn());
+        generator.ensureAll(parallelism);
+        cells = board.cells();
+        flagsLeft = new AtomicInteger(numMines);
+        hiddenSafeCells = new AtomicInteger(board.size() - numMines);
+    }
+
+    // Reveals the cell at (c, r), flood filling from it if it has no adjacent
+    // mines. Returns the number of cells this call revealed (others may have
+    // been revealed by fills running at the same time), or -1 if the cell is
+    // out of bounds, revealed, flagged or the game is over. Revealing a mine
+    // ends the game and returns 0.
+    public int playTurn(int c, int r) {
+        if (!inBounds(r, c)) {
+            return -1;
+        }
+        WorkList list = beginMove();
+        try {
+            return reveal(r * columns + c, list);
+        } finally {
+            endMove(list);
+        }
+    }
+
+    // Toggles a flag on a hidden cell. Returns 1 if a flag was placed, 0 if
+    // one was removed and -1 if the cell cannot be flagged.
+    public int placeFlag(int c, int r) {
+        if (!inBounds(r, c)) {
+            return -1;
+        }
+        WorkList list = beginMove();
+        try {
+            int i = r * columns + c;
+            while (true) {
+                int old = get(i);
+                if (gameOver || (old & (PackedBoard.REVEALED | PackedBoard.LOST)) != 0) {
+                    return -1;
+                }
+                boolean placing = (old & PackedBoard.FLAGGED) == 0;
+                if (CELLS.compareAndSet(cells, i, (byte) old, (byte) (old ^ PackedBoard.FLAGGED))) {
+                    flagsLeft.addAndGet(placing ? -1 : 1);
+                    flaggedCells.addAndGet(placing ? 1 : -1);
+                    checkWinner();
+                    return placing ? 1 : 0;
+                }
+            }
+        } finally {
+            endMove(list);
+        }
+    }
+
+    // Chording: if the revealed number at (c, r) has that many flags around
+    // it, reveals every other hidden neighbor. Returns the number of cells
+    // revealed, or -1 if the cell is not a satisfied number or the game is
+    // over. A wrong flag means a mine is revealed, which ends the game.
+    public int chord(int c, int r) {
+        if (!inBounds(r, c)) {
+            return -1;
+        }
+        WorkList list = beginMove();
+        try {
+            int i = r * columns + c;
+            int cell = get(i);
+            int mines = cell & PackedBoard.COUNT_MASK;
+            if (gameOver || (cell & PackedBoard.REVEALED) == 0 || mines == 0) {
+                return -1;
+            }
+            int flags = 0;
+            for (int nr = Math.max(0, r - 1); nr <= Math.min(rows - 1, r + 1); nr++) {
+                for (int nc = Math.max(0, c - 1); nc <= Math.min(columns - 1, c + 1); nc++) {
+                    if ((get(nr * columns + nc) & PackedBoard.FLAGGED) != 0) {
+                        flags++;
+                    }
+                }
+            }
+            if (flags != mines) {
+                return -1;
+            }
+            int revealed = 0;
+            for (int nr = Math.max(0, r - 1); nr <= Math.min(rows - 1, r + 1); nr++) {
+                for (int nc = Math.max(0, c - 1); nc <= Math.min(columns - 1, c + 1); nc++) {
+                    if (!gameOver) {
+                        revealed += Math.max(0, reveal(nr * columns + nc, list));
+                    }
+                }
+            }
+            return revealed;
+        } finally {
+            endMove(list);
+        }
+    }
+
+    // Counts a move as started, once no snapshot is holding moves back, and
+    // returns the calling thread's record of its last move, cleared.
+    private WorkList beginMove() {
+        while (snapshotWaiting.get()) {
+            Thread.yield();
+        }
+        WorkList list = work.get();
+        moveCounts.incrementAndGet(list.stripe);
+        if (list.cells.length > 4096) {
+            // Don't hold on to the work list of one huge fill.
+            list.cells = new int[64];
+        }
+        list.size = 0;
+        list.lost = -1;
+        return list;
+    }
+
+    // Reveals cell i as a click would, adding the cells it reveals to list;
+    // see playTurn.
+    private int reveal(int i, WorkList list) {
+        int old = get(i);
+        if (gameOver || (old & (PackedBoard.REVEALED | PackedBoard.FLAGGED)) != 0) {
+            return -1;
+        }
+        if ((old & PackedBoard.MINE) != 0) {
+            // Lost unless someone flags the mine first.
+            while ((old & (PackedBoard.FLAGGED | PackedBoard.LOST)) == 0) {
+                if (CELLS.compareAndSet(cells, i, (byte) old, (byte) (old | PackedBoard.LOST))) {
+                    lostCell.compareAndSet(-1, i);
+                    list.lost = i;
+                    gameOver = true;
+                    return 0;
+                }
+                old = get(i);
+            }
+            return -1;
+        }
+        int first = list.size;
+        if (!claim(i, false, list)) {
+            // Revealed or flagged by someone else in the meantime.
+            return -1;
+        }
+        for (int head = first; head < list.size; head++) {
+            int cell = list.cells[head];
+            if ((get(cell) & PackedBoard.COUNT_MASK) > 0) {
+                continue;
+            }
+            int row = cell / columns;
+            int col = cell - row * columns;
+            for (int nr = Math.max(0, row - 1); nr <= Math.min(rows - 1, row + 1); nr++) {
+                for (int nc = Math.max(0, col - 1); nc <= Math.min(columns - 1, col + 1); nc++) {
+                    claim(nr * columns + nc, true, list);
+                }
+            }
+        }
+        int revealed = list.size - first;
+        hiddenSafeCells.addAndGet(-revealed);
+        checkWinner();
+        return revealed;
+    }
+
+    // Ends the game as won once every safe cell is revealed and every mine
+    // flagged. A move that completes either half checks after its own update,
+    // so whichever of two racing moves comes second sees both.
+    private void checkWinner() {
+        if (hiddenSafeCells.get() == 0 && flaggedCells.get() == numMines
+                && lostCell.get() < 0) {
+            won = true;
+            gameOver = true;
+        }
+    }
+
+    // Reveals cell i if it is a hidden safe cell, and adds it to list. A flag
+    // on it is cleared if spreading, as a fill does, and stops the reveal
+    // otherwise. Returns false if the cell was not revealed by this call.
+    private boolean claim(int i, boolean spreading, WorkList list) {
+        while (true) {
+            int old = get(i);
+            if ((old & (PackedBoard.REVEALED | PackedBoard.MINE)) != 0
+                    || !spreading && (old & PackedBoard.FLAGGED) != 0) {
+                return false;
+            }
+            int now = (old | PackedBoard.REVEALED) & ~PackedBoard.FLAGGED;
+            if (CELLS.compareAndSet(cells, i, (byte) old, (byte) now)) {
+                if ((old & PackedBoard.FLAGGED) != 0) {
+                    flagsLeft.incrementAndGet();
+                    flaggedCells.decrementAndGet();
+                }
+                list.add(i);
+                return true;
+            }
+        }
+    }
+
+    private int get(int i) {
+        return (byte) CELLS.getAcquire(cells, i) & 0xFF;
+    }
+
+    private void endMove(WorkList list) {
+        moveCounts.incrementAndGet(list.stripe + 1);
+    }
+
+    // Total moves started, or with finished set, finished. Every finished
+    // count is read before the started counts that are compared with it, and
+    // no stripe has finished more moves than it started, so equal totals mean
+    // every stripe was idle.
+    private long countMoves(boolean finished) {
+        long total = 0;
+        for (int s = finished ? 1 : 0; s < moveCounts.length(); s += STRIPE_SPACING) {
+            total += moveCounts.get(s);
+        }
+        return total;
+    }
+
+    // Returns a copy of the whole game that no later move affects, taken
+    // between moves: every move is either wholly in it or not at all. Moves
+    // keep running while it is taken, unless it fails SNAPSHOT_TRIES times.
+    public BoardFile snapshot() {
+        PackedBoard copy = new PackedBoard(rows, columns);
+        byte[] into = copy.cells();
+        boolean holding = false;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                long finished = countMoves(true);
+                long started = countMoves(false);
+                if (started == finished) {
+                    System.arraycopy(cells, 0, into, 0, cells.length);
+                    int flags = flagsLeft.get();
+                    boolean over = gameOver;
+                    // The copy must be read before the check that no move
+                    // started during it.
+                    VarHandle.acquireFence();
+                    if (countMoves(false) == started) {
+                        copy.recount();
+                        return new BoardFile(numMines, flags, over, seed, copy);
+                    }
+                }
+                if (attempt >= SNAPSHOT_TRIES && !holding) {
+                    // Another snapshot may hold moves back; take over once
+                    // it is done.
+                    holding = snapshotWaiting.compareAndSet(false, true);
+                }
+                Thread.yield();
+            }
+        } finally {
+            if (holding) {
+                snapshotWaiting.set(false);
+            }
+        }
+    }
+
+    public boolean inBounds(int r, int c) {
+        return r >= 0 && r < rows && c >= 0 && c < columns;
+    }
+
+    // Column row are swapped parameters, as in Minesweeper. Each getter reads
+    // one cell as it is now; use snapshot to read many cells consistently.
+    public boolean getCellRevealed(int c, int r) {
+        return (get(r * columns + c) & PackedBoard.REVEALED) != 0;
+    }
+
+    public boolean getCellFlagged(int c, int r) {
+        return (get(r * columns + c) & PackedBoard.FLAGGED) != 0;
+    }
+
+    public boolean getCellLost(int c, int r) {
+        return (get(r * columns + c) & PackedBoard.LOST) != 0;
+    }
+
+    public int getCellAdjacentMines(int c, int r) {
+        return get(r * columns + c) & PackedBoard.COUNT_MASK;
+    }
+
+    public boolean getGameOver() {
+        return gameOver;
+    }
+
+    // True once every safe cell is revealed and every mine flagged, without a
+    // mine being hit.
+    public boolean isWon() {
+        return won;
+    }
+
+    // Number of cells the calling thread's last move revealed, and the k-th
+    // of them as a flat index. Moves on other threads don't affect these.
+    public int getLastRevealedCount() {
+        return work.get().size;
+    }
+
+    public int getLastRevealedCell(int k) {
+        WorkList list = work.get();
+        if (k < 0 || k >= list.size) {
+            throw new IndexOutOfBoundsException("No revealed cell " + k + " of " + list.size);
+        }
+        return list.cells[k];
+    }
+
+    // The mine the calling thread's last move hit, as a flat index, or -1.
+    public int getLastLostCell() {
+        return work.get().lost;
+    }
+
+    // Flags left to place, as Minesweeper.getNumFlags.
+    public int getNumFlags() {
+        return flagsLeft.get();
+    }
+
+    public int getFlaggedCells() {
+        return flaggedCells.get();
+    }
+
+    public int getRemainingSafeCells() {
+        return hiddenSafeCells.get();
+    }
+
+    public int getNumMines() {
+        return numMines;
+    }
+
+    public int getNumRows() {
+        return rows;
+    }
+
+    public int getNumColumns() {
+        return columns;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // The cell every game can safely start on.
+    public int getStartRow() {
+        return rows / 2;
+    }
+
+    public int getStartColumn() {
+        return columns / 2;
+    }
+}
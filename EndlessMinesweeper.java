@@ -0,0 +1,316 @@
+package org.cis1200.minesweeper;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Endless Minesweeper: a board with no edges, made of chunks that are
+ * generated from the seed as play reaches them (see ChunkStore). Cells are
+ * addressed by any int coordinates (x, y); the origin and its neighbors are
+ * always safe, so games start there. There is no winning, only the number of
+ * cells revealed before hitting a mine.
+ * Heap use is bounded by the chunk cache: chunks that have been played on
+ * are written to the game directory when they fall out of it, so millions of
+ * cells can be explored at a fixed heap size. save writes the rest, and
+ * open continues a saved game.
+ * One reveal opens at most MAX_FILL cells. What is left of a larger empty
+ * region stays queued (see hasPendingFill): the next playTurn carries on
+ * with it after its own cell, and continueFill carries on without a click.
+ * The queue is saved with the game.
+ */
+public class EndlessMinesweeper {
+
+    public static final double DEFAULT_DENSITY = 0.16;
+    // Below about 0.1 the empty regions join up into one endless region, and
+    // a single click would never stop revealing.
+    public static final double MIN_DENSITY = 0.12;
+    public static final double MAX_DENSITY = 0.9;
+    // Cells one reveal may open; the rest of a larger empty region is left
+    // queued for the next one.
+    public static final int MAX_FILL = 1 << 20;
+    public static final long DEFAULT_MEMORY = 64L << 20;
+
+    private static final int MAGIC = 0x4D53454E; // "MSEN"
+    // Version 2 adds the pending fill queue.
+    private static final int VERSION = 2;
+    private static final String GAME_FILE = "game.bin";
+
+    private final long seed;
+    private final double density;
+    private final Path directory;
+    private final ChunkStore chunks;
+    private long revealedCells;
+    private long flaggedCells;
+    private boolean gameOver;
+
+    // Reveal work list of packed (x, y) pairs, reused between reveals. The
+    // first pending entries are left over from a reveal that hit MAX_FILL.
+    private long[] queue = new long[64];
+    private int pending;
+    private int maxFill = MAX_FILL;
+    private int lastRevealed;
+
+    // A new game. Modified chunks are kept in directory once more than
+    // maxBytes of chunks are cached.
+    public EndlessMinesweeper(long seed, double density, Path directory, long maxBytes) {
+        if (!(density >= MIN_DENSITY && density <= MAX_DENSITY)) {
+            throw new IllegalArgumentException(
+                    "Mine density must be between " + MIN_DENSITY + " and " + MAX_DENSITY
+            );
+        }
+        this.seed = seed;
+        this.density = density;
+        this.directory = directory;
+        this.chunks = new ChunkStore(
+                seed, (int) Math.round(density * ChunkStore.CHUNK_CELLS), directory, maxBytes
+        );
+    }
+
+    // Continues the game saved in directory. Throws IOException if there is
+    // none or it is unreadable.
+    public static EndlessMinesweeper open(Path directory, long maxBytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                Files.newInputStream(directory.resolve(GAME_FILE))
+        )) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an endless Minesweeper game: " + directory);
+            }
+            int version = in.readInt();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported endless game version " + version);
+            }
+            EndlessMinesweeper game = new EndlessMinesweeper(
+                    in.readLong(), in.readDouble(), directory, maxBytes
+            );
+            game.revealedCells = in.readLong();
+            game.flaggedCells = in.readLong();
+            game.gameOver = in.readBoolean();
+            if (version >= 2) {
+                int pending = in.readInt();
+                if (pending < 0) {
+                    throw new IOException("Malformed endless game file in " + directory);
+                }
+                for (int k = 0; k < pending; k++) {
+                    game.push(in.readLong());
+                }
+            }
+            return game;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed endless game file in " + directory, e);
+        }
+    }
+
+    // Writes every modified chunk and the game totals to the game directory.
+    public void save() throws IOException {
+        chunks.flush();
+        Files.createDirectories(directory);
+        try (DataOutputStream out = new DataOutputStream(
+                Files.newOutputStream(directory.resolve(GAME_FILE))
+        )) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seed);
+            out.writeDouble(density);
+            out.writeLong(revealedCells);
+            out.writeLong(flaggedCells);
+            out.writeBoolean(gameOver);
+            out.writeInt(pending);
+            for (int k = 0; k < pending; k++) {
+                out.writeLong(queue[k]);
+            }
+        }
+    }
+
+    // Reveals the cell at (x, y), flood filling from it if it has no adjacent
+    // mines, then carries on with any pending fill, MAX_FILL cells in all.
+    // Returns false if the game is over or the cell is revealed or flagged.
+    // Sets gameOver if the cell is a mine.
+    public boolean playTurn(int x, int y) {
+        ChunkStore.Chunk chunk = chunkAt(x, y);
+        int i = local(x, y);
+        if (gameOver || chunk.cells.isRevealed(i) || chunk.cells.isFlagged(i)) {
+            return false;
+        }
+        if (chunk.cells.isMine(i)) {
+            chunk.cells.setRevealed(i);
+            chunk.cells.setLost(i);
+            chunk.modified = true;
+            lastRevealed = 0;
+            gameOver = true;
+            pending = 0;
+            return true;
+        }
+        push(pack(x, y));
+        lastRevealed = fill();
+        return true;
+    }
+
+    // True if the last reveal stopped at MAX_FILL with part of an empty
+    // region still queued: revealed cells without adjacent mines may have
+    // hidden neighbors until the fill is carried on.
+    public boolean hasPendingFill() {
+        return pending > 0;
+    }
+
+    // Lowers the number of cells one reveal may open, which is MAX_FILL
+    // otherwise. Meant for tests, which can't afford regions that large.
+    void setMaxFill(int cells) {
+        if (cells < 1) {
+            throw new IllegalArgumentException("A reveal must open at least one cell");
+        }
+        maxFill = cells;
+    }
+
+    // Carries on with a pending fill, up to MAX_FILL more cells. Returns the
+    // number of cells revealed, 0 if nothing was pending.
+    public int continueFill() {
+        if (gameOver || pending == 0) {
+            return 0;
+        }
+        lastRevealed = fill();
+        return lastRevealed;
+    }
+
+    // Toggles a flag on a hidden cell. Returns 1 if a flag was placed, 0 if
+    // one was removed and -1 if the cell cannot be flagged.
+    public int placeFlag(int x, int y) {
+        ChunkStore.Chunk chunk = chunkAt(x, y);
+        int i = local(x, y);
+        if (gameOver || chunk.cells.isRevealed(i)) {
+            return -1;
+        }
+        boolean flagged = !chunk.cells.isFlagged(i);
+        chunk.cells.setFlagged(i, flagged);
+        chunk.modified = true;
+        flaggedCells += flagged ? 1 : -1;
+        return flagged ? 1 : 0;
+    }
+
+    // Iterative flood fill across chunks from the queued cells, stopping after
+    // MAX_FILL reveals with the rest left pending. The chunk of every cell is
+    // looked up again each time, since the cache may evict chunks while the
+    // fill runs.
+    private int fill() {
+        int count = 0;
+        while (pending > 0 && count < maxFill) {
+            long packed = queue[--pending];
+            int cellX = (int) (packed >> 32);
+            int cellY = (int) packed;
+            ChunkStore.Chunk chunk = chunkAt(cellX, cellY);
+            int i = local(cellX, cellY);
+            PackedBoard cells = chunk.cells;
+            if (cells.isRevealed(i) || cells.isMine(i)) {
+                continue;
+            }
+            if (cells.isFlagged(i)) {
+                cells.setFlagged(i, false);
+                flaggedCells--;
+            }
+            cells.setRevealed(i);
+            chunk.modified = true;
+            count++;
+            if (cells.getAdjacentMines(i) > 0) {
+                continue;
+            }
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (dx != 0 || dy != 0) {
+                        push(pack(cellX + dx, cellY + dy));
+                    }
+                }
+            }
+        }
+        if (queue.length > 4096 && pending == 0) {
+            // Don't hold on to the work list of one huge reveal.
+            queue = new long[64];
+        }
+        revealedCells += count;
+        return count;
+    }
+
+    public boolean getCellRevealed(int x, int y) {
+        return chunkAt(x, y).cells.isRevealed(local(x, y));
+    }
+
+    public boolean getCellFlagged(int x, int y) {
+        return chunkAt(x, y).cells.isFlagged(local(x, y));
+    }
+
+    public boolean getCellLost(int x, int y) {
+        return chunkAt(x, y).cells.isLost(local(x, y));
+    }
+
+    public int getCellAdjacentMines(int x, int y) {
+        return chunkAt(x, y).cells.getAdjacentMines(local(x, y));
+    }
+
+    public boolean getGameOver() {
+        return gameOver;
+    }
+
+    // Cells revealed so far, the score of an endless game.
+    public long getRevealedCells() {
+        return revealedCells;
+    }
+
+    public long getFlaggedCells() {
+        return flaggedCells;
+    }
+
+    // Number of cells revealed by the last playTurn.
+    public int getLastRevealedCount() {
+        return lastRevealed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getDensity() {
+        return density;
+    }
+
+    // Chunks currently in memory, and the most that will be.
+    public int getCachedChunks() {
+        return chunks.getCachedChunks();
+    }
+
+    public int getChunkCapacity() {
+        return chunks.getCapacity();
+    }
+
+    // Chunks written to and read back from the game directory so far.
+    public long getChunksWritten() {
+        return chunks.getChunksWritten();
+    }
+
+    public long getChunksRead() {
+        return chunks.getChunksRead();
+    }
+
+    private ChunkStore.Chunk chunkAt(int x, int y) {
+        return chunks.chunk(
+                Math.floorDiv(x, ChunkStore.CHUNK_SIZE), Math.floorDiv(y, ChunkStore.CHUNK_SIZE)
+        );
+    }
+
+    private static int local(int x, int y) {
+        return Math.floorMod(y, ChunkStore.CHUNK_SIZE) * ChunkStore.CHUNK_SIZE
+                + Math.floorMod(x, ChunkStore.CHUNK_SIZE);
+    }
+
+    private void push(long packed) {
+        if (pending == queue.length) {
+            queue = Arrays.copyOf(queue, pending * 2);
+        }
+        queue[pending++] = packed;
+    }
+
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,146 @@
+package org.cis1200.minesweeper;
+
+/**
+ * Iterative reveal engine for a PackedBoard. Instead of recursing into every
+ * neighbor, cells are revealed as soon as they are discovered and pushed onto
+ * a primitive work list, so each cell is visited once and the call stack
+ * stays flat no matter how large the opened region is.
+ * The work list doubles as the record of newly revealed cells. It is kept
+ * between calls and only grows when a fill is larger than any before it, so a
+ * warmed-up engine allocates nothing per click.
+ * On a board that is still being generated lazily, the fill asks the
+ * LazyBoardGenerator for the rows around every cell it spreads from.
+ */
+public final class FloodFill {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final PackedBoard board;
+    private int[] revealed;
+    private int count;
+    private int flagsCleared;
+    // Cells whose flags the last fill removed; rarely more than a few.
+    private int[] clearedFlags = new int[4];
+    private LazyBoardGenerator lazy;
+
+    public FloodFill(PackedBoard board) {
+        this.board = board;
+        this.revealed = new int[Math.min(INITIAL_CAPACITY, board.size())];
+    }
+
+    // Sets the generator to pull rows from as the fill reaches them, or null
+    // once the board is fully generated.
+    void setLazyGenerator(LazyBoardGenerator lazy) {
+        this.lazy = lazy;
+    }
+
+    // Reveals the cell at (r, c) and, if it has no adjacent mines, every safe
+    // cell connected to it through other zero cells. Mines and cells that are
+    // already revealed are left alone. Flags on revealed cells are removed.
+    // Returns the number of newly revealed cells.
+    public int fill(int r, int c) {
+        count = 0;
+        flagsCleared = 0;
+        if (!board.inBounds(r, c)) {
+            return 0;
+        }
+        int columns = board.getColumns();
+        int rows = board.getRows();
+        if (lazy != null) {
+            lazy.ensureRow(r);
+        }
+        visit(board.index(r, c));
+        // Every revealed cell is on the list; only zero cells spread further.
+        for (int head = 0; head < count; head++) {
+            int i = revealed[head];
+            if (board.getAdjacentMines(i) > 0) {
+                continue;
+            }
+            int row = i / columns;
+            int col = i - row * columns;
+            if (lazy != null) {
+                lazy.ensureRows(row - 1, row + 1);
+            }
+            boolean up = row > 0;
+            boolean down = row < rows - 1;
+            boolean left = col > 0;
+            boolean right = col < columns - 1;
+            if (up) {
+                if (left) {
+                    visit(i - columns - 1);
+                }
+                visit(i - columns);
+                if (right) {
+                    visit(i - columns + 1);
+                }
+            }
+            if (left) {
+                visit(i - 1);
+            }
+            if (right) {
+                visit(i + 1);
+            }
+            if (down) {
+                if (left) {
+                    visit(i + columns - 1);
+                }
+                visit(i + columns);
+                if (right) {
+                    visit(i + columns + 1);
+                }
+            }
+        }
+        return count;
+    }
+
+    // Reveals a single safe, unrevealed cell and records it on the work list.
+    private void visit(int i) {
+        int cell = board.get(i);
+        if ((cell & (PackedBoard.MINE | PackedBoard.REVEALED)) != 0) {
+            return;
+        }
+        if ((cell & PackedBoard.FLAGGED) != 0) {
+            board.setFlagged(i, false);
+            if (flagsCleared == clearedFlags.length) {
+                int[] grown = new int[flagsCleared * 2];
+                System.arraycopy(clearedFlags, 0, grown, 0, flagsCleared);
+                clearedFlags = grown;
+            }
+            clearedFlags[flagsCleared++] = i;
+        }
+        board.setRevealed(i);
+        if (count == revealed.length) {
+            int[] grown = new int[Math.min(revealed.length * 2, board.size())];
+            System.arraycopy(revealed, 0, grown, 0, count);
+            revealed = grown;
+        }
+        revealed[count++] = i;
+    }
+
+    // Number of cells revealed by the last fill.
+    public int getRevealedCount() {
+        return count;
+    }
+
+    // Flat index (row * columns + column) of the k-th cell revealed by the
+    // last fill, in discovery order.
+    public int getRevealed(int k) {
+        if (k < 0 || k >= count) {
+            throw new IndexOutOfBoundsException("No revealed cell " + k + " of " + count);
+        }
+        return revealed[k];
+    }
+
+    // Number of flags removed because their cells were revealed by the last fill.
+    public int getFlagsCleared() {
+        return flagsCleared;
+    }
+
+    // Flat index of the k-th cell whose flag the last fill removed.
+    public int getFlagCleared(int k) {
+        if (k < 0 || k >= flagsCleared) {
+            throw new IndexOutOfBoundsException("No cleared flag " + k + " of " + flagsCleared);
+        }
+        return clearedFlags[k];
+    }
+}
@@ -0,0 +1,252 @@
+package org.cis1200.minesweeper;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * One connected piece of the frontier: undetermined cells that border a
+ * revealed number, linked to each other through the numbers they share.
+ * Components are independent of each other, so each one can be enumerated on
+ * its own. Built and used by Solver.
+ */
+final class FrontierComponent {
+
+    private final int[] cells;
+    // Flat indices of the revealed numbers constraining the cells.
+    private final int[] numbers;
+    // For every local cell, the constraints it takes part in.
+    private final int[][] cellConstraints;
+    // For every constraint, the mines still needed among its undetermined cells.
+    private final int[] need;
+    // For every constraint, how many of its cells are in this component.
+    private final int[] constraintSize;
+
+    // Search state.
+    private int[] assigned;
+    private int[] unassigned;
+    private boolean[] mine;
+    private int placedMines;
+    private long nodes;
+    private long budget;
+
+    // Results: solutionsByMines[m] is the number of solutions with exactly m
+    // mines, and countsByMines[k][m] how many of those have a mine on cell k.
+    private long[] solutionsByMines;
+    private long[][] countsByMines;
+
+    private FrontierComponent(
+            int[] cells, int[] numbers, int[][] cellConstraints, int[] need, int[] constraintSize
+    ) {
+        this.cells = cells;
+        this.numbers = numbers;
+        this.cellConstraints = cellConstraints;
+        this.need = need;
+        this.constraintSize = constraintSize;
+    }
+
+    // Collects the component containing the frontier cell start, marking its
+    // cells visited in the solver.
+    static FrontierComponent collect(Solver solver, int start) {
+        int rows = solver.getRows();
+        int columns = solver.getColumns();
+        int[] cellList = new int[16];
+        int cellCount = 0;
+        int[] constraintList = new int[16];
+        int constraintCount = 0;
+        HashMap<Integer, Integer> constraintIds = new HashMap<>();
+
+        solver.markVisited(start);
+        cellList[cellCount++] = start;
+        for (int head = 0; head < cellCount; head++) {
+            int cell = cellList[head];
+            int r = cell / columns;
+            int c = cell % columns;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    int nr = r + dr;
+                    int nc = c + dc;
+                    if ((dr == 0 && dc == 0) || nr < 0 || nc < 0 || nr >= rows || nc >= columns) {
+                        continue;
+                    }
+                    int number = nr * columns + nc;
+                    if (!solver.isOpen(number) || constraintIds.containsKey(number)) {
+                        continue;
+                    }
+                    if (constraintCount == constraintList.length) {
+                        constraintList = Arrays.copyOf(constraintList, constraintCount * 2);
+                    }
+                    constraintIds.put(number, constraintCount);
+                    constraintList[constraintCount++] = number;
+                    // Every undetermined neighbor of this number joins the component.
+                    for (int er = -1; er <= 1; er++) {
+                        for (int ec = -1; ec <= 1; ec++) {
+                            int mr = nr + er;
+                            int mc = nc + ec;
+                            if (mr < 0 || mc < 0 || mr >= rows || mc >= columns) {
+                                continue;
+                            }
+                            int member = mr * columns + mc;
+                            if (solver.isUndetermined(member) && solver.markVisited(member)) {
+                                if (cellCount == cellList.length) {
+                                    cellList = Arrays.copyOf(cellList, cellCount * 2);
+                                }
+                                cellList[cellCount++] = member;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        int[] cells = Arrays.copyOf(cellList, cellCount);
+        int[] need = new int[constraintCount];
+        int[] constraintSize = new int[constraintCount];
+        int[][] cellConstraints = new int[cellCount][];
+        for (int k = 0; k < constraintCount; k++) {
+            need[k] = solver.minesNeeded(constraintList[k]);
+        }
+        int[] buffer = new int[8];
+        for (int k = 0; k < cellCount; k++) {
+            int r = cells[k] / columns;
+            int c = cells[k] % columns;
+            int size = 0;
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    int nr = r + dr;
+                    int nc = c + dc;
+                    if ((dr == 0 && dc == 0) || nr < 0 || nc < 0 || nr >= rows || nc >= columns) {
+                        continue;
+                    }
+                    Integer id = constraintIds.get(nr * columns + nc);
+                    if (id != null) {
+                        buffer[size++] = id;
+                        constraintSize[id]++;
+                    }
+                }
+            }
+            cellConstraints[k] = Arrays.copyOf(buffer, size);
+        }
+        return new FrontierComponent(
+                cells, Arrays.copyOf(constraintList, constraintCount), cellConstraints, need,
+                constraintSize
+        );
+    }
+
+    int size() {
+        return cells.length;
+    }
+
+    // Flat board index of the k-th cell of the component.
+    int cell(int k) {
+        return cells[k];
+    }
+
+    // Copy of the flat indices of the numbers constraining this component.
+    int[] constraintCells() {
+        return numbers.clone();
+    }
+
+    // Enumerates every assignment of mines to the component's cells that
+    // satisfies all of its numbers. For each cell, counts[k] receives the
+    // number of solutions in which it is a mine. Returns the number of
+    // solutions, or -1 if the search needed more than budget nodes.
+    long enumerate(long[] counts, long budget) {
+        if (!enumerate(budget)) {
+            return -1;
+        }
+        long total = 0;
+        for (long solutions : solutionsByMines) {
+            total += solutions;
+        }
+        for (int k = 0; k < cells.length; k++) {
+            long sum = 0;
+            for (long count : countsByMines[k]) {
+                sum += count;
+            }
+            counts[k] = sum;
+        }
+        return total;
+    }
+
+    // Enumerates every solution, keeping the tallies split by how many mines
+    // each solution uses (see solutionsWithMines and mineCountWithMines).
+    // Returns false if the search needed more than budget nodes.
+    boolean enumerate(long budget) {
+        assigned = new int[need.length];
+        unassigned = constraintSize.clone();
+        mine = new boolean[cells.length];
+        placedMines = 0;
+        nodes = 0;
+        this.budget = budget;
+        solutionsByMines = new long[cells.length + 1];
+        countsByMines = new long[cells.length][cells.length + 1];
+        return search(0);
+    }
+
+    // Number of solutions that place exactly mines mines in this component.
+    long solutionsWithMines(int mines) {
+        return solutionsByMines[mines];
+    }
+
+    // Number of solutions with exactly mines mines that put one on cell k.
+    long mineCountWithMines(int k, int mines) {
+        return countsByMines[k][mines];
+    }
+
+    // Assigns cell k and everything after it. Returns false once the node
+    // budget is exhausted.
+    private boolean search(int k) {
+        if (++nodes > budget) {
+            return false;
+        }
+        if (k == cells.length) {
+            solutionsByMines[placedMines]++;
+            for (int m = 0; m < cells.length; m++) {
+                if (mine[m]) {
+                    countsByMines[m][placedMines]++;
+                }
+            }
+            return true;
+        }
+        for (int value = 0; value <= 1; value++) {
+            boolean isMine = value == 1;
+            if (place(k, isMine)) {
+                mine[k] = isMine;
+                placedMines += value;
+                boolean withinBudget = search(k + 1);
+                placedMines -= value;
+                if (!withinBudget) {
+                    return false;
+                }
+            }
+            unplace(k, isMine);
+        }
+        mine[k] = false;
+        return true;
+    }
+
+    // Assigns cell k and returns whether every constraint it touches can still
+    // be satisfied. Always pair with unplace.
+    private boolean place(int k, boolean isMine) {
+        boolean feasible = true;
+        for (int id : cellConstraints[k]) {
+            unassigned[id]--;
+            if (isMine) {
+                assigned[id]++;
+            }
+            if (assigned[id] > need[id] || assigned[id] + unassigned[id] < need[id]) {
+                feasible = false;
+            }
+        }
+        return feasible;
+    }
+
+    private void unplace(int k, boolean isMine) {
+        for (int id : cellConstraints[k]) {
+            unassigned[id]++;
+            if (isMine) {
+                assigned[id]--;
+            }
+        }
+    }
+}
@@ -8,7 +8,15 @@ public class Game {
      * class of your choosing and runs it. IMPORTANT: Do NOT delete! You MUST
      * include a main method in your final submission.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // "--server [port [idle seconds]]" hosts games headlessly instead
+        if (args.length > 0 && args[0].equals("--server")) {
+            org.cis1200.minesweeper.GameServer.main(
+                    java.util.Arrays.copyOfRange(args, 1, args.length)
+            );
+            return;
+        }
+
         // Set the game you want to run here
         Runnable game = new org.cis1200.minesweeper.RunMinesweeper();
 
@@ -6,14 +6,12 @@ package org.cis1200.minesweeper;
  * Created by Bayley Tuch, Sabrina Green, and Nicolas Corona in Fall 2020.
  */
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * This class instantiates a GameBoard object, which is the model for the game.
@@ -25,14 +23,29 @@ import java.io.IOException;
  * its paintComponent method and the status JLabel).
  */
 
-public class GameBoard extends JPanel {
+public class GameBoard extends JPanel implements Scrollable {
 
     private final Minesweeper ms; // model for the game
     private final JLabel status; // current status text
+    private final TileAtlas tiles = new TileAtlas(); // pre-rendered tile images
+    private final SaveService saves = new SaveService(
+            Paths.get("files"), SaveService.DEFAULT_SLOTS, new SaveStatus()
+    ); // background save/load
+    private ProbabilityEngine probabilities; // set while the heatmap is shown
+    private Solver solver; // created on the first call to solve
+    private boolean showMetrics; // draws the FPS and latency overlay
+    private final long[] frameTimes = new long[64]; // end of the latest paints
+    private int frames; // paints so far, indexing frameTimes
+    private long moveNanos; // model time of the last click
+    private BoardCanvas zoomView; // the zoom and pan view, once it is made
 
-    // Game constants
-    public static final int BOARD_WIDTH = 500;
-    public static final int BOARD_HEIGHT = 400;
+    // Game constants. Cells are drawn square; their size is derived from the
+    // space the board is given, and the preferred size keeps cells between
+    // MIN_CELL_SIZE and MAX_CELL_SIZE within MAX_VIEW_WIDTH x MAX_VIEW_HEIGHT.
+    public static final int MAX_CELL_SIZE = 50;
+    public static final int MIN_CELL_SIZE = 4;
+    public static final int MAX_VIEW_WIDTH = 1200;
+    public static final int MAX_VIEW_HEIGHT = 800;
 
     /**
      * Initializes the game board.
@@ -56,64 +69,296 @@ public class GameBoard extends JPanel {
             @Override
             public void mouseReleased(MouseEvent e) {
                 Point p = e.getPoint();
-                if (p.getX() <= 500 && p.getY() <= 400) {
-                    if (SwingUtilities.isLeftMouseButton(e)) {
-                        ms.playTurn(p.x / 50, p.y / 50);
-                    } else if (SwingUtilities.isRightMouseButton(e)) {
-                        ms.placeFlag(p.x / 50, p.y / 50);
-                    }
-                    updateStatus(); // updates the status JLabel
-                    repaint(); // repaints the game board
+                int cellSize = cellSize();
+                if (p.x < ms.getNumColumns() * cellSize && p.y < ms.getNumRows() * cellSize) {
+                    playClick(p.x / cellSize, p.y / cellSize, e);
                 }
             }
             // updates the model given the coordinates of the mouseclick
         });
     }
 
+    /**
+     * Plays the move a click with e's button makes on cell (c, r), then
+     * updates the status and the views. Shared with the zoom view.
+     */
+    void playClick(int c, int r, MouseEvent e) {
+        long started = System.nanoTime();
+        // Clicking a revealed number, or middle-clicking, chords.
+        if (SwingUtilities.isMiddleMouseButton(e)
+                || SwingUtilities.isLeftMouseButton(e) && ms.getCellRevealed(c, r)) {
+            ms.chord(c, r);
+        } else if (SwingUtilities.isLeftMouseButton(e)) {
+            ms.playTurn(c, r);
+        } else if (SwingUtilities.isRightMouseButton(e)) {
+            ms.placeFlag(c, r);
+        }
+        moveNanos = System.nanoTime() - started;
+        updateStatus(); // updates the status JLabel
+        repaintMoves();
+    }
+
+    /**
+     * Returns the zoom and pan view of this game, made on the first call. It
+     * plays the same game as this board and can be shown in its place.
+     */
+    public BoardCanvas getZoomView() {
+        if (zoomView == null) {
+            zoomView = new BoardCanvas(this, ms);
+            zoomView.setShowMetrics(showMetrics);
+            ms.takeDirtyRegion();
+        }
+        return zoomView;
+    }
+
     /**
      * (Re-)sets the game to its initial state.
      */
     public void reset() {
         ms.reset();
         status.setText("Number of Flags: " + ms.getNumFlags());
+        boardChanged();
         repaint();
 
         // Makes sure this component has keyboard/mouse focus
         requestFocusInWindow();
     }
 
+    /**
+     * Switches to a new board configuration and starts a new game on it. The
+     * enclosing frame should be re-packed afterwards to pick up the new size.
+     */
+    public void setConfig(BoardConfig config) {
+        ms.setConfig(config);
+        revalidate();
+        reset();
+    }
+
+    public BoardConfig getConfig() {
+        return ms.getConfig();
+    }
+
+    /**
+     * Turns no-guess boards on or off and starts a new game. No-guess boards
+     * are laid out on the first click so they can be cleared without guessing.
+     */
+    public void setNoGuess(boolean noGuess) {
+        ms.setNoGuess(noGuess);
+        reset();
+    }
+
+    /**
+     * Turns the mine probability heatmap on or off. While it is on, every
+     * hidden, unflagged cell is tinted from green (safe) to red (mine).
+     */
+    public void setShowProbabilities(boolean show) {
+        probabilities = show ? new ProbabilityEngine(ms) : null;
+        repaint();
+        requestFocusInWindow();
+    }
+
+    /**
+     * Turns the debug overlay on or off. It shows the frame rate, the time
+     * and cells of the last paint, and how long the last click took in the
+     * model. Turning it on also turns on GameMetrics.
+     */
+    public void setShowMetrics(boolean show) {
+        showMetrics = show;
+        if (show) {
+            GameMetrics.setEnabled(true);
+        }
+        if (zoomView != null) {
+            zoomView.setShowMetrics(show);
+        }
+        repaint();
+        requestFocusInWindow();
+    }
+
+    /**
+     * Lets the Solver play every move it can prove, flagging the mines it
+     * finds. Each round of safe cells is applied as one MoveBatch, and the
+     * status and board are updated once at the end, however many moves were
+     * made. The Solver ignores flags, so a flag on a cell it proves safe is
+     * taken off before the cell is revealed.
+     */
+    public void solve() {
+        if (solver == null) {
+            solver = new Solver(ms);
+        }
+        int columns = ms.getNumColumns();
+        int moves = 0;
+        while (!ms.getGameOver()) {
+            int[] safe = solver.safeCells();
+            if (safe.length == 0) {
+                break;
+            }
+            MoveBatch reveals = new MoveBatch();
+            for (int cell : safe) {
+                int c = cell % columns;
+                int r = cell / columns;
+                if (ms.getCellFlagged(c, r)) {
+                    reveals.flag(c, r);
+                }
+                reveals.reveal(c, r);
+            }
+            int applied = ms.apply(reveals).getMovesApplied();
+            if (applied == 0) {
+                break; // nothing the solver proved could be played
+            }
+            moves += applied;
+        }
+        if (!ms.getGameOver()) {
+            MoveBatch flags = new MoveBatch();
+            for (int r = 0; r < ms.getNumRows(); r++) {
+                for (int c = 0; c < columns; c++) {
+                    if (solver.isKnownMine(c, r) && !ms.getCellFlagged(c, r)) {
+                        flags.flag(c, r);
+                    }
+                }
+            }
+            moves += ms.apply(flags).getMovesApplied();
+        }
+        updateStatus();
+        if (moves == 0 && !ms.getGameOver()) {
+            status.setText("No safe move found. Number of Flags: " + ms.getNumFlags());
+        }
+        repaintMoves();
+        requestFocusInWindow();
+    }
+
+    /**
+     * Takes back the last move, chord or solver run.
+     */
+    public void undo() {
+        if (ms.undo()) {
+            updateStatus();
+            repaintMoves();
+        }
+        requestFocusInWindow();
+    }
+
+    /**
+     * Makes the last undone move again.
+     */
+    public void redo() {
+        if (ms.redo()) {
+            updateStatus();
+            repaintMoves();
+        }
+        requestFocusInWindow();
+    }
+
+    /**
+     * Saves the game in the background. The model is snapshotted here, on the
+     * event thread, copying only the rows generated so far; the save service
+     * generates the rest of a lazy board and writes the file, so play can
+     * continue meanwhile.
+     */
     public void save() {
-        int savedStatus = ms.save();
-        if (savedStatus == 1) {
-            status.setText("Status Saved! Number of Flags: " + ms.getNumFlags());
-            repaint();
-            requestFocusInWindow();
-        } else if (savedStatus == 0) {
+        if (ms.getGameOver()) {
             status.setText("Cannot Save When Game Is Over!");
-            repaint();
             requestFocusInWindow();
-        } else {
-            JOptionPane.showMessageDialog(
-                    null, "File couldn't be found",
-                    "Error", JOptionPane.ERROR_MESSAGE
-            );
+            return;
         }
+        status.setText("Saving...");
+        saves.save(ms.snapshot());
+        requestFocusInWindow();
     }
 
+    /**
+     * Loads the newest save in the background and swaps it in on the event
+     * thread once it has been read.
+     */
     public void load() {
-        boolean loadSuccessful = ms.load();
-        if (loadSuccessful) {
-            status.setText("Game Loaded! Number of Flags: " + ms.getNumFlags());
+        status.setText("Loading...");
+        saves.load();
+        requestFocusInWindow();
+    }
+
+    /**
+     * Passes save service results to the event thread and shows them in the
+     * status JLabel.
+     */
+    private class SaveStatus implements SaveService.Listener {
+        @Override
+        public void saveProgress(int percent) {
+            SwingUtilities.invokeLater(() -> status.setText("Saving... " + percent + "%"));
+        }
+
+        @Override
+        public void saved(Path slot, BoardFile snapshot) {
+            SwingUtilities.invokeLater(() -> status.setText(
+                    "Status Saved! Number of Flags: " + snapshot.getNumFlags()
+            ));
+        }
+
+        @Override
+        public void loaded(Path slot, BoardFile game) {
+            SwingUtilities.invokeLater(() -> {
+                ms.load(game);
+                status.setText("Game Loaded! Number of Flags: " + ms.getNumFlags());
+                boardChanged();
+                revalidate();
+                repaint();
+            });
+        }
+
+        @Override
+        public void failed(String message, Exception cause) {
+            SwingUtilities.invokeLater(() -> {
+                status.setText("Number of Flags: " + ms.getNumFlags());
+                JOptionPane.showMessageDialog(
+                        null, message,
+                        "Error", JOptionPane.ERROR_MESSAGE
+                );
+            });
+        }
+    }
+
+    /**
+     * Repaints after a move or batch: just the changed cells, or everything
+     * while the heatmap is shown. The zoom view, if there is one, redraws the
+     * changed cells too.
+     */
+    private void repaintMoves() {
+        Rectangle cells = ms.takeDirtyRegion();
+        if (zoomView != null) {
+            zoomView.cellsChanged(cells);
+        }
+        if (showMetrics) {
+            repaint(overlayBounds());
+        }
+        if (probabilities != null) {
+            // A move can change the odds anywhere on the board.
             repaint();
-            requestFocusInWindow();
         } else {
-            JOptionPane.showMessageDialog(
-                    null, "File couldn't be found",
-                    "Error", JOptionPane.ERROR_MESSAGE
-            );
+            repaintChanged(cells); // repaints the cells the move changed
         }
     }
 
+    /**
+     * Tells the zoom view, if there is one, that the whole board changed.
+     */
+    private void boardChanged() {
+        if (zoomView != null) {
+            ms.takeDirtyRegion();
+            zoomView.boardChanged();
+        }
+    }
+
+    /**
+     * Repaints only the given cells, the ones the model reported as changed
+     * since the last repaint, instead of the whole board.
+     */
+    private void repaintChanged(Rectangle cells) {
+        if (cells == null) {
+            return;
+        }
+        int cs = cellSize();
+        // One extra pixel on each side covers the grid lines around the cells.
+        repaint(cells.x * cs, cells.y * cs, cells.width * cs + 1, cells.height * cs + 1);
+    }
+
     /**
      * Updates the JLabel to reflect the current state of the game.
      */
@@ -130,64 +375,132 @@ public class GameBoard extends JPanel {
     // Draws the game board.
     @Override
     public void paintComponent(Graphics g) {
+        long started = GameMetrics.start();
         super.paintComponent(g);
+        int drawn = paintCells(g);
+        GameMetrics.record(GameMetrics.Action.PAINT, started, drawn);
+        if (showMetrics) {
+            frameTimes[frames++ % frameTimes.length] = System.nanoTime();
+            paintOverlay(g);
+        }
+    }
+
+    // Draws the cells inside the clip and returns how many were drawn.
+    private int paintCells(Graphics g) {
+        int columns = ms.getNumColumns();
+        int rows = ms.getNumRows();
+        int cs = cellSize();
+        // Only the cells inside the clip are drawn, so the cost of a repaint
+        // depends on the visible or dirty area, not on the size of the board.
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, columns * cs + 1, rows * cs + 1);
+        }
+        int firstColumn = Math.max(0, clip.x / cs);
+        int lastColumn = Math.min(columns - 1, (clip.x + clip.width) / cs);
+        int firstRow = Math.max(0, clip.y / cs);
+        int lastRow = Math.min(rows - 1, (clip.y + clip.height) / cs);
+        if (firstColumn > lastColumn || firstRow > lastRow) {
+            return 0;
+        }
+        int top = firstRow * cs;
+        int bottom = (lastRow + 1) * cs;
+        int left = firstColumn * cs;
+        int right = (lastColumn + 1) * cs;
         g.setColor(Color.BLACK);
         // Draws board grid
-        g.drawLine(50, 0, 50, 400);
-        g.drawLine(100, 0, 100, 400);
-        g.drawLine(150, 0, 150, 400);
-        g.drawLine(200, 0, 200, 400);
-        g.drawLine(250, 0, 250, 400);
-        g.drawLine(300, 0, 300, 400);
-        g.drawLine(350, 0, 350, 400);
-        g.drawLine(400, 0, 400, 400);
-        g.drawLine(450, 0, 450, 400);
-        g.drawLine(500, 0, 500, 400);
-        g.drawLine(0, 50, 500, 50);
-        g.drawLine(0, 100, 500, 100);
-        g.drawLine(0, 150, 500, 150);
-        g.drawLine(0, 200, 500, 200);
-        g.drawLine(0, 250, 500, 250);
-        g.drawLine(0, 300, 500, 300);
-        g.drawLine(0, 350, 500, 350);
-        g.drawLine(0, 400, 500, 400);
-
-        // Draws Tiles
-        for (int i = 0; i < 10; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (ms.getCellLost(i, j)) {
+        for (int i = firstColumn + 1; i <= lastColumn + 1; i++) {
+            g.drawLine(cs * i, top, cs * i, bottom);
+        }
+        for (int j = firstRow + 1; j <= lastRow + 1; j++) {
+            g.drawLine(left, cs * j, right, cs * j);
+        }
+
+        // Draws Tiles, each one a blit from the pre-rendered atlas
+        for (int i = firstColumn; i <= lastColumn; i++) {
+            for (int j = firstRow; j <= lastRow; j++) {
+                int tile = TileAtlas.tileFor(
+                        ms.getCellLost(i, j), ms.getCellRevealed(i, j),
+                        ms.getCellFlagged(i, j), ms.getCellAdjacentMines(i, j)
+                );
+                tiles.draw(g, tile, cs * i + 1, cs * j + 1, cs - 1);
+            }
+        }
+
+        if (probabilities != null && !ms.getGameOver()) {
+            paintProbabilities(g, firstColumn, lastColumn, firstRow, lastRow, cs);
+        }
+        return (lastColumn - firstColumn + 1) * (lastRow - firstRow + 1);
+    }
+
+    // Where the debug overlay goes: the top left corner of the visible part
+    // of the board.
+    private Rectangle overlayBounds() {
+        Rectangle visible = getVisibleRect();
+        return new Rectangle(visible.x, visible.y, 300, 36);
+    }
+
+    // Draws the debug overlay: paints in the last second, the last paint's
+    // time and cells, and the model time of the last click.
+    private void paintOverlay(Graphics g) {
+        long now = System.nanoTime();
+        int fps = 0;
+        for (int k = 0; k < Math.min(frames, frameTimes.length); k++) {
+            if (now - frameTimes[k] < 1_000_000_000L) {
+                fps++;
+            }
+        }
+        ActionMetrics paint = GameMetrics.get(GameMetrics.Action.PAINT);
+        Rectangle box = overlayBounds();
+        g.setColor(new Color(0, 0, 0, 170));
+        g.fillRect(box.x, box.y, box.width, box.height);
+        g.setColor(Color.WHITE);
+        g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        g.drawString(String.format(
+                "%d FPS  frame %.2f ms, %d cells", fps, paint.getLastMillis(),
+                paint.getLastAmount()
+        ), box.x + 6, box.y + 14);
+        g.drawString(String.format("last move %.3f ms", moveNanos / 1e6), box.x + 6, box.y + 30);
+    }
+
+    // Tints the hidden, unflagged cells in the given range by how likely they
+    // are to be mines, with the percentage written on cells big enough for it.
+    private void paintProbabilities(
+            Graphics g, int firstColumn, int lastColumn, int firstRow, int lastRow, int cs
+    ) {
+        boolean labels = cs >= 20;
+        if (labels) {
+            g.setFont(g.getFont().deriveFont(Font.BOLD, cs / 3f));
+        }
+        FontMetrics metrics = g.getFontMetrics();
+        for (int i = firstColumn; i <= lastColumn; i++) {
+            for (int j = firstRow; j <= lastRow; j++) {
+                if (ms.getCellRevealed(i, j) || ms.getCellFlagged(i, j)) {
+                    continue;
+                }
+                double p = probabilities.probability(i, j);
+                g.setColor(new Color((int) (255 * p), (int) (255 * (1 - p)), 0, 110));
+                g.fillRect(cs * i + 1, cs * j + 1, cs - 1, cs - 1);
+                if (labels) {
+                    String text = Math.round(100 * p) + "%";
                     g.setColor(Color.BLACK);
-                    g.fillRect(50 * i + 1, 50 * j + 1, 49, 49);
-                } else if (!ms.getCellRevealed(i, j)) {
-                    if (ms.getCellFlagged(i, j)) {
-                        g.setColor(Color.RED);
-                    } else {
-                        g.setColor(Color.GRAY);
-                    }
-                    g.fillRect(50 * i + 1, 50 * j + 1, 49, 49);
-                } else {
-                    int mines = ms.getCellAdjacentMines(i, j);
-                    if (mines != 0) {
-                        BufferedImage image = null;
-                        try {
-                            image = ImageIO.read(new File("files/minesweeper" + mines + ".png"));
-                        } catch (IOException e) {
-                            JOptionPane.showMessageDialog(
-                                    null, "Image File couldn't be found",
-                                    "Error", JOptionPane.ERROR_MESSAGE
-                            );
-                        }
-                        if (image != null) {
-                            g.drawImage(image, 50 * i + 1, 50 * j + 1, 49, 49, null);
-                        }
-                    } else {
-                        g.setColor(Color.decode("#B9B9B9"));
-                        g.fillRect(50 * i + 1, 50 * j + 1, 49, 49);
-                    }
+                    g.drawString(
+                            text, cs * i + (cs - metrics.stringWidth(text)) / 2,
+                            cs * j + (cs + metrics.getAscent()) / 2 - 1
+                    );
                 }
             }
         }
+    }
 
+    /**
+     * Returns the side length of one cell, the largest square size at which
+     * the whole board fits in the space this component currently has.
+     */
+    private int cellSize() {
+        int width = getWidth() > 0 ? getWidth() : getPreferredSize().width;
+        int height = getHeight() > 0 ? getHeight() : getPreferredSize().height;
+        return Math.max(1, Math.min(width / ms.getNumColumns(), height / ms.getNumRows()));
     }
 
     /**
@@ -195,6 +508,47 @@ public class GameBoard extends JPanel {
      */
     @Override
     public Dimension getPreferredSize() {
-        return new Dimension(BOARD_WIDTH, BOARD_HEIGHT);
+        return preferredBoardSize();
+    }
+
+    // The rest of the methods let the board live in a JScrollPane. Boards that
+    // fit stretch to fill the viewport; larger ones scroll a cell at a time.
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension size = preferredBoardSize();
+        return new Dimension(
+                Math.min(size.width, MAX_VIEW_WIDTH), Math.min(size.height, MAX_VIEW_HEIGHT)
+        );
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return cellSize();
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        int page = orientation == SwingConstants.VERTICAL ? visible.height : visible.width;
+        return Math.max(cellSize(), page - cellSize());
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return getParent() instanceof JViewport
+                && getParent().getWidth() > preferredBoardSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport
+                && getParent().getHeight() > preferredBoardSize().height;
+    }
+
+    private Dimension preferredBoardSize() {
+        int columns = ms.getNumColumns();
+        int rows = ms.getNumRows();
+        int cellSize = Math.min(MAX_VIEW_WIDTH / columns, MAX_VIEW_HEIGHT / rows);
+        cellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, cellSize));
+        return new Dimension(columns * cellSize, rows * cellSize);
     }
 }
@@ -0,0 +1,253 @@
+package org.cis1200.minesweeper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Counts and times the game's main actions: every instrumented call is
+ * timed, the amount of work it did is added up (cells revealed, bytes saved
+ * or loaded, cells drawn), and so are the bytes the calling thread allocated
+ * during it. The totals are kept per Action in an ActionMetrics, readable
+ * directly or over JMX once registerMBeans has run, and every call is also
+ * emitted as a JFR event (org.cis1200.minesweeper.Action) for recordings
+ * that enable it.
+ * Off by default: then an instrumented call costs one volatile read. Turn it
+ * on with setEnabled, the Enabled attribute of the Metrics MBean, or
+ * -Dminesweeper.metrics=true.
+ * Instrumented code brackets the call:
+ *
+ *   long started = GameMetrics.start();
+ *   ...
+ *   GameMetrics.record(GameMetrics.Action.PLAY_TURN, started, cellsRevealed);
+ */
+public final class GameMetrics {
+
+    /**
+     * The instrumented actions, and the unit of the work each one counts.
+     */
+    public enum Action {
+        PLAY_TURN("playTurn", "cells revealed"),
+        REVEAL_NEIGHBORS("revealNeighbors", "cells revealed"),
+        CHECK_WINNER("checkWinner", "wins"),
+        SAVE("save", "bytes written"),
+        LOAD("load", "bytes read"),
+        PAINT("paintComponent", "cells drawn");
+
+        private final String label;
+        private final String unit;
+
+        Action(String label, String unit) {
+            this.label = label;
+            this.unit = unit;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+    }
+
+    /**
+     * One instrumented call, as a JFR event.
+     */
+    @Name("org.cis1200.minesweeper.Action")
+    @Label("Minesweeper Action")
+    @Category("Minesweeper")
+    @Description("A timed game action and the work it did")
+    static final class ActionEvent extends Event {
+        @Label("Action")
+        String action;
+
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+
+        @Label("Amount")
+        long amount;
+
+        @Label("Unit")
+        String unit;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+
+    /**
+     * JMX view of the switch, at org.cis1200.minesweeper:type=Metrics.
+     */
+    public interface ControlMBean {
+        boolean isEnabled();
+
+        void setEnabled(boolean enabled);
+
+        // Zeroes every action's totals.
+        void reset();
+    }
+
+    private static final class Control implements ControlMBean {
+        @Override
+        public boolean isEnabled() {
+            return GameMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            GameMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public void reset() {
+            GameMetrics.reset();
+        }
+    }
+
+    public static final String DOMAIN = "org.cis1200.minesweeper";
+
+    private static volatile boolean enabled = Boolean.getBoolean("minesweeper.metrics");
+    private static boolean registered;
+
+    private static final ActionMetrics[] METRICS = new ActionMetrics[Action.values().length];
+    // Start times and allocation counts of the calls open on each thread, as
+    // (time, bytes) pairs after the count of pairs. Calls may nest, and one
+    // that throws before record is dropped when a call it was inside ends.
+    private static final ThreadLocal<long[]> OPEN_CALLS =
+            ThreadLocal.withInitial(() -> new long[1 + 2 * 8]);
+
+    static {
+        for (Action action : Action.values()) {
+            METRICS[action.ordinal()] = new ActionMetrics(action);
+        }
+    }
+
+    private GameMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    // Totals of one action.
+    public static ActionMetrics get(Action action) {
+        return METRICS[action.ordinal()];
+    }
+
+    public static void reset() {
+        for (ActionMetrics metrics : METRICS) {
+            metrics.reset();
+        }
+    }
+
+    // Starts timing a call: returns the start time to pass to record, or 0
+    // if metrics are off.
+    public static long start() {
+        if (!enabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        // 0 means off, so a clock that happens to read 0 is nudged.
+        now = now != 0 ? now : 1;
+        long[] open = OPEN_CALLS.get();
+        int depth = (int) open[0];
+        if (1 + 2 * depth < open.length) {
+            open[1 + 2 * depth] = now;
+            open[2 + 2 * depth] = allocatedBytes();
+            open[0] = depth + 1;
+        }
+        return now;
+    }
+
+    // Ends the call started at started, which did amount of work.
+    public static void record(Action action, long started, long amount) {
+        if (started == 0) {
+            return;
+        }
+        long time = System.nanoTime() - started;
+        long allocated = 0;
+        long[] open = OPEN_CALLS.get();
+        for (int depth = (int) open[0] - 1; depth >= 0; depth--) {
+            if (open[1 + 2 * depth] == started) {
+                allocated = Math.max(0, allocatedBytes() - open[2 + 2 * depth]);
+                open[0] = depth;
+                break;
+            }
+        }
+        METRICS[action.ordinal()].add(time, amount, allocated);
+        ActionEvent event = new ActionEvent();
+        if (event.shouldCommit()) {
+            event.action = action.getLabel();
+            event.time = time;
+            event.amount = amount;
+            event.unit = action.getUnit();
+            event.allocated = allocated;
+            event.commit();
+        }
+    }
+
+    // Registers the Metrics MBean and one ActionMetrics MBean per action with
+    // the platform MBean server. Later calls do nothing.
+    public static synchronized void registerMBeans() {
+        if (registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(
+                    new StandardMBean(new Control(), ControlMBean.class),
+                    new ObjectName(DOMAIN + ":type=Metrics")
+            );
+            for (ActionMetrics metrics : METRICS) {
+                server.registerMBean(metrics, new ObjectName(
+                        DOMAIN + ":type=Metrics,action=" + metrics.getAction()
+                ));
+            }
+            registered = true;
+        } catch (JMException e) {
+            throw new IllegalStateException("Couldn't register the metrics MBeans", e);
+        }
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean counter = AllocationCounter.COUNTER;
+        return counter != null ? counter.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * The allocation counter of com.sun.management, or null without one.
+     * Looked up on first use, so the game does not start the management
+     * classes unless metrics are on.
+     */
+    private static final class AllocationCounter {
+        static final com.sun.management.ThreadMXBean COUNTER = lookUp();
+    }
+
+    private static com.sun.management.ThreadMXBean lookUp() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported()) {
+                counter.setThreadAllocatedMemoryEnabled(true);
+                return counter;
+            }
+        }
+        return null;
+    }
+}
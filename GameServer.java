@@ -0,0 +1,503 @@
+package org.cis1200.minesweeper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A headless server hosting many independent games, one Minesweeper per
+ * session, and shared co-op games, one ConcurrentMinesweeper per session,
+ * that several players move on at once. Each connection is handled on its own thread: a virtual thread
+ * where the JVM has them (Java 21 and later), otherwise a thread from a cached
+ * pool. Sessions are not tied to connections; every command names its
+ * session, so one connection can drive many sessions and a session outlives
+ * the connection that made it. Session ids are random 64-bit numbers, so
+ * knowing an id is what lets a client play or end a session: other clients
+ * can't guess it. Sessions unused for the idle timeout are evicted.
+ * The protocol is one ASCII line per command and one per reply, fields
+ * separated by single spaces. Cells are flat indices, row * columns + column.
+ *
+ *   N [rows columns mines [seed]]  new game (CLASSIC by default)
+ *                                  -> G id rows columns mines
+ *   M [rows columns mines [seed]]  new shared game, opened at its middle
+ *                                  cell -> G id rows columns mines
+ *   R id column row                reveal       -> D id status flags changes
+ *   F id column row                toggle flag  -> D ...
+ *   C id column row                chord        -> D ...
+ *   S id                           whole board  -> B id status flags cells
+ *   Q id                           end session  -> K id
+ *   any error                                   -> E message
+ *
+ * status is P (playing), W (won) or L (lost), and flags is the number of
+ * flags left. A D reply lists only what the move changed, as index:code
+ * tokens, where code is the adjacent mine count of a revealed cell, F for a
+ * placed flag, H for a removed one and X for the mine that ended the game. A
+ * refused move changes nothing and lists no cells. A B reply has one code per
+ * cell in index order, with # for a hidden cell.
+ * A shared game's session id can be handed to other players, who then move
+ * on the same board from their own connections. Moves on it take no lock (see
+ * ConcurrentMinesweeper); a D reply lists what that move changed, and S
+ * returns a consistent snapshot. Both kinds of game are won the same way:
+ * every safe cell revealed and every mine flagged.
+ * Replies may be pipelined: they are flushed whenever no further command is
+ * waiting.
+ */
+public class GameServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7464;
+    public static final long DEFAULT_IDLE_MILLIS = 10 * 60 * 1000L;
+    // Largest board a session may ask for, so one client cannot use up the
+    // heap. A game holds a few bytes per cell.
+    public static final int MAX_SESSION_CELLS = 1 << 20;
+    // Longest command line accepted.
+    private static final int MAX_LINE = 256;
+
+    /**
+     * One hosted game: a Minesweeper, whose commands are applied one at a time
+     * even if they come from different connections, or a shared
+     * ConcurrentMinesweeper, whose commands run at the same time.
+     */
+    static final class Session {
+        final long id;
+        final Minesweeper game;
+        final ConcurrentMinesweeper shared;
+        volatile long lastUsed;
+        boolean won;
+
+        Session(long id, Minesweeper game, ConcurrentMinesweeper shared) {
+            this.id = id;
+            this.game = game;
+            this.shared = shared;
+            this.lastUsed = System.nanoTime();
+        }
+    }
+
+    private final ServerSocket server;
+    private final long idleNanos;
+    private final boolean virtualThreads;
+    private final ExecutorService connections;
+    private final ScheduledExecutorService sweeper;
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom ids = new SecureRandom();
+    private final AtomicLong sessionsEvicted = new AtomicLong();
+    private final AtomicLong commands = new AtomicLong();
+    private volatile boolean closed;
+
+    // A server on the given port (0 picks a free one), evicting sessions
+    // unused for idleMillis. Call start to accept connections.
+    public GameServer(int port, long idleMillis) throws IOException {
+        if (idleMillis <= 0) {
+            throw new IllegalArgumentException("Idle timeout must be positive");
+        }
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.connections = virtual != null ? virtual : Executors.newCachedThreadPool(
+                daemonThreads("minesweeper-connection")
+        );
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(
+                daemonThreads("minesweeper-sweeper")
+        );
+        this.server = new ServerSocket(port, 1024);
+    }
+
+    // Starts accepting connections and evicting idle sessions. Returns
+    // immediately.
+    public void start() {
+        long period = Math.max(1, TimeUnit.NANOSECONDS.toMillis(idleNanos) / 4);
+        sweeper.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        Thread acceptor = daemonThreads("minesweeper-accept").newThread(this::acceptLoop);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    // True if connections run on virtual threads.
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getSessionsEvicted() {
+        return sessionsEvicted.get();
+    }
+
+    public long getCommandCount() {
+        return commands.get();
+    }
+
+    // Stops accepting connections and drops every session. Open connections
+    // are closed as their threads notice.
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        sweeper.shutdownNow();
+        connections.shutdownNow();
+        sessions.clear();
+        server.close();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Couldn't accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Answers the commands on one connection until it closes or stays silent
+    // for the idle timeout.
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) Math.min(
+                    Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMillis(idleNanos)
+            ));
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.US_ASCII
+            ));
+            Writer out = new BufferedWriter(new OutputStreamWriter(
+                    socket.getOutputStream(), StandardCharsets.US_ASCII
+            ));
+            StringBuilder reply = new StringBuilder();
+            String line;
+            while (!closed && (line = in.readLine()) != null) {
+                reply.setLength(0);
+                if (line.length() > MAX_LINE) {
+                    reply.append("E line too long");
+                } else {
+                    handle(line, reply);
+                }
+                out.append(reply).append('\n');
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (SocketTimeoutException | SocketException e) {
+            // Idle or reset by the client; its sessions stay until evicted.
+        } catch (IOException e) {
+            if (!closed) {
+                System.err.println("Connection failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // Runs one command line and appends its reply, without the line end. Any
+    // failure of the command is answered with E, so one bad command never
+    // ends the connection.
+    void handle(String line, StringBuilder reply) {
+        commands.incrementAndGet();
+        String[] fields = line.trim().split(" +");
+        try {
+            switch (fields[0]) {
+                case "N":
+                case "M":
+                    newGame(fields, reply);
+                    break;
+                case "R":
+                case "F":
+                case "C":
+                    move(fields, reply);
+                    break;
+                case "S":
+                    state(fields, reply);
+                    break;
+                case "Q":
+                    expect(fields, 2);
+                    if (sessions.remove(parseId(fields[1])) == null) {
+                        throw new IllegalArgumentException("no session " + fields[1]);
+                    }
+                    reply.append("K ").append(fields[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown command " + fields[0]);
+            }
+        } catch (RuntimeException e) {
+            // Bad input is an IllegalArgumentException with a message for
+            // the client; anything else is reported by its type.
+            reply.setLength(0);
+            reply.append("E ").append(
+                    e instanceof IllegalArgumentException ? e.getMessage() : e.toString()
+            );
+        }
+    }
+
+    private void newGame(String[] fields, StringBuilder reply) {
+        BoardConfig config = BoardConfig.CLASSIC;
+        if (fields.length > 1) {
+            if (fields.length != 4 && fields.length != 5) {
+                throw new IllegalArgumentException(
+                        "usage: " + fields[0] + " [rows columns mines [seed]]"
+                );
+            }
+            int rows = Integer.parseInt(fields[1]);
+            int columns = Integer.parseInt(fields[2]);
+            if ((long) rows * columns > MAX_SESSION_CELLS) {
+                throw new IllegalArgumentException(
+                        "board larger than " + MAX_SESSION_CELLS + " cells"
+                );
+            }
+            config = BoardConfig.custom(rows, columns, Integer.parseInt(fields[3]));
+            if (fields.length == 5) {
+                config = config.withSeed(Long.parseLong(fields[4]));
+            }
+        }
+        Minesweeper game = null;
+        ConcurrentMinesweeper shared = null;
+        if (fields[0].equals("M")) {
+            long seed = config.hasSeed() ? config.getSeed() : new SplittableRandom().nextLong();
+            shared = new ConcurrentMinesweeper(config, seed, 1);
+            shared.playTurn(shared.getStartColumn(), shared.getStartRow());
+        } else {
+            game = new Minesweeper(config, false);
+        }
+        long id;
+        do {
+            id = ids.nextLong() & Long.MAX_VALUE;
+        } while (sessions.putIfAbsent(id, new Session(id, game, shared)) != null);
+        reply.append("G ").append(id).append(' ').append(config.getRows()).append(' ')
+                .append(config.getColumns()).append(' ').append(config.getMines());
+    }
+
+    private void move(String[] fields, StringBuilder reply) {
+        expect(fields, 4);
+        Session session = session(fields[1]);
+        int c = Integer.parseInt(fields[2]);
+        int r = Integer.parseInt(fields[3]);
+        if (session.shared != null) {
+            sharedMove(session, fields[0], c, r, reply);
+            return;
+        }
+        MoveBatch move = new MoveBatch();
+        switch (fields[0]) {
+            case "R":
+                move.reveal(c, r);
+                break;
+            case "F":
+                move.flag(c, r);
+                break;
+            default:
+                move.chord(c, r);
+                break;
+        }
+        synchronized (session) {
+            Minesweeper game = session.game;
+            if (r < 0 || r >= game.getNumRows() || c < 0 || c >= game.getNumColumns()) {
+                throw new IllegalArgumentException("cell out of bounds");
+            }
+            ChangeSet changes = game.apply(move);
+            session.won |= changes.isWon();
+            appendStatus(session, reply.append("D "));
+            for (int k = 0; k < changes.getFlagChangeCount(); k++) {
+                reply.append(' ').append(changes.getFlagChangeCell(k))
+                        .append(changes.isFlagPlaced(k) ? ":F" : ":H");
+            }
+            for (int k = 0; k < changes.getRevealedCount(); k++) {
+                int cell = changes.getRevealedCell(k);
+                reply.append(' ').append(cell).append(':')
+                        .append(game.getCellAdjacentMines(cell % game.getNumColumns(),
+                                cell / game.getNumColumns()));
+            }
+            if (changes.getLostCell() >= 0) {
+                reply.append(' ').append(changes.getLostCell()).append(":X");
+            }
+        }
+    }
+
+    // A move on a shared game, without locking the session. The reply lists
+    // what this move changed, not what other players changed meanwhile.
+    private static void sharedMove(
+            Session session, String action, int c, int r, StringBuilder reply
+    ) {
+        ConcurrentMinesweeper game = session.shared;
+        if (!game.inBounds(r, c)) {
+            throw new IllegalArgumentException("cell out of bounds");
+        }
+        int flagged = -1;
+        switch (action) {
+            case "R":
+                game.playTurn(c, r);
+                break;
+            case "F":
+                flagged = game.placeFlag(c, r);
+                break;
+            default:
+                game.chord(c, r);
+                break;
+        }
+        appendStatus(session, reply.append("D "));
+        if (flagged >= 0) {
+            reply.append(' ').append(r * game.getNumColumns() + c)
+                    .append(flagged == 1 ? ":F" : ":H");
+        }
+        for (int k = 0; k < game.getLastRevealedCount(); k++) {
+            int cell = game.getLastRevealedCell(k);
+            reply.append(' ').append(cell).append(':')
+                    .append(game.getCellAdjacentMines(cell % game.getNumColumns(),
+                            cell / game.getNumColumns()));
+        }
+        if (game.getLastLostCell() >= 0) {
+            reply.append(' ').append(game.getLastLostCell()).append(":X");
+        }
+    }
+
+    private void state(String[] fields, StringBuilder reply) {
+        expect(fields, 2);
+        Session session = session(fields[1]);
+        if (session.shared != null) {
+            sharedState(session, reply);
+            return;
+        }
+        synchronized (session) {
+            Minesweeper game = session.game;
+            appendStatus(session, reply.append("B "));
+            reply.append(' ');
+            for (int r = 0; r < game.getNumRows(); r++) {
+                for (int c = 0; c < game.getNumColumns(); c++) {
+                    if (game.getCellLost(c, r)) {
+                        reply.append('X');
+                    } else if (game.getCellRevealed(c, r)) {
+                        reply.append((char) ('0' + game.getCellAdjacentMines(c, r)));
+                    } else {
+                        reply.append(game.getCellFlagged(c, r) ? 'F' : '#');
+                    }
+                }
+            }
+        }
+    }
+
+    // The whole board of a shared game, from one consistent snapshot.
+    private static void sharedState(Session session, StringBuilder reply) {
+        BoardFile snapshot = session.shared.snapshot();
+        PackedBoard board = snapshot.getBoard();
+        boolean lost = false;
+        int start = reply.length();
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isLost(i)) {
+                reply.append('X');
+                lost = true;
+            } else if (board.isRevealed(i)) {
+                reply.append((char) ('0' + board.getAdjacentMines(i)));
+            } else {
+                reply.append(board.isFlagged(i) ? 'F' : '#');
+            }
+        }
+        char status = !snapshot.getGameOver() ? 'P' : lost ? 'L' : 'W';
+        reply.insert(start, "B " + session.id + ' ' + status + ' ' + snapshot.getNumFlags() + ' ');
+    }
+
+    // Appends "id status flags".
+    private static void appendStatus(Session session, StringBuilder reply) {
+        char status;
+        int flags;
+        if (session.shared != null) {
+            ConcurrentMinesweeper game = session.shared;
+            status = game.isWon() ? 'W' : game.getGameOver() ? 'L' : 'P';
+            flags = game.getNumFlags();
+        } else {
+            Minesweeper game = session.game;
+            status = session.won ? 'W' : game.getGameOver() ? 'L' : 'P';
+            flags = game.getNumFlags();
+        }
+        reply.append(session.id).append(' ').append(status).append(' ').append(flags);
+    }
+
+    private Session session(String field) {
+        Session session = sessions.get(parseId(field));
+        if (session == null) {
+            throw new IllegalArgumentException("no session " + field);
+        }
+        session.lastUsed = System.nanoTime();
+        return session;
+    }
+
+    private static long parseId(String field) {
+        return Long.parseLong(field);
+    }
+
+    private static void expect(String[] fields, int count) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException(
+                    "command " + fields[0] + " takes " + (count - 1) + " arguments"
+            );
+        }
+    }
+
+    // Drops every session unused for the idle timeout.
+    private void evictIdle() {
+        long now = System.nanoTime();
+        Iterator<Session> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().lastUsed > idleNanos) {
+                it.remove();
+                sessionsEvicted.incrementAndGet();
+            }
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor, looked up at run time so
+    // the game still builds and runs on Java 17. Null if there is none.
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Runs a server until the process is stopped. Arguments: port (default
+    // DEFAULT_PORT) and idle timeout in seconds (default 600).
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        long idle = args.length > 1 ? Long.parseLong(args[1]) * 1000 : DEFAULT_IDLE_MILLIS;
+        GameServer server = new GameServer(port, idle);
+        GameMetrics.registerMBeans();
+        server.start();
+        System.out.printf(
+                "Minesweeper server on port %d (%s threads), sessions idle after %d s%n",
+                server.getPort(), server.isVirtualThreads() ? "virtual" : "pooled", idle / 1000
+        );
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,207 @@
+package org.cis1200.minesweeper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Load generator for GameServer. Opens a number of connections, creates the
+ * sessions spread over them, waits until every session exists, and then has
+ * each connection play its sessions in turn: one move per session per round,
+ * waiting for each reply like a player would. Sessions whose game ends are
+ * replaced by a new game, so the number of live sessions stays constant.
+ * Reports the latency of every move (send to reply) as percentiles.
+ * Clients run on virtual threads when the JVM has them, like the server.
+ */
+public final class GameServerLoad {
+
+    private GameServerLoad() {
+    }
+
+    /**
+     * One client connection and the sessions it plays.
+     */
+    private static final class Client implements Closeable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final OutputStream out;
+        private final String newGame;
+
+        Client(String host, int port, String newGame) throws IOException {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.US_ASCII
+            ));
+            out = socket.getOutputStream();
+            this.newGame = newGame;
+        }
+
+        String send(String command) throws IOException {
+            out.write((command + "\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            String reply = in.readLine();
+            if (reply == null || reply.startsWith("E")) {
+                throw new IOException("Server replied " + reply + " to " + command);
+            }
+            return reply;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+
+        // Starts a game and returns its session id.
+        long open() throws IOException {
+            String reply = send(newGame);
+            return Long.parseLong(reply.split(" ")[1]);
+        }
+    }
+
+    // Arguments: sessions (default 10000), connections (default 100), moves
+    // per session (default 20), and host and port of a running server. Without
+    // a host, a server is started in this process.
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int moves = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        GameServer local = null;
+        String host = "localhost";
+        int port;
+        if (args.length > 4) {
+            host = args[3];
+            port = Integer.parseInt(args[4]);
+        } else {
+            local = new GameServer(0, GameServer.DEFAULT_IDLE_MILLIS);
+            local.start();
+            port = local.getPort();
+        }
+        BoardConfig config = BoardConfig.INTERMEDIATE;
+        String newGame = "N " + config.getRows() + " " + config.getColumns() + " "
+                + config.getMines();
+
+        ExecutorService virtual = GameServer.newVirtualThreadExecutor();
+        ExecutorService clients = virtual != null
+                ? virtual : Executors.newFixedThreadPool(connections);
+        CountDownLatch opened = new CountDownLatch(connections);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int k = 0; k < connections; k++) {
+            int share = sessions / connections + (k < sessions % connections ? 1 : 0);
+            String target = host;
+            long seed = k;
+            results.add(clients.submit(
+                    () -> play(target, port, newGame, share, moves, config, seed, opened)
+            ));
+        }
+        opened.await();
+        long start = System.nanoTime();
+        long[] latencies = merge(results);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        clients.shutdown();
+        Arrays.sort(latencies);
+        System.out.printf(
+                "%d sessions over %d connections (%s threads), %d moves in %.1f s "
+                        + "(%.0f moves/s)%n",
+                sessions, connections, virtual != null ? "virtual" : "platform", latencies.length,
+                seconds, latencies.length / seconds
+        );
+        System.out.printf(
+                "move latency: p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, "
+                        + "max %.3f ms%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.90),
+                percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1e6
+        );
+        if (local != null) {
+            local.close();
+        }
+    }
+
+    // Opens the client's sessions, waits for every client to have done the
+    // same, then plays. Returns the latency of each move in nanoseconds.
+    private static long[] play(
+            String host, int port, String newGame, int sessions, int moves, BoardConfig config,
+            long seed, CountDownLatch opened
+    ) throws IOException, InterruptedException {
+        Client client;
+        long[] ids = new long[sessions];
+        try {
+            client = new Client(host, port, newGame);
+            for (int s = 0; s < sessions; s++) {
+                ids[s] = client.open();
+            }
+        } finally {
+            opened.countDown();
+        }
+        try (client) {
+            opened.await();
+            SplittableRandom rng = new SplittableRandom(seed);
+            long[] latencies = new long[sessions * moves];
+            int count = 0;
+            for (int round = 0; round < moves; round++) {
+                for (int s = 0; s < sessions; s++) {
+                    String command = (rng.nextInt(8) == 0 ? "F " : "R ") + ids[s] + " "
+                            + rng.nextInt(config.getColumns()) + " "
+                            + rng.nextInt(config.getRows());
+                    long sent = System.nanoTime();
+                    String reply = client.send(command);
+                    latencies[count++] = System.nanoTime() - sent;
+                    // "D id status ...": replace finished games.
+                    char status = reply.charAt(reply.indexOf(' ', 2) + 1);
+                    if (status != 'P') {
+                        client.send("Q " + ids[s]);
+                        ids[s] = client.open();
+                    }
+                }
+            }
+            for (long id : ids) {
+                client.send("Q " + id);
+            }
+            return latencies;
+        }
+    }
+
+    private static long[] merge(List<Future<long[]>> results) throws InterruptedException {
+        List<long[]> parts = new ArrayList<>();
+        int total = 0;
+        for (Future<long[]> result : results) {
+            try {
+                long[] part = result.get();
+                parts.add(part);
+                total += part.length;
+            } catch (ExecutionException e) {
+                throw new UncheckedIOException(
+                        new IOException("A client failed", e.getCause())
+                );
+            }
+        }
+        long[] all = new long[total];
+        int at = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, all, at, part.length);
+            at += part.length;
+        }
+        return all;
+    }
+
+    // The p-th quantile of sorted nanosecond latencies, in milliseconds.
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,356 @@
+package org.cis1200.minesweeper;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Generates a board a stripe of rows at a time, only when something looks at
+ * those rows. Nothing is generated when a game starts: the layout is fixed on
+ * the first click, when plan draws every stripe's share of the mines, in
+ * stripe order with hypergeometric, and its own SplittableRandom from the
+ * seed, leaving the clicked cell and its neighbors clear. After that, reading
+ * a row places the mines of its stripe and the stripes next to it and counts
+ * the stripe. The layout depends only on the seed and the first click, not
+ * on the order stripes are reached in, so ensureAll can also generate every
+ * stripe at once on a pool and still give the same board.
+ * The board may be reused from an earlier game; stripes are cleared the
+ * first time they are touched, so starting a game costs nothing per cell.
+ * Used by Minesweeper, which calls ensureRow before reading a row, and by
+ * FloodFill while a fill spreads.
+ */
+final class LazyBoardGenerator {
+
+    // Rows per stripe: the unit boards are generated and reached in.
+    static final int STRIPE_ROWS = 256;
+
+    // Above this variance a stripe's mine share is drawn from the normal
+    // approximation of the hypergeometric distribution instead of exactly.
+    private static final double EXACT_SHARE_VARIANCE = 100.0;
+
+    private static final ConcurrentHashMap<Integer, ForkJoinPool> POOLS =
+            new ConcurrentHashMap<>();
+
+    // Stripe states, each implying the ones before it.
+    private static final byte STALE = 0; // may still hold an earlier game
+    private static final byte CLEAR = 1; // empty apart from flags
+    private static final byte MINED = 2; // mines placed, counts not yet
+    private static final byte READY = 3; // mines and counts final
+
+    private final PackedBoard board;
+    private final int numMines;
+    private final int stripes;
+    private final byte[] state;
+    private int readyStripes;
+
+    // Set by plan: every stripe's mines and generator, the cells kept clear,
+    // and what they were drawn from.
+    private int[] shares;
+    private SplittableRandom[] rngs;
+    private int[] excluded;
+    private long seed;
+    private int safeRow;
+    private int safeColumn;
+
+    // Starts a game of numMines mines on board, whose cells may be left over
+    // from an earlier game. The board's running totals count the mines from
+    // the start, although they are only placed later.
+    LazyBoardGenerator(PackedBoard board, int numMines) {
+        if (numMines < 0 || numMines > board.size()) {
+            throw new IllegalArgumentException(
+                    "Cannot place " + numMines + " mines on " + board.size() + " cells"
+            );
+        }
+        this.board = board;
+        this.numMines = numMines;
+        stripes = (board.getRows() + STRIPE_ROWS - 1) / STRIPE_ROWS;
+        state = new byte[stripes];
+        board.setGeneratedCounters(numMines);
+    }
+
+    // A generator for board, whose stripes are in the given states.
+    private LazyBoardGenerator(PackedBoard board, int numMines, byte[] state) {
+        this.board = board;
+        this.numMines = numMines;
+        this.stripes = state.length;
+        this.state = state;
+        for (byte s : state) {
+            if (s == READY) {
+                readyStripes++;
+            }
+        }
+    }
+
+    // Copies the stripes generated so far, for a snapshot, and returns the
+    // work that builds the whole board from them with the same layout,
+    // generating the rest on up to parallelism threads. Only the copy runs
+    // here: stale stripes are not copied at all, and the work, which may run
+    // on any thread while the game goes on, draws the plan again from the
+    // seed, so it shares nothing with this generator.
+    Supplier<PackedBoard> copy(int parallelism) {
+        int rows = board.getRows();
+        int columns = board.getColumns();
+        byte[][] copied = new byte[stripes][];
+        for (int s = 0; s < stripes; s++) {
+            if (state[s] != STALE) {
+                copied[s] = Arrays.copyOfRange(
+                        board.cells(), stripeStart(s) * columns, stripeEnd(s) * columns
+                );
+            }
+        }
+        byte[] states = state.clone();
+        boolean planned = isPlanned();
+        long planSeed = seed;
+        int planRow = safeRow;
+        int planColumn = safeColumn;
+        return () -> {
+            PackedBoard copy = new PackedBoard(rows, columns);
+            for (int s = 0; s < copied.length; s++) {
+                if (copied[s] != null) {
+                    System.arraycopy(
+                            copied[s], 0, copy.cells(), stripeStart(s) * columns, copied[s].length
+                    );
+                }
+            }
+            LazyBoardGenerator generator = new LazyBoardGenerator(copy, numMines, states);
+            if (planned) {
+                generator.plan(planSeed, planRow, planColumn);
+            }
+            generator.ensureAll(parallelism);
+            copy.recount();
+            return copy;
+        };
+    }
+
+    boolean isPlanned() {
+        return shares != null;
+    }
+
+    // True once every stripe is ready, so reads no longer need ensureRow.
+    boolean isComplete() {
+        return readyStripes == stripes;
+    }
+
+    // Fixes the layout for the seed, keeping (safeRow, safeColumn) and its
+    // neighbors free of mines (see MineGenerator.openingCells). A safeRow of
+    // -1 keeps no cell clear.
+    void plan(long seed, int safeRow, int safeColumn) {
+        this.seed = seed;
+        this.safeRow = safeRow;
+        this.safeColumn = safeColumn;
+        excluded = safeRow < 0
+                ? new int[0] : MineGenerator.openingCells(board, numMines, safeRow, safeColumn);
+        shares = new int[stripes];
+        rngs = new SplittableRandom[stripes];
+        SplittableRandom master = new SplittableRandom(seed);
+        long cellsLeft = board.size() - excluded.length;
+        long minesLeft = numMines;
+        for (int s = 0; s < stripes; s++) {
+            int[] kept = excludedIn(s);
+            long stripeCells = (long) (stripeEnd(s) - stripeStart(s)) * board.getColumns()
+                    - kept.length;
+            shares[s] = (int) hypergeometric(master, cellsLeft, minesLeft, stripeCells);
+            cellsLeft -= stripeCells;
+            minesLeft -= shares[s];
+            rngs[s] = master.split();
+        }
+    }
+
+    // Makes row r safe to read: generated once the layout is planned, cleared
+    // before that.
+    void ensureRow(int r) {
+        int s = r / STRIPE_ROWS;
+        if (state[s] != READY) {
+            prepare(s);
+        }
+    }
+
+    // True if row r has not been touched since the board was reused, so it
+    // may still hold an earlier game. Nothing on it is revealed or flagged.
+    boolean isRowStale(int r) {
+        return state[r / STRIPE_ROWS] == STALE;
+    }
+
+    // Same as ensureRow for every row from fromRow to toRow, clamped to the
+    // board.
+    void ensureRows(int fromRow, int toRow) {
+        int first = Math.max(0, fromRow) / STRIPE_ROWS;
+        int last = Math.min(board.getRows() - 1, toRow) / STRIPE_ROWS;
+        for (int s = first; s <= last; s++) {
+            if (state[s] != READY) {
+                prepare(s);
+            }
+        }
+    }
+
+    // Makes every row safe to read, generating stripes on up to parallelism
+    // threads.
+    void ensureAll(int parallelism) {
+        if (!isPlanned()) {
+            for (int s = 0; s < stripes; s++) {
+                clear(s);
+            }
+            return;
+        }
+        if (parallelism == 1 || stripes == 1) {
+            for (int s = 0; s < stripes; s++) {
+                ensureRow(s * STRIPE_ROWS);
+            }
+            return;
+        }
+        // All mines first, then all counts, each stripe on its own task. A
+        // stripe's count pass reads only the mine bits of its neighbors, which
+        // no task writes any more.
+        ForkJoinPool pool = pool(parallelism);
+        int[] flaggedMines = new int[stripes];
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[stripes];
+        for (int s = 0; s < stripes; s++) {
+            int stripe = s;
+            tasks[s] = pool.submit(() -> {
+                if (state[stripe] < MINED) {
+                    flaggedMines[stripe] = placeStripe(stripe);
+                }
+            });
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        for (int s = 0; s < stripes; s++) {
+            if (state[s] < MINED) {
+                board.addCorrectFlags(flaggedMines[s]);
+                state[s] = MINED;
+            }
+            int stripe = s;
+            tasks[s] = pool.submit(() -> {
+                if (state[stripe] < READY) {
+                    MineGenerator.countAdjacentMines(
+                            board, stripeStart(stripe), stripeEnd(stripe)
+                    );
+                }
+            });
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        Arrays.fill(state, READY);
+        readyStripes = stripes;
+    }
+
+    private void prepare(int s) {
+        if (!isPlanned()) {
+            clear(s);
+            return;
+        }
+        // Counts near a stripe border depend on the mines across it.
+        for (int t = Math.max(0, s - 1); t <= Math.min(stripes - 1, s + 1); t++) {
+            if (state[t] < MINED) {
+                board.addCorrectFlags(placeStripe(t));
+                state[t] = MINED;
+            }
+        }
+        MineGenerator.countAdjacentMines(board, stripeStart(s), stripeEnd(s));
+        state[s] = READY;
+        readyStripes++;
+    }
+
+    private void clear(int s) {
+        if (state[s] == STALE) {
+            int columns = board.getColumns();
+            Arrays.fill(board.cells(), stripeStart(s) * columns, stripeEnd(s) * columns, (byte) 0);
+            state[s] = CLEAR;
+        }
+    }
+
+    // Clears the stripe if needed and places its mines. Returns how many of
+    // them landed under a flag; the caller adds those to the board's totals.
+    private int placeStripe(int s) {
+        clear(s);
+        int columns = board.getColumns();
+        int from = stripeStart(s) * columns;
+        int to = stripeEnd(s) * columns;
+        MineGenerator.placeMines(board, from, to, shares[s], rngs[s], excludedIn(s));
+        if (board.getFlaggedCells() == 0) {
+            return 0;
+        }
+        byte[] cells = board.cells();
+        int flaggedMines = 0;
+        for (int i = from; i < to; i++) {
+            if ((cells[i] & (PackedBoard.MINE | PackedBoard.FLAGGED))
+                    == (PackedBoard.MINE | PackedBoard.FLAGGED)) {
+                flaggedMines++;
+            }
+        }
+        return flaggedMines;
+    }
+
+    // The excluded cells that lie in stripe s, in ascending order.
+    private int[] excludedIn(int s) {
+        int from = stripeStart(s) * board.getColumns();
+        int to = stripeEnd(s) * board.getColumns();
+        int first = 0;
+        while (first < excluded.length && excluded[first] < from) {
+            first++;
+        }
+        int last = first;
+        while (last < excluded.length && excluded[last] < to) {
+            last++;
+        }
+        return Arrays.copyOfRange(excluded, first, last);
+    }
+
+    private static int stripeStart(int s) {
+        return s * STRIPE_ROWS;
+    }
+
+    private int stripeEnd(int s) {
+        return Math.min(board.getRows(), (s + 1) * STRIPE_ROWS);
+    }
+
+    // Shared pool with the given parallelism, created on first use. Also
+    // runs NoGuessGenerator's workers, so the two never hold separate pools
+    // of the same size.
+    static ForkJoinPool pool(int parallelism) {
+        return POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+
+    // Draws how many of the remaining mines fall into the next n of the remaining
+    // total cells, i.e. a sample of the hypergeometric distribution. Small cases
+    // are simulated exactly; wide ones use the normal approximation, clamped to
+    // the feasible range.
+    static long hypergeometric(SplittableRandom rng, long total, long mines, long n) {
+        if (n == 0 || mines == 0) {
+            return 0;
+        }
+        if (n == total) {
+            return mines;
+        }
+        if (mines * 2 > total) {
+            return n - hypergeometric(rng, total, total - mines, n);
+        }
+        if (n * 2 > total) {
+            return mines - hypergeometric(rng, total, mines, total - n);
+        }
+        double p = (double) mines / total;
+        double variance = n * p * (1 - p) * (total - n) / (total - 1);
+        if (variance >= EXACT_SHARE_VARIANCE) {
+            long x = Math.round(n * p + Math.sqrt(variance) * rng.nextGaussian());
+            return Math.max(0, Math.min(Math.min(n, mines), x));
+        }
+        // The distribution is symmetric in n and mines, so draw the smaller one.
+        long draws = Math.min(n, mines);
+        long successes = Math.max(n, mines);
+        long population = total;
+        long hits = 0;
+        for (long k = 0; k < draws; k++) {
+            if (rng.nextLong(population) < successes) {
+                hits++;
+                successes--;
+            }
+            population--;
+        }
+        return hits;
+    }
+}
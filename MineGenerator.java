@@ -0,0 +1,203 @@
+package org.cis1200.minesweeper;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Board generation for PackedBoard: mine placement by Floyd's sampling
+ * algorithm from a single seedable generator, adjacent-mine counting from
+ * rolling row sums instead of a bounds-checked 3x3 scan around every cell,
+ * and incremental count updates when a single mine is added or removed. The
+ * same seed always produces the same board.
+ */
+public final class MineGenerator {
+
+    private static final int[] NO_CELLS = new int[0];
+
+    private MineGenerator() {
+    }
+
+    // Places numMines mines on distinct cells of a freshly created board using
+    // the given seed. Counts are not updated; call countAdjacentMines afterwards.
+    public static void placeMines(PackedBoard board, int numMines, long seed) {
+        placeMines(board, numMines, new SplittableRandom(seed));
+    }
+
+    // Floyd's algorithm: exactly numMines random draws with no rejection loop,
+    // so it stays O(numMines) even when the board is almost all mines. The
+    // board's own mine bits serve as the "already chosen" set.
+    public static void placeMines(PackedBoard board, int numMines, SplittableRandom rng) {
+        placeMines(board, 0, board.size(), numMines, rng);
+        board.setGeneratedCounters(numMines);
+    }
+
+    // Same as above, restricted to the flat index range [from, to). Writes the
+    // cells directly and leaves the board's running totals to the caller, so
+    // disjoint ranges can be filled from different threads.
+    static void placeMines(
+            PackedBoard board, int from, int to, int numMines, SplittableRandom rng
+    ) {
+        placeMines(board, from, to, numMines, rng, NO_CELLS);
+    }
+
+    // Same as above, skipping the excluded cells, which must be in ascending
+    // order and inside [from, to). Floyd's draws run over the cells that are
+    // left and are mapped past the excluded ones, so no draw is rejected.
+    static void placeMines(
+            PackedBoard board, int from, int to, int numMines, SplittableRandom rng,
+            int[] excluded
+    ) {
+        int n = to - from - excluded.length;
+        if (numMines < 0 || numMines > n) {
+            throw new IllegalArgumentException(
+                    "Cannot place " + numMines + " mines on " + n + " cells"
+            );
+        }
+        byte[] cells = board.cells();
+        for (int j = n - numMines; j < n; j++) {
+            int t = skipExcluded(from + rng.nextInt(j + 1), excluded);
+            if ((cells[t] & PackedBoard.MINE) != 0) {
+                t = skipExcluded(from + j, excluded);
+            }
+            cells[t] |= PackedBoard.MINE;
+        }
+    }
+
+    // Like placeMines(board, numMines, rng), but keeps the cell at (safeRow,
+    // safeColumn) free of mines, and its 8 neighbors too when there are enough
+    // other cells, so the first click opens an empty region.
+    public static void placeMines(
+            PackedBoard board, int numMines, SplittableRandom rng, int safeRow, int safeColumn
+    ) {
+        int[] excluded = openingCells(board, numMines, safeRow, safeColumn);
+        placeMines(board, 0, board.size(), numMines, rng, excluded);
+        board.setGeneratedCounters(numMines);
+    }
+
+    // The cells placeMines keeps clear around a first click, in ascending
+    // order: the 3x3 block if the mines still fit outside it, otherwise only
+    // the clicked cell, or nothing if every cell is a mine.
+    static int[] openingCells(PackedBoard board, int numMines, int r, int c) {
+        return openingCells(board.getRows(), board.getColumns(), numMines, r, c);
+    }
+
+    // The same for a board of the given size, as flat indices.
+    static int[] openingCells(int rows, int columns, int numMines, int r, int c) {
+        int[] block = new int[9];
+        int size = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int row = r + dr;
+                int column = c + dc;
+                if (row >= 0 && row < rows && column >= 0 && column < columns) {
+                    block[size++] = row * columns + column;
+                }
+            }
+        }
+        int cells = rows * columns;
+        if (numMines <= cells - size) {
+            return Arrays.copyOf(block, size);
+        }
+        return numMines < cells ? new int[] {r * columns + c} : NO_CELLS;
+    }
+
+    // Maps a position that only counts cells which are not excluded to its
+    // flat index, given the excluded cells in ascending order.
+    private static int skipExcluded(int t, int[] excluded) {
+        for (int e : excluded) {
+            if (t >= e) {
+                t++;
+            }
+        }
+        return t;
+    }
+
+    // Recomputes every adjacent-mine count in one branch-free pass. Each row's
+    // count is the sum of the 3-wide horizontal mine sums of the row above,
+    // the row itself and the row below, minus the cell's own mine; the
+    // horizontal sums are kept in three rolling buffers.
+    public static void countAdjacentMines(PackedBoard board) {
+        countAdjacentMines(board, 0, board.getRows());
+    }
+
+    // Same as above for rows [fromRow, toRow) only. Reads the mines of the rows
+    // just outside the range but writes nothing there, so disjoint ranges can
+    // be counted from different threads.
+    static void countAdjacentMines(PackedBoard board, int fromRow, int toRow) {
+        byte[] cells = board.cells();
+        int rows = board.getRows();
+        int columns = board.getColumns();
+        int[] above = new int[columns];
+        int[] current = new int[columns];
+        int[] below = new int[columns];
+        if (fromRow > 0) {
+            horizontalSums(cells, (fromRow - 1) * columns, columns, above);
+        }
+        horizontalSums(cells, fromRow * columns, columns, current);
+        for (int r = fromRow; r < toRow; r++) {
+            if (r + 1 < rows) {
+                horizontalSums(cells, (r + 1) * columns, columns, below);
+            } else {
+                Arrays.fill(below, 0);
+            }
+            int rowStart = r * columns;
+            for (int c = 0; c < columns; c++) {
+                int i = rowStart + c;
+                int count = above[c] + current[c] + below[c] - mineBit(cells[i]);
+                cells[i] = (byte) ((cells[i] & ~PackedBoard.COUNT_MASK) | count);
+            }
+            int[] recycled = above;
+            above = current;
+            current = below;
+            below = recycled;
+        }
+    }
+
+    // Fills sums[c] with the number of mines in columns c - 1 to c + 1 of the row
+    // starting at rowStart.
+    private static void horizontalSums(byte[] cells, int rowStart, int columns, int[] sums) {
+        int left = 0;
+        int middle = mineBit(cells[rowStart]);
+        int last = columns - 1;
+        for (int c = 0; c < last; c++) {
+            int right = mineBit(cells[rowStart + c + 1]);
+            sums[c] = left + middle + right;
+            left = middle;
+            middle = right;
+        }
+        sums[last] = left + middle;
+    }
+
+    private static int mineBit(byte cell) {
+        return (cell >> 4) & 1;
+    }
+
+    // Adds delta to the adjacent-mine count of the 8 neighbors of (r, c). Used
+    // when a single mine is added or removed, so the rest of the board is left
+    // untouched.
+    public static void addToNeighbors(PackedBoard board, int r, int c, int delta) {
+        byte[] cells = board.cells();
+        int rows = board.getRows();
+        int columns = board.getColumns();
+        int i = r * columns + c;
+        if (r > 0 && c > 0 && r < rows - 1 && c < columns - 1) {
+            // Interior cell: no bounds checks needed.
+            cells[i - columns - 1] += delta;
+            cells[i - columns] += delta;
+            cells[i - columns + 1] += delta;
+            cells[i - 1] += delta;
+            cells[i + 1] += delta;
+            cells[i + columns - 1] += delta;
+            cells[i + columns] += delta;
+            cells[i + columns + 1] += delta;
+            return;
+        }
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if ((dr != 0 || dc != 0) && board.inBounds(r + dr, c + dc)) {
+                    cells[i + dr * columns + dc] += delta;
+                }
+            }
+        }
+    }
+}
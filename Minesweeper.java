@@ -1,19 +1,73 @@
 package org.cis1200.minesweeper;
 
-import java.io.*;
-import java.util.Random;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
-public class Minesweeper {
+public class Minesweeper implements MinesweeperModel {
 
-    private Tile[][] board;
+    public static final Path SAVE_FILE = Paths.get("files", "status.bin");
+    // Saves from before the binary format; still readable for migration.
+    public static final Path LEGACY_SAVE_FILE = Paths.get("files", "status.txt");
+    // Where a move journal is streamed, next to the save.
+    public static final Path JOURNAL_FILE = Paths.get("files", "status.journal");
+
+    private PackedBoard board;
+    private FloodFill revealer;
     private int numMines;
     private boolean gameOver;
     private int numFlags;
     private int numRows;
     private int numColumns;
+    private boolean selfCheck;
+    private long seed;
+    private int generationThreads = 1;
+    private boolean noGuess;
+    // Generates the board as rows are reached, until it is complete; null for
+    // loaded games and no-guess layouts.
+    private LazyBoardGenerator lazy;
+    // True from a reset until the first reveal, while no mines are placed.
+    private boolean layoutPending;
+    private BoardConfig config;
+    private PrintStream debugOutput;
+    private int gameNumber;
+    // What the most recent chord or batch changed; null after a single reveal.
+    private ChangeSet lastChanges;
+    // Every action since the game started, for undo, redo and replay; empty
+    // if the game was made without one.
+    private final MoveJournal journal;
+    // Publishes each action's changes to observers; null until the first
+    // subscribes.
+    private StateStream stream;
+
+    // Bounding box of the cells changed since the view last asked, or empty
+    // when dirtyMinRow > dirtyMaxRow.
+    private int dirtyMinRow;
+    private int dirtyMaxRow = -1;
+    private int dirtyMinColumn;
+    private int dirtyMaxColumn = -1;
 
-    // Constructor sets up game state.
+    // Constructor sets up game state on the classic 8x10 board.
     public Minesweeper() {
+        this(BoardConfig.CLASSIC);
+    }
+
+    // Sets up game state for the given board configuration.
+    public Minesweeper(BoardConfig config) {
+        this(config, true);
+    }
+
+    // Sets up game state for the given board configuration. Without a
+    // journal nothing is recorded per move, and there is no undo or redo;
+    // headless games that never take moves back save that cost.
+    public Minesweeper(BoardConfig config, boolean journaled) {
+        this.config = config;
+        journal = new MoveJournal(journaled);
         reset();
     }
 
@@ -23,193 +77,648 @@ public class Minesweeper {
     // revealNeighbors to recursively reveal
     // safe adjacent tiles. Column row are swapped parameters due to input coming in
     // as (x,y) coordinates.
+    @Override
     public boolean playTurn(int c, int r) {
-        if (r < 0 || c < 0 || r >= board.length || c >= board[0].length) {
+        long started = GameMetrics.start();
+        lastChanges = null;
+        journal.beginEntry(numFlags);
+        journal.addMove(MoveBatch.Action.REVEAL, c, r);
+        boolean revealed = reveal(c, r, null);
+        journal.endEntry(numFlags, gameOver, false);
+        publish();
+        GameMetrics.record(
+                GameMetrics.Action.PLAY_TURN, started, revealed ? revealer.getRevealedCount() : 0
+        );
+        return revealed;
+    }
+
+    // playTurn, recording what changed in changes if it is not null.
+    private boolean reveal(int c, int r, ChangeSet changes) {
+        if (!board.inBounds(r, c)) {
             return false;
         }
-        if (board[r][c].isRevealed() || gameOver || board[r][c].isFlagged()) {
+        ensureRow(r);
+        int i = board.index(r, c);
+        if (board.isRevealed(i) || gameOver || board.isFlagged(i)) {
             return false;
         } else {
-            revealNeighbors(r, c);
-            if (board[r][c].isMine() == 1) {
-                board[r][c].setLost();
+            fill(r, c, changes);
+            if (board.isMine(i)) {
+                board.setLost(i);
+                markDirty(r, c);
                 gameOver = true;
+                journal.addCell(i, PackedBoard.LOST);
+                if (changes != null) {
+                    changes.setLostCell(i);
+                }
             }
+            selfCheck();
             return true;
         }
     }
 
-    // Helper method for revealNeighbors that checks if a tile is safe to reveal
-    private boolean isSafe(Tile a) {
-        boolean isMine = a.isMine() == 1;
-        return !isMine && !a.isRevealed();
+    // Reveals the given tile and, when it has no adjacent mines, flood fills
+    // the connected safe region around it. The fill is iterative (see
+    // FloodFill), so large empty regions cannot overflow the stack. Returns the
+    // number of newly revealed tiles; they can be read back with
+    // getLastRevealedCell.
+    public int revealNeighbors(int r, int c) {
+        long started = GameMetrics.start();
+        lastChanges = null;
+        journal.beginEntry(numFlags);
+        journal.addMove(MoveBatch.Action.FILL, c, r);
+        int revealed = fill(r, c, null);
+        journal.endEntry(numFlags, gameOver, false);
+        publish();
+        GameMetrics.record(GameMetrics.Action.REVEAL_NEIGHBORS, started, revealed);
+        return revealed;
     }
 
-    // Recursive function that reveals adjacent safe neighbors when a safe tile is
-    // clicked
-    public void revealNeighbors(int r, int c) {
-        if (r < 0 || c < 0 || r >= board.length || c >= board[0].length) {
-            return;
+    private int fill(int r, int c, ChangeSet changes) {
+        if (layoutPending && board.inBounds(r, c)) {
+            placeLayout(r, c);
         }
-        Tile currentTile = board[r][c];
-        if (!isSafe(currentTile)) {
-            return;
+        int revealed = revealer.fill(r, c);
+        numFlags += revealer.getFlagsCleared();
+        for (int k = 0; k < revealed; k++) {
+            int cell = revealer.getRevealed(k);
+            markDirty(cell / numColumns, cell % numColumns);
+            journal.addCell(cell, PackedBoard.REVEALED);
+            if (changes != null) {
+                changes.addRevealed(cell);
+            }
         }
-        if (currentTile.isFlagged()) {
-            currentTile.invertFlagged();
-            numFlags++;
+        for (int k = 0; k < revealer.getFlagsCleared(); k++) {
+            journal.addCell(revealer.getFlagCleared(k), PackedBoard.FLAGGED);
         }
-        currentTile.setRevealed();
-        if (currentTile.getAdjacentMines() > 0) {
-            return;
+        selfCheck();
+        return revealed;
+    }
+
+    // Chording: if the revealed number at (c, r) already has that many flags
+    // around it, reveals every other hidden neighbor at once. Returns false if
+    // nothing was revealed. A wrong flag means one of the reveals is a mine,
+    // which ends the game as playTurn would. The revealed tiles can be read
+    // back with getLastRevealedCell.
+    public boolean chord(int c, int r) {
+        ChangeSet changes = new ChangeSet(numColumns);
+        journal.beginEntry(numFlags);
+        journal.addMove(MoveBatch.Action.CHORD, c, r);
+        boolean revealed = chord(c, r, changes);
+        journal.endEntry(numFlags, gameOver, false);
+        lastChanges = changes;
+        publish();
+        return revealed;
+    }
+
+    private boolean chord(int c, int r, ChangeSet changes) {
+        if (!board.inBounds(r, c) || gameOver) {
+            return false;
+        }
+        ensureRow(r);
+        int i = board.index(r, c);
+        int mines = board.getAdjacentMines(i);
+        if (!board.isRevealed(i) || mines == 0) {
+            return false;
+        }
+        int fromRow = Math.max(0, r - 1);
+        int toRow = Math.min(numRows - 1, r + 1);
+        int fromColumn = Math.max(0, c - 1);
+        int toColumn = Math.min(numColumns - 1, c + 1);
+        int flags = 0;
+        for (int nr = fromRow; nr <= toRow; nr++) {
+            ensureRow(nr);
+            for (int nc = fromColumn; nc <= toColumn; nc++) {
+                if (board.isFlagged(board.index(nr, nc))) {
+                    flags++;
+                }
+            }
+        }
+        if (flags != mines) {
+            return false;
+        }
+        boolean revealed = false;
+        for (int nr = fromRow; nr <= toRow && !gameOver; nr++) {
+            for (int nc = fromColumn; nc <= toColumn && !gameOver; nc++) {
+                revealed |= reveal(nc, nr, changes);
+            }
+        }
+        return revealed;
+    }
+
+    // Applies every move in batch, in order, as one transaction: moves after
+    // the game ends are skipped, and the win check runs once at the end.
+    // Returns everything the batch changed, so a view can update once for the
+    // whole batch. The revealed tiles can also be read back with
+    // getLastRevealedCell.
+    public ChangeSet apply(MoveBatch batch) {
+        ChangeSet changes = new ChangeSet(numColumns);
+        journal.beginEntry(numFlags);
+        for (int k = 0; k < batch.size() && !gameOver; k++) {
+            int c = batch.getColumn(k);
+            int r = batch.getRow(k);
+            journal.addMove(batch.getAction(k), c, r);
+            boolean applied;
+            switch (batch.getAction(k)) {
+                case REVEAL:
+                    applied = reveal(c, r, changes);
+                    break;
+                case FLAG:
+                    applied = flag(c, r, changes) >= 0;
+                    break;
+                case FILL:
+                    applied = fill(r, c, changes) > 0;
+                    break;
+                default:
+                    applied = chord(c, r, changes);
+                    break;
+            }
+            if (applied) {
+                changes.addMove();
+            }
+        }
+        boolean won = !gameOver && checkWinner();
+        journal.endEntry(numFlags, gameOver, false);
+        changes.finish(gameOver, won);
+        lastChanges = changes;
+        publish();
+        return changes;
+    }
+
+    // Number of tiles revealed by the most recent reveal, chord or batch.
+    @Override
+    public int getLastRevealedCount() {
+        return lastChanges != null ? lastChanges.getRevealedCount() : revealer.getRevealedCount();
+    }
+
+    // Flat index (row * numColumns + column) of the k-th tile revealed by the
+    // most recent reveal, chord or batch.
+    @Override
+    public int getLastRevealedCell(int k) {
+        return lastChanges != null ? lastChanges.getRevealedCell(k) : revealer.getRevealed(k);
+    }
+
+    // Takes back the last reveal, flag, chord or batch. Only the cells it
+    // changed are touched. The mine layout stays as the first click fixed
+    // it, so undoing the first click and clicking elsewhere plays on the same
+    // layout. Returns false if there is nothing to undo.
+    public boolean undo() {
+        if (!journal.canUndo()) {
+            return false;
+        }
+        int k = journal.undo();
+        flip(k);
+        numFlags = journal.getFlagsBefore(k);
+        // Moves are only made while the game is on.
+        gameOver = false;
+        publish();
+        return true;
+    }
+
+    // Makes the last undone action again. Returns false if there is nothing
+    // to redo; any new action drops what could have been redone.
+    public boolean redo() {
+        if (!journal.canRedo()) {
+            return false;
         }
-        // Recursive function call here
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                revealNeighbors(r + i, c + j);
+        int k = journal.redo();
+        flip(k);
+        numFlags = journal.getFlagsAfter(k);
+        gameOver = journal.getGameOverAfter(k);
+        publish();
+        return true;
+    }
+
+    public boolean canUndo() {
+        return journal.canUndo();
+    }
+
+    public boolean canRedo() {
+        return journal.canRedo();
+    }
+
+    // Flips the state bits entry k of the journal changed. Observers have to
+    // start over, as cells may have been hidden again.
+    private void flip(int k) {
+        for (int j = 0; j < journal.getCellCount(k); j++) {
+            int cell = journal.getCell(k, j);
+            board.set(cell, board.get(cell) ^ journal.getFlips(k, j));
+            markDirty(cell / numColumns, cell % numColumns);
+        }
+        gameNumber++;
+        lastChanges = null;
+        selfCheck();
+    }
+
+    // The journal of the current game. It can be streamed to a file with
+    // MoveJournal.streamTo, for instance JOURNAL_FILE.
+    public MoveJournal getJournal() {
+        return journal;
+    }
+
+    // Plays a journal again from the start: resets to its seed and board,
+    // applies every recorded action in order, then undoes the ones that were
+    // undone, leaving the same game with the same undo and redo history.
+    // Journals of loaded games need the save they started from; see
+    // replay(BoardFile, MoveJournal). With more than one generation thread a
+    // no-guess layout depends on thread timing, so replay it with one.
+    public void replay(MoveJournal moves) {
+        if (moves.isFromSave()) {
+            throw new IllegalArgumentException("Journal continues a saved game; replay it on the save");
+        }
+        if (moves.getRows() != config.getRows() || moves.getColumns() != config.getColumns()
+                || moves.getMines() != config.getMines()) {
+            config = BoardConfig.custom(moves.getRows(), moves.getColumns(), moves.getMines());
+        }
+        noGuess = moves.isNoGuess();
+        reset(moves.getSeed());
+        if (moves.isLayoutFixed() && moves.getLayoutRow() >= 0) {
+            placeLayout(moves.getLayoutRow(), moves.getLayoutColumn());
+        } else if (moves.isLayoutFixed()) {
+            settleLayout();
+        }
+        applyJournal(moves);
+    }
+
+    // Plays a journal of a loaded game again on top of the save it started
+    // from.
+    public void replay(BoardFile save, MoveJournal moves) {
+        load(save);
+        applyJournal(moves);
+    }
+
+    private void applyJournal(MoveJournal moves) {
+        // Without a journal of its own the game can't undo, so entries that
+        // were undone are not played at all.
+        int end = journal.isRecording() ? moves.size() : moves.getPosition();
+        for (int k = 0; k < end; k++) {
+            // Every entry is kept, even one that no longer changes anything,
+            // so the history lines up with the journal being replayed.
+            journal.beginEntry(numFlags);
+            MoveBatch batch = moves.getMoves(k);
+            for (int j = 0; j < batch.size(); j++) {
+                journal.addMove(batch.getAction(j), batch.getColumn(j), batch.getRow(j));
+                replayMove(batch.getAction(j), batch.getColumn(j), batch.getRow(j));
             }
+            journal.endEntry(numFlags, gameOver, true);
+        }
+        for (int k = moves.getPosition(); k < moves.size(); k++) {
+            undo();
+        }
+        lastChanges = null;
+    }
+
+    private void replayMove(MoveBatch.Action action, int c, int r) {
+        switch (action) {
+            case REVEAL:
+                reveal(c, r, null);
+                break;
+            case FLAG:
+                flag(c, r, null);
+                break;
+            case FILL:
+                fill(r, c, null);
+                break;
+            default:
+                chord(c, r, null);
+                break;
         }
     }
 
     // Functionality for placing a flag on the board. Column row are swapped
     // parameters due to input coming
     // in as (x,y) coordinates.
+    @Override
     public int placeFlag(int c, int r) {
-        if (r < 0 || c < 0 || r >= board.length || c >= board[0].length) {
+        journal.beginEntry(numFlags);
+        journal.addMove(MoveBatch.Action.FLAG, c, r);
+        int placed = flag(c, r, null);
+        journal.endEntry(numFlags, gameOver, false);
+        publish();
+        return placed;
+    }
+
+    // placeFlag, recording the change in changes if it is not null.
+    private int flag(int c, int r, ChangeSet changes) {
+        if (!board.inBounds(r, c)) {
             return -1;
         }
-        if (gameOver || board[r][c].isRevealed()) {
+        ensureRow(r);
+        int i = board.index(r, c);
+        if (gameOver || board.isRevealed(i)) {
             return -1;
-        } else if (board[r][c].isFlagged()) {
-            board[r][c].invertFlagged();
-            numFlags++;
-            return 0;
-        } else {
-            board[r][c].invertFlagged();
-            numFlags--;
-            return 1;
         }
+        boolean flagged = !board.isFlagged(i);
+        board.setFlagged(i, flagged);
+        numFlags += flagged ? -1 : 1;
+        markDirty(r, c);
+        journal.addCell(i, PackedBoard.FLAGGED);
+        if (changes != null) {
+            changes.addFlag(i, flagged);
+        }
+        selfCheck();
+        return flagged ? 1 : 0;
     }
 
+    @Override
     public int getNumFlags() {
         return numFlags;
     }
 
-    // Checks whether the player has won the game yet
+    @Override
+    public int getNumMines() {
+        return numMines;
+    }
+
+    // Opens a subscription to this game's changes: a snapshot of the board
+    // as observers see it, then a delta after every action that changes
+    // something (see StateStream). At most capacity deltas are queued; a
+    // subscriber that falls further behind is sent a snapshot instead.
+    public StateStream.Subscription subscribe(int capacity) {
+        if (stream == null) {
+            stream = new StateStream(board.size(), numFlags, gameOver);
+        }
+        return stream.subscribe(capacity, board, lazy, numFlags, gameOver, isWon());
+    }
+
+    // The change stream, or null if nobody has subscribed yet.
+    public StateStream getStream() {
+        return stream;
+    }
+
+    private void publish() {
+        if (stream != null) {
+            stream.publish(board, lazy, numFlags, gameOver, isWon());
+        }
+    }
+
+    // checkWinner without ending the game.
+    private boolean isWon() {
+        return numFlags >= 0 && board.getHiddenUnflaggedCells() == 0;
+    }
+
+    // Returns the smallest rectangle, in cells (x = column, y = row), that holds
+    // every cell changed since the last call, or null if nothing changed. The
+    // region is cleared, so each change is reported once. Lets the view repaint
+    // only what a move touched.
+    public Rectangle takeDirtyRegion() {
+        if (dirtyMinRow > dirtyMaxRow) {
+            return null;
+        }
+        Rectangle region = new Rectangle(
+                dirtyMinColumn, dirtyMinRow,
+                dirtyMaxColumn - dirtyMinColumn + 1, dirtyMaxRow - dirtyMinRow + 1
+        );
+        dirtyMinRow = 0;
+        dirtyMaxRow = -1;
+        dirtyMinColumn = 0;
+        dirtyMaxColumn = -1;
+        return region;
+    }
+
+    private void markDirty(int r, int c) {
+        if (stream != null) {
+            stream.touch(r * numColumns + c);
+        }
+        if (dirtyMinRow > dirtyMaxRow) {
+            dirtyMinRow = r;
+            dirtyMaxRow = r;
+            dirtyMinColumn = c;
+            dirtyMaxColumn = c;
+        } else {
+            dirtyMinRow = Math.min(dirtyMinRow, r);
+            dirtyMaxRow = Math.max(dirtyMaxRow, r);
+            dirtyMinColumn = Math.min(dirtyMinColumn, c);
+            dirtyMaxColumn = Math.max(dirtyMaxColumn, c);
+        }
+    }
+
+    private void markAllDirty() {
+        dirtyMaxRow = -1;
+        markDirty(0, 0);
+        markDirty(numRows - 1, numColumns - 1);
+    }
+
+    // Checks whether the player has won the game yet. The board keeps a running
+    // count of tiles that are neither revealed nor flagged, so this is
+    // constant time.
+    @Override
     public boolean checkWinner() {
-        if (numFlags >= 0) {
-            for (Tile[] tiles : board) {
-                for (int j = 0; j < board[0].length; j++) {
-                    if (!tiles[j].isRevealed() && !tiles[j].isFlagged()) {
-                        return false;
-                    }
-                }
-            }
+        long started = GameMetrics.start();
+        selfCheck();
+        boolean won = numFlags >= 0 && board.getHiddenUnflaggedCells() == 0;
+        if (won) {
             gameOver = true;
-            return true;
-        } else {
-            return false;
+        }
+        GameMetrics.record(GameMetrics.Action.CHECK_WINNER, started, won ? 1 : 0);
+        return won;
+    }
+
+    // Number of safe tiles that still have to be revealed to clear the board.
+    @Override
+    public int getRemainingSafeCells() {
+        return board.getHiddenSafeCells();
+    }
+
+    // Number of tiles that are currently not revealed, mines included.
+    @Override
+    public int getUnrevealedCells() {
+        return board.getHiddenCells();
+    }
+
+    // Number of flags currently on the board.
+    @Override
+    public int getFlaggedCells() {
+        return board.getFlaggedCells();
+    }
+
+    // Number of flags that are on a mine.
+    public int getCorrectlyFlaggedCells() {
+        return board.getCorrectFlags();
+    }
+
+    // Turns the consistency self-check on or off. While it is on, every move
+    // recounts the whole board and throws IllegalStateException if the running
+    // counters disagree with it. Meant for tests; it makes every move O(board).
+    public void setSelfCheck(boolean enabled) {
+        selfCheck = enabled;
+        selfCheck();
+    }
+
+    private void selfCheck() {
+        if (selfCheck) {
+            if (lazy != null) {
+                lazy.ensureAll(generationThreads);
+            }
+            // Until the first click the totals count mines that are not
+            // placed yet, so there is nothing to compare them with.
+            if (!layoutPending) {
+                board.verifyCounters();
+            }
+        }
+    }
+
+    // Makes row r of a lazily generated board safe to read.
+    private void ensureRow(int r) {
+        if (lazy != null) {
+            lazy.ensureRow(r);
         }
     }
 
     // printGameState prints the current game state for debugging.
     public void printGameState() {
-        for (Tile[] tiles : board) {
-            System.out.println();
-            for (int j = 0; j < board[0].length; j++) {
-                System.out.print(tiles[j].isMine() + " ");
+        printGameState(System.out);
+    }
+
+    // Prints the mine layout to out, one line per row. Before the first click
+    // this fixes the layout, which then no longer avoids the first click.
+    public void printGameState(PrintStream out) {
+        settleLayout();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < numRows; i++) {
+            text.append(System.lineSeparator());
+            for (int j = 0; j < numColumns; j++) {
+                text.append(board.isMine(board.index(i, j)) ? 1 : 0).append(' ');
             }
         }
-        System.out.println();
+        out.println(text);
     }
 
-    // Places the set number of mines at random locations across the board
+    // Opt-in debug hook: when out is not null, every new mine layout is printed
+    // to it once the first click has fixed it. Off by default so headless and
+    // batch runs stay quiet.
+    public void setDebugOutput(PrintStream out) {
+        debugOutput = out;
+    }
+
+    // Places the set number of mines at random locations across an empty board.
+    // The locations depend only on the seed, so a seed reproduces its board.
+    // Games no longer use this (see reset); kept for testing purposes.
     public void mineSetter() {
-        int numRows = board.length;
-        int numColumns = board[0].length;
-        int placed = 0;
-        while (placed < numMines) {
-            Random rand = new Random();
-            int mineRow = rand.nextInt(numRows);
-            int mineColumn = rand.nextInt(numColumns);
-            if (board[mineRow][mineColumn].isMine() == 0) {
-                board[mineRow][mineColumn].setMine();
-                placed++;
-            }
-        }
+        MineGenerator.placeMines(board, numMines, seed);
     }
 
-    // Updates each Tile objects adjacent mine count using the countAdjacentMines
-    // helper method. Made public for testing
+    // Updates each tile's adjacent mine count. Made public for testing
     // purposes.
     public void calculateAdjacentMinesCounts() {
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[0].length; j++) {
-                board[i][j].setAdjacentMines(countAdjacentMines(i, j));
-            }
+        MineGenerator.countAdjacentMines(board);
+    }
+
+    // reset (re-)sets the game state to start a new game. Uses the
+    // configuration's seed if it has one, otherwise a fresh seed.
+    public void reset() {
+        reset(config.hasSeed() ? config.getSeed() : new SplittableRandom().nextLong());
+    }
+
+    // Starts a new game whose mine layout is determined by the given seed and
+    // the first click. No mines are placed yet: the first reveal fixes the
+    // layout, keeping the clicked cell and its neighbors clear, and rows are
+    // generated as they are reached (see LazyBoardGenerator). A board of the
+    // same size is reused, so a reset does no work per cell.
+    @Override
+    public void reset(long seed) {
+        this.seed = seed;
+        gameNumber++;
+        numRows = config.getRows();
+        numColumns = config.getColumns();
+        numMines = config.getMines();
+        if (board == null || board.getRows() != numRows || board.getColumns() != numColumns) {
+            board = new PackedBoard(numRows, numColumns);
+            revealer = new FloodFill(board);
         }
+        lazy = new LazyBoardGenerator(board, numMines);
+        revealer.setLazyGenerator(lazy);
+        lastChanges = null;
+        journal.start(seed, numRows, numColumns, numMines, noGuess, false);
+        layoutPending = true;
+        markAllDirty();
+        numFlags = numMines;
+        gameOver = false;
+        if (stream != null) {
+            stream.restart(board.size());
+            publish();
+        }
+        selfCheck();
+    }
+
+    // Turns no-guess mode on or off from the next reset. In no-guess mode the
+    // mines are placed on the first reveal, by NoGuessGenerator, so that the
+    // whole board can be cleared from that click without guessing.
+    public void setNoGuess(boolean enabled) {
+        noGuess = enabled;
+    }
+
+    public boolean isNoGuess() {
+        return noGuess;
     }
 
-    // Helper function for calculateAdjacentMinesCounts that calculate how many
-    // adjacent mines there are.
-    private int countAdjacentMines(int r, int c) {
-        int count = 0;
-        for (int i = r - 1; i <= r + 1; i++) {
-            for (int j = c - 1; j <= c + 1; j++) {
-                if (i >= 0 && i < board.length && j >= 0 && j < board[0].length
-                        && !(i == r && j == c)) {
-                    if (board[i][j].isMine() == 1) {
-                        count++;
-                    }
+    // Fixes the layout for a first click on (r, c). In no-guess mode the
+    // whole board is built by NoGuessGenerator, keeping any flags already
+    // placed; boards too dense for it fall back to the ordinary layout. With
+    // more than one generation thread the board is generated right away.
+    private void placeLayout(int r, int c) {
+        layoutPending = false;
+        journal.fixLayout(r, c);
+        PackedBoard layout = noGuess && numMines < board.size()
+                ? NoGuessGenerator.generate(
+                        numRows, numColumns, numMines, r, c, seed, generationThreads
+                )
+                : null;
+        if (layout != null) {
+            lazy.ensureAll(1);
+            for (int i = 0; i < board.size(); i++) {
+                if (board.isFlagged(i)) {
+                    layout.setFlagged(i, true);
                 }
             }
+            board = layout;
+            revealer = new FloodFill(board);
+            lazy = null;
+        } else {
+            lazy.plan(seed, r, c);
+            if (generationThreads > 1) {
+                lazy.ensureAll(generationThreads);
+            }
+        }
+        markAllDirty();
+        selfCheck();
+        if (debugOutput != null) {
+            printGameState(debugOutput);
         }
-        return count;
     }
 
-    // reset (re-)sets the game state to start a new game.
-    public void reset() {
-        board = new Tile[8][10];
-        numRows = 8;
-        numColumns = 10;
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[0].length; j++) {
-                board[i][j] = new Tile();
-            }
+    // Generates whatever is left of the board, fixing the layout first if
+    // there has been no click yet, for code that reads every cell.
+    private void settleLayout() {
+        fixLayout();
+        if (lazy != null) {
+            lazy.ensureAll(generationThreads);
+            lazy = null;
+            revealer.setLazyGenerator(null);
+        }
+    }
+
+    // Fixes the layout with no cell kept clear if there has been no click yet.
+    private void fixLayout() {
+        if (layoutPending) {
+            layoutPending = false;
+            journal.fixLayout(-1, -1);
+            lazy.plan(seed, -1, -1);
         }
-        numMines = 10;
-        numFlags = numMines;
-        gameOver = false;
-        mineSetter();
-        calculateAdjacentMinesCounts();
-        printGameState();
     }
 
     // Save returns 0 if save isn't allowed, -1 for error, and 1 for a successful
-    // save.
+    // save. Games are saved in the binary BoardFile format.
     public int save() {
+        return save(SAVE_FILE);
+    }
+
+    // Same as save(), writing to the given file.
+    public int save(Path path) {
         if (!gameOver) {
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter("files/status.txt"))) {
-                // Write Minesweeper status to the file
-                writer.write(String.valueOf(numFlags));
-                writer.newLine();
-                writer.write(String.valueOf(numMines));
-                writer.newLine();
-                writer.write(String.valueOf(gameOver));
-                writer.newLine();
-                writer.write(String.valueOf(numRows));
-                writer.newLine();
-                writer.write(String.valueOf(numColumns));
-                writer.newLine();
-                for (Tile[] tiles : board) {
-                    for (int j = 0; j < board[0].length; j++) {
-                        Tile curTile = tiles[j];
-                        writer.write(curTile.getInformation());
-                        writer.newLine();
-                    }
-                }
-                writer.flush();
-                writer.close();
+            settleLayout();
+            try {
+                BoardFile.write(path, board, numMines, numFlags, gameOver, seed);
                 return 1;
             } catch (IOException e) {
                 return -1;
@@ -218,66 +727,177 @@ public class Minesweeper {
         return 0;
     }
 
-    // Save returns false if it cannot save, and true for a successful save.
+    // Load returns false if it cannot load, and true for a successful load. Reads
+    // the binary save if there is one, otherwise an old text save.
     public boolean load() {
-        try (BufferedReader br = new BufferedReader(new FileReader("files/status.txt"))) {
-            numFlags = Integer.parseInt(br.readLine());
-            numMines = Integer.parseInt(br.readLine());
-            gameOver = Boolean.parseBoolean(br.readLine());
-            numRows = Integer.parseInt(br.readLine());
-            numColumns = Integer.parseInt(br.readLine());
-            board = new Tile[numRows][numColumns];
-            String nextLine = br.readLine();
-            for (int i = 0; i < numRows; i++) {
-                for (int j = 0; j < numColumns; j++) {
-                    String[] tileData = nextLine.split(" ");
-                    int mine = Integer.parseInt(tileData[0]);
-                    boolean revealed = Boolean.parseBoolean(tileData[1]);
-                    boolean flagged = Boolean.parseBoolean(tileData[2]);
-                    int adjacentMines = Integer.parseInt(tileData[3]);
-                    board[i][j] = new Tile(mine, revealed, flagged, adjacentMines);
-                    nextLine = br.readLine();
-                }
-            }
-            br.close();
+        return load(Files.exists(SAVE_FILE) ? SAVE_FILE : LEGACY_SAVE_FILE);
+    }
+
+    // Same as load(), reading the given file in either the binary or the old
+    // text format.
+    public boolean load(Path path) {
+        try {
+            BoardFile file = BoardFile.isBoardFile(path)
+                    ? BoardFile.read(path) : BoardFile.readText(path);
+            load(file);
             return true;
         } catch (IOException e) {
             return false;
         }
     }
 
+    // Returns a copy of the current game that later moves do not affect, so it
+    // can be written to disk on another thread. On a board that is still being
+    // generated lazily, only the rows generated so far are copied here; the
+    // whole board is built when the copy's board is first read, on the
+    // reader's thread (see BoardFile.getBoard), and the game stays lazy.
+    @Override
+    public BoardFile snapshot() {
+        fixLayout();
+        if (lazy == null || lazy.isComplete()) {
+            return new BoardFile(numMines, numFlags, gameOver, seed, board.copy());
+        }
+        return new BoardFile(
+                numMines, numFlags, gameOver, seed, numRows, numColumns,
+                lazy.copy(generationThreads)
+        );
+    }
+
+    // Replaces the current game with a decoded save.
+    @Override
+    public void load(BoardFile file) {
+        gameNumber++;
+        layoutPending = false;
+        lazy = null;
+        lastChanges = null;
+        numFlags = file.getNumFlags();
+        numMines = file.getNumMines();
+        gameOver = file.getGameOver();
+        numRows = file.getRows();
+        numColumns = file.getColumns();
+        seed = file.getSeed();
+        board = file.getBoard();
+        revealer = new FloodFill(board);
+        markAllDirty();
+        if (numRows != config.getRows() || numColumns != config.getColumns()
+                || numMines != config.getMines()) {
+            config = BoardConfig.custom(numRows, numColumns, numMines);
+        }
+        journal.start(seed, numRows, numColumns, numMines, noGuess, true);
+        if (stream != null) {
+            stream.restart(board.size());
+            publish();
+        }
+        selfCheck();
+    }
+
     // The rest of the methods are "get" methods for the GameBoard to access or for
     // GameTest testing purposes.
     // Column row are swapped parameters due to input coming in as (x,y)
     // coordinates.
+    @Override
     public boolean getCellRevealed(int c, int r) {
-        return board[r][c].isRevealed();
+        ensureRow(r);
+        return board.isRevealed(board.index(r, c));
     }
 
+    @Override
     public boolean getCellFlagged(int c, int r) {
-        return board[r][c].isFlagged();
+        ensureRow(r);
+        return board.isFlagged(board.index(r, c));
     }
 
+    @Override
     public boolean getCellLost(int c, int r) {
-        return board[r][c].isLost();
+        ensureRow(r);
+        return board.isLost(board.index(r, c));
     }
 
+    @Override
     public int getCellAdjacentMines(int c, int r) {
-        return board[r][c].getAdjacentMines();
+        ensureRow(r);
+        return board.getAdjacentMines(board.index(r, c));
+    }
+
+    // Writes the visible codes (see StateDelta.code) of columns fromColumn to
+    // toColumn - 1 of row r to codes, starting at offset, for views that
+    // redraw many cells at once. Rows a lazy board has not reached are still
+    // hidden and are not generated for this.
+    void readVisibleRow(int r, int fromColumn, int toColumn, byte[] codes, int offset) {
+        if (lazy != null && lazy.isRowStale(r)) {
+            Arrays.fill(codes, offset, offset + toColumn - fromColumn, (byte) StateDelta.HIDDEN);
+            return;
+        }
+        byte[] cells = board.cells();
+        int start = board.index(r, fromColumn);
+        for (int k = 0; k < toColumn - fromColumn; k++) {
+            codes[offset + k] = (byte) StateDelta.code(cells[start + k]);
+        }
     }
 
+    // Returns a Tile copy of the given cell. Tiles are only a view; changing
+    // the returned Tile does not change the game.
+    public Tile getTile(int c, int r) {
+        ensureRow(r);
+        return board.toTile(board.index(r, c));
+    }
+
+    @Override
     public boolean getGameOver() {
         return gameOver;
     }
 
+    @Override
     public int getNumRows() {
         return numRows;
     }
 
+    @Override
     public int getNumColumns() {
         return numColumns;
     }
 
+    // Switches to a new board configuration and starts a new game on it.
+    public void setConfig(BoardConfig config) {
+        this.config = config;
+        reset();
+    }
+
+    @Override
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    // Number of threads used to generate boards. With one thread a board is
+    // generated a stripe at a time as it is reached; with more, the whole
+    // board is generated in parallel on the first click. The layout for a
+    // seed and first click is the same either way. No-guess mode uses the
+    // threads for parallel candidates instead.
+    public void setGenerationThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one generation thread");
+        }
+        generationThreads = threads;
+    }
+
+    public int getGenerationThreads() {
+        return generationThreads;
+    }
+
+    // Increases every time a new game starts, by reset or load, and on every
+    // undo and redo, so observers such as the Solver can tell that the board
+    // they were following is gone.
+    @Override
+    public int getGameNumber() {
+        return gameNumber;
+    }
+
+    // Seed of the current mine layout.
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
     // Solely for testing purposes
     public void setGameOver() {
         gameOver = true;
@@ -287,10 +907,15 @@ public class Minesweeper {
     // Column row are swapped parameters due to consistency purposes with Get
     // methods.
     public void setNotMine(int c, int r) {
-        if (board[r][c].isMine() == 1) {
-            board[r][c].setNotMine();
+        settleLayout();
+        int i = board.index(r, c);
+        if (board.isMine(i)) {
+            board.setMine(i, false);
             numMines--;
-            calculateAdjacentMinesCounts();
+            MineGenerator.addToNeighbors(board, r, c, -1);
+            markDirty(Math.max(0, r - 1), Math.max(0, c - 1));
+            markDirty(Math.min(numRows - 1, r + 1), Math.min(numColumns - 1, c + 1));
+            selfCheck();
         }
     }
 
@@ -298,10 +923,15 @@ public class Minesweeper {
     // Column row are swapped parameters due to consistency purposes with Get
     // methods.
     public void setMine(int c, int r) {
-        if (board[r][c].isMine() != 1) {
-            board[r][c].setMine();
+        settleLayout();
+        int i = board.index(r, c);
+        if (!board.isMine(i)) {
+            board.setMine(i, true);
             numMines++;
-            calculateAdjacentMinesCounts();
+            MineGenerator.addToNeighbors(board, r, c, 1);
+            markDirty(Math.max(0, r - 1), Math.max(0, c - 1));
+            markDirty(Math.min(numRows - 1, r + 1), Math.min(numColumns - 1, c + 1));
+            selfCheck();
         }
     }
 
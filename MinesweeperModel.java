@@ -0,0 +1,77 @@
+package org.cis1200.minesweeper;
+
+/**
+ * The accessors the solver, the generators and the simulator play a game
+ * through, so they run on either backend: Minesweeper, with its packed byte
+ * board, undo and views, or BitboardMinesweeper, which works on 64 cells at a
+ * time and suits very large headless boards.
+ * Like the rest of the model, cells take the column first and the row
+ * second, and flat cell indices are row * numColumns + column.
+ */
+public interface MinesweeperModel {
+
+    // Reveals (c, r), flood filling from it if it has no adjacent mines.
+    // Returns false if the cell is outside the board, revealed or flagged, or
+    // the game is over. Revealing a mine ends the game.
+    boolean playTurn(int c, int r);
+
+    // Toggles a flag on (c, r). Returns 1 if a flag was placed, 0 if one was
+    // removed and -1 if the cell cannot be flagged.
+    int placeFlag(int c, int r);
+
+    // True, and the game over, once every cell is revealed or flagged without
+    // using more flags than there are mines.
+    boolean checkWinner();
+
+    // Starts a new game whose layout is fixed by the seed and the first click.
+    void reset(long seed);
+
+    // Replaces the current game with a decoded save.
+    void load(BoardFile file);
+
+    // The current game as a save, fixing the layout first if there has been
+    // no click yet.
+    BoardFile snapshot();
+
+    boolean getCellRevealed(int c, int r);
+
+    boolean getCellFlagged(int c, int r);
+
+    boolean getCellLost(int c, int r);
+
+    int getCellAdjacentMines(int c, int r);
+
+    boolean getGameOver();
+
+    int getNumRows();
+
+    int getNumColumns();
+
+    int getNumMines();
+
+    // Flags left to place.
+    int getNumFlags();
+
+    // Number of safe cells that still have to be revealed.
+    int getRemainingSafeCells();
+
+    // Number of cells that are not revealed, mines included.
+    int getUnrevealedCells();
+
+    // Number of flags currently on the board.
+    int getFlaggedCells();
+
+    // Number of cells the most recent reveal uncovered, and the flat index of
+    // the k-th of them.
+    int getLastRevealedCount();
+
+    int getLastRevealedCell(int k);
+
+    // Changes whenever the board is replaced or moves are taken back, so a
+    // follower such as the Solver knows to start over.
+    int getGameNumber();
+
+    long getSeed();
+
+    BoardConfig getConfig();
+}
@@ -0,0 +1,78 @@
+package org.cis1200.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * An ordered list of moves (reveals, flags and chords) to be applied to a
+ * game in one go by Minesweeper.apply, which reports everything they changed
+ * in a single ChangeSet. Moves are stored in primitive arrays, so a batch of
+ * thousands of solver moves costs a few small allocations.
+ * Like the rest of the model, moves take the column first and the row second.
+ */
+public final class MoveBatch {
+
+    // FILL is Minesweeper.revealNeighbors, which clears flags and skips the
+    // game over and mine checks. It is only recorded by the journal, so a
+    // replay repeats it exactly; MoveBatch has no method to add it.
+    public enum Action {
+        REVEAL, FLAG, CHORD, FILL
+    }
+
+    private static final Action[] ACTIONS = Action.values();
+
+    private byte[] actions = new byte[16];
+    private int[] columns = new int[16];
+    private int[] rows = new int[16];
+    private int size;
+
+    // Adds a reveal of (c, r), as playTurn would do it.
+    public MoveBatch reveal(int c, int r) {
+        return add(Action.REVEAL, c, r);
+    }
+
+    // Adds a flag toggle on (c, r), as placeFlag would do it.
+    public MoveBatch flag(int c, int r) {
+        return add(Action.FLAG, c, r);
+    }
+
+    // Adds a chord on (c, r), as chord would do it.
+    public MoveBatch chord(int c, int r) {
+        return add(Action.CHORD, c, r);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Action getAction(int k) {
+        return ACTIONS[actions[check(k)]];
+    }
+
+    public int getColumn(int k) {
+        return columns[check(k)];
+    }
+
+    public int getRow(int k) {
+        return rows[check(k)];
+    }
+
+    MoveBatch add(Action action, int c, int r) {
+        if (size == actions.length) {
+            actions = Arrays.copyOf(actions, size * 2);
+            columns = Arrays.copyOf(columns, size * 2);
+            rows = Arrays.copyOf(rows, size * 2);
+        }
+        actions[size] = (byte) action.ordinal();
+        columns[size] = c;
+        rows[size] = r;
+        size++;
+        return this;
+    }
+
+    private int check(int k) {
+        if (k < 0 || k >= size) {
+            throw new IndexOutOfBoundsException("No move " + k + " of " + size);
+        }
+        return k;
+    }
+}
@@ -0,0 +1,565 @@
+package org.cis1200.minesweeper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Append-only record of the moves of one game, kept by Minesweeper for undo,
+ * redo and replay. Each entry is one action (a reveal, flag, chord or whole
+ * MoveBatch) with the moves it was made of and a delta of the cells it
+ * changed: the cell index and the state bits (revealed, flagged, lost) that
+ * flipped. Flipping the same bits again undoes or redoes the entry, so both
+ * cost O(changed cells) and never copy the board.
+ * The moves alone are enough to play the game again: the layout depends only
+ * on the seed and the first click, so replaying them from a reset with the
+ * same seed gives the same game. The click that fixed the layout is kept on
+ * its own, since that click may have been undone. The journal can be streamed to a file as it
+ * grows, a few bytes per action, so a crashed game can be recovered by
+ * replaying it (see Minesweeper.replay) instead of saving the board after
+ * every move.
+ * Deltas are capped at MAX_CELLS cells. Past that the oldest entries keep
+ * their moves but lose their deltas, and can no longer be undone.
+ * File layout (big-endian): magic "MSJN", version, seed, rows, columns,
+ * mines, no-guess and from-save flags, then one record per action: ENTRY
+ * with its move count and (action, column, row) per move, UNDO or REDO, and
+ * LAYOUT with the row and column of the click that fixed the layout.
+ * A journal made with recording off keeps only the start of the game and the
+ * layout click. It records no entries, so it costs nothing per move; games
+ * that never undo or replay, such as simulations and server sessions, use
+ * one.
+ */
+public final class MoveJournal {
+
+    public static final int MAGIC = 0x4D534A4E; // "MSJN"
+    public static final int VERSION = 1;
+    public static final int MAX_CELLS = 1 << 22;
+
+    // Record types in a journal file.
+    private static final byte ENTRY = 1;
+    private static final byte UNDO = 2;
+    private static final byte REDO = 3;
+    private static final byte LAYOUT = 4;
+
+    private static final MoveBatch.Action[] ACTIONS = MoveBatch.Action.values();
+
+    // Start of the game.
+    private long seed;
+    private int rows;
+    private int columns;
+    private int mines;
+    private boolean noGuess;
+    private boolean fromSave;
+    // The click that fixed the layout, once there was one; a row of -1 means
+    // it was fixed with no click to keep clear.
+    private boolean layoutFixed;
+    private int layoutRow;
+    private int layoutColumn;
+
+    // Entries [0, size) are recorded, [0, position) are applied, and entries
+    // before floor have no delta left.
+    private int size;
+    private int position;
+    private int floor;
+    private int[] moveEnd = new int[16];
+    private int[] cellEnd = new int[16];
+    private int[] flagsBefore = new int[16];
+    private int[] flagsAfter = new int[16];
+    private boolean[] gameOverAfter = new boolean[16];
+
+    private byte[] moveActions = new byte[16];
+    private int[] moveColumns = new int[16];
+    private int[] moveRows = new int[16];
+    private int moveCount;
+
+    // Deltas of entries [floor, size): cell index and the bits that flipped.
+    private int[] cells = new int[64];
+    private byte[] flips = new byte[64];
+    private int cellCount;
+
+    // Set between beginEntry and endEntry. The open entry's moves and cells
+    // go after every recorded entry, undone ones included, so dropping it
+    // leaves the redo history as it was.
+    private boolean open;
+    private boolean overflow;
+    private int entryFirstMove;
+    private int entryFirstCell;
+    private int entryFlagsBefore;
+
+    private Path file;
+    private DataOutputStream out;
+
+    // False if entries are not recorded at all.
+    private final boolean recording;
+
+    public MoveJournal() {
+        this(true);
+    }
+
+    MoveJournal(boolean recording) {
+        this.recording = recording;
+    }
+
+    // Forgets everything and starts the journal of a new game. A game loaded
+    // from a save is fromSave; its moves only replay on top of that save.
+    void start(
+            long seed, int rows, int columns, int mines, boolean noGuess, boolean fromSave
+    ) {
+        this.seed = seed;
+        this.rows = rows;
+        this.columns = columns;
+        this.mines = mines;
+        this.noGuess = noGuess;
+        this.fromSave = fromSave;
+        layoutFixed = false;
+        size = 0;
+        position = 0;
+        floor = 0;
+        moveCount = 0;
+        cellCount = 0;
+        open = false;
+        if (out != null) {
+            streamTo(file);
+        }
+    }
+
+    // Records that the layout was fixed by a click on (r, c), or with no cell
+    // kept clear if r is -1.
+    void fixLayout(int r, int c) {
+        layoutFixed = true;
+        layoutRow = r;
+        layoutColumn = c;
+        write(LAYOUT, -1);
+    }
+
+    // Starts an entry for an action taken with numFlags flags left.
+    void beginEntry(int numFlags) {
+        if (!recording) {
+            return;
+        }
+        entryFirstMove = moveCount;
+        entryFirstCell = cellCount;
+        entryFlagsBefore = numFlags;
+        overflow = false;
+        open = true;
+    }
+
+    void addMove(MoveBatch.Action action, int c, int r) {
+        if (!recording) {
+            return;
+        }
+        if (moveCount == moveActions.length) {
+            moveActions = Arrays.copyOf(moveActions, moveCount * 2);
+            moveColumns = Arrays.copyOf(moveColumns, moveCount * 2);
+            moveRows = Arrays.copyOf(moveRows, moveCount * 2);
+        }
+        moveActions[moveCount] = (byte) action.ordinal();
+        moveColumns[moveCount] = c;
+        moveRows[moveCount] = r;
+        moveCount++;
+    }
+
+    // Records that the given PackedBoard state bits of cell flipped.
+    void addCell(int cell, int flipped) {
+        if (!recording || overflow) {
+            return;
+        }
+        if (cellCount - entryFirstCell == MAX_CELLS) {
+            // Too big to undo at all; keep only the moves.
+            overflow = true;
+            return;
+        }
+        if (cellCount == cells.length) {
+            cells = Arrays.copyOf(cells, cellCount * 2);
+            flips = Arrays.copyOf(flips, cellCount * 2);
+        }
+        cells[cellCount] = cell;
+        flips[cellCount] = (byte) flipped;
+        cellCount++;
+    }
+
+    // Ends the entry. One that changed nothing is dropped, unless its moves
+    // must be kept because keep is set. A kept entry replaces whatever could
+    // have been redone. Returns true if it was kept.
+    boolean endEntry(int numFlags, boolean gameOver, boolean keep) {
+        if (!recording) {
+            return false;
+        }
+        open = false;
+        if (cellCount == entryFirstCell && !overflow && !keep) {
+            moveCount = entryFirstMove;
+            return false;
+        }
+        if (position < size) {
+            truncate();
+        }
+        if (size == moveEnd.length) {
+            int grown = size * 2;
+            moveEnd = Arrays.copyOf(moveEnd, grown);
+            cellEnd = Arrays.copyOf(cellEnd, grown);
+            flagsBefore = Arrays.copyOf(flagsBefore, grown);
+            flagsAfter = Arrays.copyOf(flagsAfter, grown);
+            gameOverAfter = Arrays.copyOf(gameOverAfter, grown);
+        }
+        moveEnd[size] = moveCount;
+        cellEnd[size] = cellCount;
+        flagsBefore[size] = entryFlagsBefore;
+        flagsAfter[size] = numFlags;
+        gameOverAfter[size] = gameOver;
+        size++;
+        position = size;
+        if (overflow) {
+            dropDeltas(size);
+        } else if (cellCount > MAX_CELLS) {
+            // Drop the oldest deltas until half the budget is free again.
+            int keepFrom = floor;
+            while (keepFrom < size - 1 && cellCount - cellEnd[keepFrom] > MAX_CELLS / 2) {
+                keepFrom++;
+            }
+            dropDeltas(keepFrom + 1);
+        }
+        write(ENTRY, size - 1);
+        return true;
+    }
+
+    // Discards the undone entries [position, size), moving the open entry's
+    // moves and cells down to follow the applied ones.
+    private void truncate() {
+        int keptMoves = position == 0 ? 0 : moveEnd[position - 1];
+        int entryMoves = moveCount - entryFirstMove;
+        System.arraycopy(moveActions, entryFirstMove, moveActions, keptMoves, entryMoves);
+        System.arraycopy(moveColumns, entryFirstMove, moveColumns, keptMoves, entryMoves);
+        System.arraycopy(moveRows, entryFirstMove, moveRows, keptMoves, entryMoves);
+        moveCount = keptMoves + entryMoves;
+        int keptCells = position <= floor ? 0 : cellEnd[position - 1];
+        int entryCells = cellCount - entryFirstCell;
+        System.arraycopy(cells, entryFirstCell, cells, keptCells, entryCells);
+        System.arraycopy(flips, entryFirstCell, flips, keptCells, entryCells);
+        cellCount = keptCells + entryCells;
+        entryFirstCell = keptCells;
+        size = position;
+        floor = Math.min(floor, size);
+    }
+
+    // Discards the deltas of every entry before newFloor.
+    private void dropDeltas(int newFloor) {
+        int dropped = newFloor >= size ? cellCount : cellEnd[newFloor - 1];
+        System.arraycopy(cells, dropped, cells, 0, cellCount - dropped);
+        System.arraycopy(flips, dropped, flips, 0, cellCount - dropped);
+        cellCount -= dropped;
+        for (int k = newFloor; k < size; k++) {
+            cellEnd[k] -= dropped;
+        }
+        floor = newFloor;
+    }
+
+    public boolean canUndo() {
+        return !open && position > floor;
+    }
+
+    public boolean canRedo() {
+        return !open && position < size && position >= floor;
+    }
+
+    // Moves back over the last applied entry and returns its index. The
+    // caller flips the entry's cells back (see getCellCount).
+    int undo() {
+        if (!canUndo()) {
+            throw new IllegalStateException("Nothing to undo");
+        }
+        position--;
+        write(UNDO, -1);
+        return position;
+    }
+
+    // Moves forward over the next undone entry and returns its index.
+    int redo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("Nothing to redo");
+        }
+        position++;
+        write(REDO, -1);
+        return position - 1;
+    }
+
+    // Number of entries recorded, including undone ones that can be redone.
+    public int size() {
+        return size;
+    }
+
+    // Number of entries currently applied; entries from here on were undone.
+    public int getPosition() {
+        return position;
+    }
+
+    // Number of moves of entry k, and the j-th of them.
+    public int getMoveCount(int k) {
+        return moveEnd[check(k)] - (k == 0 ? 0 : moveEnd[k - 1]);
+    }
+
+    public MoveBatch.Action getAction(int k, int j) {
+        return ACTIONS[moveActions[move(k, j)]];
+    }
+
+    public int getColumn(int k, int j) {
+        return moveColumns[move(k, j)];
+    }
+
+    public int getRow(int k, int j) {
+        return moveRows[move(k, j)];
+    }
+
+    // The moves of entry k as a batch.
+    public MoveBatch getMoves(int k) {
+        MoveBatch batch = new MoveBatch();
+        for (int j = 0; j < getMoveCount(k); j++) {
+            int m = move(k, j);
+            batch.add(ACTIONS[moveActions[m]], moveColumns[m], moveRows[m]);
+        }
+        return batch;
+    }
+
+    // Delta of entry k, which must be at or after the undo floor: cell index
+    // and flipped state bits of each changed cell.
+    int getCellCount(int k) {
+        return cellEnd[k] - (k == floor ? 0 : cellEnd[k - 1]);
+    }
+
+    int getCell(int k, int j) {
+        return cells[(k == floor ? 0 : cellEnd[k - 1]) + j];
+    }
+
+    int getFlips(int k, int j) {
+        return flips[(k == floor ? 0 : cellEnd[k - 1]) + j];
+    }
+
+    int getFlagsBefore(int k) {
+        return flagsBefore[check(k)];
+    }
+
+    int getFlagsAfter(int k) {
+        return flagsAfter[check(k)];
+    }
+
+    boolean getGameOverAfter(int k) {
+        return gameOverAfter[check(k)];
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    public boolean isNoGuess() {
+        return noGuess;
+    }
+
+    // True once a click (or a save or printout before any click) has fixed
+    // the layout.
+    public boolean isLayoutFixed() {
+        return layoutFixed;
+    }
+
+    // Row and column of the click that fixed the layout; the row is -1 if it
+    // was fixed without one.
+    public int getLayoutRow() {
+        return layoutRow;
+    }
+
+    public int getLayoutColumn() {
+        return layoutColumn;
+    }
+
+    // True if the game was loaded from a save rather than started from the seed.
+    public boolean isFromSave() {
+        return fromSave;
+    }
+
+    // False if this journal was made with recording off and keeps no entries.
+    public boolean isRecording() {
+        return recording;
+    }
+
+    // Number of cells the undo deltas currently hold.
+    public int getDeltaCells() {
+        return cellCount;
+    }
+
+    private int check(int k) {
+        if (k < 0 || k >= size) {
+            throw new IndexOutOfBoundsException("No entry " + k + " of " + size);
+        }
+        return k;
+    }
+
+    private int move(int k, int j) {
+        if (j < 0 || j >= getMoveCount(k)) {
+            throw new IndexOutOfBoundsException("No move " + j + " in entry " + k);
+        }
+        return (k == 0 ? 0 : moveEnd[k - 1]) + j;
+    }
+
+    // Streams the journal to path from now on: the file is rewritten with the
+    // applied entries so far, and every later action is appended and flushed
+    // as it happens. Throws UncheckedIOException if the file can't be written,
+    // and IllegalStateException if the journal is not recording.
+    public void streamTo(Path path) {
+        if (!recording) {
+            throw new IllegalStateException("Journal is not recording moves");
+        }
+        closeStream();
+        file = path;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seed);
+            out.writeInt(rows);
+            out.writeInt(columns);
+            out.writeInt(mines);
+            out.writeBoolean(noGuess);
+            out.writeBoolean(fromSave);
+            if (layoutFixed) {
+                writeLayout();
+            }
+            for (int k = 0; k < position; k++) {
+                writeEntry(k);
+            }
+            out.flush();
+        } catch (IOException e) {
+            out = null;
+            throw new UncheckedIOException("Couldn't write journal " + path, e);
+        }
+    }
+
+    // Stops streaming and closes the file.
+    public void closeStream() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't close journal " + file, e);
+        } finally {
+            out = null;
+        }
+    }
+
+    private void write(byte record, int k) {
+        if (out == null) {
+            return;
+        }
+        try {
+            if (record == ENTRY) {
+                writeEntry(k);
+            } else if (record == LAYOUT) {
+                writeLayout();
+            } else {
+                out.writeByte(record);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't write journal " + file, e);
+        }
+    }
+
+    private void writeLayout() throws IOException {
+        out.writeByte(LAYOUT);
+        out.writeInt(layoutRow);
+        out.writeInt(layoutColumn);
+    }
+
+    private void writeEntry(int k) throws IOException {
+        out.writeByte(ENTRY);
+        out.writeInt(getMoveCount(k));
+        for (int j = 0; j < getMoveCount(k); j++) {
+            int m = move(k, j);
+            out.writeByte(moveActions[m]);
+            out.writeInt(moveColumns[m]);
+            out.writeInt(moveRows[m]);
+        }
+    }
+
+    // Reads a streamed journal. The result holds the moves but no deltas; it
+    // is meant for Minesweeper.replay. A record cut short by a crash ends the
+    // journal. Throws IOException if the file is not a journal.
+    public static MoveJournal read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path))
+        )) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a Minesweeper journal: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported journal version " + version);
+            }
+            MoveJournal journal = new MoveJournal();
+            journal.start(
+                    in.readLong(), in.readInt(), in.readInt(), in.readInt(), in.readBoolean(),
+                    in.readBoolean()
+            );
+            try {
+                int record;
+                while ((record = in.read()) >= 0) {
+                    if (record == ENTRY) {
+                        readEntry(in, journal);
+                    } else if (record == LAYOUT) {
+                        int r = in.readInt();
+                        journal.fixLayout(r, in.readInt());
+                    } else if (record == UNDO && journal.position > 0) {
+                        journal.position--;
+                    } else if (record == REDO && journal.position < journal.size) {
+                        journal.position++;
+                    } else {
+                        throw new IOException("Bad journal record " + record + " in " + path);
+                    }
+                }
+            } catch (EOFException e) {
+                // Cut off in the middle of an entry; keep what came before.
+            }
+            journal.floor = journal.size;
+            return journal;
+        }
+    }
+
+    private static void readEntry(DataInputStream in, MoveJournal journal) throws IOException {
+        int moves = in.readInt();
+        if (moves < 0) {
+            throw new IOException("Bad journal entry");
+        }
+        MoveBatch batch = new MoveBatch();
+        for (int j = 0; j < moves; j++) {
+            int action = in.readByte();
+            if (action < 0 || action >= ACTIONS.length) {
+                throw new IOException("Bad journal move " + action);
+            }
+            batch.add(ACTIONS[action], in.readInt(), in.readInt());
+        }
+        // Only complete entries are added.
+        journal.beginEntry(0);
+        for (int j = 0; j < batch.size(); j++) {
+            journal.addMove(batch.getAction(j), batch.getColumn(j), batch.getRow(j));
+        }
+        journal.endEntry(0, false, true);
+    }
+}
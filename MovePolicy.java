@@ -0,0 +1,83 @@
+package org.cis1200.minesweeper;
+
+import java.util.SplittableRandom;
+
+/**
+ * Decides moves for a headless game, used by BatchSimulator. A policy may flag
+ * cells itself through the game's placeFlag before answering; the simulator
+ * only performs the reveal it returns.
+ * One policy instance is used by one worker thread at a time, so policies may
+ * keep per-game state without synchronization.
+ */
+public interface MovePolicy {
+
+    // Called before the first move of every game.
+    default void newGame(MinesweeperModel game) {
+    }
+
+    // Returns the next cell to reveal as row * numColumns + column, or -1 to
+    // stop. A policy that has just won the game by flagging also returns -1.
+    int nextMove(MinesweeperModel game, SplittableRandom rng);
+
+    // Reveals cells the Solver proves safe and guesses a random undetermined
+    // cell when nothing can be proven.
+    static MovePolicy solver() {
+        return new MovePolicy() {
+            private Solver solver;
+
+            @Override
+            public void newGame(MinesweeperModel game) {
+                if (solver == null || solver.getGame() != game) {
+                    solver = new Solver(game);
+                }
+            }
+
+            @Override
+            public int nextMove(MinesweeperModel game, SplittableRandom rng) {
+                if (game.getUnrevealedCells() == game.getNumMines()) {
+                    // Only mines are left hidden; flagging them wins the game.
+                    flagHiddenCells(game);
+                    return -1;
+                }
+                int cell = solver.hint();
+                return cell >= 0 ? cell : solver.guess(rng);
+            }
+        };
+    }
+
+    // Flags every hidden cell that is not flagged yet.
+    static void flagHiddenCells(MinesweeperModel game) {
+        for (int r = 0; r < game.getNumRows(); r++) {
+            for (int c = 0; c < game.getNumColumns(); c++) {
+                if (!game.getCellRevealed(c, r) && !game.getCellFlagged(c, r)) {
+                    game.placeFlag(c, r);
+                }
+            }
+        }
+    }
+
+    // Reveals a uniformly random hidden, unflagged cell. Once every safe cell
+    // is revealed it flags the mines, which the win rule needs, as solver()
+    // does.
+    static MovePolicy random() {
+        return (game, rng) -> {
+            if (game.getRemainingSafeCells() == 0) {
+                flagHiddenCells(game);
+                return -1;
+            }
+            int columns = game.getNumColumns();
+            int cells = game.getNumRows() * columns;
+            if (game.getUnrevealedCells() - game.getFlaggedCells() == 0) {
+                return -1;
+            }
+            while (true) {
+                int cell = rng.nextInt(cells);
+                int c = cell % columns;
+                int r = cell / columns;
+                if (!game.getCellRevealed(c, r) && !game.getCellFlagged(c, r)) {
+                    return cell;
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,208 @@
+package org.cis1200.minesweeper;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates boards that can be cleared from a given first click without ever
+ * guessing. A candidate layout keeps the first click and its neighbors free
+ * of mines and is then played out by the Solver, which only reveals cells it
+ * can prove safe. When the solver gets stuck, one mine on the stuck frontier
+ * is moved to a random cell away from everything revealed and the candidate
+ * is played again from the first click; only after MAX_REPAIRS such moves is
+ * the candidate dropped for a fresh one.
+ * Several candidates can be searched at once; the first solvable board wins
+ * and the other workers stop. With one thread the board depends only on the
+ * seed and the first click. With more, it also depends on which worker
+ * finishes first. Workers run on the pools board generation uses.
+ */
+public final class NoGuessGenerator {
+
+    // Mine moves tried on one candidate before it is replaced.
+    public static final int MAX_REPAIRS = 64;
+    // Candidates tried in total before giving up.
+    public static final int MAX_CANDIDATES = 256;
+
+    private NoGuessGenerator() {
+    }
+
+    // Returns a board with numMines mines and every adjacent count set that
+    // can be solved without guessing starting from a click on (firstRow,
+    // firstColumn), or null if none was found within MAX_CANDIDATES
+    // candidates (very dense boards may have none).
+    public static PackedBoard generate(
+            int rows, int columns, int numMines, int firstRow, int firstColumn, long seed,
+            int parallelism
+    ) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        if (numMines < 0 || numMines >= rows * columns) {
+            throw new IllegalArgumentException(
+                    "Cannot place " + numMines + " mines on a " + rows + "x" + columns
+                            + " board and keep the first click safe"
+            );
+        }
+        SplittableRandom master = new SplittableRandom(seed);
+        AtomicReference<PackedBoard> result = new AtomicReference<>();
+        AtomicInteger candidates = new AtomicInteger();
+        Worker[] workers = new Worker[parallelism];
+        for (int w = 0; w < parallelism; w++) {
+            workers[w] = new Worker(
+                    rows, columns, numMines, firstRow, firstColumn, master.split(), result,
+                    candidates
+            );
+        }
+        if (parallelism == 1) {
+            workers[0].run();
+        } else {
+            ForkJoinPool pool = LazyBoardGenerator.pool(parallelism);
+            ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[parallelism];
+            for (int w = 0; w < parallelism; w++) {
+                tasks[w] = pool.submit(workers[w]);
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+        return result.get();
+    }
+
+    // Returns true if the layout (mines and counts, nothing revealed) can be
+    // cleared from (firstRow, firstColumn) by the Solver alone.
+    public static boolean isSolvable(PackedBoard layout, int firstRow, int firstColumn) {
+        Minesweeper game = new Minesweeper(
+                BoardConfig.custom(layout.getRows(), layout.getColumns(), 0), false
+        );
+        Solver solver = new Solver(game);
+        return play(game, solver, layout, firstRow, firstColumn);
+    }
+
+    // Loads a copy of layout into game and reveals cells the solver proves
+    // safe until it is cleared or stuck. Returns true if it was cleared.
+    private static boolean play(
+            MinesweeperModel game, Solver solver, PackedBoard layout, int firstRow,
+            int firstColumn
+    ) {
+        int mines = layout.getMineCells();
+        game.load(new BoardFile(mines, mines, false, 0, layout.copy()));
+        int columns = layout.getColumns();
+        game.playTurn(firstColumn, firstRow);
+        while (!game.getGameOver() && game.getRemainingSafeCells() > 0) {
+            int[] safe = solver.safeCells();
+            if (safe.length == 0) {
+                return false;
+            }
+            for (int cell : safe) {
+                game.playTurn(cell % columns, cell / columns);
+            }
+        }
+        return !game.getGameOver();
+    }
+
+    /**
+     * Searches candidates until one is solvable, another worker succeeds or
+     * the shared candidate budget runs out.
+     */
+    private static final class Worker implements Runnable {
+        private final int rows;
+        private final int columns;
+        private final int numMines;
+        private final int firstRow;
+        private final int firstColumn;
+        private final SplittableRandom rng;
+        private final AtomicReference<PackedBoard> result;
+        private final AtomicInteger candidates;
+
+        // Replayed game and its solver, reused for every candidate.
+        private final Minesweeper game;
+        private final Solver solver;
+        private final int[] from;
+        private final int[] to;
+
+        Worker(
+                int rows, int columns, int numMines, int firstRow, int firstColumn,
+                SplittableRandom rng, AtomicReference<PackedBoard> result,
+                AtomicInteger candidates
+        ) {
+            this.rows = rows;
+            this.columns = columns;
+            this.numMines = numMines;
+            this.firstRow = firstRow;
+            this.firstColumn = firstColumn;
+            this.rng = rng;
+            this.result = result;
+            this.candidates = candidates;
+            game = new Minesweeper(BoardConfig.custom(rows, columns, 0), false);
+            solver = new Solver(game);
+            from = new int[rows * columns];
+            to = new int[rows * columns];
+        }
+
+        @Override
+        public void run() {
+            while (result.get() == null && candidates.getAndIncrement() < MAX_CANDIDATES) {
+                PackedBoard layout = new PackedBoard(rows, columns);
+                MineGenerator.placeMines(layout, numMines, rng, firstRow, firstColumn);
+                MineGenerator.countAdjacentMines(layout);
+                for (int repair = 0; repair <= MAX_REPAIRS && result.get() == null; repair++) {
+                    if (play(game, solver, layout, firstRow, firstColumn)) {
+                        result.compareAndSet(null, layout);
+                        return;
+                    }
+                    if (!moveStuckMine(layout)) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        // Moves a random mine from the stuck frontier of the replayed game to
+        // a random safe cell that touches nothing revealed. Returns false if
+        // either set is empty.
+        private boolean moveStuckMine(PackedBoard layout) {
+            int fromCount = 0;
+            int toCount = 0;
+            for (int i = 0; i < layout.size(); i++) {
+                int r = i / columns;
+                int c = i % columns;
+                if (game.getCellRevealed(c, r) || solver.isKnownMine(c, r)) {
+                    continue;
+                }
+                boolean nextToRevealed = touchesRevealed(r, c);
+                if (layout.isMine(i) && nextToRevealed) {
+                    from[fromCount++] = i;
+                } else if (!layout.isMine(i) && !nextToRevealed) {
+                    to[toCount++] = i;
+                }
+            }
+            if (fromCount == 0 || toCount == 0) {
+                return false;
+            }
+            int mine = from[rng.nextInt(fromCount)];
+            int target = to[rng.nextInt(toCount)];
+            layout.setMine(mine, false);
+            MineGenerator.addToNeighbors(layout, mine / columns, mine % columns, -1);
+            layout.setMine(target, true);
+            MineGenerator.addToNeighbors(layout, target / columns, target % columns, 1);
+            return true;
+        }
+
+        private boolean touchesRevealed(int r, int c) {
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    int nr = r + dr;
+                    int nc = c + dc;
+                    if (nr >= 0 && nc >= 0 && nr < rows && nc < columns
+                            && game.getCellRevealed(nc, nr)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package org.cis1200.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * Flat primitive storage for the cells of a Minesweeper board. Every cell is
+ * packed into a single byte of one row-major array, so a board costs one byte
+ * per cell instead of one Tile object per cell.
+ * Bit layout of a cell:
+ * bits 0-3 adjacent mine count (0-8), bit 4 mine, bit 5 revealed,
+ * bit 6 flagged, bit 7 lost.
+ * The board also keeps running totals (hidden cells, flags, correct flags,
+ * mines) that every mutator updates, so win detection never has to scan the
+ * cells. Code that writes the backing array directly must call recount().
+ */
+public final class PackedBoard {
+
+    public static final int COUNT_MASK = 0x0F;
+    public static final int MINE = 0x10;
+    public static final int REVEALED = 0x20;
+    public static final int FLAGGED = 0x40;
+    public static final int LOST = 0x80;
+
+    private final int rows;
+    private final int columns;
+    private final byte[] cells;
+
+    // Running totals, kept in step with cells by every mutator.
+    private int hiddenCells;
+    private int hiddenSafeCells;
+    private int hiddenUnflaggedCells;
+    private int flaggedCells;
+    private int correctFlags;
+    private int mineCells;
+
+    public PackedBoard(int rows, int columns) {
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("Board must have at least one row and column");
+        }
+        if ((long) rows * columns > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Board too large: " + rows + "x" + columns);
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.cells = new byte[rows * columns];
+        recount();
+    }
+
+    private PackedBoard(PackedBoard source) {
+        this.rows = source.rows;
+        this.columns = source.columns;
+        this.cells = source.cells.clone();
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    // Converts a (row, column) pair into the flat index used by the other methods.
+    public int index(int r, int c) {
+        return r * columns + c;
+    }
+
+    public boolean inBounds(int r, int c) {
+        return r >= 0 && c >= 0 && r < rows && c < columns;
+    }
+
+    // Returns the raw packed byte of a cell as an unsigned int.
+    public int get(int i) {
+        return cells[i] & 0xFF;
+    }
+
+    public void set(int i, int cell) {
+        int old = cells[i] & 0xFF;
+        cells[i] = (byte) cell;
+        account(old, cell & 0xFF);
+    }
+
+    public boolean isMine(int i) {
+        return (cells[i] & MINE) != 0;
+    }
+
+    public boolean isRevealed(int i) {
+        return (cells[i] & REVEALED) != 0;
+    }
+
+    public boolean isFlagged(int i) {
+        return (cells[i] & FLAGGED) != 0;
+    }
+
+    public boolean isLost(int i) {
+        return (cells[i] & LOST) != 0;
+    }
+
+    public int getAdjacentMines(int i) {
+        return cells[i] & COUNT_MASK;
+    }
+
+    public void setMine(int i, boolean mine) {
+        set(i, mine ? get(i) | MINE : get(i) & ~MINE);
+    }
+
+    public void setRevealed(int i) {
+        set(i, get(i) | REVEALED);
+    }
+
+    public void setFlagged(int i, boolean flagged) {
+        set(i, flagged ? get(i) | FLAGGED : get(i) & ~FLAGGED);
+    }
+
+    public void setLost(int i) {
+        cells[i] |= LOST;
+    }
+
+    public void setAdjacentMines(int i, int mines) {
+        cells[i] = (byte) ((cells[i] & ~COUNT_MASK) | (mines & COUNT_MASK));
+    }
+
+    // Applies the change of one cell from old to now to the running totals.
+    private void account(int old, int now) {
+        if (old == now) {
+            return;
+        }
+        hiddenCells += hidden(now) - hidden(old);
+        hiddenSafeCells += hiddenSafe(now) - hiddenSafe(old);
+        hiddenUnflaggedCells += hiddenUnflagged(now) - hiddenUnflagged(old);
+        flaggedCells += bit(now, FLAGGED) - bit(old, FLAGGED);
+        correctFlags += correctFlag(now) - correctFlag(old);
+        mineCells += bit(now, MINE) - bit(old, MINE);
+    }
+
+    private static int bit(int cell, int mask) {
+        return (cell & mask) != 0 ? 1 : 0;
+    }
+
+    private static int hidden(int cell) {
+        return 1 - bit(cell, REVEALED);
+    }
+
+    private static int hiddenSafe(int cell) {
+        return (cell & (REVEALED | MINE)) == 0 ? 1 : 0;
+    }
+
+    private static int hiddenUnflagged(int cell) {
+        return (cell & (REVEALED | FLAGGED)) == 0 ? 1 : 0;
+    }
+
+    private static int correctFlag(int cell) {
+        return (cell & (FLAGGED | MINE)) == (FLAGGED | MINE) ? 1 : 0;
+    }
+
+    // Recomputes every running total from the cells. Needed after bulk writes
+    // to the backing array; also used by the self-check.
+    public void recount() {
+        // Histogram the raw bytes first; the totals only depend on how many
+        // cells hold each value, not on where they are.
+        int[] histogram = new int[256];
+        for (byte b : cells) {
+            histogram[b & 0xFF]++;
+        }
+        int hidden = 0;
+        int hiddenSafe = 0;
+        int hiddenUnflagged = 0;
+        int flagged = 0;
+        int correct = 0;
+        int mines = 0;
+        for (int cell = 0; cell < 256; cell++) {
+            int n = histogram[cell];
+            hidden += n * hidden(cell);
+            hiddenSafe += n * hiddenSafe(cell);
+            hiddenUnflagged += n * hiddenUnflagged(cell);
+            flagged += n * bit(cell, FLAGGED);
+            correct += n * correctFlag(cell);
+            mines += n * bit(cell, MINE);
+        }
+        hiddenCells = hidden;
+        hiddenSafeCells = hiddenSafe;
+        hiddenUnflaggedCells = hiddenUnflagged;
+        flaggedCells = flagged;
+        correctFlags = correct;
+        mineCells = mines;
+    }
+
+    // Sets the running totals for a freshly generated board, one that holds only
+    // mines and counts with nothing revealed or flagged. Lets bulk generators
+    // skip a full recount.
+    void setGeneratedCounters(int mines) {
+        hiddenCells = cells.length;
+        hiddenSafeCells = cells.length - mines;
+        hiddenUnflaggedCells = cells.length;
+        flaggedCells = 0;
+        correctFlags = 0;
+        mineCells = mines;
+    }
+
+    // Adds flags that bulk generation has put mines under to the correct-flag
+    // total.
+    void addCorrectFlags(int flags) {
+        correctFlags += flags;
+    }
+
+    // Recounts the cells and throws IllegalStateException if any running total
+    // has drifted from what is actually on the board.
+    public void verifyCounters() {
+        int[] kept = {
+            hiddenCells, hiddenSafeCells, hiddenUnflaggedCells,
+            flaggedCells, correctFlags, mineCells
+        };
+        recount();
+        int[] actual = {
+            hiddenCells, hiddenSafeCells, hiddenUnflaggedCells,
+            flaggedCells, correctFlags, mineCells
+        };
+        if (!Arrays.equals(kept, actual)) {
+            throw new IllegalStateException(
+                    "Board counters out of sync: kept " + Arrays.toString(kept)
+                            + " but board has " + Arrays.toString(actual)
+            );
+        }
+    }
+
+    // Cells that are not revealed, including mines.
+    public int getHiddenCells() {
+        return hiddenCells;
+    }
+
+    // Safe cells that still have to be revealed to win.
+    public int getHiddenSafeCells() {
+        return hiddenSafeCells;
+    }
+
+    // Cells that are neither revealed nor flagged.
+    public int getHiddenUnflaggedCells() {
+        return hiddenUnflaggedCells;
+    }
+
+    public int getFlaggedCells() {
+        return flaggedCells;
+    }
+
+    // Flags that sit on a mine.
+    public int getCorrectFlags() {
+        return correctFlags;
+    }
+
+    public int getMineCells() {
+        return mineCells;
+    }
+
+    // Returns an independent copy of this board, counters included.
+    public PackedBoard copy() {
+        PackedBoard copy = new PackedBoard(this);
+        copy.hiddenCells = hiddenCells;
+        copy.hiddenSafeCells = hiddenSafeCells;
+        copy.hiddenUnflaggedCells = hiddenUnflaggedCells;
+        copy.flaggedCells = flaggedCells;
+        copy.correctFlags = correctFlags;
+        copy.mineCells = mineCells;
+        return copy;
+    }
+
+    // Builds a Tile view of a cell. The Tile is a copy, so changing it does not
+    // change the board.
+    public Tile toTile(int i) {
+        return new Tile(
+                isMine(i) ? 1 : 0, isRevealed(i), isFlagged(i), isLost(i), getAdjacentMines(i)
+        );
+    }
+
+    // Direct access to the backing array for bulk passes such as mine counting
+    // and saving. Callers must keep the bit layout described above.
+    byte[] cells() {
+        return cells;
+    }
+}
@@ -0,0 +1,305 @@
+package org.cis1200.minesweeper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-cell mine probabilities for the hidden cells of a game, for when the
+ * Solver's rules cannot prove any cell safe.
+ * The frontier is split into independent components (see FrontierComponent),
+ * and each one is enumerated with the solutions tallied by how many mines
+ * they use. Components are combined by convolving those tallies, and every
+ * way of splitting the remaining mines between the frontier and the interior
+ * (undetermined cells away from any number) is weighted by the number of ways
+ * to place the rest of the mines in the interior, C(interior, rest). All
+ * interior cells share one probability.
+ * Enumeration results are memoized by component, so after a move only the
+ * components it touched are enumerated again, and the work per move depends
+ * on the size of the frontier rather than the board.
+ */
+public class ProbabilityEngine {
+
+    // Components larger than this are not enumerated; their cells are treated
+    // like interior cells.
+    public static final int DEFAULT_COMPONENT_LIMIT = 40;
+    private static final long NODE_BUDGET = 1 << 18;
+
+    private final Solver solver;
+    private final int componentLimit;
+
+    // Enumerated components from the last update, keyed by their cells and
+    // numbers; entries not used by the latest update are dropped.
+    private Map<ComponentKey, FrontierComponent> memo = new HashMap<>();
+
+    private int seenGame = -1;
+    private int seenUnrevealed = -1;
+    private int seenUndetermined = -1;
+    private final Map<Integer, Double> frontierProbability = new HashMap<>();
+    private double interiorProbability;
+
+    public ProbabilityEngine(MinesweeperModel game) {
+        this(new Solver(game), DEFAULT_COMPONENT_LIMIT);
+    }
+
+    public ProbabilityEngine(Solver solver, int componentLimit) {
+        this.solver = solver;
+        this.componentLimit = componentLimit;
+    }
+
+    public Solver getSolver() {
+        return solver;
+    }
+
+    // Probability that the cell at (c, r) is a mine: 0 or 1 for cells the
+    // solver has proven, NaN for revealed cells.
+    public double probability(int c, int r) {
+        update();
+        MinesweeperModel game = solver.getGame();
+        if (game.getCellRevealed(c, r)) {
+            return Double.NaN;
+        }
+        if (solver.isKnownMine(c, r)) {
+            return 1;
+        }
+        if (solver.isKnownSafe(c, r)) {
+            return 0;
+        }
+        Double p = frontierProbability.get(r * game.getNumColumns() + c);
+        return p != null ? p : interiorProbability;
+    }
+
+    // Probability shared by every undetermined cell that is not next to a
+    // revealed number.
+    public double getInteriorProbability() {
+        update();
+        return interiorProbability;
+    }
+
+    // The undetermined cell least likely to be a mine, as row * columns +
+    // column, or -1 if there is none. Proven-safe cells should be taken from
+    // the solver first.
+    public int safestCell() {
+        update();
+        int best = -1;
+        double bestProbability = 2;
+        for (Map.Entry<Integer, Double> entry : frontierProbability.entrySet()) {
+            if (entry.getValue() < bestProbability) {
+                best = entry.getKey();
+                bestProbability = entry.getValue();
+            }
+        }
+        if (interiorProbability < bestProbability && interiorCells() > 0) {
+            // Any interior cell will do; find one lazily.
+            MinesweeperModel game = solver.getGame();
+            int columns = game.getNumColumns();
+            for (int i = 0; i < game.getNumRows() * columns; i++) {
+                int c = i % columns;
+                int r = i / columns;
+                if (!game.getCellRevealed(c, r) && !solver.isKnownMine(c, r)
+                        && !solver.isKnownSafe(c, r) && !frontierProbability.containsKey(i)) {
+                    return i;
+                }
+            }
+        }
+        return best;
+    }
+
+    private int interiorCells() {
+        return solver.undeterminedCount() - frontierProbability.size();
+    }
+
+    // Recomputes the probabilities if the game has changed since last time.
+    public void update() {
+        solver.update();
+        MinesweeperModel game = solver.getGame();
+        if (game.getGameNumber() == seenGame && game.getUnrevealedCells() == seenUnrevealed
+                && solver.undeterminedCount() == seenUndetermined) {
+            return;
+        }
+        seenGame = game.getGameNumber();
+        seenUnrevealed = game.getUnrevealedCells();
+        seenUndetermined = solver.undeterminedCount();
+        frontierProbability.clear();
+
+        List<FrontierComponent> components = new ArrayList<>();
+        Map<ComponentKey, FrontierComponent> nextMemo = new HashMap<>();
+        for (FrontierComponent fresh : solver.components()) {
+            ComponentKey key = new ComponentKey(fresh, solver);
+            FrontierComponent component = memo.get(key);
+            if (component == null) {
+                component = fresh;
+                if (component.size() > componentLimit || !component.enumerate(NODE_BUDGET)) {
+                    // Counted as interior below, ignoring its numbers.
+                    continue;
+                }
+            }
+            nextMemo.put(key, component);
+            components.add(component);
+        }
+        memo = nextMemo;
+
+        int minesLeft = game.getNumMines() - solver.deducedMineCount();
+        int frontierCells = 0;
+        for (FrontierComponent component : components) {
+            frontierCells += component.size();
+        }
+        int interior = solver.undeterminedCount() - frontierCells;
+        combine(components, minesLeft, interior);
+    }
+
+    // Combines the per-component tallies with the interior binomial weights.
+    private void combine(List<FrontierComponent> components, int minesLeft, int interior) {
+        int count = components.size();
+        // prefix[i] is the distribution of frontier mines over components
+        // before i, suffix[i] over components from i on. Leaving one component
+        // out is then prefix[i] convolved with suffix[i + 1].
+        double[][] prefix = new double[count + 1][];
+        double[][] suffix = new double[count + 1][];
+        prefix[0] = new double[] {1};
+        suffix[count] = new double[] {1};
+        for (int i = 0; i < count; i++) {
+            prefix[i + 1] = convolve(prefix[i], distribution(components.get(i)));
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            suffix[i] = convolve(distribution(components.get(i)), suffix[i + 1]);
+        }
+        double[] total = prefix[count];
+
+        // Weight of the interior holding minesLeft - f mines, relative to a
+        // common scale so the doubles stay finite.
+        double[] interiorWeight = new double[total.length];
+        double maxLog = Double.NEGATIVE_INFINITY;
+        double[] logs = new double[total.length];
+        for (int f = 0; f < total.length; f++) {
+            logs[f] = logChoose(interior, minesLeft - f);
+            maxLog = Math.max(maxLog, logs[f]);
+        }
+        for (int f = 0; f < total.length; f++) {
+            interiorWeight[f] = Double.isInfinite(logs[f]) ? 0 : Math.exp(logs[f] - maxLog);
+        }
+
+        double norm = 0;
+        double interiorMines = 0;
+        for (int f = 0; f < total.length; f++) {
+            double w = total[f] * interiorWeight[f];
+            norm += w;
+            interiorMines += w * (minesLeft - f);
+        }
+        if (norm == 0 || Double.isNaN(norm)) {
+            // No consistent layout (e.g. the mine count was edited); fall back
+            // to the plain density.
+            int undetermined = solver.undeterminedCount();
+            interiorProbability = undetermined == 0 ? 0 : (double) minesLeft / undetermined;
+            return;
+        }
+        interiorProbability = interior == 0 ? 0 : Math.min(1, interiorMines / norm / interior);
+
+        for (int i = 0; i < count; i++) {
+            FrontierComponent component = components.get(i);
+            double[] others = convolve(prefix[i], suffix[i + 1]);
+            // rest[m] is the weight of everything else when this component
+            // holds m mines.
+            double[] rest = new double[component.size() + 1];
+            for (int m = 0; m <= component.size(); m++) {
+                double sum = 0;
+                for (int o = 0; o < others.length && m + o < interiorWeight.length; o++) {
+                    sum += others[o] * interiorWeight[m + o];
+                }
+                rest[m] = sum;
+            }
+            for (int k = 0; k < component.size(); k++) {
+                double mineWeight = 0;
+                for (int m = 0; m <= component.size(); m++) {
+                    mineWeight += component.mineCountWithMines(k, m) * rest[m];
+                }
+                frontierProbability.put(component.cell(k), mineWeight / norm);
+            }
+        }
+    }
+
+    private static double[] distribution(FrontierComponent component) {
+        double[] d = new double[component.size() + 1];
+        for (int m = 0; m <= component.size(); m++) {
+            d[m] = component.solutionsWithMines(m);
+        }
+        return d;
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < b.length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        return result;
+    }
+
+    // log(n choose k), or negative infinity when k is out of range.
+    static double logChoose(int n, int k) {
+        if (k < 0 || k > n) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return logFactorial(n) - logFactorial(k) - logFactorial(n - k);
+    }
+
+    private static final double[] LOG_FACTORIALS = new double[1024];
+
+    static {
+        for (int i = 1; i < LOG_FACTORIALS.length; i++) {
+            LOG_FACTORIALS[i] = LOG_FACTORIALS[i - 1] + Math.log(i);
+        }
+    }
+
+    // Exact for small n, Stirling's series beyond the table.
+    private static double logFactorial(int n) {
+        if (n < LOG_FACTORIALS.length) {
+            return LOG_FACTORIALS[n];
+        }
+        double x = n;
+        return x * Math.log(x) - x + 0.5 * Math.log(2 * Math.PI * x)
+                + 1 / (12 * x) - 1 / (360 * x * x * x);
+    }
+
+    /**
+     * Identifies a component by its cells and the mines each of its numbers
+     * still needs, independent of the order it was collected in.
+     */
+    private static final class ComponentKey {
+        private final int[] key;
+        private final int hash;
+
+        ComponentKey(FrontierComponent component, Solver solver) {
+            int[] cells = new int[component.size()];
+            for (int k = 0; k < cells.length; k++) {
+                cells[k] = component.cell(k);
+            }
+            Arrays.sort(cells);
+            int[] sortedNumbers = component.constraintCells();
+            Arrays.sort(sortedNumbers);
+            key = new int[cells.length + 2 * sortedNumbers.length];
+            System.arraycopy(cells, 0, key, 0, cells.length);
+            for (int k = 0; k < sortedNumbers.length; k++) {
+                key[cells.length + 2 * k] = sortedNumbers[k];
+                key[cells.length + 2 * k + 1] = solver.minesNeeded(sortedNumbers[k]);
+            }
+            hash = Arrays.hashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ComponentKey && Arrays.equals(key, ((ComponentKey) o).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -10,6 +10,9 @@ public class RunMinesweeper implements Runnable {
     public void run() {
         // NOTE: the 'final' keyword denotes immutability even for local variables.
 
+        // Lets JConsole and similar tools read and switch on the game metrics
+        GameMetrics.registerMBeans();
+
         // Top-level frame in which game components live
         final JFrame frame = new JFrame("Minesweeper");
         frame.setLocation(300, 300);
@@ -22,7 +25,8 @@ public class RunMinesweeper implements Runnable {
 
         // Game board
         final GameBoard board = new GameBoard(status);
-        frame.add(board, BorderLayout.CENTER);
+        final JScrollPane scroller = new JScrollPane(board);
+        frame.add(scroller, BorderLayout.CENTER);
 
         // Reset button
         final JPanel control_panel = new JPanel();
@@ -40,10 +44,60 @@ public class RunMinesweeper implements Runnable {
         save.addActionListener(e -> board.save());
         final JButton load = new JButton("Load");
         load.addActionListener(e -> board.load());
+        final JButton undo = new JButton("Undo");
+        undo.addActionListener(e -> board.undo());
+        final JButton redo = new JButton("Redo");
+        redo.addActionListener(e -> board.redo());
+        final JButton solve = new JButton("Solve");
+        solve.addActionListener(e -> board.solve());
+        final JCheckBox noGuess = new JCheckBox("No guessing");
+        noGuess.addActionListener(e -> board.setNoGuess(noGuess.isSelected()));
+        final JCheckBox odds = new JCheckBox("Probabilities");
+        odds.addActionListener(e -> board.setShowProbabilities(odds.isSelected()));
+        final JCheckBox stats = new JCheckBox("Stats");
+        stats.addActionListener(e -> board.setShowMetrics(stats.isSelected()));
+        // Swaps the scrolling board for the zoom and pan view of the same
+        // game, for boards too large to scroll around.
+        final JCheckBox zoom = new JCheckBox("Zoom view");
+        zoom.addActionListener(e -> {
+            Component shown = zoom.isSelected() ? board.getZoomView() : scroller;
+            frame.remove(zoom.isSelected() ? scroller : board.getZoomView());
+            frame.add(shown, BorderLayout.CENTER);
+            frame.validate();
+            frame.repaint();
+            shown.requestFocusInWindow();
+        });
+
+        // Difficulty selector. Picking a preset or a custom size starts a new
+        // game and resizes the window to fit the new board.
+        final JComboBox<BoardConfig.Difficulty> difficulty =
+                new JComboBox<>(BoardConfig.Difficulty.values());
+        difficulty.setSelectedItem(board.getConfig().getDifficulty());
+        difficulty.addActionListener(e -> {
+            BoardConfig.Difficulty chosen =
+                    (BoardConfig.Difficulty) difficulty.getSelectedItem();
+            BoardConfig config = chosen == BoardConfig.Difficulty.CUSTOM
+                    ? askCustomConfig(frame, board.getConfig())
+                    : BoardConfig.preset(chosen);
+            if (config == null) {
+                difficulty.setSelectedItem(board.getConfig().getDifficulty());
+                return;
+            }
+            board.setConfig(config);
+            frame.pack();
+        });
+        control_panel.add(difficulty);
         control_panel.add(instructions);
         control_panel.add(reset);
         control_panel.add(save);
         control_panel.add(load);
+        control_panel.add(undo);
+        control_panel.add(redo);
+        control_panel.add(solve);
+        control_panel.add(noGuess);
+        control_panel.add(odds);
+        control_panel.add(stats);
+        control_panel.add(zoom);
 
         // Put the frame on the screen
         frame.pack();
@@ -54,6 +108,31 @@ public class RunMinesweeper implements Runnable {
         board.reset();
     }
 
+    // Asks for "rows columns mines" and returns the matching custom board, or
+    // null if the dialog was cancelled or the input was not a valid board.
+    private BoardConfig askCustomConfig(JFrame frame, BoardConfig current) {
+        String input = JOptionPane.showInputDialog(
+                frame, "Rows Columns Mines",
+                current.getRows() + " " + current.getColumns() + " " + current.getMines()
+        );
+        if (input == null) {
+            return null;
+        }
+        try {
+            String[] parts = input.trim().split("\\s+");
+            return BoardConfig.custom(
+                    Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                    Integer.parseInt(parts[2])
+            );
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            JOptionPane.showMessageDialog(
+                    null, "Invalid board: " + input,
+                    "Error", JOptionPane.ERROR_MESSAGE
+            );
+            return null;
+        }
+    }
+
     private void showInstructions() {
         JFrame instructionFrame = new JFrame("Minesweeper Instructions");
         instructionFrame.setSize(300, 300);
@@ -0,0 +1,181 @@
+package org.cis1200.minesweeper;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Saves and loads games on a background thread so file I/O never runs on the
+ * Swing event thread. Saves go to a rotating set of slot files: each save
+ * writes a snapshot of the game to a temporary file in the save directory and
+ * then renames it over the oldest slot, so a crash mid-write never damages an
+ * existing save. Loads try the newest slot first and fall back to older ones
+ * (and finally to Minesweeper's single-file saves) if a slot is unreadable.
+ * Results are reported through a Listener; it is called on the background
+ * thread, so Swing callers should hand the result to the event thread.
+ */
+public class SaveService {
+
+    public static final int DEFAULT_SLOTS = 3;
+
+    /**
+     * Receives the outcome of background saves and loads.
+     */
+    public interface Listener {
+        // Called with the percentage of the board written so far.
+        void saveProgress(int percent);
+
+        void saved(Path slot, BoardFile snapshot);
+
+        void loaded(Path slot, BoardFile game);
+
+        void failed(String message, Exception cause);
+    }
+
+    private final Path directory;
+    private final int slots;
+    private final Listener listener;
+    private final ExecutorService executor;
+
+    public SaveService(Path directory, int slots, Listener listener) {
+        if (slots < 1) {
+            throw new IllegalArgumentException("Need at least one save slot");
+        }
+        this.directory = directory;
+        this.slots = slots;
+        this.listener = listener;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "minesweeper-save");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Path of the given save slot.
+    public Path slot(int index) {
+        return directory.resolve("slot" + index + ".bin");
+    }
+
+    // Queues a snapshot to be written to the next slot. Returns immediately;
+    // the snapshot must not be shared with a live game (see
+    // Minesweeper.snapshot). Whatever is left of a lazily generated board is
+    // generated here, on the background thread. Any failure, including a
+    // RuntimeException, is reported through the listener.
+    public void save(BoardFile snapshot) {
+        executor.execute(() -> {
+            Path target = slot(nextSlot());
+            Path temp = null;
+            try {
+                Files.createDirectories(directory);
+                temp = Files.createTempFile(directory, "save", ".tmp");
+                snapshot.write(temp, listener::saveProgress);
+                moveAtomically(temp, target);
+            } catch (IOException | RuntimeException e) {
+                deleteQuietly(temp);
+                listener.failed("Couldn't save to " + target, e);
+                return;
+            }
+            listener.saved(target, snapshot);
+        });
+    }
+
+    // Queues a load of the newest readable save. A save that fails to read,
+    // with an IOException or a RuntimeException, is skipped for the next one.
+    public void load() {
+        executor.execute(() -> {
+            Exception lastError = null;
+            for (Path candidate : savesNewestFirst()) {
+                BoardFile game;
+                try {
+                    game = BoardFile.isBoardFile(candidate)
+                            ? BoardFile.read(candidate) : BoardFile.readText(candidate);
+                } catch (IOException | RuntimeException e) {
+                    lastError = e;
+                    continue;
+                }
+                listener.loaded(candidate, game);
+                return;
+            }
+            listener.failed("File couldn't be found", lastError);
+        });
+    }
+
+    // Stops accepting work; queued saves still finish.
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // The slot to overwrite next: the first empty slot, otherwise the oldest.
+    private int nextSlot() {
+        int oldest = 0;
+        FileTime oldestTime = null;
+        for (int i = 0; i < slots; i++) {
+            Path path = slot(i);
+            if (!Files.exists(path)) {
+                return i;
+            }
+            FileTime time = modified(path);
+            if (oldestTime == null || time.compareTo(oldestTime) < 0) {
+                oldest = i;
+                oldestTime = time;
+            }
+        }
+        return oldest;
+    }
+
+    // Every existing slot from newest to oldest, followed by the single-file
+    // saves Minesweeper.save() writes.
+    private List<Path> savesNewestFirst() {
+        List<Path> saves = new ArrayList<>();
+        for (int i = 0; i < slots; i++) {
+            if (Files.exists(slot(i))) {
+                saves.add(slot(i));
+            }
+        }
+        saves.sort(Comparator.comparing(SaveService::modified).reversed());
+        for (Path legacy : new Path[] {Minesweeper.SAVE_FILE, Minesweeper.LEGACY_SAVE_FILE}) {
+            if (Files.exists(legacy)) {
+                saves.add(legacy);
+            }
+        }
+        return saves;
+    }
+
+    private static FileTime modified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    // Moves from over to in one step where the file system can, so readers
+    // see either the old file or the new one. Also used by ChunkStore.
+    static void moveAtomically(Path from, Path to) throws IOException {
+        try {
+            Files.move(
+                    from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING
+            );
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static void deleteQuietly(Path path) {
+        if (path != null) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // The temporary file is harmless if it cannot be removed.
+            }
+        }
+    }
+}
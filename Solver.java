@@ -0,0 +1,563 @@
+package org.cis1200.minesweeper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Constraint-propagation solver that follows a game on either
+ * MinesweeperModel backend and works out which hidden cells are certainly
+ * safe or certainly mines. It only uses what a player can see:
+ * getCellRevealed and getCellAdjacentMines. Flags are ignored, since a
+ * player's flags may be wrong.
+ * Every revealed number is a constraint on its hidden neighbors. After each
+ * move only the constraints next to newly revealed or newly deduced cells are
+ * re-examined, first with the single-cell rule (all remaining neighbors are
+ * safe, or all are mines) and then with the subset rule against nearby
+ * constraints. When that gets stuck, hint() and safeCells() fall back to
+ * exact enumeration of each connected component of the frontier.
+ * Cells are identified by their flat index, row * columns + column.
+ */
+public class Solver {
+
+    private static final byte UNKNOWN = 0;
+    private static final byte SAFE = 1;
+    private static final byte MINE = 2;
+    private static final byte OPEN = 3;
+
+    // Frontier components with more cells than this are not enumerated.
+    public static final int DEFAULT_ENUMERATION_LIMIT = 40;
+    // Search nodes one enumeration may visit before it gives up.
+    private static final int NODE_BUDGET = 1 << 16;
+
+    private final MinesweeperModel game;
+    private int enumerationLimit = DEFAULT_ENUMERATION_LIMIT;
+
+    private int rows;
+    private int columns;
+    private byte[] state;
+    private int seenGame;
+    private int seenRevealed;
+    // Board state at which enumeration last found nothing, so an unchanged
+    // position is not enumerated twice.
+    private int stuckGame = -1;
+    private int stuckRevealed = -1;
+
+    // Constraints (revealed cells) waiting to be re-examined.
+    private int[] work;
+    private boolean[] queued;
+    private int workSize;
+
+    // Undetermined cells next to a revealed cell, as an indexed set:
+    // frontierPosition[i] is i's slot in frontier, or -1.
+    private int[] frontier;
+    private int[] frontierPosition;
+    private int frontierSize;
+    private int undetermined;
+    private int deducedMines;
+
+    // Visit stamps for component collection, so no per-call clearing is needed.
+    private int[] visitStamp;
+    private int stamp;
+
+    // Cells deduced safe, in the order they were found. Some may since have
+    // been revealed; hint() skips those.
+    private int[] safe;
+    private int safeSize;
+
+    // Scratch buffers for neighbor lists, reused to avoid allocation per move.
+    private final int[] neighbors = new int[8];
+    private final int[] unknownA = new int[8];
+    private final int[] unknownB = new int[8];
+    private final int[] difference = new int[8];
+
+    public Solver(MinesweeperModel game) {
+        this.game = game;
+        rescan();
+    }
+
+    public MinesweeperModel getGame() {
+        return game;
+    }
+
+    // Components larger than limit are skipped by exact enumeration.
+    public void setEnumerationLimit(int limit) {
+        enumerationLimit = limit;
+    }
+
+    // Returns a cell that is certainly safe to reveal, or -1 if none can be
+    // proven. Tries propagation first and exact enumeration only if needed.
+    public int hint() {
+        update();
+        int cell = nextSafe();
+        if (cell < 0 && enumerate()) {
+            cell = nextSafe();
+        }
+        return cell;
+    }
+
+    // Returns every hidden cell currently proven safe.
+    public int[] safeCells() {
+        update();
+        compactSafe();
+        if (safeSize == 0) {
+            enumerate();
+            compactSafe();
+        }
+        return Arrays.copyOf(safe, safeSize);
+    }
+
+    // True if the cell at (c, r) has been proven to be a mine.
+    public boolean isKnownMine(int c, int r) {
+        update();
+        return state[r * columns + c] == MINE;
+    }
+
+    // True if the cell at (c, r) is hidden and has been proven safe.
+    public boolean isKnownSafe(int c, int r) {
+        update();
+        return state[r * columns + c] == SAFE;
+    }
+
+    // Picks a uniformly random hidden cell that has not been proven safe or a
+    // mine. Returns -1 if there is none.
+    public int guess(SplittableRandom rng) {
+        update();
+        int candidates = 0;
+        int choice = -1;
+        // Reservoir sampling over the undetermined cells.
+        for (int i = 0; i < state.length; i++) {
+            if (state[i] == UNKNOWN && rng.nextInt(++candidates) == 0) {
+                choice = i;
+            }
+        }
+        return choice;
+    }
+
+    // Brings the solver up to date with the game. After a single reveal this
+    // only touches the revealed cells and the constraints around them.
+    public void update() {
+        if (game.getGameNumber() != seenGame || game.getNumRows() != rows
+                || game.getNumColumns() != columns) {
+            rescan();
+            return;
+        }
+        int revealedNow = state.length - game.getUnrevealedCells();
+        int fresh = revealedNow - seenRevealed;
+        if (fresh == 0) {
+            return;
+        }
+        if (fresh == game.getLastRevealedCount()) {
+            for (int k = 0; k < fresh; k++) {
+                open(game.getLastRevealedCell(k));
+            }
+        } else {
+            // Several moves happened since the last update; find them all.
+            for (int i = 0; i < state.length; i++) {
+                if (state[i] != OPEN && game.getCellRevealed(i % columns, i / columns)) {
+                    open(i);
+                }
+            }
+        }
+        seenRevealed = revealedNow;
+        propagate();
+    }
+
+    // Forgets everything and rebuilds the solver state from the board.
+    private void rescan() {
+        rows = game.getNumRows();
+        columns = game.getNumColumns();
+        int cells = rows * columns;
+        state = new byte[cells];
+        frontier = new int[Math.min(cells, 256)];
+        frontierPosition = new int[cells];
+        Arrays.fill(frontierPosition, -1);
+        frontierSize = 0;
+        undetermined = cells;
+        deducedMines = 0;
+        visitStamp = new int[cells];
+        stamp = 0;
+        work = new int[Math.min(cells, 1024)];
+        queued = new boolean[cells];
+        workSize = 0;
+        safe = new int[Math.min(cells, 64)];
+        safeSize = 0;
+        seenGame = game.getGameNumber();
+        seenRevealed = cells - game.getUnrevealedCells();
+        for (int i = 0; i < cells; i++) {
+            if (game.getCellRevealed(i % columns, i / columns)) {
+                open(i);
+            }
+        }
+        propagate();
+    }
+
+    private void open(int i) {
+        if (state[i] == UNKNOWN) {
+            undetermined--;
+        } else if (state[i] == MINE) {
+            deducedMines--;
+        }
+        state[i] = OPEN;
+        removeFromFrontier(i);
+        enqueue(i);
+        int n = neighborsOf(i, neighbors);
+        for (int k = 0; k < n; k++) {
+            int neighbor = neighbors[k];
+            if (state[neighbor] == OPEN) {
+                enqueue(neighbor);
+            } else if (state[neighbor] == UNKNOWN) {
+                addToFrontier(neighbor);
+            }
+        }
+    }
+
+    private void addToFrontier(int i) {
+        if (frontierPosition[i] >= 0) {
+            return;
+        }
+        if (frontierSize == frontier.length) {
+            frontier = Arrays.copyOf(frontier, Math.min(state.length, frontier.length * 2));
+        }
+        frontierPosition[i] = frontierSize;
+        frontier[frontierSize++] = i;
+    }
+
+    private void removeFromFrontier(int i) {
+        int position = frontierPosition[i];
+        if (position < 0) {
+            return;
+        }
+        int last = frontier[--frontierSize];
+        frontier[position] = last;
+        frontierPosition[last] = position;
+        frontierPosition[i] = -1;
+    }
+
+    private void enqueue(int i) {
+        if (queued[i]) {
+            return;
+        }
+        if (workSize == work.length) {
+            work = Arrays.copyOf(work, Math.min(state.length, work.length * 2));
+        }
+        queued[i] = true;
+        work[workSize++] = i;
+    }
+
+    // Applies the rules until no queued constraint yields anything new.
+    private void propagate() {
+        while (workSize > 0) {
+            int i = work[--workSize];
+            queued[i] = false;
+            if (!applySingle(i)) {
+                applySubset(i);
+            }
+        }
+    }
+
+    // Single-cell rule. Returns true if it decided anything.
+    private boolean applySingle(int i) {
+        int need = need(i);
+        int unknowns = unknownNeighbors(i, unknownA);
+        if (unknowns == 0) {
+            return false;
+        }
+        if (need == 0) {
+            for (int k = 0; k < unknowns; k++) {
+                deduce(unknownA[k], SAFE);
+            }
+            return true;
+        }
+        if (need == unknowns) {
+            for (int k = 0; k < unknowns; k++) {
+                deduce(unknownA[k], MINE);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Subset rule against every constraint within two cells of i, in both
+    // directions: if one constraint's unknowns are a subset of another's, the
+    // cells in the difference hold exactly the difference of their mines.
+    private void applySubset(int i) {
+        int sizeA = unknownNeighbors(i, unknownA);
+        if (sizeA == 0) {
+            return;
+        }
+        int needA = need(i);
+        int r = i / columns;
+        int c = i % columns;
+        for (int dr = -2; dr <= 2; dr++) {
+            for (int dc = -2; dc <= 2; dc++) {
+                int br = r + dr;
+                int bc = c + dc;
+                if ((dr == 0 && dc == 0) || br < 0 || bc < 0 || br >= rows || bc >= columns) {
+                    continue;
+                }
+                int b = br * columns + bc;
+                if (state[b] != OPEN) {
+                    continue;
+                }
+                int sizeB = unknownNeighbors(b, unknownB);
+                int needB = need(b);
+                if (sizeB > sizeA && subsetRule(unknownA, sizeA, needA, unknownB, sizeB, needB)) {
+                    return;
+                }
+                if (sizeA > sizeB && sizeB > 0
+                        && subsetRule(unknownB, sizeB, needB, unknownA, sizeA, needA)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // If small is a subset of large, decides the cells of large \ small when
+    // their mine count forces them. Returns true if anything was decided.
+    private boolean subsetRule(int[] small, int smallSize, int smallNeed,
+                               int[] large, int largeSize, int largeNeed) {
+        int diffSize = 0;
+        int matched = 0;
+        for (int k = 0; k < largeSize; k++) {
+            boolean inSmall = false;
+            for (int m = 0; m < smallSize; m++) {
+                if (small[m] == large[k]) {
+                    inSmall = true;
+                    break;
+                }
+            }
+            if (inSmall) {
+                matched++;
+            } else {
+                difference[diffSize++] = large[k];
+            }
+        }
+        if (matched != smallSize) {
+            return false;
+        }
+        int diffNeed = largeNeed - smallNeed;
+        byte verdict;
+        if (diffNeed == 0) {
+            verdict = SAFE;
+        } else if (diffNeed == diffSize) {
+            verdict = MINE;
+        } else {
+            return false;
+        }
+        for (int k = 0; k < diffSize; k++) {
+            deduce(difference[k], verdict);
+        }
+        return true;
+    }
+
+    // Records a deduction and queues the constraints it affects.
+    private void deduce(int cell, byte verdict) {
+        if (state[cell] != UNKNOWN) {
+            return;
+        }
+        state[cell] = verdict;
+        undetermined--;
+        if (verdict == MINE) {
+            deducedMines++;
+        }
+        removeFromFrontier(cell);
+        if (verdict == SAFE) {
+            if (safeSize == safe.length) {
+                compactSafe();
+                if (safeSize == safe.length) {
+                    safe = Arrays.copyOf(safe, Math.min(state.length, safe.length * 2));
+                }
+            }
+            safe[safeSize++] = cell;
+        }
+        int n = neighborsOf(cell, neighbors);
+        for (int k = 0; k < n; k++) {
+            if (state[neighbors[k]] == OPEN) {
+                enqueue(neighbors[k]);
+            }
+        }
+    }
+
+    // Mines still to be found around the revealed cell i.
+    private int need(int i) {
+        int need = game.getCellAdjacentMines(i % columns, i / columns);
+        int n = neighborsOf(i, neighbors);
+        for (int k = 0; k < n; k++) {
+            if (state[neighbors[k]] == MINE) {
+                need--;
+            }
+        }
+        return need;
+    }
+
+    // Writes the undetermined neighbors of i into out and returns how many.
+    private int unknownNeighbors(int i, int[] out) {
+        int n = neighborsOf(i, neighbors);
+        int size = 0;
+        for (int k = 0; k < n; k++) {
+            if (state[neighbors[k]] == UNKNOWN) {
+                out[size++] = neighbors[k];
+            }
+        }
+        return size;
+    }
+
+    private int neighborsOf(int i, int[] out) {
+        int r = i / columns;
+        int c = i % columns;
+        if (r > 0 && c > 0 && r < rows - 1 && c < columns - 1) {
+            // Interior cell: all 8 neighbors exist.
+            out[0] = i - columns - 1;
+            out[1] = i - columns;
+            out[2] = i - columns + 1;
+            out[3] = i - 1;
+            out[4] = i + 1;
+            out[5] = i + columns - 1;
+            out[6] = i + columns;
+            out[7] = i + columns + 1;
+            return 8;
+        }
+        int size = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int nr = r + dr;
+                int nc = c + dc;
+                if ((dr != 0 || dc != 0) && nr >= 0 && nc >= 0 && nr < rows && nc < columns) {
+                    out[size++] = nr * columns + nc;
+                }
+            }
+        }
+        return size;
+    }
+
+    private int nextSafe() {
+        while (safeSize > 0) {
+            int cell = safe[safeSize - 1];
+            if (!game.getCellRevealed(cell % columns, cell / columns)) {
+                return cell;
+            }
+            safeSize--;
+        }
+        return -1;
+    }
+
+    // Drops cells that have been revealed since they were deduced safe.
+    private void compactSafe() {
+        int kept = 0;
+        for (int k = 0; k < safeSize; k++) {
+            int cell = safe[k];
+            if (!game.getCellRevealed(cell % columns, cell / columns)) {
+                safe[kept++] = cell;
+            }
+        }
+        safeSize = kept;
+    }
+
+    // Exact fallback: enumerates every consistent assignment of each frontier
+    // component (undetermined cells next to a number, connected through shared
+    // numbers) and marks cells that are safe, or mines, in all of them.
+    // Returns true if anything new was deduced.
+    private boolean enumerate() {
+        if (stuckGame == seenGame && stuckRevealed == seenRevealed) {
+            return false;
+        }
+        boolean progress = false;
+        for (FrontierComponent component : components()) {
+            if (component.size() > enumerationLimit) {
+                continue;
+            }
+            long[] mineCounts = new long[component.size()];
+            long solutions = component.enumerate(mineCounts, NODE_BUDGET);
+            if (solutions <= 0) {
+                continue;
+            }
+            for (int k = 0; k < component.size(); k++) {
+                if (mineCounts[k] == 0) {
+                    deduce(component.cell(k), SAFE);
+                    progress = true;
+                } else if (mineCounts[k] == solutions) {
+                    deduce(component.cell(k), MINE);
+                    progress = true;
+                }
+            }
+        }
+        if (progress) {
+            propagate();
+        } else {
+            stuckGame = seenGame;
+            stuckRevealed = seenRevealed;
+        }
+        return progress;
+    }
+
+    // Splits the current frontier into its connected components.
+    List<FrontierComponent> components() {
+        update();
+        List<FrontierComponent> components = new ArrayList<>();
+        stamp++;
+        if (stamp == 0) {
+            Arrays.fill(visitStamp, 0);
+            stamp = 1;
+        }
+        // Collecting does not change the frontier, so it is safe to walk it
+        // while components are built.
+        for (int k = 0; k < frontierSize; k++) {
+            int cell = frontier[k];
+            if (visitStamp[cell] != stamp) {
+                components.add(FrontierComponent.collect(this, cell));
+            }
+        }
+        return components;
+    }
+
+    // Marks i as visited by the current components() call. Returns false if it
+    // already was.
+    boolean markVisited(int i) {
+        if (visitStamp[i] == stamp) {
+            return false;
+        }
+        visitStamp[i] = stamp;
+        return true;
+    }
+
+    // Undetermined cells in total, frontier and interior together.
+    int undeterminedCount() {
+        return undetermined;
+    }
+
+    int frontierCount() {
+        return frontierSize;
+    }
+
+    int deducedMineCount() {
+        return deducedMines;
+    }
+
+    // The rest of the methods give FrontierComponent read access to the
+    // solver's view of the board.
+    int getRows() {
+        return rows;
+    }
+
+    int getColumns() {
+        return columns;
+    }
+
+    boolean isUndetermined(int i) {
+        return state[i] == UNKNOWN;
+    }
+
+    boolean isOpen(int i) {
+        return state[i] == OPEN;
+    }
+
+    boolean isDeducedMine(int i) {
+        return state[i] == MINE;
+    }
+
+    int minesNeeded(int i) {
+        return need(i);
+    }
+}
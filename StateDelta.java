@@ -0,0 +1,292 @@
+package org.cis1200.minesweeper;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * What observers of a game see change in one action, as published by
+ * StateStream: the new visible state of every cell the action changed, and
+ * how the game stands afterwards. A snapshot instead holds every cell of the
+ * board, and replaces whatever the observer had.
+ * Cells are given as visible codes, so observers never learn where hidden
+ * mines are: 0 to 8 for a revealed cell and its adjacent mines, HIDDEN,
+ * FLAGGED, or LOST for the mine that ended the game. Changed cells are
+ * stored in index order (row * columns + column) as runs of cells with the
+ * same code, each a varint gap from the end of the previous run and a varint
+ * holding the run length and code. A flood fill changes rows of neighboring
+ * cells at once, mostly to 0, so it encodes in a few bytes per row, and a new
+ * board is one run.
+ * Deltas are immutable and shared by every subscriber, and can be written to
+ * a stream for observers elsewhere.
+ */
+public final class StateDelta {
+
+    public static final int HIDDEN = 9;
+    public static final int FLAGGED = 10;
+    public static final int LOST = 11;
+
+    private static final int CODE_BITS = 4;
+
+    private final long sequence;
+    private final boolean snapshot;
+    private final int rows;
+    private final int columns;
+    private final int numFlags;
+    private final boolean gameOver;
+    private final boolean won;
+    private final int cellCount;
+    private final int runCount;
+    private final byte[] runs;
+
+    StateDelta(
+            long sequence, boolean snapshot, int rows, int columns, int numFlags,
+            boolean gameOver, boolean won, Encoder encoder
+    ) {
+        this(
+                sequence, snapshot, rows, columns, numFlags, gameOver, won, encoder.cells,
+                encoder.runs, Arrays.copyOf(encoder.bytes, encoder.size)
+        );
+    }
+
+    private StateDelta(
+            long sequence, boolean snapshot, int rows, int columns, int numFlags,
+            boolean gameOver, boolean won, int cellCount, int runCount, byte[] runs
+    ) {
+        this.sequence = sequence;
+        this.snapshot = snapshot;
+        this.rows = rows;
+        this.columns = columns;
+        this.numFlags = numFlags;
+        this.gameOver = gameOver;
+        this.won = won;
+        this.cellCount = cellCount;
+        this.runCount = runCount;
+        this.runs = runs;
+    }
+
+    /**
+     * Builds the runs of a delta from cells given in increasing index order.
+     * Reused between deltas.
+     */
+    static final class Encoder {
+        private byte[] bytes = new byte[64];
+        private int size;
+        private int cells;
+        private int runs;
+        // The open run, empty while runLength is 0, and where the last one ended.
+        private int runStart;
+        private int runLength;
+        private int runCode;
+        private int lastEnd;
+
+        void clear() {
+            size = 0;
+            cells = 0;
+            runs = 0;
+            runLength = 0;
+            lastEnd = 0;
+        }
+
+        // Adds cell with the given code; cell must be past every cell so far.
+        void add(int cell, int code) {
+            if (runLength > 0 && cell == runStart + runLength && code == runCode) {
+                runLength++;
+            } else {
+                flush();
+                runStart = cell;
+                runLength = 1;
+                runCode = code;
+            }
+            cells++;
+        }
+
+        // Adds count cells from cell on, all with the given code.
+        void addRun(int cell, int count, int code) {
+            if (count > 0) {
+                add(cell, code);
+                runLength += count - 1;
+                cells += count - 1;
+            }
+        }
+
+        // Closes the open run; call before building a delta.
+        void flush() {
+            if (runLength > 0) {
+                writeVarint(runStart - lastEnd);
+                writeVarint(((long) (runLength - 1) << CODE_BITS) | runCode);
+                lastEnd = runStart + runLength;
+                runLength = 0;
+                runs++;
+            }
+        }
+
+        private void writeVarint(long value) {
+            if (size + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while (value >= 0x80) {
+                bytes[size++] = (byte) (value | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+    }
+
+    // The visible code of a PackedBoard cell.
+    static int code(int cell) {
+        if ((cell & PackedBoard.LOST) != 0) {
+            return LOST;
+        }
+        if ((cell & PackedBoard.REVEALED) != 0) {
+            return cell & PackedBoard.COUNT_MASK;
+        }
+        return (cell & PackedBoard.FLAGGED) != 0 ? FLAGGED : HIDDEN;
+    }
+
+    // Applies this delta to view, an observer's copy of the board with one
+    // code per cell, and returns the view. A snapshot overwrites every cell,
+    // and returns a new view if view is null or of the wrong size. A delta
+    // needs the view of the same board; throws IllegalArgumentException
+    // otherwise.
+    public byte[] applyTo(byte[] view) {
+        int cells = rows * columns;
+        if (view == null || view.length != cells) {
+            if (!snapshot) {
+                throw new IllegalArgumentException(
+                        "Delta for a " + rows + "x" + columns + " board needs a snapshot first"
+                );
+            }
+            view = new byte[cells];
+        }
+        decode(view);
+        return view;
+    }
+
+    // Decodes the runs into view, or only checks them if view is null.
+    // Returns false if they are malformed.
+    private boolean decode(byte[] view) {
+        long cells = (long) rows * columns;
+        int at = 0;
+        long pos = 0;
+        long[] value = new long[2];
+        for (int k = 0; k < runCount; k++) {
+            for (int v = 0; v < 2; v++) {
+                value[v] = 0;
+                for (int shift = 0; ; shift += 7) {
+                    if (at == runs.length || shift > 56) {
+                        return false;
+                    }
+                    byte b = runs[at++];
+                    value[v] |= (long) (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        break;
+                    }
+                }
+            }
+            long start = pos + value[0];
+            long end = start + (value[1] >>> CODE_BITS) + 1;
+            int code = (int) (value[1] & ((1 << CODE_BITS) - 1));
+            if (value[0] < 0 || end > cells || code > LOST) {
+                return false;
+            }
+            if (view != null) {
+                Arrays.fill(view, (int) start, (int) end, (byte) code);
+            }
+            pos = end;
+        }
+        return at == runs.length;
+    }
+
+    // Deltas of a game are numbered from 1 in the order they were published.
+    // A snapshot has the number of the last delta it includes.
+    public long getSequence() {
+        return sequence;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    // Flags left to place, as Minesweeper.getNumFlags.
+    public int getNumFlags() {
+        return numFlags;
+    }
+
+    public boolean getGameOver() {
+        return gameOver;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+
+    // Number of cells this delta sets.
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    // Size of the encoded runs in bytes.
+    public int getEncodedSize() {
+        return runs.length;
+    }
+
+    // Writes the delta to out, for an observer in another process.
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(sequence);
+        out.writeByte((snapshot ? 1 : 0) | (gameOver ? 2 : 0) | (won ? 4 : 0));
+        out.writeInt(rows);
+        out.writeInt(columns);
+        out.writeInt(numFlags);
+        out.writeInt(cellCount);
+        out.writeInt(runCount);
+        out.writeInt(runs.length);
+        out.write(runs);
+    }
+
+    // Reads a delta written by write. Throws IOException if it is malformed.
+    public static StateDelta read(DataInput in) throws IOException {
+        long sequence = in.readLong();
+        int flags = in.readByte();
+        int rows = in.readInt();
+        int columns = in.readInt();
+        int numFlags = in.readInt();
+        int cellCount = in.readInt();
+        int runCount = in.readInt();
+        int length = in.readInt();
+        if (rows <= 0 || columns <= 0 || (long) rows * columns > Integer.MAX_VALUE - 8
+                || cellCount < 0 || cellCount > rows * columns || runCount < 0
+                || runCount > cellCount || length < 0 || length > 20L * runCount) {
+            throw new IOException("Malformed state delta");
+        }
+        byte[] runs = new byte[length];
+        in.readFully(runs);
+        StateDelta delta = new StateDelta(
+                sequence, (flags & 1) != 0, rows, columns, numFlags, (flags & 2) != 0,
+                (flags & 4) != 0, cellCount, runCount, runs
+        );
+        if (!delta.decode(null)) {
+            throw new IOException("Malformed state delta runs");
+        }
+        return delta;
+    }
+
+    @Override
+    public String toString() {
+        return (snapshot ? "Snapshot " : "Delta ") + sequence + ": " + cellCount + " cells in "
+                + runCount + " runs, " + runs.length + " bytes";
+    }
+}
@@ -0,0 +1,268 @@
+package org.cis1200.minesweeper;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The change stream of a Minesweeper game: after every action, one
+ * StateDelta with the cells it changed is published to every subscriber (see
+ * Minesweeper.subscribe). The model marks changed cells in a bitmap as it
+ * goes, so publishing costs time in the cells changed, not in the board
+ * size, and one delta object is shared by every subscriber.
+ * Each subscription has a bounded queue, and publishing never waits for a
+ * subscriber. One that falls behind far enough to fill its queue loses the
+ * queued deltas and gets a snapshot in their place, which it can apply
+ * instead of catching up. A new subscriber also starts with a snapshot, and
+ * a new game or loaded save sends one to everybody.
+ * Publishing runs on the thread that plays the game; subscriptions can be
+ * read and closed from any thread.
+ */
+public final class StateStream {
+
+    /**
+     * One observer's queue of deltas.
+     */
+    public static final class Subscription implements AutoCloseable {
+        private final StateStream stream;
+        private final BlockingQueue<StateDelta> queue;
+        private volatile int resyncs;
+
+        private Subscription(StateStream stream, int capacity) {
+            this.stream = stream;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        // The next delta, or null if there is none yet.
+        public StateDelta poll() {
+            return queue.poll();
+        }
+
+        // The next delta, waiting for one if needed.
+        public StateDelta take() throws InterruptedException {
+            return queue.take();
+        }
+
+        // The next delta, or null if none comes within the timeout.
+        public StateDelta poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return queue.poll(timeout, unit);
+        }
+
+        // Number of deltas waiting.
+        public int getPending() {
+            return queue.size();
+        }
+
+        // Number of times the queue filled up and was replaced by a snapshot.
+        public int getResyncCount() {
+            return resyncs;
+        }
+
+        // Stops receiving deltas.
+        @Override
+        public void close() {
+            stream.subscriptions.remove(this);
+        }
+
+        // Queues delta, or replaces everything queued with the snapshot
+        // snapshots.get() makes if the queue is full.
+        private void offer(StateDelta delta, SnapshotCache snapshots) {
+            if (!queue.offer(delta)) {
+                queue.clear();
+                queue.offer(snapshots.get());
+                resyncs++;
+            }
+        }
+    }
+
+    /**
+     * The state a snapshot is made from, so one snapshot can be shared by
+     * every subscriber that needs it during a publish.
+     */
+    private final class SnapshotCache {
+        private final PackedBoard board;
+        private final LazyBoardGenerator lazy;
+        private final int numFlags;
+        private final boolean gameOver;
+        private final boolean won;
+        private StateDelta snapshot;
+
+        SnapshotCache(
+                PackedBoard board, LazyBoardGenerator lazy, int numFlags, boolean gameOver,
+                boolean won
+        ) {
+            this.board = board;
+            this.lazy = lazy;
+            this.numFlags = numFlags;
+            this.gameOver = gameOver;
+            this.won = won;
+        }
+
+        StateDelta get() {
+            if (snapshot == null) {
+                snapshot = snapshot(board, lazy, numFlags, gameOver, won);
+            }
+            return snapshot;
+        }
+    }
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final StateDelta.Encoder encoder = new StateDelta.Encoder();
+    private long sequence;
+    // Cells changed since the last publish, one bit each, and the range of
+    // words holding set bits, empty while firstWord > lastWord.
+    private long[] changed;
+    private int firstWord;
+    private int lastWord = -1;
+    // Set when every cell may have changed, so the next publish is a snapshot.
+    private boolean restarted;
+    private int lastFlags;
+    private boolean lastGameOver;
+
+    // A stream for a game on a board of the given size, as it stands.
+    StateStream(int cells, int numFlags, boolean gameOver) {
+        changed = new long[(cells + 63) >>> 6];
+        lastFlags = numFlags;
+        lastGameOver = gameOver;
+    }
+
+    // Number of open subscriptions.
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    // Number of deltas published so far.
+    public long getSequence() {
+        return sequence;
+    }
+
+    // Opens a subscription holding up to capacity deltas, starting with a
+    // snapshot of the current state.
+    Subscription subscribe(
+            int capacity, PackedBoard board, LazyBoardGenerator lazy, int numFlags,
+            boolean gameOver, boolean won
+    ) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Subscription capacity must be at least 1");
+        }
+        Subscription subscription = new Subscription(this, capacity);
+        subscription.queue.offer(snapshot(board, lazy, numFlags, gameOver, won));
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    // Marks cell as changed by the current action.
+    void touch(int cell) {
+        int word = cell >>> 6;
+        changed[word] |= 1L << cell;
+        if (firstWord > lastWord) {
+            firstWord = word;
+            lastWord = word;
+        } else if (word < firstWord) {
+            firstWord = word;
+        } else if (word > lastWord) {
+            lastWord = word;
+        }
+    }
+
+    // Every cell may have changed, on a board of the given size: the next
+    // publish sends a snapshot.
+    void restart(int cells) {
+        int words = (cells + 63) >>> 6;
+        if (changed.length != words) {
+            changed = new long[words];
+        } else {
+            clearChanged();
+        }
+        firstWord = 0;
+        lastWord = -1;
+        restarted = true;
+    }
+
+    // Publishes what changed since the last publish, if anything did, and
+    // forgets it.
+    void publish(
+            PackedBoard board, LazyBoardGenerator lazy, int numFlags, boolean gameOver,
+            boolean won
+    ) {
+        boolean statusChanged = numFlags != lastFlags || gameOver != lastGameOver;
+        lastFlags = numFlags;
+        lastGameOver = gameOver;
+        if (subscriptions.isEmpty()) {
+            clearChanged();
+            restarted = false;
+            return;
+        }
+        SnapshotCache snapshots = new SnapshotCache(board, lazy, numFlags, gameOver, won);
+        StateDelta delta;
+        if (restarted) {
+            sequence++;
+            delta = snapshots.get();
+            restarted = false;
+        } else if (firstWord <= lastWord || statusChanged) {
+            sequence++;
+            delta = changes(board, numFlags, gameOver, won);
+        } else {
+            return;
+        }
+        clearChanged();
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(delta, snapshots);
+        }
+    }
+
+    private void clearChanged() {
+        for (int w = firstWord; w <= lastWord; w++) {
+            changed[w] = 0;
+        }
+        firstWord = 0;
+        lastWord = -1;
+    }
+
+    // A delta of the changed cells, in index order.
+    private StateDelta changes(PackedBoard board, int numFlags, boolean gameOver, boolean won) {
+        byte[] cells = board.cells();
+        encoder.clear();
+        for (int w = firstWord; w <= lastWord; w++) {
+            long bits = changed[w];
+            while (bits != 0) {
+                int cell = (w << 6) + Long.numberOfTrailingZeros(bits);
+                encoder.add(cell, StateDelta.code(cells[cell]));
+                bits &= bits - 1;
+            }
+        }
+        encoder.flush();
+        return new StateDelta(
+                sequence, false, board.getRows(), board.getColumns(), numFlags, gameOver, won,
+                encoder
+        );
+    }
+
+    // A snapshot of every cell. Rows the lazy generator has not touched yet
+    // may still hold an earlier game, but nothing on them has been revealed
+    // or flagged, so they are sent as hidden without being read.
+    private StateDelta snapshot(
+            PackedBoard board, LazyBoardGenerator lazy, int numFlags, boolean gameOver,
+            boolean won
+    ) {
+        byte[] cells = board.cells();
+        int columns = board.getColumns();
+        encoder.clear();
+        for (int r = 0; r < board.getRows(); r++) {
+            int from = r * columns;
+            if (lazy != null && lazy.isRowStale(r)) {
+                encoder.addRun(from, columns, StateDelta.HIDDEN);
+                continue;
+            }
+            for (int i = from; i < from + columns; i++) {
+                encoder.add(i, StateDelta.code(cells[i]));
+            }
+        }
+        encoder.flush();
+        return new StateDelta(
+                sequence, true, board.getRows(), columns, numFlags, gameOver, won, encoder
+        );
+    }
+}
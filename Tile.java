@@ -1,5 +1,7 @@
 package org.cis1200.minesweeper;
 
+// A Tile is a snapshot view of one cell. The board itself is stored in a
+// PackedBoard, and Minesweeper.getTile builds Tiles on request.
 public class Tile {
     private int mine;
     private boolean revealed;
@@ -25,6 +27,14 @@ public class Tile {
         this.lost = false;
     }
 
+    public Tile(int m, boolean r, boolean f, boolean l, int aM) {
+        this.mine = m;
+        this.revealed = r;
+        this.flagged = f;
+        this.lost = l;
+        this.adjacentMines = aM;
+    }
+
     public void setMine() {
         mine = 1;
     }
@@ -0,0 +1,147 @@
+package org.cis1200.minesweeper;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Pre-rendered tile images for GameBoard. The number images are decoded once
+ * when the atlas is created, and every kind of tile (hidden, flagged, lost,
+ * empty and the numbers 1 to 8) is drawn side by side into one image at the
+ * current cell size. Painting a cell is then a single blit from that image.
+ * If a number image is missing, the atlas draws the digit itself.
+ */
+public class TileAtlas {
+
+    public static final int HIDDEN = 0;
+    public static final int FLAGGED = 1;
+    public static final int LOST = 2;
+    public static final int EMPTY = 3;
+    // Tiles 4 to 11 are the numbers 1 to 8; see number().
+    private static final int TILE_COUNT = 12;
+
+    private static final Color EMPTY_COLOR = Color.decode("#B9B9B9");
+    private static final Color[] DIGIT_COLORS = {
+        new Color(0, 0, 255), new Color(0, 128, 0), new Color(255, 0, 0),
+        new Color(0, 0, 128), new Color(128, 0, 0), new Color(0, 128, 128),
+        Color.BLACK, Color.DARK_GRAY
+    };
+
+    private final BufferedImage[] numberImages = new BufferedImage[8];
+    private BufferedImage atlas;
+    private int tileSize;
+
+    // Decodes the number images from files/minesweeper1.png to
+    // files/minesweeper8.png. Images that cannot be read are drawn instead.
+    public TileAtlas() {
+        for (int n = 1; n <= 8; n++) {
+            try {
+                numberImages[n - 1] = ImageIO.read(new File("files/minesweeper" + n + ".png"));
+            } catch (IOException e) {
+                numberImages[n - 1] = null;
+            }
+        }
+    }
+
+    // Tile index for a revealed cell with the given number of adjacent mines.
+    public static int number(int adjacentMines) {
+        return adjacentMines == 0 ? EMPTY : EMPTY + adjacentMines;
+    }
+
+    // Tile index for a cell in the given state.
+    public static int tileFor(boolean lost, boolean revealed, boolean flagged, int adjacentMines) {
+        if (lost) {
+            return LOST;
+        } else if (!revealed) {
+            return flagged ? FLAGGED : HIDDEN;
+        } else {
+            return number(adjacentMines);
+        }
+    }
+
+    // The color tile averages to when it is drawn smaller than a pixel, as
+    // 0xRRGGBB: numbers are the empty color tinted toward their digit.
+    public static int averageColor(int tile) {
+        switch (tile) {
+            case HIDDEN:
+                return Color.GRAY.getRGB() & 0xFFFFFF;
+            case FLAGGED:
+                return Color.RED.getRGB() & 0xFFFFFF;
+            case LOST:
+                return 0;
+            case EMPTY:
+                return EMPTY_COLOR.getRGB() & 0xFFFFFF;
+            default:
+                Color digit = DIGIT_COLORS[tile - EMPTY - 1];
+                return mix(EMPTY_COLOR.getRed(), digit.getRed()) << 16
+                        | mix(EMPTY_COLOR.getGreen(), digit.getGreen()) << 8
+                        | mix(EMPTY_COLOR.getBlue(), digit.getBlue());
+        }
+    }
+
+    // A quarter of the way from background to ink.
+    private static int mix(int background, int ink) {
+        return (3 * background + ink) / 4;
+    }
+
+    // Draws tile at (x, y) with the given side length, re-rendering the atlas
+    // first if the size has changed since the last call.
+    public void draw(Graphics g, int tile, int x, int y, int size) {
+        if (size <= 0) {
+            return;
+        }
+        if (atlas == null || size != tileSize) {
+            render(size, g);
+        }
+        int sx = tile * size;
+        g.drawImage(atlas, x, y, x + size, y + size, sx, 0, sx + size, size, null);
+    }
+
+    // Renders every tile at the given size into a single image, compatible with
+    // the destination's pixel format where that is known.
+    private void render(int size, Graphics g) {
+        GraphicsConfiguration gc = g instanceof Graphics2D
+                ? ((Graphics2D) g).getDeviceConfiguration() : null;
+        BufferedImage image = gc != null
+                ? gc.createCompatibleImage(size * TILE_COUNT, size, Transparency.OPAQUE)
+                : new BufferedImage(size * TILE_COUNT, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D ag = image.createGraphics();
+        ag.setRenderingHint(
+                RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON
+        );
+        ag.setRenderingHint(
+                RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR
+        );
+        fill(ag, HIDDEN, size, Color.GRAY);
+        fill(ag, FLAGGED, size, Color.RED);
+        fill(ag, LOST, size, Color.BLACK);
+        fill(ag, EMPTY, size, EMPTY_COLOR);
+        ag.setFont(new Font(Font.SANS_SERIF, Font.BOLD, Math.max(1, size * 2 / 3)));
+        FontMetrics fm = ag.getFontMetrics();
+        for (int n = 1; n <= 8; n++) {
+            int x = number(n) * size;
+            BufferedImage source = numberImages[n - 1];
+            if (source != null) {
+                ag.drawImage(source, x, 0, size, size, null);
+            } else {
+                fill(ag, number(n), size, EMPTY_COLOR);
+                String digit = String.valueOf(n);
+                ag.setColor(DIGIT_COLORS[n - 1]);
+                ag.drawString(
+                        digit, x + (size - fm.stringWidth(digit)) / 2,
+                        (size - fm.getHeight()) / 2 + fm.getAscent()
+                );
+            }
+        }
+        ag.dispose();
+        atlas = image;
+        tileSize = size;
+    }
+
+    private static void fill(Graphics g, int tile, int size, Color color) {
+        g.setColor(color);
+        g.fillRect(tile * size, 0, size, size);
+    }
+}
@@ -0,0 +1,188 @@
+package org.cis1200.minesweeper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH result file (CSV, as the jmh task writes it) with the
+ * checked-in baseline. Prints every benchmark that is in both with its
+ * change, and exits with status 1 if any score or allocation per operation
+ * got more than TOLERANCE worse and the two scores' 99.9% error intervals do
+ * not overlap, so a noisy benchmark does not fail the build on a change its
+ * own runs cannot tell apart. Throughput scores (ops per unit of time) are
+ * worse when lower, times and bytes per operation when higher. Benchmarks
+ * missing from either file are listed too. Other profiler rows are ignored;
+ * the GC rates depend on how fast the benchmark runs and not only on the
+ * code.
+ * Arguments: baseline file, result file.
+ */
+public final class BenchmarkBaseline {
+
+    // Allowed slowdown before a benchmark counts as a regression.
+    public static final double TOLERANCE = 0.20;
+    // Allocations below this many bytes per operation are noise.
+    private static final double MIN_ALLOCATION = 64;
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private BenchmarkBaseline() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkBaseline baseline.csv result.csv");
+            System.exit(2);
+        }
+        Map<String, Score> baseline = read(Paths.get(args[0]));
+        Map<String, Score> result = read(Paths.get(args[1]));
+        int regressions = 0;
+        List<String> unmatched = new ArrayList<>();
+        for (Map.Entry<String, Score> entry : result.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                unmatched.add(entry.getKey());
+                continue;
+            }
+            Score after = entry.getValue();
+            double slowdown = after.slowdownFrom(before);
+            boolean significant = after.isWorseBeyondError(before);
+            boolean checked = slowdown > TOLERANCE
+                    && !(entry.getKey().contains(ALLOCATION) && after.value < MIN_ALLOCATION);
+            boolean worse = checked && significant;
+            if (worse) {
+                regressions++;
+            }
+            String note = worse ? "  REGRESSION" : checked ? "  within error" : "";
+            System.out.printf(
+                    "%-90s %14.3f +- %-10.3f -> %14.3f +- %-10.3f %+7.1f%%%s%n",
+                    entry.getKey(), before.value, before.error, after.value, after.error,
+                    100 * slowdown, note
+            );
+        }
+        for (String key : unmatched) {
+            System.out.printf("%-90s not in the baseline%n", key);
+        }
+        int dropped = 0;
+        for (String key : baseline.keySet()) {
+            if (!result.containsKey(key)) {
+                dropped++;
+            }
+        }
+        System.out.printf(
+                "%d regressions beyond %.0f%% and the score error; %d results not in the"
+                        + " baseline; %d baseline scores not in this run%n",
+                regressions, 100 * TOLERANCE, unmatched.size(), dropped
+        );
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * One score with its 99.9% error, and whether higher is better.
+     */
+    static final class Score {
+        final double value;
+        final double error;
+        final boolean higherIsBetter;
+
+        Score(double value, double error, boolean higherIsBetter) {
+            this.value = value;
+            // A single measurement has no error; JMH writes NaN.
+            this.error = Double.isNaN(error) ? 0 : error;
+            this.higherIsBetter = higherIsBetter;
+        }
+
+        // How much worse this score is than before, as a fraction: 0.25 is
+        // 25% slower, or 25% more bytes. Negative when it got better.
+        double slowdownFrom(Score before) {
+            double worse = higherIsBetter ? before.value : value;
+            double better = higherIsBetter ? value : before.value;
+            if (better == 0) {
+                return worse == 0 ? 0 : Double.POSITIVE_INFINITY;
+            }
+            return worse / better - 1;
+        }
+
+        // True if this score is worse than before even at the edges of both
+        // error intervals.
+        boolean isWorseBeyondError(Score before) {
+            return higherIsBetter ? value + error < before.value - before.error
+                    : value - error > before.value + before.error;
+        }
+    }
+
+    // Reads the scores of a JMH CSV file, keyed by benchmark name and the
+    // parameters it has. Only primary scores and allocation per operation are
+    // kept.
+    static Map<String, Score> read(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path);
+        if (lines.isEmpty()) {
+            throw new IOException("Empty result file " + path);
+        }
+        List<String> header = split(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int score = header.indexOf("Score");
+        int error = header.indexOf("Score Error (99.9%)");
+        int unit = header.indexOf("Unit");
+        if (benchmark < 0 || score < 0 || error < 0 || unit < 0) {
+            throw new IOException("Not a JMH CSV result file: " + path);
+        }
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> fields = split(line);
+            if (fields.size() != header.size()) {
+                continue;
+            }
+            String name = fields.get(benchmark);
+            if (name.contains(":") && !name.contains(ALLOCATION)) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(name);
+            // A run of several benchmarks has a column for every parameter
+            // of any of them; the ones this benchmark lacks are empty.
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && !fields.get(i).isEmpty()) {
+                    key.append(' ').append(header.get(i).substring(7)).append('=')
+                            .append(fields.get(i));
+                }
+            }
+            try {
+                scores.put(key.toString(), new Score(
+                        Double.parseDouble(fields.get(score)),
+                        Double.parseDouble(fields.get(error)),
+                        fields.get(unit).startsWith("ops/")
+                ));
+            } catch (NumberFormatException e) {
+                // NaN scores are written as text; nothing to compare.
+            }
+        }
+        return scores;
+    }
+
+    // Splits one CSV line, removing the quotes around fields.
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (ch == '"') {
+                quoted = !quoted;
+            } else if (ch == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,127 @@
+package org.cis1200.minesweeper;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BitboardMinesweeper against Minesweeper on the same layouts: counting
+ * adjacent mines, the flood fill of a first click in the middle, and the win
+ * check. At the lower density the first click opens most of the board. Both
+ * games reveal from a fresh copy of the unopened board every time, restored
+ * outside the timing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class BitboardBenchmark {
+
+    private static final long SEED = 42;
+
+    // Rows x columns.
+    @Param({"1000x1000", "4096x4096"})
+    public String size;
+
+    // Fraction of cells holding a mine.
+    @Param({"0.05", "0.12"})
+    public double density;
+
+    private PackedBoard layout;
+    private BoardFile unopened;
+    private Minesweeper game;
+    private BitboardMinesweeper bitboard;
+    private int middleRow;
+    private int middleColumn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = size.split("x");
+        int rows = Integer.parseInt(parts[0]);
+        int columns = Integer.parseInt(parts[1]);
+        int mines = (int) Math.round(density * rows * columns);
+        middleRow = rows / 2;
+        middleColumn = columns / 2;
+        layout = new PackedBoard(rows, columns);
+        MineGenerator.placeMines(
+                layout, mines, new SplittableRandom(SEED), middleRow, middleColumn
+        );
+        MineGenerator.countAdjacentMines(layout);
+        unopened = new BoardFile(mines, mines, false, SEED, layout.copy());
+        BoardConfig config = BoardConfig.custom(rows, columns, mines);
+        game = new Minesweeper(config);
+        game.load(copy(unopened));
+        game.playTurn(middleColumn, middleRow);
+        bitboard = new BitboardMinesweeper(config);
+        bitboard.load(unopened);
+        bitboard.playTurn(middleColumn, middleRow);
+    }
+
+    private static BoardFile copy(BoardFile file) {
+        return new BoardFile(
+                file.getNumMines(), file.getNumFlags(), file.getGameOver(), file.getSeed(),
+                file.getBoard().copy()
+        );
+    }
+
+    @Benchmark
+    public PackedBoard countPacked() {
+        MineGenerator.countAdjacentMines(layout);
+        return layout;
+    }
+
+    @Benchmark
+    public BitboardMinesweeper countBitboard() {
+        bitboard.calculateAdjacentMinesCounts();
+        return bitboard;
+    }
+
+    @State(Scope.Thread)
+    public static class Unopened {
+        Minesweeper game;
+        BitboardMinesweeper bitboard;
+
+        @Setup(Level.Invocation)
+        public void restore(BitboardBenchmark benchmark) {
+            if (game == null) {
+                game = new Minesweeper(benchmark.game.getConfig());
+                bitboard = new BitboardMinesweeper(benchmark.game.getConfig());
+            }
+            game.load(copy(benchmark.unopened));
+            bitboard.load(benchmark.unopened);
+        }
+    }
+
+    @Benchmark
+    public int fillPacked(Unopened unopened) {
+        return unopened.game.revealNeighbors(middleRow, middleColumn);
+    }
+
+    @Benchmark
+    public int fillBitboard(Unopened unopened) {
+        return unopened.bitboard.revealNeighbors(middleRow, middleColumn);
+    }
+
+    @Benchmark
+    public boolean checkWinnerPacked() {
+        return game.checkWinner();
+    }
+
+    @Benchmark
+    public boolean checkWinnerBitboard() {
+        return bitboard.checkWinner();
+    }
+}
@@ -0,0 +1,80 @@
+package org.cis1200.minesweeper;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Moves per second on one ConcurrentMinesweeper shared by 1, 4 and 16
+ * players. Each player reveals random safe cells and flags random mines of a
+ * 2000x2000 board, so most moves are small and the players rarely touch the
+ * same cells. Every iteration starts a new game, opened in the middle, so
+ * the board does not run out of hidden cells.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class ConcurrentBenchmark {
+
+    private static final int SIDE = 2000;
+
+    private final AtomicLong seeds = new AtomicLong();
+    private ConcurrentMinesweeper game;
+    private PackedBoard layout;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BoardConfig config = BoardConfig.custom(SIDE, SIDE, SIDE * SIDE / 6);
+        game = new ConcurrentMinesweeper(config, seeds.incrementAndGet(), 1);
+        game.playTurn(game.getStartColumn(), game.getStartRow());
+        layout = game.snapshot().getBoard();
+    }
+
+    @State(Scope.Thread)
+    public static class Player {
+        private static final AtomicLong PLAYERS = new AtomicLong();
+        final SplittableRandom rng = new SplittableRandom(PLAYERS.incrementAndGet());
+    }
+
+    private int move(Player player) {
+        int c = player.rng.nextInt(SIDE);
+        int r = player.rng.nextInt(SIDE);
+        if (layout.isMine(r * SIDE + c)) {
+            return game.placeFlag(c, r);
+        }
+        return game.playTurn(c, r);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int players1(Player player) {
+        return move(player);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int players4(Player player) {
+        return move(player);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int players16(Player player) {
+        return move(player);
+    }
+}
@@ -0,0 +1,97 @@
+package org.cis1200.minesweeper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * An endless game explored along a random walk that drifts away from the
+ * origin, one step per operation: each step reveals the cell it lands on
+ * unless it is open or a mine. The walk keeps reaching new chunks, so with a
+ * small memory cap most of the time goes into generating chunks and writing
+ * played ones out to the game directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class EndlessBenchmark {
+
+    private static final long SEED = 1;
+
+    // Memory cap of the chunk cache in KB.
+    @Param({"1024", "65536"})
+    public int memory;
+
+    private Path directory;
+    private EndlessMinesweeper game;
+    // The same board's mines, so the walk can step around them.
+    private ChunkStore mines;
+    private SplittableRandom rng;
+    private int x;
+    private int y;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("endless-bench");
+        game = new EndlessMinesweeper(
+                SEED, EndlessMinesweeper.DEFAULT_DENSITY, directory, memory * 1024L
+        );
+        mines = new ChunkStore(
+                SEED,
+                (int) Math.round(EndlessMinesweeper.DEFAULT_DENSITY * ChunkStore.CHUNK_CELLS),
+                directory.resolve("mines"), memory * 1024L
+        );
+        rng = new SplittableRandom(SEED);
+        x = 0;
+        y = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public int step() {
+        int size = ChunkStore.CHUNK_SIZE;
+        boolean mine = mines.chunk(Math.floorDiv(x, size), Math.floorDiv(y, size)).cells
+                .isMine(Math.floorMod(y, size) * size + Math.floorMod(x, size));
+        int revealed = 0;
+        if (!mine && !game.getCellRevealed(x, y)) {
+            game.playTurn(x, y);
+            revealed = game.getLastRevealedCount();
+        }
+        x += rng.nextInt(-3, 4);
+        y += rng.nextInt(-3, 4) + 1;
+        return revealed;
+    }
+}
@@ -0,0 +1,59 @@
+package org.cis1200.minesweeper;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full-board generation throughput, in boards per second, on 1, 4 and 16
+ * threads: LazyBoardGenerator.ensureAll on a fresh plan, as a game with
+ * several generation threads runs it on the first click. Every operation
+ * uses the next seed on the same board, so stripes are cleared as they
+ * would be when a board is reused.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class GenerationBenchmark {
+
+    // Rows x columns.
+    @Param({"2000x2000", "10000x10000"})
+    public String size;
+
+    @Param({"1", "4", "16"})
+    public int threads;
+
+    private PackedBoard board;
+    private int mines;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = size.split("x");
+        int rows = Integer.parseInt(parts[0]);
+        int columns = Integer.parseInt(parts[1]);
+        mines = rows * columns / 5;
+        board = new PackedBoard(rows, columns);
+    }
+
+    @Benchmark
+    public PackedBoard generate() {
+        LazyBoardGenerator lazy = new LazyBoardGenerator(board, mines);
+        lazy.plan(seed++, board.getRows() / 2, board.getColumns() / 2);
+        lazy.ensureAll(threads);
+        return board;
+    }
+}
@@ -0,0 +1,169 @@
+package org.cis1200.minesweeper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The model's hot paths across board sizes from the classic 8x10 up to
+ * 10000x10000 and across mine densities. Every benchmark starts from the same
+ * seeded layout, opened by a click in the middle.
+ * mineSetter and calculateAdjacentMinesCounts go through MineGenerator on a
+ * board of their own, as the Minesweeper methods of those names do; clearing
+ * that board is part of mineSetter's time. revealNeighbors reveals from a
+ * fresh copy of the unopened board every time, restored outside the timing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class ModelBenchmark {
+
+    private static final long SEED = 42;
+
+    // Rows x columns.
+    @Param({"8x10", "100x100", "1000x1000", "10000x10000"})
+    public String size;
+
+    // Fraction of cells holding a mine.
+    @Param({"0.12", "0.2"})
+    public double density;
+
+    private Minesweeper game;
+    private PackedBoard layout;
+    private BoardFile unopened;
+    private PackedBoard generated;
+    private int mines;
+    private int middleRow;
+    private int middleColumn;
+    private long seed;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] parts = size.split("x");
+        int rows = Integer.parseInt(parts[0]);
+        int columns = Integer.parseInt(parts[1]);
+        mines = (int) Math.round(density * rows * columns);
+        middleRow = rows / 2;
+        middleColumn = columns / 2;
+        // The layout a first click in the middle would get, nothing revealed.
+        layout = new PackedBoard(rows, columns);
+        MineGenerator.placeMines(
+                layout, mines, new SplittableRandom(SEED), middleRow, middleColumn
+        );
+        MineGenerator.countAdjacentMines(layout);
+        unopened = new BoardFile(mines, mines, false, SEED, layout.copy());
+        game = new Minesweeper(BoardConfig.custom(rows, columns, mines));
+        game.load(copy(unopened));
+        game.playTurn(middleColumn, middleRow);
+        generated = new PackedBoard(rows, columns);
+        file = Files.createTempFile("minesweeper-bench", ".bin");
+    }
+
+    private static BoardFile copy(BoardFile file) {
+        return new BoardFile(
+                file.getNumMines(), file.getNumFlags(), file.getGameOver(), file.getSeed(),
+                file.getBoard().copy()
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // Starts a new game on the same board; mines are only placed on the
+    // first click.
+    @Benchmark
+    public Minesweeper reset() {
+        game.reset(seed++);
+        return game;
+    }
+
+    // A new game and its first click, which fixes the layout, generates the
+    // rows the opening reaches and reveals it.
+    @Benchmark
+    public int firstClick() {
+        game.reset(seed++);
+        game.playTurn(middleColumn, middleRow);
+        return game.getLastRevealedCount();
+    }
+
+    @Benchmark
+    public PackedBoard mineSetter() {
+        Arrays.fill(generated.cells(), (byte) 0);
+        MineGenerator.placeMines(generated, mines, seed++);
+        return generated;
+    }
+
+    @Benchmark
+    public PackedBoard calculateAdjacentMinesCounts() {
+        MineGenerator.countAdjacentMines(layout);
+        return layout;
+    }
+
+    @State(Scope.Thread)
+    public static class Unopened {
+        Minesweeper game;
+
+        @Setup(Level.Invocation)
+        public void restore(ModelBenchmark benchmark) {
+            if (game == null) {
+                game = new Minesweeper(benchmark.game.getConfig());
+            }
+            game.load(copy(benchmark.unopened));
+        }
+    }
+
+    @Benchmark
+    public int revealNeighbors(Unopened unopened) {
+        return unopened.game.revealNeighbors(middleRow, middleColumn);
+    }
+
+    @Benchmark
+    public boolean checkWinner() {
+        return game.checkWinner();
+    }
+
+    @Benchmark
+    public int save() {
+        return game.save(file);
+    }
+
+    @State(Scope.Thread)
+    public static class Saved {
+        Minesweeper game;
+
+        @Setup(Level.Trial)
+        public void save(ModelBenchmark benchmark) {
+            game = new Minesweeper(benchmark.game.getConfig());
+            if (benchmark.game.save(benchmark.file) != 1) {
+                throw new IllegalStateException("Couldn't save " + benchmark.file);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean load(Saved saved) {
+        return saved.game.load(file);
+    }
+}
@@ -0,0 +1,42 @@
+package org.cis1200.minesweeper;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to find one no-guess expert board opened in the middle, searching
+ * candidates on 1 or 4 threads. Every operation uses the next seed, so the
+ * score averages over easy and hard seeds; boards that are not found within
+ * NoGuessGenerator.MAX_CANDIDATES count with the time spent giving up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class NoGuessBenchmark {
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private long seed;
+
+    @Benchmark
+    public PackedBoard expert() {
+        BoardConfig expert = BoardConfig.EXPERT;
+        return NoGuessGenerator.generate(
+                expert.getRows(), expert.getColumns(), expert.getMines(),
+                expert.getRows() / 2, expert.getColumns() / 2, seed++, threads
+        );
+    }
+}
@@ -0,0 +1,79 @@
+package org.cis1200.minesweeper;
+
+import java.awt.Graphics2D;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JLabel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GameBoard.paintComponent drawing one full viewport (at most MAX_VIEW_WIDTH x
+ * MAX_VIEW_HEIGHT) of a game opened by one click into an offscreen image,
+ * headless.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class RenderBenchmark {
+
+    @Param({"8x10", "100x100", "1000x1000", "10000x10000"})
+    public String size;
+
+    @Param({"0.12", "0.2"})
+    public double density;
+
+    private GameBoard view;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = size.split("x");
+        int rows = Integer.parseInt(parts[0]);
+        int columns = Integer.parseInt(parts[1]);
+        int mines = (int) Math.round(density * rows * columns);
+        view = new GameBoard(new JLabel());
+        view.setConfig(BoardConfig.custom(rows, columns, mines).withSeed(42));
+        view.setSize(view.getPreferredSize());
+        // Opens the game with a click in the middle of the first viewport.
+        int x = Math.min(view.getWidth(), GameBoard.MAX_VIEW_WIDTH) / 2;
+        int y = Math.min(view.getHeight(), GameBoard.MAX_VIEW_HEIGHT) / 2;
+        view.dispatchEvent(new MouseEvent(
+                view, MouseEvent.MOUSE_RELEASED, 0, InputEvent.BUTTON1_DOWN_MASK, x, y, 1, false,
+                MouseEvent.BUTTON1
+        ));
+        int width = Math.min(view.getWidth(), GameBoard.MAX_VIEW_WIDTH);
+        int height = Math.min(view.getHeight(), GameBoard.MAX_VIEW_HEIGHT);
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        graphics.setClip(0, 0, width, height);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintComponent() {
+        view.paintComponent(graphics);
+        return image;
+    }
+}
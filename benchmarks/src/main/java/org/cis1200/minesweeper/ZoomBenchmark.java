@@ -0,0 +1,85 @@
+package org.cis1200.minesweeper;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BoardRenderer drawing a WIDTH x HEIGHT frame of a 5000x5000 game opened by
+ * a few clicks, into an offscreen image, headless. Every frame pans a few
+ * pixels first, as dragging does; at 60 FPS a frame has about 16.7 ms.
+ * Zooms below BoardRenderer.TILE_ZOOM draw from the downsampled levels, the
+ * others draw tiles. cellsChanged times bringing the levels up to date after
+ * a click that changed one cell.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class ZoomBenchmark {
+
+    private static final int SIZE = 5000;
+    private static final int WIDTH = 1200;
+    private static final int HEIGHT = 800;
+
+    // Screen pixels per cell.
+    @Param({"0.16", "1", "6", "24"})
+    public double zoom;
+
+    private Minesweeper game;
+    private BoardRenderer renderer;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private int frame;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = new Minesweeper(
+                BoardConfig.custom(SIZE, SIZE, (int) (0.12 * SIZE * SIZE)).withSeed(42)
+        );
+        renderer = new BoardRenderer(game);
+        game.playTurn(SIZE / 2, SIZE / 2);
+        game.playTurn(SIZE / 3, SIZE / 3);
+        game.playTurn(100, SIZE - 1000);
+        renderer.cellsChanged(game.takeDirtyRegion());
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        renderer.render(graphics, WIDTH, HEIGHT);
+        renderer.zoomAt(zoom / renderer.getZoom(), WIDTH / 2, HEIGHT / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public int panFrame() {
+        // Back and forth, so the view stays around the same place.
+        frame++;
+        renderer.panBy(frame % 200 < 100 ? -7 : 7, frame % 300 < 150 ? -5 : 5);
+        return renderer.render(graphics, WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public BoardRenderer cellsChanged() {
+        renderer.cellsChanged(new Rectangle(SIZE / 2, SIZE / 2, 1, 1));
+        return renderer;
+    }
+}
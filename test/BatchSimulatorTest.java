@@ -0,0 +1,84 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Headless batches: every game depends only on its seed, so the totals do
+ * not change with the number of threads, the solver policy wins far more
+ * often than random play, and a failing policy fails the run.
+ */
+public class BatchSimulatorTest {
+
+    @Test
+    public void testTotalsDoNotDependOnThreads() {
+        BatchSimulator.Result one = new BatchSimulator(
+                BoardConfig.INTERMEDIATE, MovePolicy::solver, 1
+        ).simulate(100, 600);
+        BatchSimulator.Result three = new BatchSimulator(
+                BoardConfig.INTERMEDIATE, MovePolicy::solver, 3
+        ).simulate(100, 600);
+        assertEquals(600, one.getGames());
+        assertEquals(one.getGames(), three.getGames());
+        assertEquals(one.getWins(), three.getWins());
+        assertEquals(one.getMoves(), three.getMoves());
+    }
+
+    @Test
+    public void testSolverBeatsRandomPlay() {
+        BatchSimulator.Result solver = new BatchSimulator(
+                BoardConfig.BEGINNER, MovePolicy::solver, 2
+        ).simulate(0, 500);
+        BatchSimulator.Result random = new BatchSimulator(
+                BoardConfig.BEGINNER, MovePolicy::random, 2
+        ).simulate(0, 500);
+        assertTrue(solver.getWinRate() > 0.6, solver.toString());
+        assertTrue(random.getWinRate() < 0.2, random.toString());
+        assertTrue(solver.getMovesPerGame() > 1);
+    }
+
+    @Test
+    public void testBitboardBackend() {
+        BatchSimulator.Result result = new BatchSimulator(
+                BoardConfig.BEGINNER, BitboardMinesweeper::new, MovePolicy::solver, 2
+        ).simulate(0, 500);
+        assertEquals(500, result.getGames());
+        assertTrue(result.getWinRate() > 0.6, result.toString());
+    }
+
+    @Test
+    public void testEmptyRun() {
+        BatchSimulator.Result result = new BatchSimulator(
+                BoardConfig.EXPERT, MovePolicy::random, 2
+        ).simulate(new long[0]);
+        assertEquals(0, result.getGames());
+        assertEquals(0, result.getWinRate());
+        assertEquals(0, result.getMovesPerGame());
+    }
+
+    @Test
+    public void testFailuresAreReported() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new BatchSimulator(BoardConfig.EXPERT, MovePolicy::random, 0)
+        );
+        MovePolicy broken = new MovePolicy() {
+            @Override
+            public void newGame(MinesweeperModel game) {
+            }
+
+            @Override
+            public int nextMove(MinesweeperModel game, SplittableRandom rng) {
+                throw new UnsupportedOperationException("no moves");
+            }
+        };
+        IllegalStateException e = assertThrows(
+                IllegalStateException.class,
+                () -> new BatchSimulator(BoardConfig.EXPERT, () -> broken, 2).simulate(0, 10)
+        );
+        assertInstanceOf(UnsupportedOperationException.class, e.getCause());
+    }
+}
@@ -0,0 +1,165 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BitboardMinesweeper against Minesweeper: on the same layout, the same
+ * moves have to leave both backends showing the same board.
+ */
+public class BitboardMinesweeperTest {
+
+    private static PackedBoard layout(int rows, int columns, int mines, SplittableRandom rng) {
+        PackedBoard board = new PackedBoard(rows, columns);
+        MineGenerator.placeMines(board, mines, rng, rows / 2, columns / 2);
+        MineGenerator.countAdjacentMines(board);
+        return board;
+    }
+
+    private static void start(MinesweeperModel game, PackedBoard layout) {
+        int mines = layout.getMineCells();
+        game.load(new BoardFile(mines, mines, false, 0, layout.copy()));
+    }
+
+    private static void assertSameBoard(MinesweeperModel expected, MinesweeperModel actual) {
+        assertEquals(expected.getGameOver(), actual.getGameOver());
+        assertEquals(expected.getNumFlags(), actual.getNumFlags());
+        assertEquals(expected.getFlaggedCells(), actual.getFlaggedCells());
+        assertEquals(expected.getUnrevealedCells(), actual.getUnrevealedCells());
+        assertEquals(expected.getRemainingSafeCells(), actual.getRemainingSafeCells());
+        for (int r = 0; r < expected.getNumRows(); r++) {
+            for (int c = 0; c < expected.getNumColumns(); c++) {
+                String cell = "cell " + c + "," + r;
+                assertEquals(expected.getCellRevealed(c, r), actual.getCellRevealed(c, r), cell);
+                assertEquals(expected.getCellFlagged(c, r), actual.getCellFlagged(c, r), cell);
+                assertEquals(expected.getCellLost(c, r), actual.getCellLost(c, r), cell);
+                if (expected.getCellRevealed(c, r)) {
+                    assertEquals(
+                            expected.getCellAdjacentMines(c, r),
+                            actual.getCellAdjacentMines(c, r), cell
+                    );
+                }
+            }
+        }
+    }
+
+    // The cells the last reveal uncovered, sorted.
+    private static int[] lastRevealed(MinesweeperModel game) {
+        int[] cells = new int[game.getLastRevealedCount()];
+        for (int k = 0; k < cells.length; k++) {
+            cells[k] = game.getLastRevealedCell(k);
+        }
+        Arrays.sort(cells);
+        return cells;
+    }
+
+    @Test
+    public void testRandomMovesMatch() {
+        SplittableRandom rng = new SplittableRandom(11);
+        for (int t = 0; t < 40; t++) {
+            // Widths on both sides of a multiple of 64 exercise the word edges.
+            int rows = 5 + rng.nextInt(40);
+            int columns = 60 + rng.nextInt(10);
+            int mines = rows * columns / (5 + rng.nextInt(6));
+            PackedBoard layout = layout(rows, columns, mines, rng);
+            BoardConfig config = BoardConfig.custom(rows, columns, mines);
+            Minesweeper packed = new Minesweeper(config, false);
+            BitboardMinesweeper bits = new BitboardMinesweeper(config);
+            start(packed, layout);
+            start(bits, layout);
+
+            assertEquals(
+                    packed.playTurn(columns / 2, rows / 2), bits.playTurn(columns / 2, rows / 2)
+            );
+            assertArrayEquals(lastRevealed(packed), lastRevealed(bits));
+            for (int move = 0; move < 300 && !packed.getGameOver(); move++) {
+                int c = rng.nextInt(columns);
+                int r = rng.nextInt(rows);
+                if (rng.nextInt(5) == 0) {
+                    assertEquals(packed.placeFlag(c, r), bits.placeFlag(c, r));
+                } else {
+                    assertEquals(packed.playTurn(c, r), bits.playTurn(c, r));
+                    assertArrayEquals(lastRevealed(packed), lastRevealed(bits));
+                }
+            }
+            assertSameBoard(packed, bits);
+        }
+    }
+
+    @Test
+    public void testSolverPlaysTheSameOnBoth() {
+        SplittableRandom rng = new SplittableRandom(1);
+        for (int t = 0; t < 30; t++) {
+            int rows = 10 + rng.nextInt(50);
+            int columns = 10 + rng.nextInt(130);
+            int mines = (int) (rows * columns * (0.1 + 0.1 * rng.nextDouble()));
+            PackedBoard layout = layout(rows, columns, mines, rng);
+            BoardConfig config = BoardConfig.custom(rows, columns, mines);
+            MinesweeperModel packed = new Minesweeper(config, false);
+            MinesweeperModel bits = new BitboardMinesweeper(config);
+            for (MinesweeperModel game : new MinesweeperModel[] { packed, bits }) {
+                start(game, layout);
+                Solver solver = new Solver(game);
+                game.playTurn(columns / 2, rows / 2);
+                while (!game.getGameOver() && game.getRemainingSafeCells() > 0) {
+                    int[] safe = solver.safeCells();
+                    if (safe.length == 0) {
+                        break;
+                    }
+                    for (int cell : safe) {
+                        game.playTurn(cell % columns, cell / columns);
+                    }
+                }
+            }
+            assertSameBoard(packed, bits);
+        }
+    }
+
+    @Test
+    public void testWinRuleMatches() {
+        PackedBoard layout = layout(9, 9, 10, new SplittableRandom(4));
+        BoardConfig config = BoardConfig.custom(9, 9, 10);
+        MinesweeperModel packed = new Minesweeper(config, false);
+        MinesweeperModel bits = new BitboardMinesweeper(config);
+        for (MinesweeperModel game : new MinesweeperModel[] { packed, bits }) {
+            start(game, layout);
+            for (int i = 0; i < layout.size(); i++) {
+                if (!layout.isMine(i)) {
+                    game.playTurn(i % 9, i / 9);
+                }
+            }
+            // Every safe cell is open, but the mines still need their flags.
+            assertEquals(0, game.getRemainingSafeCells());
+            assertFalse(game.checkWinner());
+            for (int i = 0; i < layout.size(); i++) {
+                if (layout.isMine(i)) {
+                    assertEquals(1, game.placeFlag(i % 9, i / 9));
+                }
+            }
+            assertTrue(game.checkWinner());
+        }
+        assertSameBoard(packed, bits);
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() {
+        BitboardMinesweeper game = new BitboardMinesweeper(BoardConfig.EXPERT.withSeed(9));
+        game.playTurn(15, 8);
+        game.placeFlag(0, 0);
+        BoardFile save = game.snapshot();
+
+        BitboardMinesweeper loaded = new BitboardMinesweeper(BoardConfig.BEGINNER);
+        int before = loaded.getGameNumber();
+        loaded.load(save);
+        assertNotEquals(before, loaded.getGameNumber());
+        assertSameBoard(game, loaded);
+
+        Minesweeper packed = new Minesweeper(BoardConfig.BEGINNER, false);
+        packed.load(game.snapshot());
+        assertSameBoard(game, packed);
+    }
+}
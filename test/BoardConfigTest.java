@@ -0,0 +1,87 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Board configurations: the presets, the checks on custom sizes, seeds that
+ * fix the layout, and games that take their size from the configuration.
+ */
+public class BoardConfigTest {
+
+    private static PackedBoard layoutAfterClick(Minesweeper game) {
+        game.playTurn(game.getNumColumns() / 2, game.getNumRows() / 2);
+        return game.snapshot().getBoard();
+    }
+
+    @Test
+    public void testPresets() {
+        assertSame(BoardConfig.CLASSIC, BoardConfig.preset(BoardConfig.Difficulty.CLASSIC));
+        assertSame(BoardConfig.EXPERT, BoardConfig.preset(BoardConfig.Difficulty.EXPERT));
+        BoardConfig expert = BoardConfig.EXPERT;
+        assertEquals(16, expert.getRows());
+        assertEquals(30, expert.getColumns());
+        assertEquals(99, expert.getMines());
+        assertFalse(expert.hasSeed());
+        assertEquals("Expert (30x16, 99 mines)", expert.toString());
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> BoardConfig.preset(BoardConfig.Difficulty.CUSTOM)
+        );
+    }
+
+    @Test
+    public void testCustomSizesAreChecked() {
+        BoardConfig config = BoardConfig.custom(1, 1000, 1000);
+        assertEquals(BoardConfig.Difficulty.CUSTOM, config.getDifficulty());
+        assertThrows(IllegalArgumentException.class, () -> BoardConfig.custom(0, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> BoardConfig.custom(10, -1, 0));
+        assertThrows(IllegalArgumentException.class, () -> BoardConfig.custom(10, 10, 101));
+        assertThrows(IllegalArgumentException.class, () -> BoardConfig.custom(10, 10, -1));
+        assertThrows(
+                IllegalArgumentException.class, () -> BoardConfig.custom(100000, 100000, 0)
+        );
+    }
+
+    @Test
+    public void testSeeds() {
+        BoardConfig seeded = BoardConfig.INTERMEDIATE.withSeed(17);
+        assertTrue(seeded.hasSeed());
+        assertEquals(17, seeded.getSeed());
+        assertEquals(BoardConfig.Difficulty.INTERMEDIATE, seeded.getDifficulty());
+        assertFalse(seeded.withoutSeed().hasSeed());
+
+        // Every reset of a seeded game deals the same layout.
+        Minesweeper game = new Minesweeper(seeded, false);
+        PackedBoard first = layoutAfterClick(game);
+        game.reset();
+        PackedBoard second = layoutAfterClick(game);
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.isMine(i), second.isMine(i));
+        }
+        assertEquals(17, game.getSeed());
+
+        // Without a seed, resets pick fresh ones.
+        Minesweeper unseeded = new Minesweeper(BoardConfig.INTERMEDIATE, false);
+        long seed = unseeded.getSeed();
+        unseeded.reset();
+        assertNotEquals(seed, unseeded.getSeed());
+    }
+
+    @Test
+    public void testGameTakesSizeFromConfig() {
+        Minesweeper game = new Minesweeper();
+        assertEquals(8, game.getNumRows());
+        assertEquals(10, game.getNumColumns());
+        assertEquals(10, game.getNumMines());
+        game.setConfig(BoardConfig.custom(37, 5, 60));
+        assertEquals(37, game.getNumRows());
+        assertEquals(5, game.getNumColumns());
+        assertEquals(60, game.getNumFlags());
+        assertEquals(37 * 5, game.getUnrevealedCells());
+        PackedBoard layout = layoutAfterClick(game);
+        assertEquals(37, layout.getRows());
+        assertEquals(60, layout.getMineCells());
+    }
+}
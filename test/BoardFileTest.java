@@ -0,0 +1,152 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of the save formats.
+ */
+public class BoardFileTest {
+
+    @TempDir
+    Path dir;
+
+    // A game part way through, with a flag and, if lost, a lost mine.
+    private static Minesweeper playedGame(int rows, int columns, int mines, boolean lose) {
+        Minesweeper game = new Minesweeper(
+                BoardConfig.custom(rows, columns, mines).withSeed(42), false
+        );
+        game.playTurn(columns / 2, rows / 2);
+        PackedBoard board = game.snapshot().getBoard();
+        for (int i = 0; i < board.size(); i++) {
+            if (!board.isRevealed(i) && board.isMine(i)) {
+                game.placeFlag(i % columns, i / columns);
+                break;
+            }
+        }
+        if (lose) {
+            for (int i = 0; i < board.size(); i++) {
+                if (board.isMine(i) && !game.getCellFlagged(i % columns, i / columns)) {
+                    game.playTurn(i % columns, i / columns);
+                    break;
+                }
+            }
+        }
+        return game;
+    }
+
+    private static void assertSameGame(BoardFile expected, BoardFile actual) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getColumns(), actual.getColumns());
+        assertEquals(expected.getNumMines(), actual.getNumMines());
+        assertEquals(expected.getNumFlags(), actual.getNumFlags());
+        assertEquals(expected.getGameOver(), actual.getGameOver());
+        PackedBoard a = expected.getBoard();
+        PackedBoard b = actual.getBoard();
+        for (int i = 0; i < a.size(); i++) {
+            assertEquals(a.get(i), b.get(i), "cell " + i);
+        }
+        assertEquals(a.getHiddenCells(), b.getHiddenCells());
+        assertEquals(a.getFlaggedCells(), b.getFlaggedCells());
+        assertEquals(a.getCorrectFlags(), b.getCorrectFlags());
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        BoardFile save = playedGame(16, 30, 99, false).snapshot();
+        Path path = dir.resolve("status.bin");
+        save.write(path, null);
+
+        assertTrue(BoardFile.isBoardFile(path));
+        BoardFile read = BoardFile.read(path);
+        assertSameGame(save, read);
+        assertEquals(save.getSeed(), read.getSeed());
+    }
+
+    @Test
+    public void testBinaryRoundTripOddSizeAndLostGame() throws IOException {
+        // An odd number of cells leaves half of the last payload byte unused.
+        BoardFile save = playedGame(7, 9, 12, true).snapshot();
+        assertTrue(save.getGameOver());
+        Path path = dir.resolve("odd.bin");
+        save.write(path, null);
+        assertSameGame(save, BoardFile.read(path));
+    }
+
+    @Test
+    public void testLoadedGamePlaysOn() throws IOException {
+        Minesweeper game = playedGame(16, 30, 99, false);
+        Path path = dir.resolve("status.bin");
+        assertTrue(game.save(path) > 0);
+
+        Minesweeper loaded = new Minesweeper(BoardConfig.EXPERT, false);
+        assertTrue(loaded.load(path));
+        assertEquals(game.getNumFlags(), loaded.getNumFlags());
+        assertEquals(game.getRemainingSafeCells(), loaded.getRemainingSafeCells());
+        for (int r = 0; r < 16; r++) {
+            for (int c = 0; c < 30; c++) {
+                assertEquals(game.getCellRevealed(c, r), loaded.getCellRevealed(c, r));
+                assertEquals(game.getCellFlagged(c, r), loaded.getCellFlagged(c, r));
+            }
+        }
+    }
+
+    @Test
+    public void testCorruptPayloadFailsChecksum() throws IOException {
+        Path path = dir.resolve("status.bin");
+        playedGame(16, 30, 99, false).snapshot().write(path, null);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[BoardFile.HEADER_SIZE + 3] ^= 0x10;
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> BoardFile.read(path));
+    }
+
+    @Test
+    public void testTruncatedFileIsRejected() throws IOException {
+        Path path = dir.resolve("status.bin");
+        playedGame(16, 30, 99, false).snapshot().write(path, null);
+        long size = Files.size(path);
+        try (var channel = java.nio.channels.FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 1);
+        }
+        assertThrows(IOException.class, () -> BoardFile.read(path));
+
+        Path empty = dir.resolve("empty.bin");
+        Files.write(empty, new byte[0]);
+        assertFalse(BoardFile.isBoardFile(empty));
+        assertThrows(IOException.class, () -> BoardFile.read(empty));
+    }
+
+    @Test
+    public void testLegacyTextSave() throws IOException {
+        BoardFile save = playedGame(4, 5, 4, false).snapshot();
+        PackedBoard board = save.getBoard();
+        StringBuilder text = new StringBuilder();
+        text.append(save.getNumFlags()).append('\n');
+        text.append(save.getNumMines()).append('\n');
+        text.append(save.getGameOver()).append('\n');
+        text.append(board.getRows()).append('\n');
+        text.append(board.getColumns()).append('\n');
+        for (int i = 0; i < board.size(); i++) {
+            text.append(board.isMine(i) ? 1 : 0).append(' ')
+                    .append(board.isRevealed(i)).append(' ')
+                    .append(board.isFlagged(i)).append(' ')
+                    .append(board.getAdjacentMines(i)).append('\n');
+        }
+        Path path = dir.resolve("status.txt");
+        Files.writeString(path, text);
+
+        assertFalse(BoardFile.isBoardFile(path));
+        assertSameGame(save, BoardFile.readText(path));
+
+        Files.writeString(path, "10\n10\nfalse\n2\n");
+        assertThrows(IOException.class, () -> BoardFile.readText(path));
+    }
+}
@@ -0,0 +1,136 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The zoom view, drawn headless into images: levels kept up to date a
+ * rectangle at a time draw the same frames as levels built from scratch, at
+ * downsampled and tile zooms alike, and zooming, panning and the minimap
+ * keep the view where the pointer puts it.
+ */
+public class BoardRendererTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    private static int[] frame(BoardRenderer renderer) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            renderer.render(g, WIDTH, HEIGHT);
+        } finally {
+            g.dispose();
+        }
+        return image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchRebuild() {
+        Minesweeper game = new Minesweeper(BoardConfig.custom(700, 900, 60000).withSeed(3));
+        BoardRenderer kept = new BoardRenderer(game);
+        frame(kept);
+        game.takeDirtyRegion();
+        SplittableRandom rng = new SplittableRandom(3);
+        PackedBoard layout = null;
+        for (int k = 0; k < 200; k++) {
+            int c = rng.nextInt(900);
+            int r = rng.nextInt(700);
+            if (layout != null && layout.isMine(r * 900 + c)) {
+                game.placeFlag(c, r);
+            } else {
+                game.playTurn(c, r);
+            }
+            if (layout == null) {
+                layout = game.snapshot().getBoard();
+            }
+            kept.cellsChanged(game.takeDirtyRegion());
+        }
+        assertFalse(game.getGameOver());
+
+        BoardRenderer fresh = new BoardRenderer(game);
+        // Fitted, downsampled at a few zooms, and tiles, with some panning.
+        double[] factors = {1, 1.7, 3, 4, 2.5};
+        for (double factor : factors) {
+            for (BoardRenderer renderer : new BoardRenderer[] {kept, fresh}) {
+                renderer.zoomAt(factor, 200, 150);
+                renderer.panBy(37, -21);
+            }
+            assertArrayEquals(frame(fresh), frame(kept), "zoom " + kept.getZoom());
+        }
+        assertTrue(kept.getZoom() >= BoardRenderer.TILE_ZOOM);
+    }
+
+    @Test
+    public void testZoomKeepsCellUnderPointer() {
+        Minesweeper game = new Minesweeper(BoardConfig.custom(500, 500, 20000).withSeed(1));
+        BoardRenderer renderer = new BoardRenderer(game);
+        frame(renderer);
+        renderer.zoomAt(3, WIDTH / 2, HEIGHT / 2);
+        int[][] pointers = {{100, 100}, {WIDTH / 2, HEIGHT / 2}, {500, 400}};
+        for (int[] p : pointers) {
+            int column = renderer.columnAt(p[0]);
+            int row = renderer.rowAt(p[1]);
+            renderer.zoomAt(1.25, p[0], p[1]);
+            assertEquals(column, renderer.columnAt(p[0]));
+            assertEquals(row, renderer.rowAt(p[1]));
+        }
+    }
+
+    @Test
+    public void testZoomLimits() {
+        Minesweeper game = new Minesweeper(BoardConfig.custom(2000, 3000, 100000).withSeed(2));
+        BoardRenderer renderer = new BoardRenderer(game);
+        // The first frame fits the whole board.
+        frame(renderer);
+        double fit = renderer.getZoom();
+        assertEquals(Math.min((double) WIDTH / 3000, (double) HEIGHT / 2000), fit, 1e-12);
+        assertFalse(renderer.isOnMinimap(WIDTH - 20, HEIGHT - 20));
+
+        renderer.zoomAt(1e6, 10, 10);
+        assertEquals(BoardRenderer.MAX_ZOOM, renderer.getZoom());
+        renderer.zoomAt(0.9, 10, 10);
+        assertEquals(Math.floor(renderer.getZoom()), renderer.getZoom());
+        renderer.zoomAt(1e-6, 10, 10);
+        assertEquals(fit, renderer.getZoom(), 1e-12);
+        // Off the board, nothing is under the pointer.
+        assertEquals(-1, renderer.rowAt(HEIGHT - 1));
+    }
+
+    @Test
+    public void testPanStopsAtEdges() {
+        Minesweeper game = new Minesweeper(BoardConfig.custom(400, 400, 16000).withSeed(4));
+        BoardRenderer renderer = new BoardRenderer(game);
+        frame(renderer);
+        renderer.zoomAt(20, 0, 0);
+        renderer.panBy(100000, 100000);
+        assertEquals(0, renderer.columnAt(0));
+        assertEquals(0, renderer.rowAt(0));
+        renderer.panBy(-100000, -100000);
+        assertEquals(399, renderer.columnAt(WIDTH - 1));
+        assertEquals(399, renderer.rowAt(HEIGHT - 1));
+    }
+
+    @Test
+    public void testMinimapCentersView() {
+        Minesweeper game = new Minesweeper(BoardConfig.custom(1000, 1000, 50000).withSeed(5));
+        BoardRenderer renderer = new BoardRenderer(game);
+        frame(renderer);
+        renderer.zoomAt(8, 0, 0);
+        frame(renderer);
+        // The minimap sits in the bottom right corner; its middle is the
+        // middle of the board.
+        int x = WIDTH - 8 - BoardRenderer.MINIMAP_SIZE / 2;
+        int y = HEIGHT - 8 - BoardRenderer.MINIMAP_SIZE / 2;
+        assertTrue(renderer.isOnMinimap(x, y));
+        assertFalse(renderer.isOnMinimap(10, 10));
+        renderer.centerOnMinimap(x, y);
+        assertEquals(500, renderer.columnAt(WIDTH / 2), 5);
+        assertEquals(500, renderer.rowAt(HEIGHT / 2), 5);
+    }
+}
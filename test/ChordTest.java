@@ -0,0 +1,195 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Rectangle;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Chording and batched moves: a chord reveals the other neighbors only when
+ * the flags match the number, a wrong flag loses the game, and a batch ends
+ * up where the same moves played one by one do, with one change-set that
+ * lists every change and one undo step.
+ */
+public class ChordTest {
+
+    // A game on a board with mines at the given cells, nothing revealed.
+    private static Minesweeper gameWithMines(int rows, int columns, int... mines) {
+        PackedBoard board = new PackedBoard(rows, columns);
+        for (int i : mines) {
+            board.setMine(i, true);
+        }
+        MineGenerator.countAdjacentMines(board);
+        board.recount();
+        Minesweeper game = new Minesweeper(BoardConfig.custom(rows, columns, mines.length), true);
+        game.load(new BoardFile(mines.length, mines.length, false, 0, board));
+        return game;
+    }
+
+    @Test
+    public void testChordRevealsWhenFlagsMatch() {
+        //   X 1 1 X
+        Minesweeper game = gameWithMines(1, 4, 0, 3);
+        game.playTurn(1, 0);
+        // No flag yet: nothing happens.
+        assertFalse(game.chord(1, 0));
+        assertFalse(game.getCellRevealed(2, 0));
+        game.placeFlag(0, 0);
+        assertTrue(game.chord(1, 0));
+        assertTrue(game.getCellRevealed(2, 0));
+        assertEquals(1, game.getLastRevealedCount());
+        assertEquals(2, game.getLastRevealedCell(0));
+        assertFalse(game.getGameOver());
+        // Chording a number with nothing hidden left does nothing.
+        assertFalse(game.chord(1, 0));
+    }
+
+    @Test
+    public void testChordOnlyOnRevealedNumbers() {
+        //   X 1 0 0
+        Minesweeper game = gameWithMines(1, 4, 0);
+        assertFalse(game.chord(1, 0));
+        game.playTurn(3, 0);
+        assertTrue(game.getCellRevealed(1, 0));
+        // A 0 has nothing to chord, and neither has a cell off the board.
+        assertFalse(game.chord(3, 0));
+        assertFalse(game.chord(7, 0));
+        assertEquals(0, game.getRemainingSafeCells());
+    }
+
+    @Test
+    public void testChordWithWrongFlagLoses() {
+        //   X 1 1 X
+        Minesweeper game = gameWithMines(1, 4, 0, 3);
+        game.playTurn(1, 0);
+        game.placeFlag(2, 0);
+        assertTrue(game.chord(1, 0));
+        assertTrue(game.getGameOver());
+        assertTrue(game.getCellLost(0, 0));
+        // The chord goes on the undo history like any move.
+        assertTrue(game.undo());
+        assertFalse(game.getGameOver());
+        assertFalse(game.getCellRevealed(0, 0));
+        assertTrue(game.getCellFlagged(2, 0));
+    }
+
+    @Test
+    public void testBatchMatchesSingleMoves() {
+        for (long seed = 0; seed < 20; seed++) {
+            BoardConfig config = BoardConfig.INTERMEDIATE.withSeed(seed);
+            Minesweeper single = new Minesweeper(config, true);
+            Minesweeper batched = new Minesweeper(config, true);
+            single.playTurn(8, 8);
+            batched.playTurn(8, 8);
+            PackedBoard layout = single.snapshot().getBoard();
+            PackedBoard before = batched.snapshot().getBoard();
+            int flagsBefore = batched.getNumFlags();
+
+            // Mostly moves that keep the game going, and now and then a mine.
+            SplittableRandom rng = new SplittableRandom(seed);
+            MoveBatch batch = new MoveBatch();
+            int applied = 0;
+            for (int k = 0; k < 60; k++) {
+                int c = rng.nextInt(16);
+                int r = rng.nextInt(16);
+                int kind = rng.nextInt(3);
+                if (kind == 0 && layout.isMine(r * 16 + c) && rng.nextInt(20) != 0) {
+                    kind = 1;
+                }
+                boolean changed;
+                if (kind == 0) {
+                    batch.reveal(c, r);
+                    changed = single.playTurn(c, r);
+                } else if (kind == 1) {
+                    batch.flag(c, r);
+                    changed = single.placeFlag(c, r) >= 0;
+                } else {
+                    batch.chord(c, r);
+                    changed = single.chord(c, r);
+                }
+                if (changed) {
+                    applied++;
+                }
+            }
+            boolean won = !single.getGameOver() && single.checkWinner();
+
+            ChangeSet changes = batched.apply(batch);
+            assertEquals(applied, changes.getMovesApplied());
+            assertEquals(single.getGameOver(), changes.isGameOver());
+            assertEquals(won, changes.isWon());
+            assertEquals(single.getNumFlags(), batched.getNumFlags());
+
+            Set<Integer> revealed = new HashSet<>();
+            for (int k = 0; k < changes.getRevealedCount(); k++) {
+                revealed.add(changes.getRevealedCell(k));
+                assertEquals(changes.getRevealedCell(k), batched.getLastRevealedCell(k));
+            }
+            assertEquals(changes.getRevealedCount(), batched.getLastRevealedCount());
+            Rectangle bounds = changes.getBounds();
+            for (int i = 0; i < layout.size(); i++) {
+                int c = i % 16;
+                int r = i / 16;
+                assertEquals(single.getCellRevealed(c, r), batched.getCellRevealed(c, r));
+                assertEquals(single.getCellFlagged(c, r), batched.getCellFlagged(c, r));
+                assertEquals(single.getCellLost(c, r), batched.getCellLost(c, r));
+                boolean newlyRevealed = batched.getCellRevealed(c, r) && !before.isRevealed(i);
+                assertEquals(newlyRevealed, revealed.contains(i), "cell " + i);
+                if (newlyRevealed || batched.getCellFlagged(c, r) != before.isFlagged(i)) {
+                    assertTrue(bounds.contains(c, r));
+                }
+            }
+            if (!single.getGameOver()) {
+                assertEquals(-1, changes.getLostCell());
+            } else {
+                int lost = changes.getLostCell();
+                assertTrue(batched.getCellLost(lost % 16, lost / 16));
+            }
+
+            // The whole batch is one step of history.
+            assertTrue(batched.undo());
+            assertEquals(flagsBefore, batched.getNumFlags());
+            assertFalse(batched.getGameOver());
+            for (int i = 0; i < layout.size(); i++) {
+                assertEquals(before.isRevealed(i), batched.getCellRevealed(i % 16, i / 16));
+                assertEquals(before.isFlagged(i), batched.getCellFlagged(i % 16, i / 16));
+            }
+        }
+    }
+
+    @Test
+    public void testBatchStopsAtGameOver() {
+        //   X 1 1 X
+        Minesweeper game = gameWithMines(1, 4, 0, 3);
+        ChangeSet changes = game.apply(
+                new MoveBatch().reveal(0, 0).reveal(1, 0).flag(3, 0)
+        );
+        assertTrue(changes.isGameOver());
+        assertFalse(changes.isWon());
+        assertEquals(1, changes.getMovesApplied());
+        assertEquals(0, changes.getLostCell());
+        assertFalse(game.getCellRevealed(1, 0));
+        assertFalse(game.getCellFlagged(3, 0));
+    }
+
+    @Test
+    public void testBatchCanWin() {
+        //   X 1 1 X
+        Minesweeper game = gameWithMines(1, 4, 0, 3);
+        ChangeSet changes = game.apply(
+                new MoveBatch().flag(0, 0).reveal(1, 0).reveal(2, 0).flag(3, 0)
+        );
+        assertEquals(4, changes.getMovesApplied());
+        assertEquals(2, changes.getRevealedCount());
+        assertEquals(2, changes.getFlagChangeCount());
+        assertEquals(0, changes.getFlagChangeCell(0));
+        assertTrue(changes.isFlagPlaced(0));
+        assertTrue(changes.isWon());
+        assertTrue(changes.isGameOver());
+        assertTrue(game.getGameOver());
+        assertEquals(new Rectangle(0, 0, 4, 1), changes.getBounds());
+    }
+}
@@ -0,0 +1,209 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConcurrentMinesweeper under several threads at once: overlapping fills
+ * reveal what one fill would, and snapshots are never torn by moves running
+ * during them.
+ */
+public class ConcurrentMinesweeperTest {
+
+    private static final int THREADS = 4;
+
+    // Runs body on THREADS threads started together, passing each its number,
+    // and rethrows the first failure.
+    private static void runTogether(ThreadBody body) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int number = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    body.run(number);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    // Every revealed cell without adjacent mines has all its neighbors
+    // revealed: no fill was caught half done.
+    private static void assertFillsComplete(PackedBoard board) {
+        for (int i = 0; i < board.size(); i++) {
+            if (!board.isRevealed(i) || board.getAdjacentMines(i) > 0) {
+                continue;
+            }
+            int r = i / board.getColumns();
+            int c = i % board.getColumns();
+            for (int nr = r - 1; nr <= r + 1; nr++) {
+                for (int nc = c - 1; nc <= c + 1; nc++) {
+                    if (board.inBounds(nr, nc)) {
+                        assertTrue(board.isRevealed(board.index(nr, nc)), "fill stopped at " + i);
+                    }
+                }
+            }
+        }
+    }
+
+    // Takes 100 snapshots, checking that none caught a move half done.
+    private static void takeSnapshots(ConcurrentMinesweeper game, AtomicInteger snapshots) {
+        for (int k = 0; k < 100; k++) {
+            BoardFile snapshot = game.snapshot();
+            PackedBoard board = snapshot.getBoard();
+            board.verifyCounters();
+            assertEquals(snapshot.getNumMines() - snapshot.getNumFlags(), board.getFlaggedCells());
+            assertFillsComplete(board);
+            snapshots.incrementAndGet();
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    public void testOverlappingFillsRevealWhatOneWould() throws InterruptedException {
+        for (int round = 0; round < 10; round++) {
+            BoardConfig config = BoardConfig.custom(200, 200, 200 * 200 / 12);
+            ConcurrentMinesweeper game = new ConcurrentMinesweeper(config, round, 2);
+            PackedBoard layout = game.snapshot().getBoard();
+            // Every thread clicks the same safe cells, in its own order, so
+            // fills overlap all the time.
+            List<Integer> clicks = new ArrayList<>();
+            SplittableRandom rng = new SplittableRandom(round);
+            while (clicks.size() < 300) {
+                int i = rng.nextInt(layout.size());
+                if (!layout.isMine(i)) {
+                    clicks.add(i);
+                }
+            }
+            AtomicInteger revealedByMoves = new AtomicInteger();
+            runTogether(thread -> {
+                SplittableRandom order = new SplittableRandom(thread);
+                for (int k = 0; k < clicks.size(); k++) {
+                    int i = clicks.get(order.nextInt(clicks.size()));
+                    int revealed = game.playTurn(i % 200, i / 200);
+                    assertEquals(Math.max(revealed, 0), game.getLastRevealedCount());
+                    revealedByMoves.addAndGet(Math.max(revealed, 0));
+                }
+                for (int i : clicks) {
+                    revealedByMoves.addAndGet(Math.max(game.playTurn(i % 200, i / 200), 0));
+                }
+            });
+
+            Minesweeper expected = new Minesweeper(config, false);
+            expected.load(new BoardFile(config.getMines(), config.getMines(), false, 0, layout));
+            for (int i : clicks) {
+                expected.playTurn(i % 200, i / 200);
+            }
+            BoardFile snapshot = game.snapshot();
+            snapshot.getBoard().verifyCounters();
+            // Each cell was revealed by exactly one move.
+            int safe = 200 * 200 - config.getMines();
+            assertEquals(safe - game.getRemainingSafeCells(), revealedByMoves.get());
+            assertEquals(expected.getRemainingSafeCells(), game.getRemainingSafeCells());
+            for (int r = 0; r < 200; r++) {
+                for (int c = 0; c < 200; c++) {
+                    assertEquals(expected.getCellRevealed(c, r), game.getCellRevealed(c, r));
+                }
+            }
+            assertFalse(game.getGameOver());
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    public void testSnapshotsAreConsistentUnderWrites() throws InterruptedException {
+        BoardConfig config = BoardConfig.custom(300, 300, 300 * 300 / 10);
+        ConcurrentMinesweeper game = new ConcurrentMinesweeper(config, 5, 2);
+        PackedBoard layout = game.snapshot().getBoard();
+        AtomicInteger takersDone = new AtomicInteger();
+        AtomicInteger snapshots = new AtomicInteger();
+        runTogether(thread -> {
+            if (thread < 2) {
+                // Two snapshot takers, so they also compete to hold moves back.
+                try {
+                    takeSnapshots(game, snapshots);
+                } finally {
+                    takersDone.incrementAndGet();
+                }
+                return;
+            }
+            // Writers keep going until both takers are done, and never hit a
+            // mine, so the game goes on.
+            SplittableRandom rng = new SplittableRandom(thread);
+            while (takersDone.get() < 2) {
+                int i = rng.nextInt(layout.size());
+                if (layout.isMine(i) || rng.nextInt(4) == 0) {
+                    game.placeFlag(i % 300, i / 300);
+                } else {
+                    game.playTurn(i % 300, i / 300);
+                }
+            }
+        });
+        assertEquals(200, snapshots.get());
+        assertFalse(game.getGameOver());
+    }
+
+    @Test
+    public void testWinNeedsEveryMineFlagged() {
+        BoardConfig config = BoardConfig.custom(9, 9, 10);
+        ConcurrentMinesweeper game = new ConcurrentMinesweeper(config, 3, 1);
+        PackedBoard layout = game.snapshot().getBoard();
+        for (int i = 0; i < layout.size(); i++) {
+            if (!layout.isMine(i)) {
+                game.playTurn(i % 9, i / 9);
+            }
+        }
+        assertEquals(0, game.getRemainingSafeCells());
+        assertFalse(game.getGameOver());
+        for (int i = 0; i < layout.size(); i++) {
+            if (layout.isMine(i)) {
+                assertEquals(1, game.placeFlag(i % 9, i / 9));
+            }
+        }
+        assertTrue(game.isWon());
+        assertTrue(game.getGameOver());
+    }
+
+    @Test
+    public void testMineEndsTheGame() {
+        ConcurrentMinesweeper game = new ConcurrentMinesweeper(BoardConfig.BEGINNER, 3, 1);
+        PackedBoard layout = game.snapshot().getBoard();
+        int mine = 0;
+        while (!layout.isMine(mine)) {
+            mine++;
+        }
+        assertEquals(0, game.playTurn(mine % 9, mine / 9));
+        assertEquals(mine, game.getLastLostCell());
+        assertTrue(game.getGameOver());
+        assertFalse(game.isWon());
+        assertTrue(game.getCellLost(mine % 9, mine / 9));
+        assertEquals(-1, game.placeFlag(mine % 9, mine / 9));
+        assertEquals(-1, game.playTurn(game.getStartColumn(), game.getStartRow()));
+    }
+}
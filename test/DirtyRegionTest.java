@@ -0,0 +1,85 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Rectangle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The region the view repaints: a new game covers the whole board, each
+ * change is reported once, and a move reports the smallest rectangle around
+ * the cells it touched.
+ */
+public class DirtyRegionTest {
+
+    @Test
+    public void testNewGameCoversBoard() {
+        Minesweeper game = new Minesweeper(BoardConfig.custom(20, 30, 60).withSeed(1), false);
+        assertEquals(new Rectangle(0, 0, 30, 20), game.takeDirtyRegion());
+        assertNull(game.takeDirtyRegion());
+        game.reset(2);
+        assertEquals(new Rectangle(0, 0, 30, 20), game.takeDirtyRegion());
+    }
+
+    @Test
+    public void testFlagIsOneCell() {
+        Minesweeper game = new Minesweeper(BoardConfig.custom(20, 30, 60).withSeed(1), false);
+        game.playTurn(15, 10);
+        game.takeDirtyRegion();
+        int c = 0;
+        while (game.getCellRevealed(c, 0)) {
+            c++;
+        }
+        game.placeFlag(c, 0);
+        assertEquals(new Rectangle(c, 0, 1, 1), game.takeDirtyRegion());
+        // Nothing changes on a revealed cell.
+        game.placeFlag(15, 10);
+        assertNull(game.takeDirtyRegion());
+    }
+
+    @Test
+    public void testRevealCoversOpenedCells() {
+        for (long seed = 0; seed < 10; seed++) {
+            Minesweeper game = new Minesweeper(
+                    BoardConfig.custom(40, 50, 150).withSeed(seed), false
+            );
+            // The first click also fixes the layout, which repaints all of it.
+            game.playTurn(7, 31);
+            game.takeDirtyRegion();
+            PackedBoard layout = game.snapshot().getBoard();
+            int next = 0;
+            while (layout.isMine(next) || layout.isRevealed(next)) {
+                next++;
+            }
+            game.playTurn(next % 50, next / 50);
+            int minRow = 40;
+            int maxRow = -1;
+            int minColumn = 50;
+            int maxColumn = -1;
+            for (int k = 0; k < game.getLastRevealedCount(); k++) {
+                int cell = game.getLastRevealedCell(k);
+                minRow = Math.min(minRow, cell / 50);
+                maxRow = Math.max(maxRow, cell / 50);
+                minColumn = Math.min(minColumn, cell % 50);
+                maxColumn = Math.max(maxColumn, cell % 50);
+            }
+            Rectangle opened = new Rectangle(
+                    minColumn, minRow, maxColumn - minColumn + 1, maxRow - minRow + 1
+            );
+            assertEquals(opened, game.takeDirtyRegion());
+        }
+    }
+
+    @Test
+    public void testMineEditCoversNeighbors() {
+        Minesweeper game = new Minesweeper(BoardConfig.custom(10, 10, 5).withSeed(3), false);
+        game.playTurn(5, 5);
+        game.takeDirtyRegion();
+        game.setNotMine(0, 0);
+        game.setMine(0, 0);
+        assertEquals(new Rectangle(0, 0, 2, 2), game.takeDirtyRegion());
+        game.setMine(5, 9);
+        assertEquals(new Rectangle(4, 8, 3, 2), game.takeDirtyRegion());
+    }
+}
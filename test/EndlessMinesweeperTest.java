@@ -0,0 +1,193 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Endless boards: counts across chunk borders, chunks written out and read
+ * back, and reveals too large for one call.
+ */
+public class EndlessMinesweeperTest {
+
+    private static final int SIZE = ChunkStore.CHUNK_SIZE;
+    // Cells checked: the four chunks around the origin and part of the next
+    // ring, so every kind of border is crossed.
+    private static final int REACH = SIZE + SIZE / 2;
+
+    @TempDir
+    Path dir;
+
+    private static boolean isMine(ChunkStore store, int x, int y) {
+        return cells(store, x, y).isMine(local(x, y));
+    }
+
+    private static PackedBoard cells(ChunkStore store, int x, int y) {
+        return store.chunk(Math.floorDiv(x, SIZE), Math.floorDiv(y, SIZE)).cells;
+    }
+
+    private static int local(int x, int y) {
+        return Math.floorMod(y, SIZE) * SIZE + Math.floorMod(x, SIZE);
+    }
+
+    // Every safe cell within REACH of the origin counts the mines around it,
+    // wherever they are.
+    private static void assertCountsMatchMines(ChunkStore store) {
+        for (int y = -REACH; y < REACH; y++) {
+            for (int x = -REACH; x < REACH; x++) {
+                if (isMine(store, x, y)) {
+                    continue;
+                }
+                int adjacent = 0;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        if ((dx != 0 || dy != 0) && isMine(store, x + dx, y + dy)) {
+                            adjacent++;
+                        }
+                    }
+                }
+                assertEquals(
+                        adjacent, cells(store, x, y).getAdjacentMines(local(x, y)),
+                        "count at " + x + "," + y
+                );
+            }
+        }
+    }
+
+    private static void assertSameCells(EndlessMinesweeper expected, EndlessMinesweeper actual) {
+        assertEquals(expected.getRevealedCells(), actual.getRevealedCells());
+        for (int y = -REACH; y < REACH; y++) {
+            for (int x = -REACH; x < REACH; x++) {
+                assertEquals(
+                        expected.getCellRevealed(x, y), actual.getCellRevealed(x, y),
+                        "cell " + x + "," + y
+                );
+            }
+        }
+    }
+
+    private static void assertNoTemporaryFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(f -> f.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    public void testCountsAcrossChunkBorders() throws IOException {
+        // The smallest cache, so chunks are evicted while the sweep runs.
+        ChunkStore store = new ChunkStore(5, 600, dir, 0);
+        assertCountsMatchMines(store);
+        assertEquals(0, store.getChunksWritten());
+
+        // Modified chunks are written when evicted and read back with the same
+        // counts, including those from their neighbors. There are more of
+        // them than the cache holds.
+        for (int cy = -3; cy <= 2; cy++) {
+            for (int cx = -3; cx <= 2; cx++) {
+                ChunkStore.Chunk chunk = store.chunk(cx, cy);
+                chunk.cells.setFlagged(0, true);
+                chunk.modified = true;
+            }
+        }
+        assertCountsMatchMines(store);
+        assertTrue(store.getChunksWritten() > 0);
+        assertTrue(store.getChunksRead() > 0);
+        assertTrue(cells(store, -3 * SIZE, -3 * SIZE).isFlagged(0));
+        assertNoTemporaryFiles(dir);
+    }
+
+    @Test
+    public void testOriginIsSafe() {
+        ChunkStore store = new ChunkStore(9, ChunkStore.CHUNK_CELLS - 9, dir, 0);
+        for (int y = -1; y <= 1; y++) {
+            for (int x = -1; x <= 1; x++) {
+                assertFalse(isMine(store, x, y));
+            }
+        }
+    }
+
+    // A seed whose first click opens more than cells cells.
+    private long bigOpening(int cells) {
+        for (long seed = 0; seed < 1000; seed++) {
+            EndlessMinesweeper game = new EndlessMinesweeper(
+                    seed, EndlessMinesweeper.MIN_DENSITY, dir.resolve("seed" + seed), 1 << 20
+            );
+            game.playTurn(0, 0);
+            if (game.getRevealedCells() > cells) {
+                return seed;
+            }
+        }
+        throw new IllegalStateException("No seed opens " + cells + " cells");
+    }
+
+    @Test
+    public void testFillCarriesOnPastTheLimit() throws IOException {
+        long seed = bigOpening(200);
+        EndlessMinesweeper whole = new EndlessMinesweeper(
+                seed, EndlessMinesweeper.MIN_DENSITY, dir.resolve("whole"), 1 << 20
+        );
+        whole.playTurn(0, 0);
+        assertFalse(whole.hasPendingFill());
+
+        EndlessMinesweeper limited = new EndlessMinesweeper(
+                seed, EndlessMinesweeper.MIN_DENSITY, dir.resolve("limited"), 0
+        );
+        limited.setMaxFill(50);
+        assertTrue(limited.playTurn(0, 0));
+        assertEquals(50, limited.getLastRevealedCount());
+        assertTrue(limited.hasPendingFill());
+
+        // The rest of the region survives a save and reopen.
+        limited.save();
+        EndlessMinesweeper reopened = EndlessMinesweeper.open(dir.resolve("limited"), 0);
+        assertTrue(reopened.hasPendingFill());
+        reopened.setMaxFill(50);
+        int calls = 1;
+        while (reopened.hasPendingFill()) {
+            assertTrue(reopened.continueFill() > 0);
+            calls++;
+        }
+        assertEquals(0, reopened.continueFill());
+        assertTrue(calls > 3);
+        assertSameCells(whole, reopened);
+        assertNoTemporaryFiles(dir.resolve("limited"));
+    }
+
+    @Test
+    public void testClickDuringPendingFillGoesFirst() {
+        long seed = bigOpening(200);
+        EndlessMinesweeper game = new EndlessMinesweeper(
+                seed, EndlessMinesweeper.MIN_DENSITY, dir.resolve("game"), 1 << 20
+        );
+        game.setMaxFill(20);
+        game.playTurn(0, 0);
+        assertTrue(game.hasPendingFill());
+        // A hidden safe cell away from the fill is revealed by the next click,
+        // and the pending fill then goes on as before.
+        int mines = (int) Math.round(EndlessMinesweeper.MIN_DENSITY * ChunkStore.CHUNK_CELLS);
+        ChunkStore store = new ChunkStore(seed, mines, dir.resolve("store"), 1 << 20);
+        int x = 3 * SIZE;
+        while (game.getCellRevealed(x, 0) || isMine(store, x, 0)) {
+            x++;
+        }
+        assertTrue(game.playTurn(x, 0));
+        assertTrue(game.getCellRevealed(x, 0));
+        assertFalse(game.getGameOver());
+        while (game.hasPendingFill()) {
+            game.continueFill();
+        }
+
+        EndlessMinesweeper whole = new EndlessMinesweeper(
+                seed, EndlessMinesweeper.MIN_DENSITY, dir.resolve("whole"), 1 << 20
+        );
+        whole.playTurn(0, 0);
+        whole.playTurn(x, 0);
+        assertSameCells(whole, game);
+    }
+}
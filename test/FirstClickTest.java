@@ -0,0 +1,122 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Layouts fixed by the first click: the click is never a mine and opens its
+ * whole neighborhood when the density allows, the layout depends only on the
+ * seed and the click whatever the number of generation threads, and a reset
+ * starts a fresh, untouched board.
+ */
+public class FirstClickTest {
+
+    private static int countMines(PackedBoard board) {
+        int mines = 0;
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isMine(i)) {
+                mines++;
+            }
+        }
+        return mines;
+    }
+
+    @Test
+    public void testFirstClickIsSafe() {
+        BoardConfig[] configs = {BoardConfig.BEGINNER, BoardConfig.EXPERT};
+        long seed = 0;
+        for (BoardConfig config : configs) {
+            for (int k = 0; k < 40; k++) {
+                Minesweeper game = new Minesweeper(config.withSeed(seed), false);
+                int c = (int) (seed * 7 % config.getColumns());
+                int r = (int) (seed * 3 % config.getRows());
+                seed++;
+                assertTrue(game.playTurn(c, r));
+                assertFalse(game.getGameOver());
+                // The neighbors are clear, so the click shows a 0 and opens
+                // all of them.
+                assertEquals(0, game.getCellAdjacentMines(c, r));
+                for (int nr = r - 1; nr <= r + 1; nr++) {
+                    for (int nc = c - 1; nc <= c + 1; nc++) {
+                        if (nr >= 0 && nc >= 0 && nr < config.getRows()
+                                && nc < config.getColumns()) {
+                            assertTrue(game.getCellRevealed(nc, nr));
+                        }
+                    }
+                }
+                assertEquals(config.getMines(), countMines(game.snapshot().getBoard()));
+            }
+        }
+    }
+
+    @Test
+    public void testDenseBoardKeepsClickedCell() {
+        for (long seed = 0; seed < 20; seed++) {
+            Minesweeper game = new Minesweeper(BoardConfig.custom(9, 9, 80).withSeed(seed), false);
+            game.playTurn(4, 4);
+            assertFalse(game.getGameOver());
+            assertEquals(0, game.getRemainingSafeCells());
+        }
+    }
+
+    @Test
+    public void testLayoutDoesNotDependOnThreads() {
+        // Tall enough for several stripes.
+        BoardConfig config = BoardConfig.custom(1000, 50, 9000).withSeed(12);
+        PackedBoard expected = null;
+        for (int threads : new int[] {1, 2, 4}) {
+            Minesweeper game = new Minesweeper(config, false);
+            game.setGenerationThreads(threads);
+            game.playTurn(25, 700);
+            PackedBoard layout = game.snapshot().getBoard();
+            assertEquals(9000, countMines(layout));
+            if (expected == null) {
+                expected = layout;
+            } else {
+                for (int i = 0; i < layout.size(); i++) {
+                    assertEquals(expected.isMine(i), layout.isMine(i), "cell " + i);
+                    assertEquals(expected.isRevealed(i), layout.isRevealed(i), "cell " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testResetStartsFreshBoard() {
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT.withSeed(5), false);
+        game.playTurn(15, 8);
+        game.placeFlag(0, 0);
+        game.reset(6);
+        assertEquals(16 * 30, game.getUnrevealedCells());
+        assertEquals(0, game.getFlaggedCells());
+        assertEquals(99, game.getNumFlags());
+        assertFalse(game.getGameOver());
+        // A reset with another seed and the same click gives another layout.
+        game.playTurn(15, 8);
+        PackedBoard second = game.snapshot().getBoard();
+        Minesweeper other = new Minesweeper(BoardConfig.EXPERT.withSeed(5), false);
+        other.playTurn(15, 8);
+        PackedBoard first = other.snapshot().getBoard();
+        boolean differs = false;
+        for (int i = 0; i < first.size(); i++) {
+            differs |= first.isMine(i) != second.isMine(i);
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    public void testSnapshotBeforeFirstClick() {
+        // With no click yet the layout is fixed with no cell kept clear.
+        Minesweeper game = new Minesweeper(BoardConfig.INTERMEDIATE.withSeed(8), false);
+        PackedBoard layout = game.snapshot().getBoard();
+        assertEquals(40, countMines(layout));
+        assertEquals(layout.size(), layout.getHiddenCells());
+        int mine = 0;
+        while (!layout.isMine(mine)) {
+            mine++;
+        }
+        game.playTurn(mine % 16, mine / 16);
+        assertTrue(game.getGameOver());
+    }
+}
@@ -0,0 +1,158 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The iterative flood fill against a plain breadth-first reveal, on boards
+ * with flags and cells that are already open, and on a board large enough
+ * that a recursive fill would overflow the stack.
+ */
+public class FloodFillTest {
+
+    // A board with mines and counts, some safe cells flagged and some open.
+    private static PackedBoard randomBoard(int rows, int columns, double density, long seed) {
+        PackedBoard board = new PackedBoard(rows, columns);
+        SplittableRandom rng = new SplittableRandom(seed);
+        MineGenerator.placeMines(board, (int) (density * rows * columns), rng);
+        MineGenerator.countAdjacentMines(board);
+        for (int i = 0; i < board.size(); i++) {
+            int roll = rng.nextInt(40);
+            if (roll == 0) {
+                board.setFlagged(i, true);
+            } else if (roll == 1 && !board.isMine(i)) {
+                board.setRevealed(i);
+            }
+        }
+        return board;
+    }
+
+    // The cells a reveal at i opens, found breadth first with a visited set.
+    private static Set<Integer> bruteForce(PackedBoard board, int i) {
+        Set<Integer> opened = new HashSet<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(i);
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            if (board.isMine(cell) || board.isRevealed(cell) || !opened.add(cell)) {
+                continue;
+            }
+            if (board.getAdjacentMines(cell) > 0) {
+                continue;
+            }
+            int r = cell / board.getColumns();
+            int c = cell % board.getColumns();
+            for (int nr = r - 1; nr <= r + 1; nr++) {
+                for (int nc = c - 1; nc <= c + 1; nc++) {
+                    if (board.inBounds(nr, nc)) {
+                        queue.add(board.index(nr, nc));
+                    }
+                }
+            }
+        }
+        return opened;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        int[][] shapes = {{1, 1}, {1, 40}, {40, 1}, {9, 9}, {16, 30}, {57, 83}};
+        double[] densities = {0, 0.05, 0.15, 0.4};
+        long seed = 0;
+        for (int[] shape : shapes) {
+            for (double density : densities) {
+                PackedBoard board = randomBoard(shape[0], shape[1], density, seed++);
+                FloodFill fill = new FloodFill(board);
+                SplittableRandom clicks = new SplittableRandom(seed);
+                for (int k = 0; k < 20; k++) {
+                    int i = clicks.nextInt(board.size());
+                    Set<Integer> expected = bruteForce(board, i);
+                    Set<Integer> flagged = new HashSet<>();
+                    for (int cell : expected) {
+                        if (board.isFlagged(cell)) {
+                            flagged.add(cell);
+                        }
+                    }
+                    int hiddenBefore = board.getHiddenCells();
+
+                    int count = fill.fill(i / board.getColumns(), i % board.getColumns());
+                    assertEquals(expected.size(), count);
+                    Set<Integer> opened = new HashSet<>();
+                    for (int j = 0; j < count; j++) {
+                        opened.add(fill.getRevealed(j));
+                    }
+                    assertEquals(expected, opened);
+                    Set<Integer> cleared = new HashSet<>();
+                    for (int j = 0; j < fill.getFlagsCleared(); j++) {
+                        cleared.add(fill.getFlagCleared(j));
+                    }
+                    assertEquals(flagged, cleared);
+                    for (int cell : opened) {
+                        assertTrue(board.isRevealed(cell));
+                        assertFalse(board.isFlagged(cell));
+                    }
+                    assertEquals(hiddenBefore - count, board.getHiddenCells());
+                    board.verifyCounters();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNothingToReveal() {
+        PackedBoard board = randomBoard(20, 20, 0.2, 1);
+        FloodFill fill = new FloodFill(board);
+        int mine = 0;
+        while (!board.isMine(mine)) {
+            mine++;
+        }
+        assertEquals(0, fill.fill(mine / 20, mine % 20));
+        assertFalse(board.isRevealed(mine));
+        assertEquals(0, fill.fill(-1, 0));
+        assertEquals(0, fill.fill(0, 20));
+        assertThrows(IndexOutOfBoundsException.class, () -> fill.getRevealed(0));
+
+        int open = 0;
+        while (board.isMine(open)) {
+            open++;
+        }
+        fill.fill(open / 20, open % 20);
+        assertEquals(0, fill.fill(open / 20, open % 20));
+    }
+
+    @Test
+    public void testHugeSparseBoardDoesNotRecurse() {
+        // 4096x4096 with 1% mines: one click opens most of the board.
+        int side = 4096;
+        PackedBoard board = new PackedBoard(side, side);
+        MineGenerator.placeMines(
+                board, side * side / 100, new SplittableRandom(4), side / 2, side / 2
+        );
+        MineGenerator.countAdjacentMines(board);
+        FloodFill fill = new FloodFill(board);
+        int count = fill.fill(side / 2, side / 2);
+        assertTrue(count > side * side / 2);
+        assertEquals(board.size() - count, board.getHiddenCells());
+        // No zero cell was left with a hidden neighbor.
+        for (int k = 0; k < count; k++) {
+            int i = fill.getRevealed(k);
+            if (board.getAdjacentMines(i) > 0) {
+                continue;
+            }
+            int r = i / side;
+            int c = i % side;
+            for (int nr = r - 1; nr <= r + 1; nr++) {
+                for (int nc = c - 1; nc <= c + 1; nc++) {
+                    if (board.inBounds(nr, nc)) {
+                        assertTrue(board.isRevealed(board.index(nr, nc)));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Game metrics: nothing is counted while they are off, every instrumented
+ * call adds its work when they are on, nested calls are timed separately,
+ * and the totals and the switch can be reached over JMX.
+ */
+public class GameMetricsTest {
+
+    @BeforeEach
+    public void setUp() {
+        GameMetrics.setEnabled(false);
+        GameMetrics.reset();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        GameMetrics.setEnabled(false);
+        GameMetrics.reset();
+    }
+
+    @Test
+    public void testOffCountsNothing() {
+        assertEquals(0, GameMetrics.start());
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT.withSeed(1), false);
+        game.playTurn(15, 8);
+        game.checkWinner();
+        for (GameMetrics.Action action : GameMetrics.Action.values()) {
+            assertEquals(0, GameMetrics.get(action).getCount(), action.getLabel());
+        }
+    }
+
+    @Test
+    public void testOnCountsCallsAndWork() {
+        GameMetrics.setEnabled(true);
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT.withSeed(1), false);
+        game.playTurn(15, 8);
+        int opened = game.getLastRevealedCount();
+        // Revealing an open cell is a call with no work.
+        game.playTurn(15, 8);
+        game.revealNeighbors(0, 0);
+        game.checkWinner();
+
+        ActionMetrics turns = GameMetrics.get(GameMetrics.Action.PLAY_TURN);
+        assertEquals(2, turns.getCount());
+        assertEquals(opened, turns.getTotalAmount());
+        assertEquals(0, turns.getLastAmount());
+        assertEquals(opened / 2.0, turns.getMeanAmount(), 1e-9);
+        assertTrue(turns.getMaxMillis() >= turns.getLastMillis());
+        assertTrue(turns.getTotalMillis() >= turns.getMaxMillis());
+        assertEquals(1, GameMetrics.get(GameMetrics.Action.REVEAL_NEIGHBORS).getCount());
+        assertEquals(1, GameMetrics.get(GameMetrics.Action.CHECK_WINNER).getCount());
+
+        turns.reset();
+        assertEquals(0, turns.getCount());
+        assertEquals(0, turns.getTotalAmount());
+    }
+
+    @Test
+    public void testSaveAndLoadCountBytes(@TempDir Path dir) throws Exception {
+        GameMetrics.setEnabled(true);
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT.withSeed(2), false);
+        game.playTurn(15, 8);
+        Path file = dir.resolve("game.bin");
+        assertEquals(1, game.save(file));
+        assertTrue(game.load(file));
+        long size = Files.size(file);
+        assertEquals(1, GameMetrics.get(GameMetrics.Action.SAVE).getCount());
+        assertEquals(size, GameMetrics.get(GameMetrics.Action.SAVE).getTotalAmount());
+        assertEquals(1, GameMetrics.get(GameMetrics.Action.LOAD).getCount());
+        assertEquals(size, GameMetrics.get(GameMetrics.Action.LOAD).getTotalAmount());
+    }
+
+    @Test
+    public void testNestedCalls() {
+        GameMetrics.setEnabled(true);
+        long outer = GameMetrics.start();
+        long inner = GameMetrics.start();
+        assertNotEquals(0, outer);
+        assertNotEquals(0, inner);
+        GameMetrics.record(GameMetrics.Action.CHECK_WINNER, inner, 1);
+        GameMetrics.record(GameMetrics.Action.PAINT, outer, 5);
+        assertEquals(1, GameMetrics.get(GameMetrics.Action.CHECK_WINNER).getTotalAmount());
+        assertEquals(5, GameMetrics.get(GameMetrics.Action.PAINT).getTotalAmount());
+        // A call whose inner call never recorded still ends cleanly.
+        outer = GameMetrics.start();
+        GameMetrics.start();
+        GameMetrics.record(GameMetrics.Action.PAINT, outer, 5);
+        assertEquals(2, GameMetrics.get(GameMetrics.Action.PAINT).getCount());
+        // Recording with the 0 that start returns while off does nothing.
+        GameMetrics.record(GameMetrics.Action.PAINT, 0, 5);
+        assertEquals(2, GameMetrics.get(GameMetrics.Action.PAINT).getCount());
+    }
+
+    @Test
+    public void testMBeans() throws Exception {
+        GameMetrics.registerMBeans();
+        GameMetrics.registerMBeans();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName control = new ObjectName(GameMetrics.DOMAIN + ":type=Metrics");
+        assertEquals(false, server.getAttribute(control, "Enabled"));
+        server.setAttribute(control, new Attribute("Enabled", true));
+        assertTrue(GameMetrics.isEnabled());
+
+        Minesweeper game = new Minesweeper(BoardConfig.BEGINNER.withSeed(3), false);
+        game.playTurn(4, 4);
+        ObjectName turns = new ObjectName(
+                GameMetrics.DOMAIN + ":type=Metrics,action=playTurn"
+        );
+        assertEquals(1L, server.getAttribute(turns, "Count"));
+        server.invoke(control, "reset", null, null);
+        assertEquals(0L, server.getAttribute(turns, "Count"));
+    }
+}
@@ -0,0 +1,176 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The GameServer line protocol, command by command, and once over a socket.
+ */
+public class GameServerTest {
+
+    private GameServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new GameServer(0, 60_000);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    private String send(String line) {
+        StringBuilder reply = new StringBuilder();
+        server.handle(line, reply);
+        return reply.toString();
+    }
+
+    // Starts a game with the given command and returns its session id.
+    private String open(String command) {
+        String[] reply = send(command).split(" ");
+        assertEquals("G", reply[0]);
+        return reply[1];
+    }
+
+    @Test
+    public void testNewGame() {
+        assertEquals("G", send("N").split(" ")[0]);
+        String[] reply = send("N 9 9 10 1").split(" ");
+        assertEquals(5, reply.length);
+        assertEquals("9 9 10", reply[2] + " " + reply[3] + " " + reply[4]);
+        assertTrue(Long.parseLong(reply[1]) >= 0);
+        assertEquals(2, server.getSessionCount());
+    }
+
+    @Test
+    public void testSessionIdsAreNotSequential() {
+        long first = Long.parseLong(open("N"));
+        long second = Long.parseLong(open("N"));
+        long third = Long.parseLong(open("N"));
+        assertNotEquals(first, second);
+        assertFalse(second == first + 1 && third == second + 1);
+        // A guessed neighbor of a real id names no session.
+        assertTrue(send("R " + (first + 1) + " 0 0").startsWith("E no session"));
+    }
+
+    @Test
+    public void testRevealFlagAndState() {
+        String id = open("N 9 9 10 1");
+        String[] reveal = send("R " + id + " 4 4").split(" ");
+        assertEquals("D", reveal[0]);
+        assertEquals(id, reveal[1]);
+        assertEquals("P", reveal[2]);
+        assertEquals("10", reveal[3]);
+        assertTrue(reveal.length > 4);
+        assertTrue(reveal[4].startsWith((4 * 9 + 4) + ":"));
+
+        String board = send("S " + id);
+        String[] state = board.split(" ");
+        assertEquals("B", state[0]);
+        String cells = state[4];
+        assertEquals(81, cells.length());
+        assertEquals(reveal.length - 4, cells.chars().filter(Character::isDigit).count());
+        int hidden = cells.indexOf('#');
+
+        assertEquals(
+                "D " + id + " P 9 " + hidden + ":F",
+                send("F " + id + " " + hidden % 9 + " " + hidden / 9)
+        );
+        assertEquals('F', send("S " + id).split(" ")[4].charAt(hidden));
+        assertEquals(
+                "D " + id + " P 10 " + hidden + ":H",
+                send("F " + id + " " + hidden % 9 + " " + hidden / 9)
+        );
+        // A refused move changes nothing.
+        assertEquals("D " + id + " P 10", send("R " + id + " 4 4"));
+    }
+
+    @Test
+    public void testLosingGame() {
+        String id = open("N 9 9 10 1");
+        send("R " + id + " 4 4");
+        Minesweeper same = new Minesweeper(BoardConfig.custom(9, 9, 10).withSeed(1), false);
+        same.playTurn(4, 4);
+        PackedBoard layout = same.snapshot().getBoard();
+        int mine = 0;
+        while (!layout.isMine(mine)) {
+            mine++;
+        }
+        String[] reply = send("R " + id + " " + mine % 9 + " " + mine / 9).split(" ");
+        assertEquals("L", reply[2]);
+        assertEquals(mine + ":X", reply[reply.length - 1]);
+    }
+
+    @Test
+    public void testSharedGame() {
+        String id = open("M 20 20 40 3");
+        String[] state = send("S " + id).split(" ");
+        assertEquals("P", state[2]);
+        assertEquals("40", state[3]);
+        // Opened at its middle cell.
+        assertNotEquals('#', state[4].charAt(10 * 20 + 10));
+        String hidden = String.valueOf(state[4].indexOf('#'));
+        int cell = Integer.parseInt(hidden);
+        assertEquals(
+                "D " + id + " P 39 " + cell + ":F",
+                send("F " + id + " " + cell % 20 + " " + cell / 20)
+        );
+    }
+
+    @Test
+    public void testQuit() {
+        String id = open("N");
+        assertEquals("K " + id, send("Q " + id));
+        assertEquals(0, server.getSessionCount());
+        assertTrue(send("S " + id).startsWith("E no session"));
+        assertTrue(send("Q " + id).startsWith("E no session"));
+    }
+
+    @Test
+    public void testErrors() {
+        String id = open("N");
+        assertEquals("E unknown command X", send("X"));
+        assertTrue(send("R " + id + " 1").startsWith("E command R takes 3 arguments"));
+        assertEquals("E cell out of bounds", send("R " + id + " 10 0"));
+        assertTrue(send("R " + id + " a 0").startsWith("E "));
+        assertTrue(send("R x 0 0").startsWith("E "));
+        assertTrue(send("N 2000 2000 10").startsWith("E board larger than"));
+        assertTrue(send("N 9 9").startsWith("E usage"));
+        assertTrue(send("N 9 9 100").startsWith("E "));
+    }
+
+    @Test
+    public void testOverSocket() throws IOException {
+        server.start();
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            Writer out = new OutputStreamWriter(
+                    socket.getOutputStream(), StandardCharsets.US_ASCII
+            );
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.US_ASCII
+            ));
+            // Pipelined commands get their replies in order.
+            out.write("N 9 9 10 1\nbad\n");
+            out.flush();
+            String[] game = in.readLine().split(" ");
+            assertEquals("G", game[0]);
+            assertEquals("E unknown command bad", in.readLine());
+            out.write("R " + game[1] + " 4 4\nQ " + game[1] + "\n");
+            out.flush();
+            assertTrue(in.readLine().startsWith("D " + game[1] + " P 10 "));
+            assertEquals("K " + game[1], in.readLine());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Striped generation: the layout depends only on the seed and the first
+ * click, whether the stripes are generated lazily in any order or all at
+ * once on one or several threads.
+ */
+public class LazyBoardGeneratorTest {
+
+    // Five stripes, the last one short.
+    private static final int ROWS = 4 * LazyBoardGenerator.STRIPE_ROWS + 100;
+    private static final int COLUMNS = 70;
+    private static final int MINES = ROWS * COLUMNS / 5;
+    private static final int SAFE_ROW = 2 * LazyBoardGenerator.STRIPE_ROWS - 1;
+    private static final int SAFE_COLUMN = 30;
+
+    private static PackedBoard generate(PackedBoard board, long seed, int threads) {
+        LazyBoardGenerator lazy = new LazyBoardGenerator(board, MINES);
+        lazy.plan(seed, SAFE_ROW, SAFE_COLUMN);
+        lazy.ensureAll(threads);
+        assertTrue(lazy.isComplete());
+        return board;
+    }
+
+    private static void assertSameCells(PackedBoard expected, PackedBoard actual) {
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i), "cell " + i);
+        }
+    }
+
+    // The board has MINES mines, none on or next to the safe cell, and every
+    // count matches its neighbors.
+    private static void assertValidLayout(PackedBoard board) {
+        int mines = 0;
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLUMNS; c++) {
+                int i = board.index(r, c);
+                if (board.isMine(i)) {
+                    mines++;
+                    assertFalse(
+                            Math.abs(r - SAFE_ROW) <= 1 && Math.abs(c - SAFE_COLUMN) <= 1,
+                            "mine next to the first click"
+                    );
+                    continue;
+                }
+                int adjacent = 0;
+                for (int nr = r - 1; nr <= r + 1; nr++) {
+                    for (int nc = c - 1; nc <= c + 1; nc++) {
+                        if (board.inBounds(nr, nc) && board.isMine(board.index(nr, nc))) {
+                            adjacent++;
+                        }
+                    }
+                }
+                assertEquals(adjacent, board.getAdjacentMines(i), "count of " + i);
+            }
+        }
+        assertEquals(MINES, mines);
+        board.verifyCounters();
+    }
+
+    @Test
+    public void testLayoutDoesNotDependOnThreads() {
+        PackedBoard sequential = generate(new PackedBoard(ROWS, COLUMNS), 11, 1);
+        assertValidLayout(sequential);
+        assertSameCells(sequential, generate(new PackedBoard(ROWS, COLUMNS), 11, 4));
+        assertSameCells(sequential, generate(new PackedBoard(ROWS, COLUMNS), 11, 16));
+    }
+
+    @Test
+    public void testLazyRowsMatchEagerLayout() {
+        PackedBoard eager = generate(new PackedBoard(ROWS, COLUMNS), 12, 3);
+        List<Integer> rows = new ArrayList<>();
+        for (int r = 0; r < ROWS; r++) {
+            rows.add(r);
+        }
+        for (long order = 0; order < 3; order++) {
+            Collections.shuffle(rows, new Random(order));
+            PackedBoard board = new PackedBoard(ROWS, COLUMNS);
+            LazyBoardGenerator lazy = new LazyBoardGenerator(board, MINES);
+            lazy.plan(12, SAFE_ROW, SAFE_COLUMN);
+            for (int r : rows) {
+                lazy.ensureRow(r);
+            }
+            assertTrue(lazy.isComplete());
+            assertSameCells(eager, board);
+        }
+    }
+
+    @Test
+    public void testReusedBoardGivesFreshLayout() {
+        PackedBoard reused = generate(new PackedBoard(ROWS, COLUMNS), 1, 1);
+        reused.setFlagged(0, true);
+        reused.setRevealed(reused.size() - 1);
+        generate(reused, 2, 4);
+        PackedBoard fresh = generate(new PackedBoard(ROWS, COLUMNS), 2, 1);
+        assertSameCells(fresh, reused);
+    }
+
+    @Test
+    public void testLayoutDependsOnSeed() {
+        PackedBoard first = generate(new PackedBoard(ROWS, COLUMNS), 1, 1);
+        PackedBoard second = generate(new PackedBoard(ROWS, COLUMNS), 2, 1);
+        int different = 0;
+        for (int i = 0; i < first.size(); i++) {
+            if (first.isMine(i) != second.isMine(i)) {
+                different++;
+            }
+        }
+        assertTrue(different > MINES / 2);
+    }
+
+    @Test
+    public void testHypergeometricShares() {
+        SplittableRandom rng = new SplittableRandom(3);
+        // The exact draw, both halves of the symmetry, and the normal
+        // approximation.
+        long[][] cases = {
+            {1000, 100, 300}, {1000, 900, 300}, {1000, 100, 800}, {1 << 24, 1 << 22, 1 << 20}
+        };
+        for (long[] c : cases) {
+            long total = c[0];
+            long mines = c[1];
+            long n = c[2];
+            double sum = 0;
+            int samples = 2000;
+            for (int k = 0; k < samples; k++) {
+                long share = LazyBoardGenerator.hypergeometric(rng, total, mines, n);
+                assertTrue(share >= Math.max(0, n - (total - mines)));
+                assertTrue(share <= Math.min(n, mines));
+                sum += share;
+            }
+            double mean = (double) n * mines / total;
+            assertEquals(mean, sum / samples, Math.max(1, mean * 0.02));
+        }
+        assertEquals(0, LazyBoardGenerator.hypergeometric(rng, 10, 0, 5));
+        assertEquals(4, LazyBoardGenerator.hypergeometric(rng, 10, 4, 10));
+    }
+}
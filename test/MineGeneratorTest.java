@@ -0,0 +1,164 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mine placement and counting: exact mine counts at any density, the cells
+ * kept clear around a first click, seeded reproducibility, and the counting
+ * pass and single-mine updates against a plain 3x3 scan.
+ */
+public class MineGeneratorTest {
+
+    private static int countMines(PackedBoard board) {
+        int mines = 0;
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isMine(i)) {
+                mines++;
+            }
+        }
+        return mines;
+    }
+
+    // Every count on the board matches a scan of its neighbors.
+    private static void assertCountsMatchScan(PackedBoard board) {
+        for (int r = 0; r < board.getRows(); r++) {
+            for (int c = 0; c < board.getColumns(); c++) {
+                int adjacent = 0;
+                for (int nr = r - 1; nr <= r + 1; nr++) {
+                    for (int nc = c - 1; nc <= c + 1; nc++) {
+                        if ((nr != r || nc != c) && board.inBounds(nr, nc)
+                                && board.isMine(board.index(nr, nc))) {
+                            adjacent++;
+                        }
+                    }
+                }
+                assertEquals(adjacent, board.getAdjacentMines(board.index(r, c)), r + "," + c);
+            }
+        }
+    }
+
+    @Test
+    public void testExactCountAtAnyDensity() {
+        for (int mines : new int[] {0, 1, 50, 400, 479, 480}) {
+            PackedBoard board = new PackedBoard(16, 30);
+            MineGenerator.placeMines(board, mines, 7);
+            assertEquals(mines, countMines(board));
+            assertEquals(mines, board.getMineCells());
+            board.verifyCounters();
+        }
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> MineGenerator.placeMines(new PackedBoard(16, 30), 481, 7)
+        );
+    }
+
+    @Test
+    public void testSameSeedSameLayout() {
+        PackedBoard first = new PackedBoard(40, 40);
+        PackedBoard second = new PackedBoard(40, 40);
+        PackedBoard other = new PackedBoard(40, 40);
+        MineGenerator.placeMines(first, 300, 11);
+        MineGenerator.placeMines(second, 300, 11);
+        MineGenerator.placeMines(other, 300, 12);
+        boolean differs = false;
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.isMine(i), second.isMine(i));
+            differs |= first.isMine(i) != other.isMine(i);
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    public void testPlacementIsUniform() {
+        // One mine on ten cells, many times: every cell gets about a tenth.
+        int[] hits = new int[10];
+        SplittableRandom rng = new SplittableRandom(5);
+        int trials = 20000;
+        for (int t = 0; t < trials; t++) {
+            PackedBoard board = new PackedBoard(2, 5);
+            MineGenerator.placeMines(board, 3, rng);
+            for (int i = 0; i < 10; i++) {
+                if (board.isMine(i)) {
+                    hits[i]++;
+                }
+            }
+        }
+        for (int h : hits) {
+            assertEquals(trials * 3 / 10.0, h, trials * 0.02);
+        }
+    }
+
+    @Test
+    public void testFirstClickKeptClear() {
+        // The 3x3 block around the click, at the edge and in a corner too.
+        int[][] clicks = {{8, 15}, {0, 7}, {15, 29}};
+        for (int[] click : clicks) {
+            PackedBoard board = new PackedBoard(16, 30);
+            MineGenerator.placeMines(board, 99, new SplittableRandom(3), click[0], click[1]);
+            assertEquals(99, countMines(board));
+            for (int r = click[0] - 1; r <= click[0] + 1; r++) {
+                for (int c = click[1] - 1; c <= click[1] + 1; c++) {
+                    if (board.inBounds(r, c)) {
+                        assertFalse(board.isMine(board.index(r, c)));
+                    }
+                }
+            }
+        }
+        // Too dense for a clear block: only the clicked cell is kept.
+        PackedBoard dense = new PackedBoard(9, 9);
+        MineGenerator.placeMines(dense, 80, new SplittableRandom(3), 4, 4);
+        assertEquals(80, countMines(dense));
+        assertFalse(dense.isMine(dense.index(4, 4)));
+    }
+
+    @Test
+    public void testCountsMatchScan() {
+        int[][] shapes = {{1, 1}, {1, 17}, {17, 1}, {2, 2}, {16, 30}, {33, 7}};
+        long seed = 0;
+        for (int[] shape : shapes) {
+            for (double density : new double[] {0.1, 0.5, 1}) {
+                PackedBoard board = new PackedBoard(shape[0], shape[1]);
+                MineGenerator.placeMines(board, (int) (density * board.size()), seed++);
+                MineGenerator.countAdjacentMines(board);
+                assertCountsMatchScan(board);
+            }
+        }
+    }
+
+    @Test
+    public void testRowRangesCountLikeWholeBoard() {
+        PackedBoard whole = new PackedBoard(50, 23);
+        MineGenerator.placeMines(whole, 250, 9);
+        PackedBoard ranges = whole.copy();
+        MineGenerator.countAdjacentMines(whole);
+        for (int from = 0; from < 50; from += 7) {
+            MineGenerator.countAdjacentMines(ranges, from, Math.min(50, from + 7));
+        }
+        for (int i = 0; i < whole.size(); i++) {
+            assertEquals(whole.get(i), ranges.get(i));
+        }
+    }
+
+    @Test
+    public void testSingleMineUpdatesMatchRecount() {
+        Minesweeper game = new Minesweeper(BoardConfig.custom(12, 15, 30).withSeed(4), false);
+        game.playTurn(7, 6);
+        SplittableRandom rng = new SplittableRandom(4);
+        for (int k = 0; k < 200; k++) {
+            int c = rng.nextInt(15);
+            int r = rng.nextInt(12);
+            if (rng.nextBoolean()) {
+                game.setMine(c, r);
+            } else {
+                game.setNotMine(c, r);
+            }
+        }
+        PackedBoard board = game.snapshot().getBoard();
+        assertCountsMatchScan(board);
+        assertEquals(countMines(board), game.getNumMines());
+    }
+}
@@ -0,0 +1,166 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The running counters behind checkWinner and getRemainingSafeCells, under
+ * random play with the self-check on, so any move that lets them drift from
+ * the cells throws. After every move they are also compared with a scan of
+ * the cells through the getters.
+ */
+public class MinesweeperCountersTest {
+
+    // Checks every counter against the cells, mines taken from a snapshot.
+    private static void assertCountersMatchCells(Minesweeper game) {
+        PackedBoard layout = game.snapshot().getBoard();
+        int hidden = 0;
+        int hiddenSafe = 0;
+        int hiddenUnflagged = 0;
+        int flagged = 0;
+        int correct = 0;
+        for (int r = 0; r < game.getNumRows(); r++) {
+            for (int c = 0; c < game.getNumColumns(); c++) {
+                boolean mine = layout.isMine(layout.index(r, c));
+                if (game.getCellRevealed(c, r)) {
+                    continue;
+                }
+                hidden++;
+                if (!mine) {
+                    hiddenSafe++;
+                }
+                if (game.getCellFlagged(c, r)) {
+                    flagged++;
+                    if (mine) {
+                        correct++;
+                    }
+                } else {
+                    hiddenUnflagged++;
+                }
+            }
+        }
+        assertEquals(hidden, game.getUnrevealedCells());
+        assertEquals(hiddenSafe, game.getRemainingSafeCells());
+        assertEquals(flagged, game.getFlaggedCells());
+        assertEquals(correct, game.getCorrectlyFlaggedCells());
+        if (!game.getGameOver()) {
+            assertEquals(game.getNumFlags() >= 0 && hiddenUnflagged == 0, game.checkWinner());
+        }
+    }
+
+    // Plays random moves of every kind until the game ends or moves run out.
+    // Reveals step around mines, apart from one in fifty, so games last.
+    // Returns the number of moves played.
+    private static int playRandomly(Minesweeper game, long seed, int moves) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        int rows = game.getNumRows();
+        int columns = game.getNumColumns();
+        game.playTurn(columns / 2, rows / 2);
+        int k = 0;
+        for (; k < moves && !game.getGameOver(); k++) {
+            int c = rng.nextInt(columns);
+            int r = rng.nextInt(rows);
+            int kind = rng.nextInt(10);
+            if (kind >= 7 && rng.nextInt(50) != 0
+                    && game.snapshot().getBoard().isMine(r * columns + c)) {
+                kind = 0;
+            }
+            switch (kind) {
+                case 0:
+                case 1:
+                case 2:
+                    game.placeFlag(c, r);
+                    break;
+                case 3:
+                    game.chord(c, r);
+                    break;
+                case 4:
+                    game.undo();
+                    break;
+                case 5:
+                    game.redo();
+                    break;
+                case 6:
+                    if (rng.nextBoolean()) {
+                        game.setMine(c, r);
+                    } else {
+                        game.setNotMine(c, r);
+                    }
+                    break;
+                case 7:
+                    game.revealNeighbors(r, c);
+                    break;
+                default:
+                    game.playTurn(c, r);
+                    break;
+            }
+            assertCountersMatchCells(game);
+        }
+        return k;
+    }
+
+    @Test
+    public void testRandomPlayKeepsCounters() {
+        BoardConfig[] configs = {
+            BoardConfig.BEGINNER, BoardConfig.INTERMEDIATE, BoardConfig.EXPERT,
+            BoardConfig.custom(5, 60, 100)
+        };
+        long seed = 0;
+        int played = 0;
+        for (BoardConfig config : configs) {
+            for (int game = 0; game < 8; game++) {
+                Minesweeper minesweeper = new Minesweeper(config.withSeed(seed), true);
+                minesweeper.setSelfCheck(true);
+                played += playRandomly(minesweeper, seed++, 300);
+            }
+        }
+        // Most games go on for a while.
+        assertTrue(played > 32 * 100);
+    }
+
+    @Test
+    public void testLazyBoardKeepsCounters() {
+        // Several stripes, generated as moves reach them.
+        Minesweeper game = new Minesweeper(BoardConfig.custom(700, 40, 4000).withSeed(2), false);
+        game.setSelfCheck(true);
+        assertTrue(playRandomly(game, 2, 200) > 20);
+    }
+
+    @Test
+    public void testLoadKeepsCounters() {
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT.withSeed(6), false);
+        playRandomly(game, 6, 100);
+        Minesweeper loaded = new Minesweeper(BoardConfig.BEGINNER, false);
+        loaded.setSelfCheck(true);
+        loaded.load(game.snapshot());
+        assertCountersMatchCells(loaded);
+        assertEquals(game.getRemainingSafeCells(), loaded.getRemainingSafeCells());
+    }
+
+    @Test
+    public void testWinNeedsSafeCellsAndFlags() {
+        Minesweeper game = new Minesweeper(BoardConfig.BEGINNER.withSeed(3), false);
+        game.setSelfCheck(true);
+        game.playTurn(4, 4);
+        PackedBoard layout = game.snapshot().getBoard();
+        for (int i = 0; i < layout.size(); i++) {
+            if (!layout.isMine(i)) {
+                game.playTurn(i % 9, i / 9);
+            }
+        }
+        assertEquals(0, game.getRemainingSafeCells());
+        assertFalse(game.checkWinner());
+        for (int i = 0; i < layout.size(); i++) {
+            if (layout.isMine(i)) {
+                assertFalse(game.checkWinner());
+                game.placeFlag(i % 9, i / 9);
+            }
+        }
+        assertEquals(game.getNumMines(), game.getCorrectlyFlaggedCells());
+        assertTrue(game.checkWinner());
+        assertTrue(game.getGameOver());
+    }
+}
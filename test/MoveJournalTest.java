@@ -0,0 +1,217 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Journal replay: a game played again from its journal, in memory or read
+ * back from a streamed file, has to end up exactly where the original did.
+ */
+public class MoveJournalTest {
+
+    private static final int ROWS = 30;
+    private static final int COLUMNS = 30;
+    private static final int MINES = 100;
+
+    @TempDir
+    Path dir;
+
+    private static Minesweeper newGame() {
+        return new Minesweeper(BoardConfig.custom(ROWS, COLUMNS, MINES).withSeed(7));
+    }
+
+    // The first hidden cell, mine or not, after the first click.
+    private static int hiddenCell(Minesweeper game, boolean mine) {
+        PackedBoard board = game.snapshot().getBoard();
+        for (int i = 0; i < board.size(); i++) {
+            if (!board.isRevealed(i) && !board.isFlagged(i) && board.isMine(i) == mine) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No such cell");
+    }
+
+    private static void assertSameGame(Minesweeper expected, Minesweeper actual) {
+        assertEquals(expected.getNumFlags(), actual.getNumFlags());
+        assertEquals(expected.getGameOver(), actual.getGameOver());
+        assertEquals(expected.getRemainingSafeCells(), actual.getRemainingSafeCells());
+        assertEquals(expected.canUndo(), actual.canUndo());
+        assertEquals(expected.canRedo(), actual.canRedo());
+        assertSameCells(expected, actual);
+    }
+
+    private static void assertSameCells(Minesweeper expected, Minesweeper actual) {
+        for (int r = 0; r < expected.getNumRows(); r++) {
+            for (int c = 0; c < expected.getNumColumns(); c++) {
+                String cell = "cell " + c + "," + r;
+                assertEquals(expected.getCellRevealed(c, r), actual.getCellRevealed(c, r), cell);
+                assertEquals(expected.getCellFlagged(c, r), actual.getCellFlagged(c, r), cell);
+                assertEquals(expected.getCellLost(c, r), actual.getCellLost(c, r), cell);
+            }
+        }
+    }
+
+    // Plays a few of every kind of action, undoing one at the end.
+    private static Minesweeper playedGame() {
+        Minesweeper game = newGame();
+        game.playTurn(COLUMNS / 2, ROWS / 2);
+        int mine = hiddenCell(game, true);
+        game.placeFlag(mine % COLUMNS, mine / COLUMNS);
+        int safe = hiddenCell(game, false);
+        game.playTurn(safe % COLUMNS, safe / COLUMNS);
+        // A flag on a safe cell, then revealNeighbors around it: the fill
+        // reveals the cell under the flag.
+        safe = hiddenCell(game, false);
+        game.placeFlag(safe % COLUMNS, safe / COLUMNS);
+        game.revealNeighbors(safe / COLUMNS, safe % COLUMNS);
+        safe = hiddenCell(game, false);
+        game.playTurn(safe % COLUMNS, safe / COLUMNS);
+        game.undo();
+        return game;
+    }
+
+    @Test
+    public void testReplayMatchesOriginal() {
+        Minesweeper game = playedGame();
+        Minesweeper replayed = new Minesweeper(BoardConfig.BEGINNER);
+        replayed.replay(game.getJournal());
+        assertSameGame(game, replayed);
+
+        // The history lines up too: redo and undo act the same on both.
+        assertTrue(game.redo());
+        assertTrue(replayed.redo());
+        assertSameGame(game, replayed);
+        while (game.undo()) {
+            assertTrue(replayed.undo());
+            assertSameGame(game, replayed);
+        }
+        assertFalse(replayed.canUndo());
+    }
+
+    @Test
+    public void testReplayRevealNeighborsOnFlaggedCell() {
+        Minesweeper game = newGame();
+        game.playTurn(COLUMNS / 2, ROWS / 2);
+        int safe = hiddenCell(game, false);
+        int c = safe % COLUMNS;
+        int r = safe / COLUMNS;
+        game.placeFlag(c, r);
+        game.revealNeighbors(r, c);
+        assertTrue(game.getCellRevealed(c, r));
+
+        Minesweeper replayed = newGame();
+        replayed.replay(game.getJournal());
+        assertTrue(replayed.getCellRevealed(c, r));
+        assertFalse(replayed.getCellFlagged(c, r));
+        assertSameGame(game, replayed);
+    }
+
+    @Test
+    public void testRefusedMoveKeepsRedo() throws IOException {
+        Path path = dir.resolve("status.journal");
+        Minesweeper game = newGame();
+        game.getJournal().streamTo(path);
+        game.playTurn(COLUMNS / 2, ROWS / 2);
+        int safe = hiddenCell(game, false);
+        int c = safe % COLUMNS;
+        int r = safe / COLUMNS;
+        game.playTurn(c, r);
+        assertTrue(game.undo());
+        assertTrue(game.canRedo());
+
+        // Clicking an open cell, a chord that can't fire and flagging an open
+        // cell change nothing, so what was undone can still be redone.
+        assertFalse(game.playTurn(COLUMNS / 2, ROWS / 2));
+        assertFalse(game.chord(COLUMNS / 2, ROWS / 2));
+        assertEquals(-1, game.placeFlag(COLUMNS / 2, ROWS / 2));
+        assertTrue(game.canRedo());
+        assertTrue(game.redo());
+        assertTrue(game.getCellRevealed(c, r));
+
+        // A move that does change the board replaces the redo history.
+        assertTrue(game.undo());
+        int mine = hiddenCell(game, true);
+        assertEquals(1, game.placeFlag(mine % COLUMNS, mine / COLUMNS));
+        assertFalse(game.canRedo());
+        assertTrue(game.undo());
+        assertTrue(game.redo());
+        assertTrue(game.getCellFlagged(mine % COLUMNS, mine / COLUMNS));
+        assertFalse(game.getCellRevealed(c, r));
+        game.getJournal().closeStream();
+
+        Minesweeper replayed = new Minesweeper(BoardConfig.BEGINNER);
+        replayed.replay(game.getJournal());
+        assertSameGame(game, replayed);
+        Minesweeper streamed = new Minesweeper(BoardConfig.BEGINNER);
+        streamed.replay(MoveJournal.read(path));
+        assertSameGame(game, streamed);
+    }
+
+    @Test
+    public void testReplayWithoutJournalSkipsUndoneEntries() {
+        Minesweeper game = playedGame();
+        Minesweeper replayed = new Minesweeper(BoardConfig.BEGINNER, false);
+        replayed.replay(game.getJournal());
+        assertFalse(replayed.getJournal().isRecording());
+        assertEquals(game.getNumFlags(), replayed.getNumFlags());
+        assertEquals(game.getRemainingSafeCells(), replayed.getRemainingSafeCells());
+        assertSameCells(game, replayed);
+    }
+
+    @Test
+    public void testStreamedJournalReplays() throws IOException {
+        Path path = dir.resolve("status.journal");
+        Minesweeper game = newGame();
+        // Streaming starts part way through: the entries so far are written
+        // first, the rest as they happen.
+        game.playTurn(COLUMNS / 2, ROWS / 2);
+        game.getJournal().streamTo(path);
+        int mine = hiddenCell(game, true);
+        game.placeFlag(mine % COLUMNS, mine / COLUMNS);
+        int safe = hiddenCell(game, false);
+        game.placeFlag(safe % COLUMNS, safe / COLUMNS);
+        game.revealNeighbors(safe / COLUMNS, safe % COLUMNS);
+        safe = hiddenCell(game, false);
+        game.playTurn(safe % COLUMNS, safe / COLUMNS);
+        game.undo();
+        game.getJournal().closeStream();
+
+        MoveJournal read = MoveJournal.read(path);
+        assertEquals(game.getJournal().size(), read.size());
+        assertEquals(game.getJournal().getPosition(), read.getPosition());
+        Minesweeper replayed = new Minesweeper(BoardConfig.BEGINNER);
+        replayed.replay(read);
+        assertSameGame(game, replayed);
+    }
+
+    @Test
+    public void testReplayOfLoadedGameNeedsTheSave() {
+        Minesweeper game = newGame();
+        game.playTurn(COLUMNS / 2, ROWS / 2);
+        // A loaded game plays on the save's board, so each game gets a copy.
+        BoardFile save = game.snapshot();
+        Minesweeper loaded = newGame();
+        loaded.load(game.snapshot());
+        int safe = hiddenCell(loaded, false);
+        loaded.playTurn(safe % COLUMNS, safe / COLUMNS);
+
+        Minesweeper replayed = newGame();
+        assertThrows(IllegalArgumentException.class, () -> replayed.replay(loaded.getJournal()));
+        replayed.replay(save, loaded.getJournal());
+        assertSameGame(loaded, replayed);
+    }
+
+    @Test
+    public void testStreamingNeedsARecordingJournal() {
+        Minesweeper game = new Minesweeper(BoardConfig.BEGINNER, false);
+        assertThrows(
+                IllegalStateException.class,
+                () -> game.getJournal().streamTo(dir.resolve("status.journal"))
+        );
+    }
+}
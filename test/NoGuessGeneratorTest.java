@@ -0,0 +1,128 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * No-guess generation: boards have the requested mines, a clear first click
+ * and correct counts, the solver alone clears them, one thread gives the same
+ * board for the same seed, and a game in no-guess mode plays such a board.
+ */
+public class NoGuessGeneratorTest {
+
+    // Checks the mine total, the clear block around the click and the counts.
+    private static void assertValidLayout(
+            PackedBoard layout, int mines, int firstRow, int firstColumn
+    ) {
+        int placed = 0;
+        for (int r = 0; r < layout.getRows(); r++) {
+            for (int c = 0; c < layout.getColumns(); c++) {
+                int i = layout.index(r, c);
+                if (layout.isMine(i)) {
+                    placed++;
+                    assertFalse(
+                            Math.abs(r - firstRow) <= 1 && Math.abs(c - firstColumn) <= 1,
+                            "mine next to the first click at " + r + "," + c
+                    );
+                }
+                assertFalse(layout.isRevealed(i));
+                int adjacent = 0;
+                for (int nr = r - 1; nr <= r + 1; nr++) {
+                    for (int nc = c - 1; nc <= c + 1; nc++) {
+                        if ((nr != r || nc != c) && layout.inBounds(nr, nc)
+                                && layout.isMine(layout.index(nr, nc))) {
+                            adjacent++;
+                        }
+                    }
+                }
+                assertEquals(adjacent, layout.getAdjacentMines(i), r + "," + c);
+            }
+        }
+        assertEquals(mines, placed);
+    }
+
+    @Test
+    public void testBoardsAreValidAndSolvable() {
+        int[][] clicks = {{8, 15}, {0, 0}, {15, 29}, {3, 27}};
+        long seed = 0;
+        for (int[] click : clicks) {
+            for (int k = 0; k < 3; k++) {
+                PackedBoard layout = NoGuessGenerator.generate(
+                        16, 30, 99, click[0], click[1], seed++, 1
+                );
+                assertNotNull(layout);
+                assertValidLayout(layout, 99, click[0], click[1]);
+                assertTrue(NoGuessGenerator.isSolvable(layout, click[0], click[1]));
+            }
+        }
+    }
+
+    @Test
+    public void testOneThreadIsReproducible() {
+        PackedBoard first = NoGuessGenerator.generate(16, 30, 99, 8, 15, 21, 1);
+        PackedBoard second = NoGuessGenerator.generate(16, 30, 99, 8, 15, 21, 1);
+        assertNotNull(first);
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i), second.get(i));
+        }
+    }
+
+    @Test
+    public void testSeveralThreads() {
+        for (long seed = 0; seed < 4; seed++) {
+            PackedBoard layout = NoGuessGenerator.generate(16, 30, 99, 8, 15, seed, 4);
+            assertNotNull(layout);
+            assertValidLayout(layout, 99, 8, 15);
+            assertTrue(NoGuessGenerator.isSolvable(layout, 8, 15));
+        }
+    }
+
+    @Test
+    public void testFiftyFiftyIsNotSolvable() {
+        //   X .
+        //   . .
+        // Clicking the far corner shows a 1 with three hidden neighbors.
+        PackedBoard layout = new PackedBoard(2, 2);
+        layout.setMine(0, true);
+        MineGenerator.countAdjacentMines(layout);
+        layout.recount();
+        assertFalse(NoGuessGenerator.isSolvable(layout, 1, 1));
+    }
+
+    @Test
+    public void testRejectsBadArguments() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> NoGuessGenerator.generate(9, 9, 10, 4, 4, 1, 0)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> NoGuessGenerator.generate(9, 9, 81, 4, 4, 1, 1)
+        );
+    }
+
+    @Test
+    public void testNoGuessGameIsClearedBySolver() {
+        for (long seed = 0; seed < 3; seed++) {
+            Minesweeper game = new Minesweeper(BoardConfig.EXPERT.withSeed(seed), false);
+            game.setNoGuess(true);
+            game.reset(seed);
+            // A flag placed before the first click stays, unless the opening
+            // reaches it.
+            game.placeFlag(0, 0);
+            game.playTurn(15, 8);
+            if (!game.getCellRevealed(0, 0)) {
+                assertTrue(game.getCellFlagged(0, 0));
+                game.placeFlag(0, 0);
+            }
+            Solver solver = new Solver(game);
+            int cell;
+            while ((cell = solver.hint()) >= 0) {
+                game.playTurn(cell % 30, cell / 30);
+            }
+            assertFalse(game.getGameOver());
+            assertEquals(0, game.getRemainingSafeCells());
+        }
+    }
+}
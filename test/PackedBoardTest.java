@@ -0,0 +1,129 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The packed cell byte and the running totals: every bit can be set and
+ * cleared without touching the others, the totals follow any sequence of
+ * writes as a recount would find them, and copies are independent.
+ */
+public class PackedBoardTest {
+
+    @Test
+    public void testBitsAreIndependent() {
+        PackedBoard board = new PackedBoard(1, 1);
+        board.setAdjacentMines(0, 8);
+        board.setMine(0, true);
+        board.setFlagged(0, true);
+        assertEquals(8, board.getAdjacentMines(0));
+        assertTrue(board.isMine(0));
+        assertTrue(board.isFlagged(0));
+        assertFalse(board.isRevealed(0));
+        assertFalse(board.isLost(0));
+        board.setFlagged(0, false);
+        board.setRevealed(0);
+        board.setLost(0);
+        assertEquals(
+                8 | PackedBoard.MINE | PackedBoard.REVEALED | PackedBoard.LOST, board.get(0)
+        );
+        board.setAdjacentMines(0, 3);
+        board.setMine(0, false);
+        assertEquals(3 | PackedBoard.REVEALED | PackedBoard.LOST, board.get(0));
+
+        Tile tile = board.toTile(0);
+        assertEquals(0, tile.isMine());
+        assertTrue(tile.isRevealed());
+        assertTrue(tile.isLost());
+        assertEquals(3, tile.getAdjacentMines());
+        tile.invertFlagged();
+        assertFalse(board.isFlagged(0));
+    }
+
+    @Test
+    public void testCountersFollowRandomWrites() {
+        SplittableRandom rng = new SplittableRandom(1);
+        PackedBoard board = new PackedBoard(13, 17);
+        for (int k = 0; k < 20000; k++) {
+            int i = rng.nextInt(board.size());
+            switch (rng.nextInt(5)) {
+                case 0:
+                    board.setMine(i, rng.nextBoolean());
+                    break;
+                case 1:
+                    board.setFlagged(i, rng.nextBoolean());
+                    break;
+                case 2:
+                    if (rng.nextInt(10) == 0) {
+                        board.setRevealed(i);
+                    }
+                    break;
+                case 3:
+                    board.setAdjacentMines(i, rng.nextInt(9));
+                    break;
+                default:
+                    board.set(i, rng.nextInt(256) & ~PackedBoard.REVEALED);
+                    break;
+            }
+            if (k % 100 == 0) {
+                board.verifyCounters();
+            }
+        }
+        board.verifyCounters();
+        int hidden = 0;
+        int flagged = 0;
+        int mines = 0;
+        for (int i = 0; i < board.size(); i++) {
+            hidden += board.isRevealed(i) ? 0 : 1;
+            flagged += board.isFlagged(i) ? 1 : 0;
+            mines += board.isMine(i) ? 1 : 0;
+        }
+        assertEquals(hidden, board.getHiddenCells());
+        assertEquals(flagged, board.getFlaggedCells());
+        assertEquals(mines, board.getMineCells());
+    }
+
+    @Test
+    public void testDriftIsReported() {
+        PackedBoard board = new PackedBoard(4, 4);
+        board.setMine(5, true);
+        board.cells()[6] |= PackedBoard.MINE;
+        assertThrows(IllegalStateException.class, board::verifyCounters);
+        // verifyCounters has recounted, so the board is in step again.
+        assertEquals(2, board.getMineCells());
+        board.verifyCounters();
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        PackedBoard board = new PackedBoard(5, 6);
+        board.setMine(7, true);
+        board.setFlagged(7, true);
+        PackedBoard copy = board.copy();
+        copy.verifyCounters();
+        assertEquals(1, copy.getCorrectFlags());
+        copy.setRevealed(3);
+        copy.setFlagged(7, false);
+        assertFalse(board.isRevealed(3));
+        assertTrue(board.isFlagged(7));
+        assertEquals(30, board.getHiddenCells());
+        assertEquals(29, copy.getHiddenCells());
+        assertEquals(1, board.getCorrectFlags());
+        assertEquals(0, copy.getCorrectFlags());
+    }
+
+    @Test
+    public void testIndexing() {
+        PackedBoard board = new PackedBoard(3, 7);
+        assertEquals(21, board.size());
+        assertEquals(2 * 7 + 4, board.index(2, 4));
+        assertTrue(board.inBounds(2, 6));
+        assertFalse(board.inBounds(3, 0));
+        assertFalse(board.inBounds(0, -1));
+        assertThrows(IllegalArgumentException.class, () -> new PackedBoard(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> new PackedBoard(65536, 65536));
+    }
+}
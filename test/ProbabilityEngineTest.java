@@ -0,0 +1,173 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mine probabilities against brute force: on small boards, every layout
+ * that fits the revealed numbers and the mine total is enumerated, and each
+ * hidden cell's share of them has to match the engine's probability.
+ */
+public class ProbabilityEngineTest {
+
+    private static final int ROWS = 6;
+    private static final int COLUMNS = 6;
+    private static final int MINES = 7;
+    // Positions with more hidden cells than this are skipped, to keep the
+    // enumeration small.
+    private static final int MAX_HIDDEN = 20;
+
+    /**
+     * Counts, for each hidden cell, the consistent layouts with a mine there.
+     */
+    private static final class BruteForce {
+        final Minesweeper game;
+        final List<Integer> hidden = new ArrayList<>();
+        final boolean[] mine = new boolean[ROWS * COLUMNS];
+        final long[] withMine = new long[ROWS * COLUMNS];
+        long layouts;
+
+        BruteForce(Minesweeper game) {
+            this.game = game;
+            for (int i = 0; i < ROWS * COLUMNS; i++) {
+                if (!game.getCellRevealed(i % COLUMNS, i / COLUMNS)) {
+                    hidden.add(i);
+                }
+            }
+            choose(0, MINES);
+        }
+
+        private void choose(int from, int left) {
+            if (left == 0) {
+                if (consistent()) {
+                    layouts++;
+                    for (int i : hidden) {
+                        if (mine[i]) {
+                            withMine[i]++;
+                        }
+                    }
+                }
+                return;
+            }
+            for (int k = from; k <= hidden.size() - left; k++) {
+                int i = hidden.get(k);
+                mine[i] = true;
+                choose(k + 1, left - 1);
+                mine[i] = false;
+            }
+        }
+
+        private boolean consistent() {
+            for (int r = 0; r < ROWS; r++) {
+                for (int c = 0; c < COLUMNS; c++) {
+                    if (!game.getCellRevealed(c, r)) {
+                        continue;
+                    }
+                    int around = 0;
+                    for (int nr = r - 1; nr <= r + 1; nr++) {
+                        for (int nc = c - 1; nc <= c + 1; nc++) {
+                            if (nr >= 0 && nc >= 0 && nr < ROWS && nc < COLUMNS
+                                    && mine[nr * COLUMNS + nc]) {
+                                around++;
+                            }
+                        }
+                    }
+                    if (around != game.getCellAdjacentMines(c, r)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        double probability(int i) {
+            return (double) withMine[i] / layouts;
+        }
+    }
+
+    private static void assertMatchesBruteForce(Minesweeper game, ProbabilityEngine engine) {
+        BruteForce expected = new BruteForce(game);
+        assertTrue(expected.layouts > 0);
+        Solver solver = engine.getSolver();
+        // The safest cell is picked among the cells the solver has not proven.
+        double lowest = 2;
+        for (int i : expected.hidden) {
+            int c = i % COLUMNS;
+            int r = i / COLUMNS;
+            double p = engine.probability(c, r);
+            assertEquals(expected.probability(i), p, 1e-9, "cell " + i);
+            if (!solver.isKnownSafe(c, r) && !solver.isKnownMine(c, r)) {
+                lowest = Math.min(lowest, p);
+            }
+        }
+        int safest = engine.safestCell();
+        if (lowest <= 1) {
+            assertEquals(lowest, expected.probability(safest), 1e-9);
+        } else {
+            assertEquals(-1, safest);
+        }
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        int positions = 0;
+        for (long seed = 0; seed < 300 && positions < 30; seed++) {
+            Minesweeper game = new Minesweeper(
+                    BoardConfig.custom(ROWS, COLUMNS, MINES).withSeed(seed), false
+            );
+            ProbabilityEngine engine = new ProbabilityEngine(game);
+            game.playTurn(COLUMNS / 2, ROWS / 2);
+            PackedBoard layout = game.snapshot().getBoard();
+            SplittableRandom rng = new SplittableRandom(seed);
+            // The opening, then a few more safe reveals, on the same engine.
+            for (int move = 0; move < 3 && game.getRemainingSafeCells() > 0; move++) {
+                if (game.getUnrevealedCells() <= MAX_HIDDEN) {
+                    assertMatchesBruteForce(game, engine);
+                    positions++;
+                }
+                int cell;
+                do {
+                    cell = rng.nextInt(layout.size());
+                } while (layout.isMine(cell)
+                        || game.getCellRevealed(cell % COLUMNS, cell / COLUMNS));
+                game.playTurn(cell % COLUMNS, cell / COLUMNS);
+            }
+        }
+        assertTrue(positions >= 30);
+    }
+
+    @Test
+    public void testUntouchedBoardIsUniform() {
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT.withSeed(1), false);
+        ProbabilityEngine engine = new ProbabilityEngine(game);
+        double uniform = 99.0 / (16 * 30);
+        assertEquals(uniform, engine.getInteriorProbability(), 1e-12);
+        assertEquals(uniform, engine.probability(3, 4), 1e-12);
+    }
+
+    @Test
+    public void testRevealedAndProvenCells() {
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT.withSeed(2), false);
+        ProbabilityEngine engine = new ProbabilityEngine(game);
+        game.playTurn(15, 8);
+        assertTrue(Double.isNaN(engine.probability(15, 8)));
+        Solver solver = engine.getSolver();
+        for (int r = 0; r < 16; r++) {
+            for (int c = 0; c < 30; c++) {
+                if (solver.isKnownMine(c, r)) {
+                    assertEquals(1, engine.probability(c, r));
+                } else if (solver.isKnownSafe(c, r)) {
+                    assertEquals(0, engine.probability(c, r));
+                } else if (!game.getCellRevealed(c, r)) {
+                    double p = engine.probability(c, r);
+                    assertTrue(p >= 0 && p <= 1, "cell " + c + "," + r + " at " + p);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Background saves and loads through SaveService, and the snapshots they
+ * write.
+ */
+public class SaveServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private SaveService service;
+
+    /**
+     * Queues every outcome, so a test can wait for it.
+     */
+    private static final class Outcomes implements SaveService.Listener {
+        final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+        volatile boolean failProgress;
+
+        @Override
+        public void saveProgress(int percent) {
+            if (failProgress) {
+                throw new IllegalStateException("progress listener broke");
+            }
+        }
+
+        @Override
+        public void saved(Path slot, BoardFile snapshot) {
+            results.add(slot);
+        }
+
+        @Override
+        public void loaded(Path slot, BoardFile game) {
+            results.add(game);
+        }
+
+        @Override
+        public void failed(String message, Exception cause) {
+            results.add(cause);
+        }
+
+        Object next() throws InterruptedException {
+            Object result = results.poll(30, TimeUnit.SECONDS);
+            assertNotNull(result, "no outcome");
+            return result;
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    private static Minesweeper playedGame() {
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT.withSeed(4), false);
+        game.playTurn(15, 8);
+        game.placeFlag(0, 0);
+        return game;
+    }
+
+    private static void assertSameCells(PackedBoard expected, PackedBoard actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i), "cell " + i);
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() throws InterruptedException {
+        Outcomes outcomes = new Outcomes();
+        service = new SaveService(dir, 3, outcomes);
+        BoardFile snapshot = playedGame().snapshot();
+        service.save(snapshot);
+        assertEquals(service.slot(0), outcomes.next());
+
+        service.load();
+        BoardFile loaded = (BoardFile) outcomes.next();
+        assertEquals(snapshot.getNumFlags(), loaded.getNumFlags());
+        assertSameCells(snapshot.getBoard(), loaded.getBoard());
+    }
+
+    @Test
+    public void testLoadFallsBackToOlderSlot() throws IOException, InterruptedException {
+        Outcomes outcomes = new Outcomes();
+        service = new SaveService(dir, 3, outcomes);
+        BoardFile older = playedGame().snapshot();
+        service.save(older);
+        assertEquals(service.slot(0), outcomes.next());
+        service.save(new Minesweeper(BoardConfig.BEGINNER.withSeed(1), false).snapshot());
+        assertEquals(service.slot(1), outcomes.next());
+
+        // The newer slot is damaged, so the older one is loaded.
+        Files.setLastModifiedTime(service.slot(0), FileTime.fromMillis(1_000_000));
+        Files.setLastModifiedTime(service.slot(1), FileTime.fromMillis(2_000_000));
+        Files.write(service.slot(1), new byte[] {1, 2, 3});
+        Files.setLastModifiedTime(service.slot(1), FileTime.fromMillis(2_000_000));
+        service.load();
+        BoardFile loaded = (BoardFile) outcomes.next();
+        assertSameCells(older.getBoard(), loaded.getBoard());
+    }
+
+    @Test
+    public void testRuntimeFailureIsReported() throws IOException, InterruptedException {
+        Outcomes outcomes = new Outcomes();
+        outcomes.failProgress = true;
+        service = new SaveService(dir, 3, outcomes);
+        service.save(playedGame().snapshot());
+        assertTrue(outcomes.next() instanceof IllegalStateException);
+        // Neither a slot nor the temporary file is left behind.
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testLazySnapshotMatchesGeneratedBoard() throws IOException {
+        // Several stripes; the click near the top generates only the first
+        // ones, and the snapshot generates the rest on its own copy.
+        Minesweeper game = new Minesweeper(BoardConfig.custom(1500, 300, 60000).withSeed(8), false);
+        game.playTurn(3, 3);
+        BoardFile snapshot = game.snapshot();
+        int flagRow = 1400;
+        game.placeFlag(5, flagRow);
+
+        PackedBoard copy = snapshot.getBoard();
+        copy.verifyCounters();
+        assertFalse(copy.isFlagged(flagRow * 300 + 5));
+
+        Path path = dir.resolve("full.bin");
+        game.placeFlag(5, flagRow);
+        assertEquals(1, game.save(path));
+        assertSameCells(BoardFile.read(path).getBoard(), copy);
+        assertEquals(game.getNumFlags(), snapshot.getNumFlags());
+    }
+}
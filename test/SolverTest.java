@@ -0,0 +1,178 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The constraint solver: it never calls a mine safe or a safe cell a mine,
+ * on either backend, it finds the textbook single-cell and subset
+ * deductions, and it clears boards that need no guessing on its own.
+ */
+public class SolverTest {
+
+    // A game on a board with mines at the given cells, nothing revealed.
+    private static Minesweeper gameWithMines(int rows, int columns, int... mines) {
+        PackedBoard board = new PackedBoard(rows, columns);
+        for (int i : mines) {
+            board.setMine(i, true);
+        }
+        MineGenerator.countAdjacentMines(board);
+        board.recount();
+        Minesweeper game = new Minesweeper(BoardConfig.custom(rows, columns, mines.length), false);
+        game.load(new BoardFile(mines.length, mines.length, false, 0, board));
+        return game;
+    }
+
+    // Checks every deduction the solver has made against the layout.
+    private static void assertDeductionsHold(
+            Solver solver, MinesweeperModel game, PackedBoard layout
+    ) {
+        int columns = layout.getColumns();
+        for (int cell : solver.safeCells()) {
+            assertFalse(layout.isMine(cell), "mine " + cell + " called safe");
+            assertFalse(game.getCellRevealed(cell % columns, cell / columns));
+        }
+        for (int i = 0; i < layout.size(); i++) {
+            int c = i % columns;
+            int r = i / columns;
+            if (solver.isKnownMine(c, r)) {
+                assertTrue(layout.isMine(i), "safe cell " + i + " called a mine");
+            }
+            if (solver.isKnownSafe(c, r)) {
+                assertFalse(layout.isMine(i), "mine " + i + " called safe");
+            }
+        }
+    }
+
+    // Plays a game by the solver's safe cells, checking every deduction, and
+    // reveals a random safe cell whenever it is stuck.
+    private static void playChecked(MinesweeperModel game, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        int columns = game.getNumColumns();
+        game.playTurn(columns / 2, game.getNumRows() / 2);
+        PackedBoard layout = game.snapshot().getBoard();
+        Solver solver = new Solver(game);
+        while (!game.getGameOver() && game.getRemainingSafeCells() > 0) {
+            assertDeductionsHold(solver, game, layout);
+            int cell = solver.hint();
+            if (cell < 0) {
+                do {
+                    cell = rng.nextInt(layout.size());
+                } while (layout.isMine(cell)
+                        || game.getCellRevealed(cell % columns, cell / columns));
+            }
+            assertFalse(layout.isMine(cell));
+            game.playTurn(cell % columns, cell / columns);
+        }
+        assertFalse(game.getGameOver());
+    }
+
+    @Test
+    public void testDeductionsAreSound() {
+        BoardConfig[] configs = {
+            BoardConfig.BEGINNER, BoardConfig.INTERMEDIATE, BoardConfig.EXPERT,
+            BoardConfig.custom(20, 20, 90)
+        };
+        long seed = 0;
+        for (BoardConfig config : configs) {
+            for (int k = 0; k < 5; k++) {
+                playChecked(new Minesweeper(config.withSeed(seed), false), seed);
+                seed++;
+            }
+        }
+    }
+
+    @Test
+    public void testDeductionsAreSoundOnBitboard() {
+        for (long seed = 0; seed < 5; seed++) {
+            BitboardMinesweeper game = new BitboardMinesweeper(BoardConfig.EXPERT);
+            game.reset(seed);
+            playChecked(game, seed);
+        }
+    }
+
+    @Test
+    public void testSingleCellRule() {
+        // The click opens everything but the mine in the corner, whose 1s
+        // each have that one hidden neighbor left.
+        //   X 1 .
+        //   1 1 .
+        //   . . .
+        Minesweeper game = gameWithMines(3, 3, 0);
+        game.playTurn(2, 2);
+        Solver solver = new Solver(game);
+        assertTrue(solver.isKnownMine(0, 0));
+        assertEquals(0, solver.safeCells().length);
+        assertEquals(-1, solver.hint());
+    }
+
+    @Test
+    public void testSubsetRule() {
+        // 1-2-1 along a wall: the cells above the 1s are mines and the one
+        // above the 2 is safe. Only the subset rule gets there.
+        //   X . X
+        //   1 2 1
+        Minesweeper game = gameWithMines(2, 3, 0, 2);
+        game.playTurn(0, 1);
+        game.playTurn(1, 1);
+        game.playTurn(2, 1);
+        Solver solver = new Solver(game);
+        assertTrue(solver.isKnownMine(0, 0));
+        assertTrue(solver.isKnownMine(2, 0));
+        assertTrue(solver.isKnownSafe(1, 0));
+        assertEquals(1, solver.hint());
+    }
+
+    @Test
+    public void testFiftyFiftyIsNotGuessed() {
+        // Two hidden cells and one mine between them: nothing can be proven.
+        //   X .
+        //   1 1
+        Minesweeper game = gameWithMines(2, 2, 0);
+        game.playTurn(0, 1);
+        game.playTurn(1, 1);
+        Solver solver = new Solver(game);
+        assertEquals(-1, solver.hint());
+        assertFalse(solver.isKnownMine(0, 0));
+        assertFalse(solver.isKnownMine(1, 0));
+        int guess = solver.guess(new SplittableRandom(1));
+        assertTrue(guess == 0 || guess == 1);
+    }
+
+    @Test
+    public void testFollowsNewGames() {
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT.withSeed(3), false);
+        Solver solver = new Solver(game);
+        game.playTurn(15, 8);
+        assertDeductionsHold(solver, game, game.snapshot().getBoard());
+        // A new game on the same model starts the solver over.
+        game.reset(4);
+        assertEquals(-1, solver.hint());
+        game.playTurn(15, 8);
+        assertDeductionsHold(solver, game, game.snapshot().getBoard());
+    }
+
+    @Test
+    public void testClearsNoGuessBoards() {
+        BoardConfig expert = BoardConfig.EXPERT;
+        for (long seed = 0; seed < 5; seed++) {
+            PackedBoard layout = NoGuessGenerator.generate(
+                    expert.getRows(), expert.getColumns(), expert.getMines(), 8, 15, seed, 1
+            );
+            assertNotNull(layout);
+            Minesweeper game = new Minesweeper(expert, false);
+            game.load(new BoardFile(expert.getMines(), expert.getMines(), false, seed, layout));
+            game.playTurn(15, 8);
+            Solver solver = new Solver(game);
+            int cell;
+            while ((cell = solver.hint()) >= 0) {
+                game.playTurn(cell % 30, cell / 30);
+            }
+            assertFalse(game.getGameOver());
+            assertEquals(0, game.getRemainingSafeCells());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.cis1200.minesweeper;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The delta codec: a view built from a game's deltas, directly or after a
+ * round trip through write and read, shows what the game shows.
+ */
+public class StateDeltaTest {
+
+    // The visible code of every cell of game, as observers should see it.
+    private static byte[] visible(Minesweeper game) {
+        int columns = game.getNumColumns();
+        byte[] codes = new byte[game.getNumRows() * columns];
+        for (int r = 0; r < game.getNumRows(); r++) {
+            for (int c = 0; c < columns; c++) {
+                int code;
+                if (game.getCellLost(c, r)) {
+                    code = StateDelta.LOST;
+                } else if (game.getCellRevealed(c, r)) {
+                    code = game.getCellAdjacentMines(c, r);
+                } else if (game.getCellFlagged(c, r)) {
+                    code = StateDelta.FLAGGED;
+                } else {
+                    code = StateDelta.HIDDEN;
+                }
+                codes[r * columns + c] = (byte) code;
+            }
+        }
+        return codes;
+    }
+
+    private static StateDelta roundTrip(StateDelta delta) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        delta.write(new DataOutputStream(bytes));
+        return StateDelta.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void testViewFollowsGame() throws IOException {
+        Minesweeper game = new Minesweeper(BoardConfig.custom(40, 60, 300).withSeed(3), false);
+        StateStream.Subscription subscription = game.subscribe(1024);
+        byte[] view = null;
+        byte[] copied = null;
+        SplittableRandom rng = new SplittableRandom(5);
+        long sequence = 0;
+        for (int move = 0; move < 200 && !game.getGameOver(); move++) {
+            int c = rng.nextInt(60);
+            int r = rng.nextInt(40);
+            if (move == 0 || rng.nextInt(4) != 0) {
+                game.playTurn(c, r);
+            } else {
+                game.placeFlag(c, r);
+            }
+            StateDelta delta;
+            while ((delta = subscription.poll()) != null) {
+                assertTrue(delta.getSequence() >= sequence);
+                sequence = delta.getSequence();
+                view = delta.applyTo(view);
+                StateDelta read = roundTrip(delta);
+                assertEquals(delta.getCellCount(), read.getCellCount());
+                assertEquals(delta.getRunCount(), read.getRunCount());
+                assertEquals(delta.getNumFlags(), read.getNumFlags());
+                assertEquals(delta.getGameOver(), read.getGameOver());
+                copied = read.applyTo(copied);
+                assertEquals(game.getNumFlags(), delta.getNumFlags());
+            }
+            assertArrayEquals(visible(game), view, "move " + move);
+            assertArrayEquals(view, copied);
+        }
+        subscription.close();
+    }
+
+    @Test
+    public void testNewGameSendsSnapshot() {
+        Minesweeper game = new Minesweeper(BoardConfig.EXPERT.withSeed(1), false);
+        game.playTurn(15, 8);
+        StateStream.Subscription subscription = game.subscribe(16);
+        StateDelta first = subscription.poll();
+        assertTrue(first.isSnapshot());
+        assertEquals(16 * 30, first.getCellCount());
+
+        game.reset(2);
+        StateDelta restart = subscription.poll();
+        assertTrue(restart.isSnapshot());
+        // An untouched board is one run of hidden cells.
+        assertEquals(1, restart.getRunCount());
+        byte[] view = restart.applyTo(null);
+        byte[] hidden = new byte[16 * 30];
+        Arrays.fill(hidden, (byte) StateDelta.HIDDEN);
+        assertArrayEquals(hidden, view);
+    }
+
+    @Test
+    public void testDeltaNeedsSnapshotFirst() {
+        Minesweeper game = new Minesweeper(BoardConfig.BEGINNER.withSeed(1), false);
+        StateStream.Subscription subscription = game.subscribe(16);
+        subscription.poll();
+        game.placeFlag(0, 0);
+        StateDelta delta = subscription.poll();
+        assertFalse(delta.isSnapshot());
+        assertEquals(1, delta.getCellCount());
+        assertThrows(IllegalArgumentException.class, () -> delta.applyTo(null));
+    }
+
+    @Test
+    public void testEncoderRuns() throws IOException {
+        StateDelta.Encoder encoder = new StateDelta.Encoder();
+        encoder.clear();
+        encoder.addRun(0, 5, 0);
+        encoder.add(5, 0);
+        encoder.add(7, StateDelta.FLAGGED);
+        encoder.add(8, StateDelta.FLAGGED);
+        encoder.add(20000, 3);
+        encoder.flush();
+        StateDelta delta = new StateDelta(1, true, 200, 101, 4, false, false, encoder);
+        assertEquals(9, delta.getCellCount());
+        assertEquals(3, delta.getRunCount());
+
+        byte[] view = roundTrip(delta).applyTo(null);
+        for (int i = 0; i < view.length; i++) {
+            int expected = i < 6 ? 0 : i == 7 || i == 8 ? StateDelta.FLAGGED : i == 20000 ? 3 : 0;
+            assertEquals(expected, view[i], "cell " + i);
+        }
+    }
+
+    @Test
+    public void testMalformedDeltaIsRejected() throws IOException {
+        StateDelta.Encoder encoder = new StateDelta.Encoder();
+        encoder.clear();
+        encoder.addRun(0, 4, StateDelta.HIDDEN);
+        encoder.flush();
+        StateDelta delta = new StateDelta(1, true, 2, 2, 0, false, false, encoder);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        delta.write(new DataOutputStream(bytes));
+        byte[] good = bytes.toByteArray();
+
+        // A run past the end of the board.
+        byte[] tooLong = good.clone();
+        tooLong[tooLong.length - 1] = (byte) ((4 << 4) | StateDelta.HIDDEN);
+        assertThrows(IOException.class, () -> StateDelta.read(
+                new DataInputStream(new ByteArrayInputStream(tooLong))
+        ));
+        // Cut short.
+        byte[] truncated = Arrays.copyOf(good, good.length - 1);
+        assertThrows(IOException.class, () -> StateDelta.read(
+                new DataInputStream(new ByteArrayInputStream(truncated))
+        ));
+    }
+}